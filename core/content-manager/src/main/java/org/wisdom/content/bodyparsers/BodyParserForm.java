@@ -88,7 +88,10 @@ public class BodyParserForm implements BodyParser {
             }
         }
         // 2) Path parameters
-        final Map<String, String> fromPath = context.route().getPathParametersEncoded(context.request().uri());
+        Map<String, String> fromPath = context.request().pathParameters();
+        if (fromPath == null) {
+            fromPath = context.route().getPathParametersEncoded(context.request().uri());
+        }
         for (Entry<String, String> ent : fromPath
                 .entrySet()) {
             try {
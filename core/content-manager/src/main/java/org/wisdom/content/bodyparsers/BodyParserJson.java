@@ -19,6 +19,7 @@
  */
 package org.wisdom.content.bodyparsers;
 
+import com.fasterxml.jackson.databind.JavaType;
 import com.google.common.collect.ImmutableList;
 import org.apache.felix.ipojo.annotations.Component;
 import org.apache.felix.ipojo.annotations.Instantiate;
@@ -32,7 +33,10 @@ import org.wisdom.api.http.Context;
 import org.wisdom.api.http.MimeTypes;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.lang.reflect.Type;
+import java.nio.charset.Charset;
 import java.util.List;
 
 /**
@@ -72,16 +76,18 @@ public class BodyParserJson implements BodyParser {
      */
     public <T> T invoke(Context context, Class<T> classOfT, Type genericType) {
         T t = null;
-        try {
-            final String content = context.body();
-            if (content == null || content.length() == 0) {
+        // The bytes are parsed directly, Jackson detects the Unicode encodings.
+        try (InputStream content = BodyStreams.open(context)) {
+            if (content == null) {
                 return null;
             }
-            if (genericType != null) {
-                t = json.mapper().readValue(content,
-                        json.mapper().constructType(genericType));
+            JavaType type = genericType != null ? json.mapper().constructType(genericType)
+                    : json.mapper().constructType(classOfT);
+            Charset charset = BodyStreams.charset(context);
+            if (charset == null) {
+                t = json.mapper().readValue(content, type);
             } else {
-                t = json.mapper().readValue(content, classOfT);
+                t = json.mapper().readValue(new InputStreamReader(content, charset), type);
             }
         } catch (IOException e) {
             LOGGER.error(ERROR, e);
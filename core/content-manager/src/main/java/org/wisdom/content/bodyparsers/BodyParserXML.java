@@ -19,6 +19,7 @@
  */
 package org.wisdom.content.bodyparsers;
 
+import com.fasterxml.jackson.databind.JavaType;
 import com.google.common.collect.ImmutableList;
 import org.apache.commons.io.Charsets;
 import org.apache.commons.io.IOUtils;
@@ -36,7 +37,10 @@ import org.wisdom.api.http.MimeTypes;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.lang.reflect.Type;
+import java.nio.charset.Charset;
 import java.util.List;
 
 @Component
@@ -69,18 +73,22 @@ public class BodyParserXML implements BodyParser {
     @Override
     public <T> T invoke(Context context, Class<T> classOfT, Type genericType) {
         T t = null;
-        try {
-            final String content = context.body();
-            if (content == null || content.length() == 0) {
+        // The bytes are parsed directly, the XML parser detects the encoding from the prolog, unless the request
+        // declares a non-Unicode charset.
+        try (InputStream content = BodyStreams.open(context)) {
+            if (content == null) {
                 return null;
             }
+            Charset charset = BodyStreams.charset(context);
             if (classOfT.equals(Document.class)) {
-                return (T) parseXMLDocument(content.getBytes(Charsets.UTF_8));
+                return (T) xml.fromInputStream(content, charset);
             }
-            if (genericType != null) {
-                t = xml.xmlMapper().readValue(content, xml.xmlMapper().constructType(genericType));
+            JavaType type = genericType != null ? xml.xmlMapper().constructType(genericType)
+                    : xml.xmlMapper().constructType(classOfT);
+            if (charset == null) {
+                t = xml.xmlMapper().readValue(content, type);
             } else {
-                t = xml.xmlMapper().readValue(content, classOfT);
+                t = xml.xmlMapper().readValue(new InputStreamReader(content, charset), type);
             }
         } catch (IOException e) {
             LOGGER.error(ERROR, e);
@@ -0,0 +1,83 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.content.bodyparsers;
+
+import org.wisdom.api.http.Context;
+import org.wisdom.api.http.Request;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Gives the body parsers access to the raw request body, so they parse the bytes as received instead of a decoded
+ * copy of the body.
+ */
+final class BodyStreams {
+
+    private BodyStreams() {
+        // Avoid direct instantiation.
+    }
+
+    /**
+     * Opens the body of the request.
+     *
+     * @param context the context
+     * @return the stream, {@code null} if the request has no body or an empty body
+     * @throws IOException if the body cannot be read
+     */
+    static InputStream open(Context context) throws IOException {
+        InputStream stream = context.stream();
+        if (stream == null) {
+            return null;
+        }
+        PushbackInputStream in = new PushbackInputStream(stream, 1);
+        int first = in.read();
+        if (first == -1) {
+            return null;
+        }
+        in.unread(first);
+        return in;
+    }
+
+    /**
+     * Gets the charset that must be used to decode the body. Parsers detect the Unicode encodings by themselves, so
+     * the body only needs to be decoded when the request declares another charset.
+     *
+     * @param context the context
+     * @return the charset, {@code null} if the parser can read the bytes directly
+     */
+    static Charset charset(Context context) {
+        Request request = context.request();
+        if (request == null) {
+            return null;
+        }
+        try {
+            Charset charset = request.contentCharset();
+            if (charset == null || charset.name().startsWith("UTF-")) {
+                return null;
+            }
+            return charset;
+        } catch (IllegalArgumentException e) { //NOSONAR invalid or unsupported charset, let the parser detect it.
+            return null;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.content.engines;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.net.MediaType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wisdom.api.content.BodyParser;
+import org.wisdom.api.content.ContentSerializer;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An immutable index of the body parsers and content serializers, keyed by media type. The index is built when
+ * parsers and serializers come and go, so the lookups do not scan the services nor parse their media types.
+ * <p>
+ * The parsers and serializers are looked up using the given media type, then using the normalized media type
+ * (lower case, without parameters). Parsers are also looked up using the structured syntax suffix ({@code
+ * application/vnd.api+json} is parsed as {@code application/json}), and using the wildcards they declare
+ * ({@code text/*}, {@code *}{@code /*}). When several services handle the same media type, the first registered one
+ * is selected. The results of these fallbacks are cached.
+ * <p>
+ * This class is thread-safe.
+ */
+final class ContentIndex {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ContentIndex.class);
+
+    /**
+     * The maximum number of cached fallback lookups. Once reached, the cache is cleared.
+     */
+    private static final int MAX_CACHED_TYPES = 256;
+
+    /**
+     * The empty index.
+     */
+    static final ContentIndex EMPTY = new ContentIndex(Collections.<BodyParser>emptyList(),
+            Collections.<ContentSerializer>emptyList());
+
+    /**
+     * The parsers, by declared and normalized media type.
+     */
+    private final Map<String, BodyParser> parsers;
+
+    /**
+     * The serializers, by declared and normalized media type.
+     */
+    private final Map<String, ContentSerializer> serializers;
+
+    /**
+     * The serializers, by media range they belong to ({@code type/subtype}, {@code type/*} and {@code *}{@code /*}).
+     */
+    private final Map<String, ContentSerializer> ranges;
+
+    private final Map<String, Optional<BodyParser>> resolvedParsers = new ConcurrentHashMap<>();
+
+    private final Map<String, Optional<ContentSerializer>> resolvedSerializers = new ConcurrentHashMap<>();
+
+    /**
+     * Builds the index.
+     *
+     * @param parsers     the parsers, in registration order
+     * @param serializers the serializers, in registration order
+     */
+    ContentIndex(Collection<BodyParser> parsers, Collection<ContentSerializer> serializers) {
+        Map<String, BodyParser> parserIndex = new LinkedHashMap<>();
+        for (BodyParser parser : parsers) {
+            for (String type : parser.getContentTypes()) {
+                if (type != null) {
+                    parserIndex.putIfAbsent(type, parser);
+                }
+            }
+        }
+        // The normalized types come after the declared ones, so they do not override them.
+        for (BodyParser parser : parsers) {
+            for (String type : parser.getContentTypes()) {
+                if (type != null) {
+                    parserIndex.putIfAbsent(normalize(type), parser);
+                }
+            }
+        }
+
+        Map<String, ContentSerializer> serializerIndex = new LinkedHashMap<>();
+        Map<String, ContentSerializer> rangeIndex = new LinkedHashMap<>();
+        for (ContentSerializer serializer : serializers) {
+            String type = serializer.getContentType();
+            if (type == null) {
+                continue;
+            }
+            serializerIndex.putIfAbsent(type, serializer);
+            try {
+                MediaType parsed = MediaType.parse(type);
+                rangeIndex.putIfAbsent(parsed.type() + "/" + parsed.subtype(), serializer);
+                rangeIndex.putIfAbsent(parsed.type() + "/*", serializer);
+                rangeIndex.putIfAbsent("*/*", serializer);
+            } catch (IllegalArgumentException e) {
+                LOGGER.warn("The serializer {} declares an invalid content type: {}", serializer, type);
+            }
+        }
+        for (ContentSerializer serializer : serializers) {
+            if (serializer.getContentType() != null) {
+                serializerIndex.putIfAbsent(normalize(serializer.getContentType()), serializer);
+            }
+        }
+
+        this.parsers = ImmutableMap.copyOf(parserIndex);
+        this.serializers = ImmutableMap.copyOf(serializerIndex);
+        this.ranges = ImmutableMap.copyOf(rangeIndex);
+    }
+
+    /**
+     * Gets the parser handling the given content type.
+     *
+     * @param contentType the content type, may be {@code null}
+     * @return the parser, {@code null} if none
+     */
+    BodyParser getParser(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        BodyParser parser = parsers.get(contentType);
+        if (parser != null) {
+            return parser;
+        }
+        Optional<BodyParser> resolved = resolvedParsers.get(contentType);
+        if (resolved == null) {
+            resolved = Optional.ofNullable(lookupParser(contentType));
+            cache(resolvedParsers, contentType, resolved);
+        }
+        return resolved.orElse(null);
+    }
+
+    private BodyParser lookupParser(String contentType) {
+        String normalized = normalize(contentType);
+        BodyParser parser = parsers.get(normalized);
+        if (parser != null) {
+            return parser;
+        }
+        int slash = normalized.indexOf('/');
+        if (slash == -1) {
+            return parsers.get("*/*");
+        }
+        String type = normalized.substring(0, slash);
+        int plus = normalized.lastIndexOf('+');
+        if (plus > slash) {
+            // Structured syntax suffix, such as application/vnd.api+json.
+            String suffix = normalized.substring(plus + 1);
+            parser = parsers.get(type + "/" + suffix);
+            if (parser == null) {
+                parser = parsers.get("application/" + suffix);
+            }
+            if (parser != null) {
+                return parser;
+            }
+        }
+        parser = parsers.get(type + "/*");
+        if (parser != null) {
+            return parser;
+        }
+        return parsers.get("*/*");
+    }
+
+    /**
+     * Gets the serializer producing the given content type. Parameters and case are ignored.
+     *
+     * @param contentType the content type, may be {@code null}
+     * @return the serializer, {@code null} if none
+     */
+    ContentSerializer getSerializer(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        ContentSerializer serializer = serializers.get(contentType);
+        if (serializer != null) {
+            return serializer;
+        }
+        Optional<ContentSerializer> resolved = resolvedSerializers.get(contentType);
+        if (resolved == null) {
+            resolved = Optional.ofNullable(serializers.get(normalize(contentType)));
+            cache(resolvedSerializers, contentType, resolved);
+        }
+        return resolved.orElse(null);
+    }
+
+    /**
+     * Gets the first serializer producing a type belonging to the given media range.
+     *
+     * @param range the media range, its parameters are ignored
+     * @return the serializer, {@code null} if none
+     */
+    ContentSerializer getSerializer(MediaType range) {
+        return ranges.get(range.type() + "/" + range.subtype());
+    }
+
+    private static <T> void cache(Map<String, Optional<T>> cache, String key, Optional<T> value) {
+        if (cache.size() >= MAX_CACHED_TYPES) {
+            cache.clear();
+        }
+        cache.put(key, value);
+    }
+
+    /**
+     * Normalizes a media type: parameters are removed, and the type is set in lower case.
+     *
+     * @param type the type
+     * @return the normalized type
+     */
+    static String normalize(String type) {
+        int index = type.indexOf(';');
+        String value = index == -1 ? type : type.substring(0, index);
+        return value.trim().toLowerCase(Locale.ENGLISH);
+    }
+}
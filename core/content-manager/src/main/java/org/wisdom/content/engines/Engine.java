@@ -21,62 +21,111 @@ package org.wisdom.content.engines;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.net.MediaType;
-import org.apache.felix.ipojo.annotations.Component;
-import org.apache.felix.ipojo.annotations.Instantiate;
-import org.apache.felix.ipojo.annotations.Provides;
-import org.apache.felix.ipojo.annotations.Requires;
+import org.apache.felix.ipojo.annotations.*;
+import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wisdom.api.content.*;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
 /**
- * Content Engine.
+ * Content Engine. The parsers and serializers are indexed by media type (see {@link ContentIndex}), and the index is
+ * rebuilt when they come and go.
  */
 @Component
 @Provides
 @Instantiate(name = "ContentEngine")
 public class Engine implements ContentEngine {
 
-    @Requires(specification = BodyParser.class, optional = true)
-    List<BodyParser> parsers;
-    @Requires(specification = ContentSerializer.class, optional = true)
-    List<ContentSerializer> serializers;
+    private static final Logger LOGGER = LoggerFactory.getLogger(Engine.class);
+
+    private final List<BodyParser> parsers = new ArrayList<>();
+
+    private final List<ContentSerializer> serializers = new ArrayList<>();
+
+    private volatile ContentIndex index = ContentIndex.EMPTY;
+
+    /**
+     * Binds a body parser.
+     *
+     * @param parser the parser
+     */
+    @Bind(aggregate = true, optional = true)
+    public synchronized void bindBodyParser(BodyParser parser) {
+        parsers.add(parser);
+        refresh();
+    }
 
     /**
-     * Gets the body parser that can be used to parse a body with the given content type.
+     * Unbinds a body parser.
+     *
+     * @param parser the parser
+     */
+    @Unbind(aggregate = true)
+    public synchronized void unbindBodyParser(BodyParser parser) {
+        parsers.remove(parser);
+        refresh();
+    }
+
+    /**
+     * Binds a content serializer.
+     *
+     * @param serializer the serializer
+     */
+    @Bind(aggregate = true, optional = true)
+    public synchronized void bindContentSerializer(ContentSerializer serializer) {
+        serializers.add(serializer);
+        refresh();
+    }
+
+    /**
+     * Unbinds a content serializer.
+     *
+     * @param serializer the serializer
+     */
+    @Unbind(aggregate = true)
+    public synchronized void unbindContentSerializer(ContentSerializer serializer) {
+        serializers.remove(serializer);
+        refresh();
+    }
+
+    private void refresh() {
+        index = new ContentIndex(parsers, serializers);
+    }
+
+    /**
+     * Gets the body parser that can be used to parse a body with the given content type. Parameters and case are
+     * ignored, and parsers handling the structured syntax suffix ({@code +json}...) or a wildcard type are used when
+     * no parser handles the content type.
      *
      * @param contentType the content type
      * @return a body parser, {@code null} if none match
      */
     @Override
     public BodyParser getBodyParserEngineForContentType(String contentType) {
-        for (BodyParser parser : parsers) {
-            if (parser.getContentTypes().contains(contentType)) {
-                return parser;
-            }
+        BodyParser parser = index.getParser(contentType);
+        if (parser == null) {
+            LOGGER.info("Cannot find a body parser for " + contentType);
         }
-        LoggerFactory.getLogger(this.getClass()).info("Cannot find a body parser for " + contentType);
-        return null;
+        return parser;
     }
 
     /**
      * Gets the content serializer that can be used to serialize a result to the given content type. This method uses
-     * an exact match.
+     * an exact match, ignoring the parameters and the case.
      *
      * @param contentType the content type
      * @return a content serializer, {@code null} if none match
      */
     @Override
     public ContentSerializer getContentSerializerForContentType(String contentType) {
-        for (ContentSerializer renderer : serializers) {
-            if (renderer.getContentType().equals(contentType)) {
-                return renderer;
-            }
+        ContentSerializer serializer = index.getSerializer(contentType);
+        if (serializer == null) {
+            LOGGER.info("Cannot find a content renderer handling " + contentType);
         }
-        LoggerFactory.getLogger(this.getClass()).info("Cannot find a content renderer handling " + contentType);
-        return null;
+        return serializer;
     }
 
     /**
@@ -90,12 +139,11 @@ public class Engine implements ContentEngine {
         if (mediaTypes == null  || mediaTypes.isEmpty()) {
             mediaTypes = ImmutableList.of(MediaType.HTML_UTF_8);
         }
+        ContentIndex current = index;
         for (MediaType type : mediaTypes) {
-            for (ContentSerializer ser : serializers) {
-                MediaType mt = MediaType.parse(ser.getContentType());
-                if (mt.is(type.withoutParameters())) {
-                    return ser;
-                }
+            ContentSerializer serializer = current.getSerializer(type);
+            if (serializer != null) {
+                return serializer;
             }
         }
         return null;
@@ -469,7 +469,8 @@ public class JacksonSingleton implements JacksonModuleRepository, Json, Xml {
      * and so you must close it.
      *
      * @param stream   the input stream, must not be {@literal null}
-     * @param encoding the encoding, if {@literal null}, UTF-8 is used.
+     * @param encoding the encoding, if {@literal null}, the encoding is detected from the byte order mark and the
+     *                 XML declaration, UTF-8 being used if none.
      * @return the built document
      * @throws java.io.IOException if the given stream is not a valid XML document,
      *                             or if the given encoding is not supported.
@@ -480,9 +481,7 @@ public class JacksonSingleton implements JacksonModuleRepository, Json, Xml {
             DocumentBuilder builder = factory.newDocumentBuilder();
 
             InputSource is = new InputSource(stream);
-            if (encoding == null) {
-                is.setEncoding(Charsets.UTF_8.name());
-            } else {
+            if (encoding != null) {
                 is.setEncoding(encoding.name());
             }
 
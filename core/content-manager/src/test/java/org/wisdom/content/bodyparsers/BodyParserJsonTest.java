@@ -22,6 +22,7 @@ package org.wisdom.content.bodyparsers;
 import com.google.common.base.Charsets;
 import org.junit.Before;
 import org.junit.Test;
+import org.wisdom.api.http.HeaderNames;
 import org.wisdom.api.http.MimeTypes;
 import org.wisdom.content.jackson.JacksonSingleton;
 import org.wisdom.test.parents.FakeContext;
@@ -91,6 +92,22 @@ public class BodyParserJsonTest {
         assertThat(data.getAge()).isEqualTo(2);
     }
 
+    @Test
+    public void testParsingWithCharset() {
+        FakeContext context = new FakeContext()
+                .setHeader(HeaderNames.CONTENT_TYPE, MimeTypes.JSON + "; charset=ISO-8859-1")
+                .setBody("{\"name\":\"sébastien\",\"age\":2}");
+        Data data = parser.invoke(context, Data.class);
+        assertThat(data.getName()).isEqualTo("sébastien");
+        assertThat(data.getAge()).isEqualTo(2);
+
+        context = new FakeContext()
+                .setHeader(HeaderNames.CONTENT_TYPE, MimeTypes.JSON + "; charset=UTF-8")
+                .setBody("{\"name\":\"sébastien\",\"age\":2}");
+        data = parser.invoke(context, Data.class);
+        assertThat(data.getName()).isEqualTo("sébastien");
+    }
+
     @Test
     public void testNullAndEmpty() throws NoSuchFieldException {
         Type type = this.getClass().getDeclaredField("tmp").getGenericType();
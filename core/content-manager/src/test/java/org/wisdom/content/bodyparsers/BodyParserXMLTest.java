@@ -21,15 +21,22 @@ package org.wisdom.content.bodyparsers;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.w3c.dom.Document;
+import org.wisdom.api.http.Context;
 import org.wisdom.api.http.MimeTypes;
+import org.wisdom.api.http.Request;
 import org.wisdom.content.jackson.JacksonSingleton;
 import org.wisdom.test.parents.FakeContext;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 /**
  * Check the XML parsing.
@@ -107,4 +114,18 @@ public class BodyParserXMLTest {
         assertThat(parser.invoke(context, Data.class)).isNull();
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testDocumentEncodingDetectedFromTheProlog() throws IOException {
+        // The request does not declare a charset, the prolog does.
+        byte[] body = ("<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?>" +
+                "<data><name>caf\u00e9</name></data>").getBytes(StandardCharsets.ISO_8859_1);
+        Request request = mock(Request.class);
+        Context context = mock(Context.class);
+        when(context.request()).thenReturn(request);
+        when(context.stream()).thenReturn(new ByteArrayInputStream(body));
+
+        Document document = parser.invoke(context, Document.class);
+        assertThat(document.getElementsByTagName("name").item(0).getTextContent()).isEqualTo("caf\u00e9");
+    }
+
+}
@@ -0,0 +1,149 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.content.bodyparsers;
+
+import com.fasterxml.jackson.databind.JavaType;
+import org.junit.Before;
+import org.junit.Test;
+import org.wisdom.content.jackson.JacksonSingleton;
+import org.wisdom.test.parents.FakeContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the allocations and the latency of the JSON parsing from the raw body with the parsing from the body
+ * decoded into a String.
+ */
+public class BodyParsingBenchmarkTest {
+
+    /**
+     * This field is used to retrieve the Type.
+     */
+    List<Data> tmp;
+
+    private JacksonSingleton json;
+    private BodyParserJson parser;
+    private Type type;
+
+    @Before
+    public void setUp() throws NoSuchFieldException {
+        json = new JacksonSingleton();
+        json.validate();
+        parser = new BodyParserJson();
+        parser.json = json;
+        type = this.getClass().getDeclaredField("tmp").getGenericType();
+    }
+
+    @Test
+    public void testSmallBody() throws IOException {
+        compare(10 * 1024, 2000, 10000);
+    }
+
+    @Test
+    public void testLargeBody() throws IOException {
+        compare(5 * 1024 * 1024, 5, 10);
+    }
+
+    private void compare(int size, int warmup, int iterations) throws IOException {
+        RawContext context = new RawContext(payload(size));
+        JavaType javaType = json.mapper().constructType(type);
+
+        for (int i = 0; i < warmup; i++) {
+            legacy(context, javaType);
+            parser.invoke(context, List.class, type);
+        }
+
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        bean.setThreadAllocatedMemoryEnabled(true);
+        long tid = Thread.currentThread().getId();
+
+        long before = bean.getThreadAllocatedBytes(tid);
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            assertThat(legacy(context, javaType)).isNotEmpty();
+        }
+        long legacyTime = (System.nanoTime() - start) / iterations;
+        long legacyBytes = (bean.getThreadAllocatedBytes(tid) - before) / iterations;
+
+        before = bean.getThreadAllocatedBytes(tid);
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            List<Data> list = parser.invoke(context, List.class, type);
+            assertThat(list).isNotEmpty();
+        }
+        long streamTime = (System.nanoTime() - start) / iterations;
+        long streamBytes = (bean.getThreadAllocatedBytes(tid) - before) / iterations;
+
+        System.out.println("Parsing a " + context.bytes.length + " bytes JSON body: "
+                + legacyBytes + " bytes / " + legacyTime / 1000 + " us from the String, "
+                + streamBytes + " bytes / " + streamTime / 1000 + " us from the raw body");
+        // The String copy of the body is no more allocated.
+        assertThat(streamBytes).isLessThan(legacyBytes - context.bytes.length);
+    }
+
+    private List<Data> legacy(RawContext context, JavaType javaType) throws IOException {
+        return json.mapper().readValue(context.body(), javaType);
+    }
+
+    private static byte[] payload(int size) {
+        StringBuilder builder = new StringBuilder("[");
+        int i = 0;
+        while (builder.length() < size) {
+            if (i > 0) {
+                builder.append(",");
+            }
+            builder.append("{\"name\":\"wisdom-").append(i)
+                    .append("\",\"friends\":[\"clement\",\"jonathan\",\"sébastien\"],\"age\":").append(i)
+                    .append("}");
+            i++;
+        }
+        return builder.append("]").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A context holding the body as received, and decoding it on {@link #body()} as the Vert.x context does.
+     */
+    private static class RawContext extends FakeContext {
+
+        private final byte[] bytes;
+
+        RawContext(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public String body() {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public InputStream stream() {
+            return new ByteArrayInputStream(bytes);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.content.engines;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.net.MediaType;
+import org.junit.Test;
+import org.wisdom.api.content.BodyParser;
+import org.wisdom.api.content.ContentSerializer;
+import org.wisdom.api.http.Context;
+import org.wisdom.api.http.MimeTypes;
+import org.wisdom.api.http.Renderable;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the lookup of serializers and parsers using the index of the {@link Engine} with the former linear scan,
+ * with 15 registered serializers.
+ */
+public class ContentLookupBenchmarkTest {
+
+    private static final int WARMUP = 20000;
+    private static final int ITERATIONS = 100000;
+
+    private static final String[] TYPES = {
+            "text/plain", "text/css", "text/csv", "text/xml", "application/javascript", "application/pdf",
+            "application/xml", "application/x-yaml", "application/msgpack", "application/cbor", "image/png",
+            "image/svg+xml", "application/octet-stream", "text/html", MimeTypes.JSON
+    };
+
+    private final List<ContentSerializer> serializers = new ArrayList<>();
+    private final List<BodyParser> parsers = new ArrayList<>();
+    private final Engine engine = new Engine();
+
+    @Test
+    public void testIndexVersusLinearScan() {
+        for (String type : TYPES) {
+            ContentSerializer serializer = new FakeSerializer(type);
+            serializers.add(serializer);
+            engine.bindContentSerializer(serializer);
+            BodyParser parser = new FakeParser(type);
+            parsers.add(parser);
+            engine.bindBodyParser(parser);
+        }
+        // A JSON request accepting the usual types of browsers and HTTP clients.
+        Collection<MediaType> accept = ImmutableList.of(MediaType.parse(MimeTypes.JSON),
+                MediaType.parse("text/*"), MediaType.ANY_TYPE);
+
+        assertThat(scan(accept)).isSameAs(engine.getBestSerializer(accept));
+        assertThat(scanParser(MimeTypes.JSON)).isSameAs(engine.getBodyParserEngineForContentType(MimeTypes.JSON));
+
+        for (int i = 0; i < WARMUP; i++) {
+            scan(accept);
+            engine.getBestSerializer(accept);
+            scanParser(MimeTypes.JSON);
+            engine.getBodyParserEngineForContentType(MimeTypes.JSON);
+        }
+        Object sink = null;
+        long begin = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink = scan(accept);
+            sink = scanParser(MimeTypes.JSON);
+        }
+        long linear = System.nanoTime() - begin;
+        begin = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink = engine.getBestSerializer(accept);
+            sink = engine.getBodyParserEngineForContentType(MimeTypes.JSON);
+        }
+        long indexed = System.nanoTime() - begin;
+        assertThat(sink).isNotNull();
+        System.out.println("Serializer and parser lookup with " + TYPES.length + " serializers - linear scan: "
+                + linear / ITERATIONS + " ns, index: " + indexed / ITERATIONS + " ns");
+        assertThat(indexed).isLessThan(linear);
+    }
+
+    /**
+     * The lookups made by the engine before the index.
+     */
+    private ContentSerializer scan(Collection<MediaType> mediaTypes) {
+        for (MediaType type : mediaTypes) {
+            for (ContentSerializer ser : serializers) {
+                MediaType mt = MediaType.parse(ser.getContentType());
+                if (mt.is(type.withoutParameters())) {
+                    return ser;
+                }
+            }
+        }
+        return null;
+    }
+
+    private BodyParser scanParser(String contentType) {
+        for (BodyParser parser : parsers) {
+            if (parser.getContentTypes().contains(contentType)) {
+                return parser;
+            }
+        }
+        return null;
+    }
+
+    private static class FakeSerializer implements ContentSerializer {
+
+        private final String type;
+
+        private FakeSerializer(String type) {
+            this.type = type;
+        }
+
+        @Override
+        public String getContentType() {
+            return type;
+        }
+
+        @Override
+        public void serialize(Renderable<?> renderable) {
+            // Not used.
+        }
+    }
+
+    private static class FakeParser implements BodyParser {
+
+        private final String type;
+
+        private FakeParser(String type) {
+            this.type = type;
+        }
+
+        @Override
+        public <T> T invoke(Context context, Class<T> classOfT) {
+            return null;
+        }
+
+        @Override
+        public <T> T invoke(Context context, Class<T> classOfT, Type genericType) {
+            return null;
+        }
+
+        @Override
+        public <T> T invoke(byte[] bytes, Class<T> classOfT) {
+            return null;
+        }
+
+        @Override
+        public List<String> getContentTypes() {
+            return Collections.singletonList(type);
+        }
+    }
+}
@@ -24,6 +24,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.net.MediaType;
 import org.junit.Before;
 import org.junit.Test;
+import org.wisdom.api.content.BodyParser;
 import org.wisdom.api.http.MimeTypes;
 import org.wisdom.content.serializers.JSONSerializer;
 import org.wisdom.content.serializers.XMLSerializer;
@@ -31,6 +32,8 @@ import org.wisdom.content.serializers.XMLSerializer;
 import java.util.*;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 
 public class EngineTest {
@@ -42,9 +45,8 @@ public class EngineTest {
 
     @Before
     public void setUp() {
-        engine.serializers = ImmutableList.of(
-                json, xml
-        );
+        engine.bindContentSerializer(json);
+        engine.bindContentSerializer(xml);
     }
 
     @Test
@@ -94,6 +96,53 @@ public class EngineTest {
 
     }
 
+    @Test
+    public void testNormalizedContentTypes() throws Exception {
+        assertThat(engine.getContentSerializerForContentType("Application/JSON; charset=utf-8")).isEqualTo(json);
+        assertThat(engine.getContentSerializerForContentType("application/vnd.api+json")).isNull();
+    }
+
+    @Test
+    public void testGetBodyParserEngineForContentType() throws Exception {
+        BodyParser jsonParser = parser(MimeTypes.JSON);
+        BodyParser textParser = parser("text/*");
+        BodyParser other = parser(MimeTypes.JSON, MimeTypes.XML);
+        engine.bindBodyParser(jsonParser);
+        engine.bindBodyParser(textParser);
+        engine.bindBodyParser(other);
+
+        assertThat(engine.getBodyParserEngineForContentType(null)).isNull();
+        assertThat(engine.getBodyParserEngineForContentType(MimeTypes.JSON)).isEqualTo(jsonParser);
+        assertThat(engine.getBodyParserEngineForContentType(MimeTypes.XML)).isEqualTo(other);
+        assertThat(engine.getBodyParserEngineForContentType("application/json; charset=utf-8"))
+                .isEqualTo(jsonParser);
+        // Fallbacks.
+        assertThat(engine.getBodyParserEngineForContentType("application/vnd.api+json")).isEqualTo(jsonParser);
+        assertThat(engine.getBodyParserEngineForContentType("image/svg+xml")).isEqualTo(other);
+        assertThat(engine.getBodyParserEngineForContentType("text/csv")).isEqualTo(textParser);
+        assertThat(engine.getBodyParserEngineForContentType("image/png")).isNull();
+
+        // The index is rebuilt when the parsers leave.
+        engine.unbindBodyParser(jsonParser);
+        assertThat(engine.getBodyParserEngineForContentType(MimeTypes.JSON)).isEqualTo(other);
+        assertThat(engine.getBodyParserEngineForContentType("application/vnd.api+json")).isEqualTo(other);
+        engine.unbindBodyParser(textParser);
+        assertThat(engine.getBodyParserEngineForContentType("text/csv")).isNull();
+    }
+
+    @Test
+    public void testSerializersLeaving() throws Exception {
+        engine.unbindContentSerializer(json);
+        assertThat(engine.getContentSerializerForContentType(MimeTypes.JSON)).isNull();
+        assertThat(engine.getBestSerializer(mediaTypes("*/*"))).isEqualTo(xml);
+    }
+
+    private BodyParser parser(String... types) {
+        BodyParser parser = mock(BodyParser.class);
+        when(parser.getContentTypes()).thenReturn(Arrays.asList(types));
+        return parser;
+    }
+
     @Test
     public void testMediaType() throws Exception {
         String accept = "text/*;q=0.3, text/html;q=0.7, text/html;level=1, text/html;level=2;q=0.4, */*;q=0.5";
@@ -0,0 +1,186 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.router;
+
+import org.wisdom.api.annotations.MaxConcurrency;
+import org.wisdom.api.http.HeaderNames;
+import org.wisdom.api.http.MimeTypes;
+import org.wisdom.api.http.Result;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits the number of concurrent invocations of a route, as configured by the
+ * {@link org.wisdom.api.annotations.MaxConcurrency} annotation. The slots and the queue are managed with atomic
+ * counters and a non-blocking queue, so the requests are never serialized on a lock.
+ * <p>
+ * A released slot is handed over to the oldest waiting request, if any. Waiting requests do not hold a thread, and
+ * are given up by the {@link GateTimer} once the timeout is elapsed.
+ */
+public class Bulkhead implements Gate {
+
+    private final int max;
+
+    private final int queue;
+
+    private final long timeout;
+
+    private final int status;
+
+    private final AtomicInteger active = new AtomicInteger();
+
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    private final Queue<CompletableFuture<Void>> waiters = new ConcurrentLinkedQueue<>();
+
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Creates the bulkhead from the given annotation.
+     *
+     * @param configuration the annotation
+     */
+    public Bulkhead(MaxConcurrency configuration) {
+        this(configuration.value(), configuration.queue(), configuration.timeout(), configuration.status());
+    }
+
+    /**
+     * Creates the bulkhead.
+     *
+     * @param max     the maximum number of concurrent invocations, must be strictly positive
+     * @param queue   the maximum number of waiting requests
+     * @param timeout how long a request waits for a slot, in milliseconds
+     * @param status  the status sent to rejected requests
+     */
+    public Bulkhead(int max, int queue, long timeout, int status) {
+        if (max <= 0) {
+            throw new IllegalArgumentException("The maximum number of concurrent invocations must be strictly "
+                    + "positive");
+        }
+        this.max = max;
+        this.queue = Math.max(0, queue);
+        this.timeout = timeout;
+        this.status = status;
+    }
+
+    /**
+     * Tries to get a slot, without waiting.
+     *
+     * @return {@code true} if a slot has been acquired, and so must be released
+     */
+    @Override
+    public boolean tryAcquire() {
+        while (true) {
+            int current = active.get();
+            if (current >= max) {
+                return false;
+            }
+            if (active.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Enqueues a request waiting for a slot.
+     *
+     * @return the future completed once a slot has been handed over to the request, or cancelled once the request
+     * has waited too long, {@code null} if the queue is full
+     */
+    @Override
+    public CompletableFuture<Void> enqueue() {
+        if (waiting.incrementAndGet() > queue) {
+            waiting.decrementAndGet();
+            return null;
+        }
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        waiters.add(future);
+        GateTimer.expire(future, timeout, () -> {
+            // The request gives up, unless the slot has been handed over in the meantime (its future has then been
+            // removed from the queue).
+            if (waiters.remove(future)) {
+                waiting.decrementAndGet();
+                future.cancel(false);
+            }
+        });
+        // A slot may have been released before the request was enqueued.
+        handOver();
+        return future;
+    }
+
+    /**
+     * Releases a slot. The slot is given to a waiting request, if any.
+     */
+    @Override
+    public void release() {
+        active.decrementAndGet();
+        handOver();
+    }
+
+    private void handOver() {
+        while (!waiters.isEmpty() && tryAcquire()) {
+            CompletableFuture<Void> future = waiters.poll();
+            if (future != null && future.complete(null)) {
+                waiting.decrementAndGet();
+            } else {
+                // Nobody to give the slot to, the queue has been emptied concurrently.
+                active.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Builds the result sent to a rejected request.
+     *
+     * @return the result
+     */
+    @Override
+    public Result reject() {
+        rejected.increment();
+        return new Result(status)
+                .render("Too many concurrent requests - request rejected").as(MimeTypes.TEXT)
+                .with(HeaderNames.RETRY_AFTER, "1");
+    }
+
+    /**
+     * @return the number of invocations in progress.
+     */
+    public int getActive() {
+        return active.get();
+    }
+
+    /**
+     * @return the number of requests waiting for a slot.
+     */
+    public int getWaiting() {
+        return waiting.get();
+    }
+
+    /**
+     * @return the number of rejected requests.
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+}
@@ -28,11 +28,12 @@ import org.wisdom.api.router.RouteUtils;
 import org.wisdom.api.router.parameters.ActionParameter;
 import org.wisdom.api.router.parameters.Source;
 
+import java.io.InputStream;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
-import java.nio.charset.Charset;
+import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -187,6 +188,21 @@ public class DefaultWebSocketCallback {
     public void invoke(String uri, String client, byte[] content) throws
             InvocationTargetException,
             IllegalAccessException {
+        invoke(uri, client, content == null ? null : new WebSocketMessage(ByteBuffer.wrap(content)));
+    }
+
+    /**
+     * Invokes the callback. The message can be shared by several callbacks.
+     *
+     * @param uri     the uri
+     * @param client  the client identifier (the one having sent the message)
+     * @param message the message, {@code null} for callbacks not receiving a payload
+     * @throws InvocationTargetException when the callback throws an exception
+     * @throws IllegalAccessException    when the callback cannot be called
+     */
+    public void invoke(String uri, String client, WebSocketMessage message) throws
+            InvocationTargetException,
+            IllegalAccessException {
         Map<String, String> values = getPathParametersEncoded(uri);
         Object[] parameters = new Object[arguments.size()];
         for (int i = 0; i < arguments.size(); i++) {
@@ -200,16 +216,27 @@ public class DefaultWebSocketCallback {
                 }
             } else {
                 // Body
-                parameters[i] = transform(argument, content);
+                parameters[i] = transform(argument, message);
             }
         }
         getMethod().invoke(getController(), parameters);
     }
 
-    private Object transform(ActionParameter parameter, byte[] content) {
-        String data = new String(content, Charset.defaultCharset());
+    private Object transform(ActionParameter parameter, WebSocketMessage message) {
+        // Binary parameters receive the frame data as it is.
+        Class<?> type = parameter.getRawType();
+        if (type == ByteBuffer.class) {
+            return message.buffer();
+        }
+        if (type == InputStream.class) {
+            return message.stream();
+        }
+        if (type == byte[].class) {
+            return message.bytes();
+        }
+
         try {
-            return router.converter().convertValue(data, parameter.getRawType(), parameter.getGenericType(), null);
+            return router.converter().convertValue(message.text(), type, parameter.getGenericType(), null);
         } catch (IllegalArgumentException | NoSuchElementException e) { //NOSONAR
             // The NoSuchElementException is thrown when there are no suitable converter,
             // while the IllegalArgumentException is thrown when the conversion fails. In both case,
@@ -218,6 +245,6 @@ public class DefaultWebSocketCallback {
 
         // For all the other cases, we need a binder, however, we have no idea about the type of message,
         // for now we suppose it's json.
-        return router.engine().getBodyParserEngineForContentType(MimeTypes.JSON).invoke(content, parameter.getRawType());
+        return router.engine().getBodyParserEngineForContentType(MimeTypes.JSON).invoke(message.bytes(), type);
     }
 }
@@ -0,0 +1,62 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.router;
+
+import org.wisdom.api.http.Result;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Admission control applied by the router before invoking an action, such as a {@link Bulkhead} or a lane of the
+ * {@link TrafficScheduler}. A request either gets a slot immediately, or waits in a queue until a slot is handed over
+ * to it. Waiting requests do not hold a thread: the router returns a result completed once the slot is handed over,
+ * and the engine invokes the action at that time. Rejected requests receive the result built by {@link #reject()}.
+ */
+public interface Gate {
+
+    /**
+     * Tries to get a slot, without waiting.
+     *
+     * @return {@code true} if a slot has been acquired, and so must be released
+     */
+    boolean tryAcquire();
+
+    /**
+     * Enqueues a request waiting for a slot. The gate gives up the request if it waits too long.
+     *
+     * @return the future completed once a slot has been handed over to the request (the slot must then be
+     * released), or cancelled if the request is rejected while waiting. {@code null} if the request is rejected
+     * immediately.
+     */
+    CompletableFuture<Void> enqueue();
+
+    /**
+     * Releases a slot.
+     */
+    void release();
+
+    /**
+     * Builds the result sent to a rejected request.
+     *
+     * @return the result
+     */
+    Result reject();
+
+}
@@ -0,0 +1,62 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.router;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Expires the requests waiting for a slot of a {@link Gate}, or for the result computed for another request (see
+ * {@link org.wisdom.router.cache.CoalescingInterceptor}). Waiting requests do not hold any thread, so a single timer
+ * thread gives up the requests waiting too long. The timer tasks only update the state of the waiting requests.
+ */
+public final class GateTimer {
+
+    private static final ScheduledThreadPoolExecutor TIMER;
+
+    static {
+        TIMER = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("wisdom-gate-timer")
+                .build());
+        // Most requests get their slot before the timeout, do not keep the cancelled tasks.
+        TIMER.setRemoveOnCancelPolicy(true);
+    }
+
+    private GateTimer() {
+        // Avoid direct instantiation.
+    }
+
+    /**
+     * Calls the given action once the timeout is elapsed, unless the given future is completed before.
+     *
+     * @param future  the future of the waiting request
+     * @param timeout the timeout in milliseconds
+     * @param expire  the action giving up the request
+     */
+    public static void expire(CompletableFuture<?> future, long timeout, Runnable expire) {
+        ScheduledFuture<?> task = TIMER.schedule(expire, timeout, TimeUnit.MILLISECONDS);
+        future.whenComplete((v, e) -> task.cancel(false));
+    }
+}
@@ -21,13 +21,13 @@ package org.wisdom.router;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.common.net.MediaType;
 import org.apache.felix.ipojo.annotations.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wisdom.api.Controller;
+import org.wisdom.api.configuration.ApplicationConfiguration;
 import org.wisdom.api.content.ParameterFactories;
 import org.wisdom.api.http.HttpMethod;
 import org.wisdom.api.http.Request;
@@ -40,10 +40,7 @@ import org.wisdom.api.router.RouteUtils;
 import org.wisdom.api.router.RoutingException;
 
 import javax.validation.Validator;
-import java.io.UnsupportedEncodingException;
-import java.net.URLEncoder;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * The request router responsible for handling request and invoke the action methods.
@@ -55,31 +52,6 @@ public class RequestRouter extends AbstractRouter {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(RequestRouter.class);
 
-    private static final Map<String, String> PERCENT_ENCODING_MAP = new TreeMap<>();
-
-    static {
-        // Reserved characters.
-        PERCENT_ENCODING_MAP.put("/", "%2F");
-
-        // Common characters
-        PERCENT_ENCODING_MAP.put(" ", "%20");
-        PERCENT_ENCODING_MAP.put("\"", "%22");
-        PERCENT_ENCODING_MAP.put("%", "%25");
-        PERCENT_ENCODING_MAP.put("-", "%2D");
-        PERCENT_ENCODING_MAP.put("<", "%3C");
-        PERCENT_ENCODING_MAP.put(">", "%3E");
-        PERCENT_ENCODING_MAP.put("\\", "%5C");
-        PERCENT_ENCODING_MAP.put("ˆ", "%5E");
-        PERCENT_ENCODING_MAP.put("_", "%5F");
-        PERCENT_ENCODING_MAP.put("`", "%60");
-        PERCENT_ENCODING_MAP.put("{", "%7B");
-        PERCENT_ENCODING_MAP.put("|", "%7C");
-        PERCENT_ENCODING_MAP.put("}", "%7D");
-
-        // New line
-        PERCENT_ENCODING_MAP.put("\n", "%0A");
-    }
-
     /**
      * The comparator used to sort filters.
      */
@@ -94,8 +66,28 @@ public class RequestRouter extends AbstractRouter {
     @Requires(optional = true)
     private ParameterFactories engine;
 
+    @Requires(optional = true, nullable = false, proxy = false)
+    private ApplicationConfiguration configuration;
+
+    /**
+     * The scheduler of the routes having a traffic class, created on first use.
+     */
+    private volatile TrafficScheduler scheduler;
+
     private Set<RouteDelegate> routes = new LinkedHashSet<>();
 
+    /**
+     * An immutable snapshot of {@link #routes}, rebuilt when controllers come and go. Requests read it without
+     * locking or copying.
+     */
+    private volatile List<Route> snapshot = ImmutableList.of();
+
+    /**
+     * The URL templates of the action methods, indexed by controller class name and method name, rebuilt with
+     * {@link #snapshot}. When several routes target the same action method, the first one is used.
+     */
+    private volatile Map<String, Map<String, UrlTemplate>> reverse = Collections.emptyMap();
+
     /**
      * Binds a new controller.
      *
@@ -126,6 +118,7 @@ public class RequestRouter extends AbstractRouter {
             // remove all new routes as one has failed
             routes.removeAll(newRoutes); //NOSONAR
         }
+        refresh();
     }
 
     /**
@@ -142,6 +135,7 @@ public class RequestRouter extends AbstractRouter {
                 routes.remove(r);
             }
         }
+        refresh();
     }
 
     private void ensureNoConflicts(List<Route> newRoutes) {
@@ -217,12 +211,20 @@ public class RequestRouter extends AbstractRouter {
      * Stopping the router. All routes are cleared.
      */
     @Invalidate
-    public void stop() {
+    public synchronized void stop() {
         routes.clear();
+        refresh();
     }
 
-    private synchronized Set<Route> copy() {
-        return new LinkedHashSet<Route>(routes);
+    private void refresh() {
+        List<Route> copy = ImmutableList.<Route>copyOf(routes);
+        Map<String, Map<String, UrlTemplate>> index = new HashMap<>();
+        for (Route route : copy) {
+            index.computeIfAbsent(route.getControllerClass().getName(), k -> new HashMap<>())
+                    .putIfAbsent(route.getControllerMethod().getName(), new UrlTemplate(route.getUrl()));
+        }
+        reverse = index;
+        snapshot = copy;
     }
 
     /**
@@ -236,27 +238,61 @@ public class RequestRouter extends AbstractRouter {
     @Override
     public Route getRouteFor(HttpMethod method, String uri, Request request) {
         // Compute the list of matching routes - only the path is check in this first stage
-        List<Route> list = new ArrayList<>(1);
-        //TODO This can be faster by using an immutable list.
-        list.addAll(copy().stream()
-                .filter(route -> route.matches(method, uri))
-                .sorted((r1, r2) -> {
-                    // Exact match first.
-                    if (r1.getUrl().equalsIgnoreCase(uri)) {
-                        return -1;
-                    } else if (r2.getUrl().equalsIgnoreCase(uri)) {
-                        return 1;
-                    }
-                    // Not comparable
-                    return 0;
-                })
-                .collect(Collectors.toList()));
-
-        if (list.isEmpty()) {
+        // Most requests match a single route, so the list is only created when a second route matches.
+        // The path parameters are extracted while matching, and handed to the request when a single route matches.
+        Route first = null;
+        Map<String, String> parameters = null;
+        List<Route> list = null;
+        int exact = 0;
+        for (Route route : snapshot) {
+            Map<String, String> match = route.match(method, uri);
+            if (match == null) {
+                continue;
+            }
+            if (first == null) {
+                first = route;
+                parameters = match;
+                continue;
+            }
+            if (list == null) {
+                list = new ArrayList<>(4);
+                list.add(first);
+                if (first.getUrl().equalsIgnoreCase(uri)) {
+                    exact = 1;
+                }
+            }
+            // Exact matches first, keeping the registration order.
+            if (route.getUrl().equalsIgnoreCase(uri)) {
+                list.add(exact++, route);
+            } else {
+                list.add(route);
+            }
+        }
+
+        if (request != null) {
+            // Set below if the selected route is the single matching route, otherwise extracted on demand.
+            request.pathParameters(null);
+        }
+
+        if (first == null) {
             // Creates an unbound route - 404
             return new RouteDelegate(this, new Route(method, uri, Status.NOT_FOUND));
         }
 
+        if (list == null) {
+            // A single route matches the path.
+            if (first.isCompliantWithRequestContentType(request) == 0) {
+                return new RouteDelegate(this, new Route(method, uri, Status.UNSUPPORTED_MEDIA_TYPE));
+            }
+            if (first.isCompliantWithRequestAccept(request)) {
+                if (request != null) {
+                    request.pathParameters(parameters);
+                }
+                return first;
+            }
+            return new RouteDelegate(this, new Route(method, uri, Status.NOT_ACCEPTABLE));
+        }
+
         // Find the route that accept the request
         List<Route> fullMatch = new ArrayList<>();
         List<Route> partialMatch = new ArrayList<>();
@@ -303,102 +339,23 @@ public class RequestRouter extends AbstractRouter {
      */
     @Override
     public String getReverseRouteFor(String className, String method, Map<String, Object> params) {
-        for (Route route : copy()) {
-            if (route.getControllerClass().getName().equals(className)
-                    && route.getControllerMethod().getName().equals(method)) {
-                return computeUrlForRoute(route, params);
-            }
+        Map<String, UrlTemplate> methods = reverse.get(className);
+        if (methods == null) {
+            return null;
+        }
+        UrlTemplate template = methods.get(method);
+        if (template == null) {
+            return null;
         }
-        return null;
+        return template.render(params);
     }
 
     /**
-     * @return a copy of the current routes.
+     * @return an immutable snapshot of the current routes.
      */
     @Override
     public Collection<Route> getRoutes() {
-        return copy();
-    }
-
-    private String computeUrlForRoute(Route route, Map<String, Object> params) {
-        if (params == null) {
-            // No variables, return the raw url.
-            return route.getUrl();
-        }
-
-        // The original url. Something like route/user/{id}/{email}/userDashboard
-        String urlWithReplacedPlaceholders = route.getUrl();
-
-        Map<String, Object> queryParameterMap = Maps.newHashMap();
-
-        for (Map.Entry<String, Object> entry : params.entrySet()) {
-            String originalRegexEscaped = String.format("\\{%s(\\+)?\\}", entry.getKey());
-            // If regex is in the url as placeholder we replace the placeholder
-            final boolean containVar = urlWithReplacedPlaceholders.contains("{" + entry.getKey() + "}");
-            final boolean containAndCanSpreadOnSeveralSegment
-                    = urlWithReplacedPlaceholders.contains("{" + entry.getKey() + "+}");
-            if (containVar || containAndCanSpreadOnSeveralSegment) {
-                urlWithReplacedPlaceholders = urlWithReplacedPlaceholders.replaceAll(
-                        originalRegexEscaped,
-                        pathEncode(entry.getValue().toString(), containAndCanSpreadOnSeveralSegment));
-                // If the parameter is not there as placeholder we add it as queryParameter
-            } else {
-                queryParameterMap.put(entry.getKey(), entry.getValue());
-            }
-        }
-
-        // now prepare the query string for this url if we got some query params
-        if (!queryParameterMap.entrySet().isEmpty()) {
-
-            StringBuilder queryParameterStringBuffer = new StringBuilder();
-
-            // The uri is now replaced => we now have to add potential query parameters
-            for (Iterator<Map.Entry<String, Object>> iterator = queryParameterMap.entrySet().iterator();
-                 iterator.hasNext(); ) {
-
-                Map.Entry<String, Object> queryParameterEntry = iterator.next();
-                queryParameterStringBuffer.append(queryParameterEntry.getKey());
-                queryParameterStringBuffer.append("=");
-                // Don't forget to encode the value.
-                queryParameterStringBuffer.append(encode(queryParameterEntry.getValue().toString()));
-
-                if (iterator.hasNext()) {
-                    queryParameterStringBuffer.append("&");
-                }
-
-            }
-
-            urlWithReplacedPlaceholders = urlWithReplacedPlaceholders
-                    + "?"
-                    + queryParameterStringBuffer.toString();
-        }
-
-
-        return urlWithReplacedPlaceholders;
-    }
-
-    private String pathEncode(String s, boolean canSpreadOnSeveralSegments) {
-        String copy = s;
-        for (Map.Entry<String, String> c : PERCENT_ENCODING_MAP.entrySet()) {
-            if (s.contains(c.getKey())) {
-                if (c.getKey().endsWith("/") && canSpreadOnSeveralSegments) {
-                    // The canSpreadOnSeveralSegments parameter is true when the uri contains + such as in {path+}. In this
-                    // case, we must not convert "/" by the percent value.
-                    continue;
-                }
-                copy = copy.replace(c.getKey(), c.getValue());
-            }
-        }
-        return copy;
-    }
-
-    private String encode(String v) {
-        try {
-            return URLEncoder.encode(v, "UTF-8");
-        } catch (UnsupportedEncodingException e) {
-            // UTF-8 is part of the JVM specification.
-            throw new IllegalArgumentException("UTF-8 not supported", e);
-        }
+        return snapshot;
     }
 
     /**
@@ -417,6 +374,36 @@ public class RequestRouter extends AbstractRouter {
         this.validator = validator;
     }
 
+    /**
+     * Gets the scheduler of the routes annotated with {@link org.wisdom.api.annotations.TrafficClass}. The scheduler
+     * is created on first use, from the {@literal router.traffic} configuration.
+     *
+     * @return the scheduler
+     */
+    public TrafficScheduler getTrafficScheduler() {
+        TrafficScheduler current = scheduler;
+        if (current == null) {
+            synchronized (this) {
+                current = scheduler;
+                if (current == null) {
+                    current = TrafficScheduler.create(configuration == null ? null
+                            : configuration.getConfiguration("router.traffic"));
+                    scheduler = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Sets the scheduler of the routes having a traffic class. For testing purpose only.
+     *
+     * @param scheduler the scheduler
+     */
+    public void setTrafficScheduler(TrafficScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
     protected Set<Filter> getFilters() {
         return ImmutableSet.copyOf(filters);
     }
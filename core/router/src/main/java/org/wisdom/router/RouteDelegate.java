@@ -23,6 +23,9 @@ import com.google.common.base.Preconditions;
 import com.google.common.net.MediaType;
 import org.wisdom.api.Controller;
 import org.wisdom.api.annotations.Interception;
+import org.wisdom.api.annotations.MaxConcurrency;
+import org.wisdom.api.annotations.TrafficClass;
+import org.wisdom.api.cache.Coalesced;
 import org.wisdom.api.http.*;
 import org.wisdom.api.interception.Filter;
 import org.wisdom.api.interception.Interceptor;
@@ -35,10 +38,13 @@ import javax.validation.Constraint;
 import javax.validation.ConstraintViolation;
 import javax.validation.Valid;
 import javax.validation.Validator;
+import javax.validation.executable.ExecutableValidator;
+import javax.validation.metadata.MethodDescriptor;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -51,6 +57,9 @@ public class RouteDelegate extends Route {
     private final RequestRouter router;
     private final boolean mustValidate;
     private final Map<String, Object> interceptors;
+    private final Bulkhead bulkhead;
+    private final String trafficClass;
+    private volatile ParameterValidation validation;
 
     /**
      * Creates a new instance of {@link org.wisdom.router.RouteDelegate}.
@@ -64,12 +73,37 @@ public class RouteDelegate extends Route {
         if (!route.isUnbound()) {
             this.mustValidate = detectValidationRequirement(route.getControllerMethod());
             this.interceptors = extractInterceptors();
+            this.bulkhead = createBulkhead();
+            this.trafficClass = extractTrafficClass();
         } else {
             this.mustValidate = false;
             this.interceptors = Collections.emptyMap();
+            this.bulkhead = null;
+            this.trafficClass = null;
         }
     }
 
+    private String extractTrafficClass() {
+        // The annotation set on the method overrides the one set on the class.
+        TrafficClass annotation = route.getControllerMethod().getAnnotation(TrafficClass.class);
+        if (annotation == null) {
+            annotation = route.getControllerClass().getAnnotation(TrafficClass.class);
+        }
+        return annotation == null ? null : annotation.value();
+    }
+
+    private Bulkhead createBulkhead() {
+        // The annotation set on the method overrides the one set on the class.
+        MaxConcurrency configuration = route.getControllerMethod().getAnnotation(MaxConcurrency.class);
+        if (configuration == null) {
+            configuration = route.getControllerClass().getAnnotation(MaxConcurrency.class);
+        }
+        if (configuration == null) {
+            return null;
+        }
+        return new Bulkhead(configuration);
+    }
+
     private Map<String, Object> extractInterceptors() {
         Map<String, Object> map = new LinkedHashMap<>();
         Annotation[] classAnnotations = route.getControllerClass().getAnnotations();
@@ -87,6 +121,12 @@ public class RouteDelegate extends Route {
                 map.put(annotation.annotationType().getName(), annotation);
             }
         }
+        // The coalescing runs last, so the requests joining an in-flight computation have been processed by the
+        // other interceptors, such as the authentication, whatever the order of the annotations.
+        Object coalesced = map.remove(Coalesced.class.getName());
+        if (coalesced != null) {
+            map.put(Coalesced.class.getName(), coalesced);
+        }
 
         return map;
     }
@@ -103,6 +143,25 @@ public class RouteDelegate extends Route {
         return false;
     }
 
+    /**
+     * Gets the validator checking the parameters of the action. The constraint metadata of the action is retrieved
+     * once per validator, so actions without constrained parameters according to the validator are not validated.
+     *
+     * @return the validator, {@code null} if the parameters do not need to be validated
+     */
+    private ExecutableValidator getParameterValidator() {
+        Validator validator = router.getValidator();
+        if (validator == null) {
+            return null;
+        }
+        ParameterValidation current = validation;
+        if (current == null || current.validator != validator) {
+            current = new ParameterValidation(validator, getControllerMethod());
+            validation = current;
+        }
+        return current.executables;
+    }
+
     /**
      * Determines whether the given annotation is a 'constraint' or not.
      * It just checks if the annotation has the {@link Constraint} annotation on it or if the annotation is the {@link
@@ -146,6 +205,11 @@ public class RouteDelegate extends Route {
         return route.matches(method, uri);
     }
 
+    @Override
+    public Map<String, String> match(HttpMethod method, String uri) {
+        return route.match(method, uri);
+    }
+
     @Override
     public Map<String, String> getPathParametersEncoded(String uri) {
         return route.getPathParametersEncoded(uri);
@@ -241,7 +305,103 @@ public class RouteDelegate extends Route {
         // Ready to call the action.
         Filter endOfChain = new EndOfChainInvoker();
         RequestContext ctx = new RequestContext(this, chain, itcpConfiguration, null, endOfChain);
-        return ctx.proceed();
+        if (bulkhead == null && trafficClass == null) {
+            return ctx.proceed();
+        }
+        // The bulkhead is checked first, so requests waiting for it do not hold a slot shared by all the routes.
+        Gate lane = trafficClass == null ? null : router.getTrafficScheduler().lane(trafficClass);
+        return admit(ctx, bulkhead, lane);
+    }
+
+    /**
+     * Invokes the chain once the given gates have admitted the request. {@code null} gates are skipped.
+     */
+    private Result admit(RequestContext ctx, Gate gate, Gate next) throws Exception {
+        if (gate == null) {
+            return next == null ? ctx.proceed() : admit(ctx, next, null);
+        }
+
+        if (gate.tryAcquire()) {
+            return proceedAndRelease(ctx, gate, next);
+        }
+        // The limit is reached, wait for a slot if the queue is not full.
+        CompletableFuture<Void> slot = gate.enqueue();
+        if (slot == null) {
+            return gate.reject();
+        }
+        // No thread waits for the slot. Once handed over, the engine invokes the chain on one of its threads.
+        CompletableFuture<Result> admitted = slot.handle((v, rejected) -> rejected == null
+                ? new AsyncResult(() -> proceedAndRelease(ctx, gate, next))
+                : gate.reject());
+        return new AsyncResult(admitted);
+    }
+
+    /**
+     * Invokes the chain while holding a slot of the gate. The slot is released once the result is computed,
+     * including the asynchronous results.
+     */
+    private Result proceedAndRelease(RequestContext ctx, Gate gate, Gate next) throws Exception {
+        Result result;
+        try {
+            result = next == null ? ctx.proceed() : admit(ctx, next, null);
+        } catch (Exception | Error e) { //NOSONAR the slot must be released in all cases.
+            gate.release();
+            throw e;
+        }
+        return releaseWhenComputed(result, gate);
+    }
+
+    /**
+     * Releases the slot of the gate once the given result is computed. Asynchronous results are wrapped, so the
+     * slot is released once the engine has computed them.
+     */
+    private static Result releaseWhenComputed(Result result, Gate gate) {
+        if (!(result instanceof AsyncResult)) {
+            gate.release();
+            return result;
+        }
+        AsyncResult async = (AsyncResult) result;
+        AsyncResult wrapped;
+        if (async.stage() != null) {
+            CompletableFuture<Result> computed = new CompletableFuture<>();
+            async.stage().whenComplete((r, e) -> {
+                if (e != null) {
+                    gate.release();
+                    computed.completeExceptionally(e);
+                } else {
+                    computed.complete(releaseWhenComputed(r, gate));
+                }
+            });
+            wrapped = new AsyncResult(computed);
+        } else {
+            wrapped = new AsyncResult(() -> {
+                Result computed;
+                try {
+                    computed = async.callable().call();
+                } catch (Exception | Error e) { //NOSONAR the slot must be released in all cases.
+                    gate.release();
+                    throw e;
+                }
+                return releaseWhenComputed(computed, gate);
+            });
+        }
+        wrapped.getHeaders().putAll(async.getHeaders());
+        return wrapped;
+    }
+
+    /**
+     * @return the bulkhead limiting the concurrent invocations of the route, {@code null} if the route is not
+     * annotated with {@link MaxConcurrency}.
+     */
+    public Bulkhead getBulkhead() {
+        return bulkhead;
+    }
+
+    /**
+     * @return the traffic class of the route, {@code null} if the route is not annotated with {@link TrafficClass}.
+     */
+    public String getTrafficClass() {
+        return trafficClass;
     }
 
     private Interceptor<?> getInterceptorForAnnotation(String className) {
@@ -311,11 +471,10 @@ public class RouteDelegate extends Route {
 
                 // Validate if needed.
                 if (mustValidate) {
-                    Validator validator = router.getValidator();
+                    ExecutableValidator validator = getParameterValidator();
                     if (validator != null) {
                         Set<ConstraintViolation<Controller>> violations =
-                                validator.forExecutables().validateParameters(getControllerObject(), getControllerMethod(),
-                                        parameters);
+                                validator.validateParameters(getControllerObject(), getControllerMethod(), parameters);
 
                         if (!violations.isEmpty()) {
                             return Results.badRequest(violations).json();
@@ -385,5 +544,28 @@ public class RouteDelegate extends Route {
             return -1;
         }
     }
-}
 
+    /**
+     * The validation metadata of the action parameters, computed for a specific validator.
+     */
+    private static final class ParameterValidation {
+
+        private final Validator validator;
+
+        /**
+         * The executable validator, {@code null} if the action has no constrained parameters.
+         */
+        private final ExecutableValidator executables;
+
+        private ParameterValidation(Validator validator, Method method) {
+            this.validator = validator;
+            MethodDescriptor descriptor = validator.getConstraintsForClass(method.getDeclaringClass())
+                    .getConstraintsForMethod(method.getName(), method.getParameterTypes());
+            if (descriptor != null && descriptor.hasConstrainedParameters()) {
+                this.executables = validator.forExecutables();
+            } else {
+                this.executables = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,445 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.router;
+
+import org.wisdom.api.annotations.TrafficClass;
+import org.wisdom.api.configuration.Configuration;
+import org.wisdom.api.http.HeaderNames;
+import org.wisdom.api.http.MimeTypes;
+import org.wisdom.api.http.Result;
+import org.wisdom.api.http.Status;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Schedules the invocations of the routes annotated with {@link TrafficClass}. These invocations share a fixed
+ * number of slots. When all the slots are in use, the requests wait in the queue of their class (a {@link Lane}).
+ * Released slots are handed over using a smooth weighted round-robin among the non-empty queues, so each class gets
+ * a share of the slots proportional to its weight, and a class with a higher weight is never stuck behind the backlog
+ * of another class.
+ * <p>
+ * Each queue is bounded, as well as the total number of waiting requests. Once the total is reached, a request
+ * arriving in a class evicts the most recent waiting request of the class with the lowest weight, if that weight is
+ * lower than its own. So, the low-priority classes are shed first.
+ * <p>
+ * The scheduler state is guarded by a single lock, held for a few instructions only. Waiting requests hold neither
+ * the lock nor a thread: their futures are completed, outside the lock, once a slot is handed over to them, and the
+ * {@link GateTimer} gives up the requests waiting too long.
+ */
+public class TrafficScheduler {
+
+    /**
+     * The default number of slots.
+     */
+    public static final int DEFAULT_WORKERS = 2 * Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The default maximum number of waiting requests, all classes included.
+     */
+    public static final int DEFAULT_MAX_WAITING = 1000;
+
+    /**
+     * The default weight of the {@link TrafficClass#INTERACTIVE} class.
+     */
+    public static final int DEFAULT_INTERACTIVE_WEIGHT = 8;
+
+    /**
+     * The default weight of the other classes.
+     */
+    public static final int DEFAULT_WEIGHT = 1;
+
+    /**
+     * The default size of the queue of each class.
+     */
+    public static final int DEFAULT_QUEUE = 100;
+
+    /**
+     * The default time a request waits for a slot, in milliseconds.
+     */
+    public static final long DEFAULT_TIMEOUT = 1000;
+
+    private final int workers;
+
+    private final int maxWaiting;
+
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+
+    private final Object lock = new Object();
+
+    /**
+     * Guarded by {@link #lock}.
+     */
+    private int active;
+
+    /**
+     * Guarded by {@link #lock}.
+     */
+    private int waiting;
+
+    /**
+     * Creates a scheduler using the default settings.
+     */
+    public TrafficScheduler() {
+        this(DEFAULT_WORKERS, DEFAULT_MAX_WAITING);
+    }
+
+    /**
+     * Creates a scheduler.
+     *
+     * @param workers    the number of slots, must be strictly positive
+     * @param maxWaiting the maximum number of waiting requests, all classes included
+     */
+    public TrafficScheduler(int workers, int maxWaiting) {
+        if (workers <= 0) {
+            throw new IllegalArgumentException("The number of workers must be strictly positive");
+        }
+        this.workers = workers;
+        this.maxWaiting = Math.max(0, maxWaiting);
+    }
+
+    /**
+     * Creates a scheduler from the given configuration, generally the {@literal router.traffic} object:
+     * <pre>
+     * workers: 16
+     * max-waiting: 1000
+     * classes {
+     *     interactive { weight: 8, queue: 500, timeout: 1s }
+     *     bulk { weight: 1, queue: 100, timeout: 5s }
+     * }
+     * </pre>
+     *
+     * @param configuration the configuration, {@code null} to use the default settings
+     * @return the scheduler
+     */
+    public static TrafficScheduler create(Configuration configuration) {
+        if (configuration == null) {
+            return new TrafficScheduler();
+        }
+        TrafficScheduler scheduler = new TrafficScheduler(
+                configuration.getIntegerWithDefault("workers", DEFAULT_WORKERS),
+                configuration.getIntegerWithDefault("max-waiting", DEFAULT_MAX_WAITING));
+        Configuration classes = configuration.getConfiguration("classes");
+        if (classes != null) {
+            for (String name : classes.asMap().keySet()) {
+                Configuration conf = classes.getConfiguration(name);
+                scheduler.configure(name,
+                        conf.getIntegerWithDefault("weight", defaultWeight(name)),
+                        conf.getIntegerWithDefault("queue", DEFAULT_QUEUE),
+                        conf.getDuration("timeout", TimeUnit.MILLISECONDS, DEFAULT_TIMEOUT));
+            }
+        }
+        return scheduler;
+    }
+
+    private static int defaultWeight(String name) {
+        return TrafficClass.INTERACTIVE.equals(name) ? DEFAULT_INTERACTIVE_WEIGHT : DEFAULT_WEIGHT;
+    }
+
+    /**
+     * Configures a traffic class. This method must be called before the class is used.
+     *
+     * @param name    the name of the class
+     * @param weight  the weight of the class, must be strictly positive
+     * @param queue   the maximum number of requests of this class waiting for a slot
+     * @param timeout how long a request of this class waits for a slot, in milliseconds
+     * @return the lane of the class
+     */
+    public Lane configure(String name, int weight, int queue, long timeout) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("The weight of the traffic class " + name + " must be strictly "
+                    + "positive");
+        }
+        Lane lane = new Lane(name, weight, Math.max(0, queue), timeout);
+        lanes.put(name, lane);
+        return lane;
+    }
+
+    /**
+     * Gets the lane of the given traffic class. Classes that are not configured get the default settings.
+     *
+     * @param name the name of the class
+     * @return the lane
+     */
+    public Lane lane(String name) {
+        Lane lane = lanes.get(name);
+        if (lane != null) {
+            return lane;
+        }
+        return lanes.computeIfAbsent(name, n -> new Lane(n, defaultWeight(n), DEFAULT_QUEUE, DEFAULT_TIMEOUT));
+    }
+
+    /**
+     * @return the number of invocations in progress, all classes included.
+     */
+    public int getActive() {
+        synchronized (lock) {
+            return active;
+        }
+    }
+
+    /**
+     * @return the number of requests waiting for a slot, all classes included.
+     */
+    public int getWaiting() {
+        synchronized (lock) {
+            return waiting;
+        }
+    }
+
+    /**
+     * Hands over the free slots to the waiting requests. Must be called with the lock held. The futures of the
+     * requests receiving a slot are added to the given list, and must be completed once the lock is released.
+     */
+    private void handOver(List<CompletableFuture<Void>> granted) {
+        while (active < workers && waiting > 0) {
+            Lane lane = next();
+            CompletableFuture<Void> future = lane.waiters.poll();
+            if (lane.waiters.isEmpty()) {
+                lane.credit = 0;
+            }
+            waiting--;
+            active++;
+            granted.add(future);
+        }
+    }
+
+    /**
+     * Completes the futures of the requests that have received a slot. The requests giving up remove their future
+     * from the queue with the lock held, so these futures are still pending.
+     */
+    private static void grant(List<CompletableFuture<Void>> granted) {
+        for (CompletableFuture<Void> future : granted) {
+            future.complete(null);
+        }
+    }
+
+    /**
+     * Selects the lane receiving the next slot (smooth weighted round-robin). Must be called with the lock held,
+     * and with at least one waiting request.
+     */
+    private Lane next() {
+        Lane selected = null;
+        int total = 0;
+        for (Lane lane : lanes.values()) {
+            if (!lane.waiters.isEmpty()) {
+                lane.credit += lane.weight;
+                total += lane.weight;
+                if (selected == null || lane.credit > selected.credit) {
+                    selected = lane;
+                }
+            }
+        }
+        selected.credit -= total; //NOSONAR there is at least one waiting request.
+        return selected;
+    }
+
+    /**
+     * Evicts the most recent waiting request of the class with the lowest weight, if that weight is lower than the
+     * weight of the given lane. Must be called with the lock held.
+     *
+     * @return the future of the evicted request, to cancel once the lock is released, {@code null} if no request can
+     * be evicted
+     */
+    private CompletableFuture<Void> shed(Lane arriving) {
+        Lane victim = null;
+        for (Lane lane : lanes.values()) {
+            if (!lane.waiters.isEmpty() && lane.weight < arriving.weight
+                    && (victim == null || lane.weight < victim.weight)) {
+                victim = lane;
+            }
+        }
+        if (victim == null) {
+            return null;
+        }
+        CompletableFuture<Void> future = victim.waiters.pollLast();
+        if (victim.waiters.isEmpty()) {
+            victim.credit = 0;
+        }
+        waiting--;
+        return future;
+    }
+
+    /**
+     * The queue of a traffic class. The routes having this class use it as {@link Gate}.
+     */
+    public final class Lane implements Gate {
+
+        private final String name;
+
+        private final int weight;
+
+        private final int queue;
+
+        private final long timeout;
+
+        /**
+         * Guarded by {@link #lock}.
+         */
+        private final Deque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+
+        /**
+         * The credit of the lane in the weighted round-robin. Guarded by {@link #lock}.
+         */
+        private int credit;
+
+        private final LongAdder rejected = new LongAdder();
+
+        private Lane(String name, int weight, int queue, long timeout) {
+            this.name = name;
+            this.weight = weight;
+            this.queue = queue;
+            this.timeout = timeout;
+        }
+
+        /**
+         * Tries to get a slot, without waiting.
+         *
+         * @return {@code true} if a slot has been acquired, and so must be released
+         */
+        @Override
+        public boolean tryAcquire() {
+            synchronized (lock) {
+                if (active < workers) {
+                    active++;
+                    return true;
+                }
+                return false;
+            }
+        }
+
+        /**
+         * Enqueues a request waiting for a slot. When the total number of waiting requests is reached, a waiting
+         * request of a class with a lower weight is evicted to make room.
+         *
+         * @return the future completed once a slot has been handed over to the request, or cancelled once the
+         * request has waited too long or has been evicted by a request of a class with a higher weight, {@code null}
+         * if the queue is full
+         */
+        @Override
+        public CompletableFuture<Void> enqueue() {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            CompletableFuture<Void> evicted = null;
+            List<CompletableFuture<Void>> granted = new ArrayList<>(1);
+            synchronized (lock) {
+                if (waiters.size() >= queue) {
+                    return null;
+                }
+                if (waiting >= maxWaiting) {
+                    evicted = shed(this);
+                    if (evicted == null) {
+                        return null;
+                    }
+                }
+                waiters.add(future);
+                waiting++;
+                // A slot may have been released before the request was enqueued.
+                handOver(granted);
+            }
+            if (evicted != null) {
+                evicted.cancel(false);
+            }
+            grant(granted);
+            if (!future.isDone()) {
+                GateTimer.expire(future, timeout, () -> expire(future));
+            }
+            return future;
+        }
+
+        /**
+         * Gives up the given request, unless a slot has been handed over to it, or it has been evicted.
+         */
+        private void expire(CompletableFuture<Void> future) {
+            synchronized (lock) {
+                if (!waiters.remove(future)) {
+                    return;
+                }
+                waiting--;
+                if (waiters.isEmpty()) {
+                    credit = 0;
+                }
+            }
+            future.cancel(false);
+        }
+
+        /**
+         * Releases a slot. The slot is given to a waiting request, if any.
+         */
+        @Override
+        public void release() {
+            List<CompletableFuture<Void>> granted = new ArrayList<>(1);
+            synchronized (lock) {
+                active--;
+                handOver(granted);
+            }
+            grant(granted);
+        }
+
+        /**
+         * Builds the result sent to a rejected request.
+         *
+         * @return the result
+         */
+        @Override
+        public Result reject() {
+            rejected.increment();
+            return new Result(Status.SERVICE_UNAVAILABLE)
+                    .render("Too many requests of class " + name + " - request rejected").as(MimeTypes.TEXT)
+                    .with(HeaderNames.RETRY_AFTER, "1");
+        }
+
+        /**
+         * @return the name of the traffic class.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the weight of the traffic class.
+         */
+        public int getWeight() {
+            return weight;
+        }
+
+        /**
+         * @return the number of requests of this class waiting for a slot.
+         */
+        public int getWaiting() {
+            synchronized (lock) {
+                return waiters.size();
+            }
+        }
+
+        /**
+         * @return the number of rejected requests of this class.
+         */
+        public long getRejected() {
+            return rejected.sum();
+        }
+    }
+}
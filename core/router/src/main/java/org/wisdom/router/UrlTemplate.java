@@ -0,0 +1,206 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.router;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A route URL split into literal parts and path parameters once, so the reverse routing only concatenates strings.
+ * <p>
+ * Only the {@literal {name}} and {@literal {name+}} placeholders are replaced. Other placeholders (such as
+ * {@literal {name*}} or {@literal {name<regex>}}) are kept as they are, and the parameters that do not match a
+ * placeholder are appended to the query string.
+ */
+final class UrlTemplate {
+
+    /**
+     * The encoded form of the characters escaped in path parameters, indexed by character.
+     */
+    private static final String[] PATH_ENCODING = new String[128];
+
+    static {
+        // Reserved characters.
+        PATH_ENCODING['/'] = "%2F";
+
+        // Common characters
+        PATH_ENCODING[' '] = "%20";
+        PATH_ENCODING['"'] = "%22";
+        PATH_ENCODING['%'] = "%25";
+        PATH_ENCODING['-'] = "%2D";
+        PATH_ENCODING['<'] = "%3C";
+        PATH_ENCODING['>'] = "%3E";
+        PATH_ENCODING['\\'] = "%5C";
+        PATH_ENCODING['_'] = "%5F";
+        PATH_ENCODING['`'] = "%60";
+        PATH_ENCODING['{'] = "%7B";
+        PATH_ENCODING['|'] = "%7C";
+        PATH_ENCODING['}'] = "%7D";
+
+        // New line
+        PATH_ENCODING['\n'] = "%0A";
+    }
+
+    /**
+     * The modifier letter circumflex, encoded as the circumflex accent.
+     */
+    private static final char CIRCUMFLEX = 'ˆ';
+
+    private final String url;
+
+    /**
+     * The literal parts, {@code literals[i]} precedes {@code names[i]}. The last literal follows the last parameter.
+     */
+    private final String[] literals;
+
+    private final String[] names;
+
+    private final boolean[] spread;
+
+    private final Set<String> parameters;
+
+    /**
+     * Compiles the given route URL.
+     *
+     * @param url the URL, such as {@literal /user/{id}/{path+}}
+     */
+    UrlTemplate(String url) {
+        this.url = url;
+        List<String> parts = new ArrayList<>();
+        List<String> variables = new ArrayList<>();
+        List<Boolean> multi = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int index = 0;
+        while (index < url.length()) {
+            int open = url.indexOf('{', index);
+            int close = open == -1 ? -1 : url.indexOf('}', open);
+            if (close == -1) {
+                literal.append(url, index, url.length());
+                break;
+            }
+            String name = url.substring(open + 1, close);
+            boolean plus = name.endsWith("+");
+            if (plus) {
+                name = name.substring(0, name.length() - 1);
+            }
+            literal.append(url, index, open);
+            if (isSimpleName(name)) {
+                parts.add(literal.toString());
+                literal.setLength(0);
+                variables.add(name);
+                multi.add(plus);
+            } else {
+                // Not a replaceable placeholder, kept as it is.
+                literal.append(url, open, close + 1);
+            }
+            index = close + 1;
+        }
+        parts.add(literal.toString());
+
+        this.literals = parts.toArray(new String[parts.size()]);
+        this.names = variables.toArray(new String[variables.size()]);
+        this.spread = new boolean[names.length];
+        for (int i = 0; i < names.length; i++) {
+            spread[i] = multi.get(i);
+        }
+        this.parameters = new HashSet<>(variables);
+    }
+
+    private static boolean isSimpleName(String name) {
+        if (name.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '<' || c == '>' || c == '*' || c == '+' || c == '{') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Computes the URL for the given parameters.
+     *
+     * @param params the parameters, may be {@code null}
+     * @return the URL
+     */
+    String render(Map<String, Object> params) {
+        if (params == null || params.isEmpty()) {
+            // No variables, return the raw url.
+            return url;
+        }
+        StringBuilder builder = new StringBuilder(url.length() + 16 * params.size());
+        for (int i = 0; i < names.length; i++) {
+            builder.append(literals[i]);
+            Object value = params.get(names[i]);
+            if (value == null && !params.containsKey(names[i])) {
+                // Weird, but the placeholder is not replaced.
+                builder.append('{').append(names[i]).append(spread[i] ? "+}" : "}");
+            } else {
+                pathEncode(builder, String.valueOf(value), spread[i]);
+            }
+        }
+        builder.append(literals[names.length]);
+
+        // The other parameters are appended to the query string.
+        char separator = '?';
+        for (Map.Entry<String, Object> entry : params.entrySet()) {
+            if (!parameters.contains(entry.getKey())) {
+                builder.append(separator).append(entry.getKey()).append('=')
+                        .append(encode(String.valueOf(entry.getValue())));
+                separator = '&';
+            }
+        }
+        return builder.toString();
+    }
+
+    private static void pathEncode(StringBuilder builder, String value, boolean canSpreadOnSeveralSegments) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            String encoded = null;
+            if (c < PATH_ENCODING.length) {
+                encoded = PATH_ENCODING[c];
+            } else if (c == CIRCUMFLEX) {
+                encoded = "%5E";
+            }
+            // When the placeholder is {path+}, "/" separates segments and is not encoded.
+            if (encoded == null || (c == '/' && canSpreadOnSeveralSegments)) {
+                builder.append(c);
+            } else {
+                builder.append(encoded);
+            }
+        }
+    }
+
+    private static String encode(String v) {
+        try {
+            return URLEncoder.encode(v, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            // UTF-8 is part of the JVM specification.
+            throw new IllegalArgumentException("UTF-8 not supported", e);
+        }
+    }
+}
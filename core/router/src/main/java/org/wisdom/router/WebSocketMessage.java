@@ -0,0 +1,156 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.router;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * A message received on a web socket, shared by all the {@link org.wisdom.api.annotations.OnMessage} callbacks
+ * listening to the web socket. The message wraps the frame data without copying it. The textual and the binary
+ * forms are computed on demand, only once, so the payload is decoded once whatever the number of callbacks.
+ * <p>
+ * Callbacks are invoked concurrently, so the lazily computed forms are guarded. As every callback shares the frame
+ * data, callbacks must not modify it: the buffers are read-only, and the callbacks wanting to modify the bytes must
+ * copy them.
+ */
+public class WebSocketMessage {
+
+    private final ByteBuffer content;
+
+    private byte[] bytes;
+
+    private String text;
+
+    /**
+     * Creates a message.
+     *
+     * @param content the frame data, from its position to its limit. The buffer may be read-only, and must not be
+     *                modified afterwards.
+     */
+    public WebSocketMessage(ByteBuffer content) {
+        this.content = content;
+    }
+
+    /**
+     * @return a read-only view on the frame data. Each call returns a new view, so the callbacks can consume it
+     * independently. The callbacks wanting to modify the bytes must copy them.
+     */
+    public ByteBuffer buffer() {
+        return content.asReadOnlyBuffer();
+    }
+
+    /**
+     * @return a stream reading the frame data. The data is not copied.
+     */
+    public InputStream stream() {
+        if (content.hasArray()) {
+            return new ByteArrayInputStream(content.array(), content.arrayOffset() + content.position(),
+                    content.remaining());
+        }
+        return new ByteBufferInputStream(content.duplicate());
+    }
+
+    /**
+     * Gets the frame data as a byte array. If the buffer is backed by an array holding exactly the frame data, this
+     * array is returned. Otherwise, the data is copied once. In both cases, the array is shared with the other
+     * callbacks, and so must not be modified.
+     *
+     * @return the frame data
+     */
+    public synchronized byte[] bytes() {
+        if (bytes == null) {
+            if (content.hasArray() && content.arrayOffset() == 0 && content.position() == 0
+                    && content.remaining() == content.array().length) {
+                bytes = content.array();
+            } else {
+                bytes = new byte[content.remaining()];
+                content.duplicate().get(bytes);
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * @return the frame data decoded using the default charset, decoded once.
+     */
+    public synchronized String text() {
+        if (text == null) {
+            if (content.hasArray()) {
+                text = new String(content.array(), content.arrayOffset() + content.position(), content.remaining(),
+                        Charset.defaultCharset());
+            } else {
+                text = Charset.defaultCharset().decode(content.duplicate()).toString();
+            }
+        }
+        return text;
+    }
+
+    /**
+     * @return the size of the frame data in bytes.
+     */
+    public int size() {
+        return content.remaining();
+    }
+
+    /**
+     * Reads a buffer not backed by an accessible array, such as a read-only or a direct buffer.
+     */
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -38,6 +38,7 @@ import org.wisdom.api.router.RouteUtils;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.concurrent.Callable;
 
@@ -200,13 +201,27 @@ public class WebSocketRouter implements WebSocketListener, Publisher {
      */
     @Override
     public void received(final String uri, final String from, final byte[] content) {
+        received(uri, from, ByteBuffer.wrap(content));
+    }
+
+    /**
+     * Handles the reception of a message. The frame data is not copied: the callbacks receive views on the given
+     * buffer, and its textual form is decoded once for all callbacks.
+     *
+     * @param uri     the url of the web socket
+     * @param from    the client having sent the message (octal id).
+     * @param content the received content
+     */
+    @Override
+    public void received(final String uri, final String from, final ByteBuffer content) {
+        final WebSocketMessage message = new WebSocketMessage(content);
         for (final OnMessageWebSocketCallback listener : listeners) {
             if (listener.matches(uri)) {
                  executor.submit(new Callable<Void>() {
                      @Override
                      public Void call() throws Exception {
                          try {
-                             listener.invoke(uri, from, content);
+                             listener.invoke(uri, from, message);
                          } catch (InvocationTargetException e) { //NOSONAR
                              LOGGER.error("An error occurred in the @OnMessage callback {}#{} : {}",
                                      listener.getController().getClass().getName(), listener.getMethod().getName
@@ -234,7 +249,7 @@ public class WebSocketRouter implements WebSocketListener, Publisher {
         for (DefaultWebSocketCallback open : opens) {
             if (open.matches(uri)) {
                 try {
-                    open.invoke(uri, client, null);
+                    open.invoke(uri, client, (WebSocketMessage) null);
                 } catch (InvocationTargetException e) { //NOSONAR
                     LOGGER.error("An error occurred in the @Open callback {}#{} : {}",
                             open.getController().getClass().getName(), open.getMethod().getName
@@ -259,7 +274,7 @@ public class WebSocketRouter implements WebSocketListener, Publisher {
         for (DefaultWebSocketCallback close : closes) {
             if (close.matches(uri)) {
                 try {
-                    close.invoke(uri, client, null);
+                    close.invoke(uri, client, (WebSocketMessage) null);
                 } catch (InvocationTargetException e) { //NOSONAR
                     LOGGER.error("An error occurred in the @Close callback {}#{} : {}",
                             close.getController().getClass().getName(), close.getMethod().getName
@@ -0,0 +1,285 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.router.batch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.wisdom.api.content.Json;
+import org.wisdom.api.cookies.Cookie;
+import org.wisdom.api.cookies.Cookies;
+import org.wisdom.api.cookies.FlashCookie;
+import org.wisdom.api.cookies.SessionCookie;
+import org.wisdom.api.http.Context;
+import org.wisdom.api.http.FileItem;
+import org.wisdom.api.http.Request;
+import org.wisdom.api.router.Route;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The context of a request of a batch. The cookies are the ones of the batch request. The session and the flash
+ * scope are the ones of the batch request, or copies merged into them when the entry runs in parallel with other
+ * entries, so the changes made by the actions are sent with the batch response. The body is the JSON value given
+ * in the batch entry, converted using the {@link Json} service.
+ */
+class BatchContext implements Context {
+
+    private final Context parent;
+    private final BatchRequest request;
+    private final JsonNode body;
+    private final Json json;
+    private final SessionCookie session;
+    private final FlashCookie flash;
+    private Route route;
+
+    /**
+     * Creates the context.
+     *
+     * @param parent  the context of the batch request
+     * @param request the request of the batch entry
+     * @param body    the body of the batch entry, {@code null} if none
+     * @param json    the JSON service
+     * @param session the session
+     * @param flash   the flash scope
+     */
+    BatchContext(Context parent, BatchRequest request, JsonNode body, Json json, SessionCookie session,
+                 FlashCookie flash) {
+        this.parent = parent;
+        this.request = request;
+        this.body = body;
+        this.json = json;
+        this.session = session;
+        this.flash = flash;
+    }
+
+    @Override
+    public Long id() {
+        return parent.id();
+    }
+
+    @Override
+    public Request request() {
+        return request;
+    }
+
+    @Override
+    public String path() {
+        return request.path();
+    }
+
+    @Override
+    public FlashCookie flash() {
+        return flash;
+    }
+
+    @Override
+    public SessionCookie session() {
+        return session;
+    }
+
+    @Override
+    public Cookie cookie(String cookieName) {
+        return parent.cookie(cookieName);
+    }
+
+    @Override
+    public boolean hasCookie(String cookieName) {
+        return parent.hasCookie(cookieName);
+    }
+
+    @Override
+    public Cookies cookies() {
+        return parent.cookies();
+    }
+
+    @Override
+    public String contextPath() {
+        return parent.contextPath();
+    }
+
+    @Override
+    public String parameter(String name) {
+        return request.parameter(name);
+    }
+
+    @Override
+    public List<String> parameterMultipleValues(String name) {
+        return request.parameterMultipleValues(name);
+    }
+
+    @Override
+    public String parameter(String name, String defaultValue) {
+        return request.parameter(name, defaultValue);
+    }
+
+    @Override
+    public Integer parameterAsInteger(String name) {
+        return request.parameterAsInteger(name);
+    }
+
+    @Override
+    public Integer parameterAsInteger(String name, Integer defaultValue) {
+        return request.parameterAsInteger(name, defaultValue);
+    }
+
+    @Override
+    public Boolean parameterAsBoolean(String name) {
+        return request.parameterAsBoolean(name);
+    }
+
+    @Override
+    public Boolean parameterAsBoolean(String name, boolean defaultValue) {
+        return request.parameterAsBoolean(name, defaultValue);
+    }
+
+    @Override
+    public String parameterFromPath(String name) {
+        String encoded = parameterFromPathEncoded(name);
+        if (encoded == null || encoded.indexOf('%') == -1) {
+            return encoded;
+        }
+        return URI.create(encoded.replace(":", "%3A")).getPath();
+    }
+
+    @Override
+    public String parameterFromPathEncoded(String name) {
+        Map<String, String> parameters = request.pathParameters();
+        if (parameters == null && route != null) {
+            parameters = route.getPathParametersEncoded(path());
+        }
+        return parameters == null ? null : parameters.get(name);
+    }
+
+    @Override
+    public Integer parameterFromPathAsInteger(String key) {
+        String parameter = parameterFromPath(key);
+        return parameter == null ? null : Integer.parseInt(parameter);
+    }
+
+    @Override
+    public Map<String, List<String>> parameters() {
+        return request.parameters();
+    }
+
+    @Override
+    public String header(String name) {
+        return request.getHeader(name);
+    }
+
+    @Override
+    public List<String> headers(String name) {
+        List<String> values = request.headers().get(name);
+        return values == null ? Collections.<String>emptyList() : values;
+    }
+
+    @Override
+    public Map<String, List<String>> headers() {
+        return request.headers();
+    }
+
+    @Override
+    public String cookieValue(String name) {
+        return parent.cookieValue(name);
+    }
+
+    @Override
+    public <T> T body(Class<T> classOfT) {
+        if (body == null) {
+            return null;
+        }
+        if (classOfT == String.class) {
+            return classOfT.cast(body());
+        }
+        return json.fromJson(body, classOfT);
+    }
+
+    @Override
+    public <T> T body(Class<T> classOfT, Type genericType) {
+        if (body == null) {
+            return null;
+        }
+        if (genericType == null || classOfT == String.class) {
+            return body(classOfT);
+        }
+        return json.mapper().convertValue(body, json.mapper().getTypeFactory().constructType(genericType));
+    }
+
+    @Override
+    public String body() {
+        if (body == null) {
+            return null;
+        }
+        return body.isTextual() ? body.asText() : json.stringify(body);
+    }
+
+    @Override
+    public byte[] raw() {
+        String content = body();
+        return content == null ? null : content.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public BufferedReader reader() {
+        String content = body();
+        return content == null ? null : new BufferedReader(new StringReader(content));
+    }
+
+    @Override
+    public Route route() {
+        return route;
+    }
+
+    @Override
+    public void route(Route route) {
+        this.route = route;
+    }
+
+    @Override
+    public boolean isMultipart() {
+        return false;
+    }
+
+    @Override
+    public Collection<? extends FileItem> files() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public FileItem file(String name) {
+        return null;
+    }
+
+    @Override
+    public Map<String, List<String>> attributes() {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public Map<String, List<String>> form() {
+        return Collections.emptyMap();
+    }
+}
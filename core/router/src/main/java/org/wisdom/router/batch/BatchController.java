@@ -0,0 +1,392 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.router.batch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.BaseEncoding;
+import com.google.common.io.ByteStreams;
+import org.apache.felix.ipojo.annotations.Component;
+import org.apache.felix.ipojo.annotations.Property;
+import org.apache.felix.ipojo.annotations.Provides;
+import org.apache.felix.ipojo.annotations.Requires;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wisdom.api.DefaultController;
+import org.wisdom.api.bodies.NoHttpBody;
+import org.wisdom.api.concurrent.ManagedExecutorService;
+import org.wisdom.api.content.Json;
+import org.wisdom.api.cookies.FlashCookie;
+import org.wisdom.api.cookies.SessionCookie;
+import org.wisdom.api.exceptions.HttpException;
+import org.wisdom.api.http.*;
+import org.wisdom.api.router.Route;
+import org.wisdom.api.router.RouteBuilder;
+import org.wisdom.api.router.Router;
+
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * A controller multiplexing several requests in a single one. The body of the batch request is a JSON array of
+ * entries such as:
+ * <pre>
+ * {"method": "GET", "uri": "/api/items/1?expand=true", "headers": {"Accept": "application/json"}, "body": {...}}
+ * </pre>
+ * Each entry is routed and invoked in the same process, without the network, and with the session, the flash scope
+ * and the cookies of the batch request. The response is a JSON array with, for each entry, its {@literal status},
+ * {@literal headers} and {@literal body}. JSON bodies are embedded as JSON values, textual bodies as strings, and
+ * other bodies are encoded in base 64 (the {@literal encoding} field is set to {@literal base64}).
+ * <p>
+ * The consecutive safe entries ({@literal GET}, {@literal HEAD} and {@literal OPTIONS}) are dispatched in parallel
+ * on the system executor. Each of them works on its own copy of the session and of the flash scope, and the changes
+ * are applied to the ones of the batch request in the order of the entries once they are all completed. The other
+ * entries are dispatched one by one, in order, once the previous entries are completed.
+ * <p>
+ * This controller is not instantiated by default. Create a {@literal org.wisdom.router.batch.BatchController-api.cfg}
+ * file in the {@literal instances} directory with the {@literal url} of the batch endpoint (defaults to
+ * {@literal /batch}) and the maximum number of entries per batch ({@literal max}, defaults to 50).
+ */
+@Component
+@Provides
+public class BatchController extends DefaultController {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchController.class);
+
+    private static final Set<String> SAFE_METHODS = new HashSet<>(Arrays.asList(
+            HttpMethod.GET.name(), HttpMethod.HEAD.name(), HttpMethod.OPTIONS.name()));
+
+    @Requires
+    Router router;
+
+    @Requires
+    Json json;
+
+    @Requires(filter = "(name=" + ManagedExecutorService.SYSTEM + ")", proxy = false)
+    ManagedExecutorService executor;
+
+    private final String url;
+
+    private final int max;
+
+    /**
+     * Constructor used for testing purpose only.
+     *
+     * @param router   the router
+     * @param json     the JSON service
+     * @param executor the executor dispatching the entries in parallel
+     * @param url      the url of the batch endpoint
+     * @param max      the maximum number of entries per batch
+     */
+    public BatchController(Router router, Json json, ManagedExecutorService executor, String url, int max) {
+        this(url, max);
+        this.router = router;
+        this.json = json;
+        this.executor = executor;
+    }
+
+    /**
+     * Creates an instance of the batch controller. This constructor is used by iPOJO.
+     *
+     * @param url the url of the batch endpoint
+     * @param max the maximum number of entries per batch
+     */
+    public BatchController(@Property(name = "url", value = "/batch") String url,
+                           @Property(name = "max", value = "50") int max) {
+        if (url == null || !url.startsWith("/")) {
+            throw new IllegalArgumentException("The `url` property must start with `/`");
+        }
+        this.url = url;
+        this.max = max;
+    }
+
+    /**
+     * @return the batch route.
+     */
+    @Override
+    public List<Route> routes() {
+        return ImmutableList.of(new RouteBuilder()
+                .route(HttpMethod.POST)
+                .on(url)
+                .to(this, "batch"));
+    }
+
+    /**
+     * Dispatches the entries of the batch. The entries are processed asynchronously, so the request thread is not
+     * blocked.
+     *
+     * @return the result containing the results of the entries
+     */
+    public Result batch() {
+        final Context context = context();
+        final JsonNode entries = context.body(JsonNode.class);
+        if (entries == null || !entries.isArray()) {
+            return badRequest("The body of a batch request must be a JSON array").as(MimeTypes.TEXT);
+        }
+        if (entries.size() > max) {
+            return status(Status.PAYLOAD_TOO_LARGE)
+                    .render("A batch cannot contain more than " + max + " requests").as(MimeTypes.TEXT);
+        }
+        return async(() -> ok(dispatch(context, entries)).json());
+    }
+
+    private ArrayNode dispatch(Context context, JsonNode entries) throws ExecutionException, InterruptedException {
+        List<CompletableFuture<JsonNode>> results = new ArrayList<>(entries.size());
+        // The consecutive safe entries are collected and dispatched together.
+        List<Entry> group = new ArrayList<>();
+        for (JsonNode node : entries) {
+            Entry entry = new Entry(node);
+            results.add(entry.result);
+            if (entry.isSafe()) {
+                group.add(entry);
+            } else {
+                dispatchInParallel(context, group);
+                group.clear();
+                entry.run(context);
+            }
+        }
+        dispatchInParallel(context, group);
+
+        ArrayNode array = json.newArray();
+        for (CompletableFuture<JsonNode> result : results) {
+            array.add(result.get());
+        }
+        return array;
+    }
+
+    /**
+     * Dispatches the given entries, and waits until they are completed. The entries are shared between the current
+     * thread and threads of the executor: the entries not taken by the executor are processed by the current thread,
+     * so a saturated executor never blocks the batch. The session and the flash scope are not thread-safe, each entry
+     * works on its own copy, merged in the order of the entries.
+     */
+    private void dispatchInParallel(Context context, List<Entry> entries)
+            throws ExecutionException, InterruptedException {
+        if (entries.isEmpty()) {
+            return;
+        }
+        if (entries.size() == 1) {
+            entries.get(0).run(context);
+            return;
+        }
+        // The copies are made before the dispatch, while the batch request is not processed by other threads.
+        for (Entry entry : entries) {
+            entry.isolate(context);
+        }
+        Queue<Entry> pending = new ConcurrentLinkedQueue<>(entries);
+        Runnable worker = () -> {
+            Entry entry;
+            while ((entry = pending.poll()) != null) {
+                entry.run(context);
+            }
+        };
+        try {
+            for (int i = 1; i < entries.size(); i++) {
+                executor.execute(worker);
+            }
+        } catch (RejectedExecutionException e) {
+            LOGGER.debug("Cannot dispatch the batch entries in parallel", e);
+        }
+        worker.run();
+        for (Entry entry : entries) {
+            entry.result.get();
+        }
+        for (Entry entry : entries) {
+            entry.merge();
+        }
+    }
+
+    /**
+     * Routes and invokes an entry of the batch.
+     *
+     * @param parent  the context of the batch request
+     * @param session the session used by the entry
+     * @param flash   the flash scope used by the entry
+     * @param node    the entry
+     * @return the JSON representation of the result
+     */
+    private JsonNode invoke(Context parent, SessionCookie session, FlashCookie flash, JsonNode node) {
+        String uri = node.path("uri").asText(null);
+        if (uri == null || !uri.startsWith("/")) {
+            return toJson(null, badRequest("The `uri` of a batch entry must start with `/`").as(MimeTypes.TEXT));
+        }
+        String method = node.path("method").asText(HttpMethod.GET.name()).toUpperCase(Locale.ENGLISH);
+        Map<String, String> headers = new LinkedHashMap<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = node.path("headers").fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            headers.put(field.getKey(), field.getValue().asText());
+        }
+        JsonNode body = node.get("body");
+        if (body != null && !body.isNull() && !headers.containsKey(HeaderNames.CONTENT_TYPE)) {
+            headers.put(HeaderNames.CONTENT_TYPE, body.isTextual() ? MimeTypes.TEXT : MimeTypes.JSON);
+        }
+
+        BatchRequest request = new BatchRequest(parent.request(), method, uri, headers);
+        BatchContext context = new BatchContext(parent, request, body == null || body.isNull() ? null : body, json,
+                session, flash);
+        Context previous = Context.CONTEXT.get();
+        Context.CONTEXT.set(context);
+        try {
+            Route route = router.getRouteFor(method, request.path(), request);
+            Result result;
+            if (route == null) {
+                result = notFound();
+            } else if (route.getControllerObject() == this) {
+                result = badRequest("A batch cannot contain batch requests").as(MimeTypes.TEXT);
+            } else {
+                context.route(route);
+                result = route.invoke();
+                while (result instanceof AsyncResult) {
+                    // We are already running asynchronously, compute the result here. The computed result can
+                    // itself be asynchronous (a queued invocation for instance).
+                    AsyncResult async = (AsyncResult) result;
+                    result = async.callable().call();
+                    for (Map.Entry<String, String> header : async.getHeaders().entrySet()) {
+                        if (!result.getHeaders().containsKey(header.getKey())) {
+                            result.with(header.getKey(), header.getValue());
+                        }
+                    }
+                }
+            }
+            return toJson(context, result);
+        } catch (HttpException e) {
+            return toJson(context, e.toResult());
+        } catch (Exception e) { //NOSONAR the error is reported in the entry result.
+            LOGGER.error("An error occurred while processing the batch entry {} {}", method, uri, e);
+            return toJson(context, internalServerError(e));
+        } finally {
+            if (previous == null) {
+                Context.CONTEXT.remove();
+            } else {
+                Context.CONTEXT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Builds the JSON representation of the given result.
+     */
+    private JsonNode toJson(Context context, Result result) {
+        ObjectNode node = json.newObject();
+        node.put("status", result.getStatusCode());
+        Renderable<?> renderable = result.getRenderable();
+        String type = result.getContentType();
+        if (type == null && renderable != null) {
+            type = renderable.mimetype();
+        }
+
+        ObjectNode headers = node.putObject("headers");
+        for (Map.Entry<String, String> header : result.getHeaders().entrySet()) {
+            headers.put(header.getKey(), header.getValue());
+        }
+        if (type != null && !headers.has(HeaderNames.CONTENT_TYPE)) {
+            headers.put(HeaderNames.CONTENT_TYPE, type);
+        }
+
+        if (renderable == null || renderable instanceof NoHttpBody) {
+            return node;
+        }
+        if (renderable.requireSerializer()) {
+            // Objects are serialized directly in the batch response.
+            node.set("body", json.toJson(renderable.content()));
+            return node;
+        }
+        try (InputStream stream = renderable.render(context, result)) {
+            byte[] bytes = ByteStreams.toByteArray(stream);
+            Charset charset = result.getCharset() == null ? StandardCharsets.UTF_8 : result.getCharset();
+            if (type != null && type.contains("json")) {
+                node.set("body", json.parse(new String(bytes, charset)));
+            } else if (type == null || type.startsWith("text/") || type.contains("xml")
+                    || type.contains("javascript")) {
+                node.put("body", new String(bytes, charset));
+            } else {
+                node.put("body", BaseEncoding.base64().encode(bytes));
+                node.put("encoding", "base64");
+            }
+        } catch (Exception e) { //NOSONAR the error is reported in the entry result.
+            LOGGER.error("Cannot render the result of a batch entry", e);
+            return toJson(context, internalServerError(e));
+        }
+        return node;
+    }
+
+    /**
+     * An entry of the batch, and its result.
+     */
+    private class Entry {
+
+        private final JsonNode node;
+
+        private final CompletableFuture<JsonNode> result = new CompletableFuture<>();
+
+        /**
+         * The copies of the session and of the flash scope, when the entry runs in parallel with other entries.
+         */
+        private BatchSession session;
+
+        private BatchFlash flash;
+
+        Entry(JsonNode node) {
+            this.node = node;
+        }
+
+        void isolate(Context context) {
+            if (context.session() != null) {
+                session = new BatchSession(context.session());
+            }
+            if (context.flash() != null) {
+                flash = new BatchFlash(context.flash());
+            }
+        }
+
+        void merge() {
+            if (session != null) {
+                session.merge();
+            }
+            if (flash != null) {
+                flash.merge();
+            }
+        }
+
+        boolean isSafe() {
+            return SAFE_METHODS.contains(node.path("method").asText(HttpMethod.GET.name())
+                    .toUpperCase(Locale.ENGLISH));
+        }
+
+        void run(Context context) {
+            try {
+                result.complete(invoke(context, session == null ? context.session() : session,
+                        flash == null ? context.flash() : flash, node));
+            } catch (RuntimeException | Error e) { //NOSONAR the batch must not wait forever.
+                result.completeExceptionally(e);
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.router.batch;
+
+import org.wisdom.api.cookies.FlashCookie;
+import org.wisdom.api.http.Context;
+import org.wisdom.api.http.Result;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * A copy of the flash scope of the batch request, used by an entry running in parallel with other entries. The
+ * changes are recorded, and applied to the flash scope of the batch request by {@link #merge()}.
+ */
+class BatchFlash implements FlashCookie {
+
+    private final FlashCookie parent;
+
+    private final Map<String, String> current;
+
+    private final Map<String, String> outgoing;
+
+    private final List<Consumer<FlashCookie>> changes = new ArrayList<>();
+
+    /**
+     * Creates the copy.
+     *
+     * @param parent the flash scope of the batch request
+     */
+    BatchFlash(FlashCookie parent) {
+        this.parent = parent;
+        this.current = new HashMap<>(parent.getCurrentFlashCookieData());
+        this.outgoing = new HashMap<>(parent.getOutgoingFlashCookieData());
+    }
+
+    /**
+     * Applies the changes to the flash scope of the batch request.
+     */
+    void merge() {
+        for (Consumer<FlashCookie> change : changes) {
+            change.accept(parent);
+        }
+        changes.clear();
+    }
+
+    @Override
+    public void init(Context context) {
+        // The flash scope of the batch request is already initialized.
+    }
+
+    @Override
+    public void save(Context context, Result result) {
+        // The flash scope is saved with the batch response.
+    }
+
+    @Override
+    public void put(String key, String value) {
+        if (key.contains(":")) {
+            throw new IllegalArgumentException("Character ':' is invalid in a flash key.");
+        }
+        current.put(key, value);
+        outgoing.put(key, value);
+        changes.add(flash -> flash.put(key, value));
+    }
+
+    @Override
+    public void put(String key, Object value) {
+        put(key, value == null ? null : value.toString());
+    }
+
+    @Override
+    public void error(String value) {
+        put(FLASH_ERROR, value);
+    }
+
+    @Override
+    public void success(String value) {
+        put(FLASH_SUCCESS, value);
+    }
+
+    @Override
+    public void discard(String key) {
+        outgoing.remove(key);
+        changes.add(flash -> flash.discard(key));
+    }
+
+    @Override
+    public void discard() {
+        outgoing.clear();
+        changes.add(FlashCookie::discard);
+    }
+
+    @Override
+    public void keep(String key) {
+        if (current.containsKey(key)) {
+            outgoing.put(key, current.get(key));
+        }
+        changes.add(flash -> flash.keep(key));
+    }
+
+    @Override
+    public void keep() {
+        outgoing.putAll(current);
+        changes.add(FlashCookie::keep);
+    }
+
+    @Override
+    public String get(String key) {
+        String value = current.get(key);
+        if (value == null) {
+            value = outgoing.get(key);
+        }
+        return value;
+    }
+
+    @Override
+    public boolean remove(String key) {
+        changes.add(flash -> flash.remove(key));
+        return current.remove(key) != null;
+    }
+
+    @Override
+    public void clearCurrentFlashCookieData() {
+        current.clear();
+        changes.add(FlashCookie::clearCurrentFlashCookieData);
+    }
+
+    @Override
+    public boolean contains(String key) {
+        return current.containsKey(key);
+    }
+
+    @Override
+    public Map<String, String> getCurrentFlashCookieData() {
+        return Collections.unmodifiableMap(current);
+    }
+
+    @Override
+    public Map<String, String> getOutgoingFlashCookieData() {
+        return Collections.unmodifiableMap(outgoing);
+    }
+}
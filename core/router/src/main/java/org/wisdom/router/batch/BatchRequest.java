@@ -0,0 +1,278 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.router.batch;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.net.MediaType;
+import org.wisdom.api.cookies.Cookies;
+import org.wisdom.api.http.HeaderNames;
+import org.wisdom.api.http.MimeTypes;
+import org.wisdom.api.http.Request;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * A request of a batch. The method, URI, headers and body are given by the batch entry, the other data (cookies,
+ * remote address) are the ones of the batch request. The headers of the batch request are inherited, unless the entry
+ * overrides them.
+ */
+class BatchRequest extends Request {
+
+    private final Request parent;
+    private final String method;
+    private final String uri;
+    private final String path;
+    private final Map<String, List<String>> parameters;
+    private final Map<String, List<String>> headers;
+    private final Map<String, Object> data = new HashMap<>();
+
+    /**
+     * Creates the request.
+     *
+     * @param parent  the batch request
+     * @param method  the method
+     * @param uri     the URI, with the query
+     * @param headers the headers set by the batch entry
+     */
+    BatchRequest(Request parent, String method, String uri, Map<String, String> headers) {
+        this.parent = parent;
+        this.method = method;
+        this.uri = uri;
+        int index = uri.indexOf('?');
+        if (index == -1) {
+            this.path = uri;
+            this.parameters = Collections.emptyMap();
+        } else {
+            this.path = uri.substring(0, index);
+            this.parameters = decodeQuery(uri.substring(index + 1));
+        }
+        this.headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        // The body is not inherited, so neither are its headers. The Cookie header is kept, consistently with
+        // cookies(), which returns the cookies of the batch request.
+        for (Map.Entry<String, List<String>> entry : parent.headers().entrySet()) {
+            if (!HeaderNames.CONTENT_TYPE.equalsIgnoreCase(entry.getKey())
+                    && !HeaderNames.CONTENT_LENGTH.equalsIgnoreCase(entry.getKey())) {
+                this.headers.put(entry.getKey(), entry.getValue());
+            }
+        }
+        for (Map.Entry<String, String> entry : headers.entrySet()) {
+            this.headers.put(entry.getKey(), ImmutableList.of(entry.getValue()));
+        }
+    }
+
+    private static Map<String, List<String>> decodeQuery(String query) {
+        Map<String, List<String>> map = new LinkedHashMap<>();
+        for (String pair : query.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int index = pair.indexOf('=');
+            String name = decode(index == -1 ? pair : pair.substring(0, index));
+            String value = index == -1 ? "" : decode(pair.substring(index + 1));
+            List<String> values = map.get(name);
+            if (values == null) {
+                values = new ArrayList<>(1);
+                map.put(name, values);
+            }
+            values.add(value);
+        }
+        return map;
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException | IllegalArgumentException e) { //NOSONAR keep the raw value.
+            return value;
+        }
+    }
+
+    @Override
+    public String uri() {
+        return uri;
+    }
+
+    @Override
+    public String remoteAddress() {
+        return parent.remoteAddress();
+    }
+
+    @Override
+    public String host() {
+        return parent.host();
+    }
+
+    @Override
+    public String path() {
+        return path;
+    }
+
+    @Override
+    public MediaType mediaType() {
+        Collection<MediaType> types = mediaTypes();
+        if (types.isEmpty() || types.size() == 1 && types.iterator().next().equals(MediaType.ANY_TYPE)) {
+            return MediaType.ANY_TEXT_TYPE;
+        }
+        return types.iterator().next();
+    }
+
+    @Override
+    public Collection<MediaType> mediaTypes() {
+        String accept = getHeader(HeaderNames.ACCEPT);
+        if (accept == null) {
+            return ImmutableList.of(MediaType.ANY_TEXT_TYPE);
+        }
+        List<MediaType> types = new ArrayList<>();
+        for (String segment : accept.split(",")) {
+            try {
+                types.add(MediaType.parse(segment.trim()));
+            } catch (IllegalArgumentException e) { //NOSONAR
+                // Ignore the malformed media types.
+            }
+        }
+        // Stable sort, so types with the same quality keep their order.
+        types.sort((o1, o2) -> Double.compare(quality(o2), quality(o1)));
+        return types;
+    }
+
+    private static double quality(MediaType type) {
+        List<String> q = type.parameters().get("q");
+        if (q == null || q.isEmpty()) {
+            return 1.0;
+        }
+        try {
+            return Double.parseDouble(q.get(0));
+        } catch (NumberFormatException e) { //NOSONAR the quality set by the client is malformed, ignore it.
+            return 1.0;
+        }
+    }
+
+    @Override
+    public boolean accepts(String mimeType) {
+        String accept = getHeader(HeaderNames.ACCEPT);
+        if (accept == null) {
+            accept = MimeTypes.HTML;
+        }
+        if (accept.contains(mimeType)) {
+            return true;
+        }
+        MediaType input = MediaType.parse(mimeType);
+        for (MediaType type : mediaTypes()) {
+            if (input.is(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Cookies cookies() {
+        return parent.cookies();
+    }
+
+    @Override
+    public Map<String, List<String>> headers() {
+        return headers;
+    }
+
+    @Override
+    public String encoding() {
+        return getHeader(HeaderNames.ACCEPT_ENCODING);
+    }
+
+    @Override
+    public String language() {
+        return getHeader(HeaderNames.ACCEPT_LANGUAGE);
+    }
+
+    @Override
+    public String charset() {
+        return getHeader(HeaderNames.ACCEPT_CHARSET);
+    }
+
+    @Override
+    public String contentType() {
+        return getHeader(HeaderNames.CONTENT_TYPE);
+    }
+
+    @Override
+    public String method() {
+        return method;
+    }
+
+    @Override
+    public String parameter(String name) {
+        List<String> values = parameters.get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    @Override
+    public List<String> parameterMultipleValues(String name) {
+        List<String> values = parameters.get(name);
+        return values == null ? Collections.<String>emptyList() : values;
+    }
+
+    @Override
+    public String parameter(String name, String defaultValue) {
+        String value = parameter(name);
+        return value != null ? value : defaultValue;
+    }
+
+    @Override
+    public Integer parameterAsInteger(String name) {
+        try {
+            return Integer.parseInt(parameter(name));
+        } catch (NumberFormatException e) { //NOSONAR
+            return null;
+        }
+    }
+
+    @Override
+    public Integer parameterAsInteger(String name, Integer defaultValue) {
+        Integer value = parameterAsInteger(name);
+        return value != null ? value : defaultValue;
+    }
+
+    @Override
+    public Boolean parameterAsBoolean(String name) {
+        return Boolean.parseBoolean(parameter(name));
+    }
+
+    @Override
+    public Boolean parameterAsBoolean(String name, boolean defaultValue) {
+        if (!parameters.containsKey(name)) {
+            return defaultValue;
+        }
+        return parameterAsBoolean(name);
+    }
+
+    @Override
+    public Map<String, List<String>> parameters() {
+        return parameters;
+    }
+
+    @Override
+    public Map<String, Object> data() {
+        return data;
+    }
+}
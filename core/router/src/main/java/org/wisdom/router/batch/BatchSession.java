@@ -0,0 +1,112 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.router.batch;
+
+import org.wisdom.api.cookies.SessionCookie;
+import org.wisdom.api.http.Context;
+import org.wisdom.api.http.Result;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * A copy of the session of the batch request, used by an entry running in parallel with other entries. The changes
+ * are recorded, and applied to the session of the batch request by {@link #merge()}.
+ */
+class BatchSession implements SessionCookie {
+
+    private final SessionCookie parent;
+
+    private final Map<String, String> data;
+
+    private final List<Consumer<SessionCookie>> changes = new ArrayList<>();
+
+    /**
+     * Creates the copy.
+     *
+     * @param parent the session of the batch request
+     */
+    BatchSession(SessionCookie parent) {
+        this.parent = parent;
+        this.data = new HashMap<>(parent.getData());
+    }
+
+    /**
+     * Applies the changes to the session of the batch request.
+     */
+    void merge() {
+        for (Consumer<SessionCookie> change : changes) {
+            change.accept(parent);
+        }
+        changes.clear();
+    }
+
+    @Override
+    public void init(Context context) {
+        // The session of the batch request is already initialized.
+    }
+
+    @Override
+    public String getId() {
+        return parent.getId();
+    }
+
+    @Override
+    public Map<String, String> getData() {
+        return Collections.unmodifiableMap(data);
+    }
+
+    @Override
+    public void save(Context context, Result result) {
+        // The session is saved with the batch response.
+    }
+
+    @Override
+    public void put(String key, String value) {
+        data.put(key, value);
+        changes.add(session -> session.put(key, value));
+    }
+
+    @Override
+    public String get(String key) {
+        return data.get(key);
+    }
+
+    @Override
+    public String remove(String key) {
+        changes.add(session -> session.remove(key));
+        return data.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        data.clear();
+        changes.add(SessionCookie::clear);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return data.isEmpty();
+    }
+}
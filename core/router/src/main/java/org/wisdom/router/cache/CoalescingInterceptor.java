@@ -0,0 +1,275 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.router.cache;
+
+import com.google.common.io.ByteStreams;
+import org.apache.felix.ipojo.annotations.Component;
+import org.apache.felix.ipojo.annotations.Instantiate;
+import org.apache.felix.ipojo.annotations.Provides;
+import org.wisdom.api.bodies.RenderableByteArray;
+import org.wisdom.api.cache.Coalesced;
+import org.wisdom.api.cookies.Cookie;
+import org.wisdom.api.http.AsyncResult;
+import org.wisdom.api.http.Context;
+import org.wisdom.api.http.HeaderNames;
+import org.wisdom.api.http.HttpMethod;
+import org.wisdom.api.http.Renderable;
+import org.wisdom.api.http.Result;
+import org.wisdom.api.interception.Interceptor;
+import org.wisdom.api.interception.RequestContext;
+import org.wisdom.router.GateTimer;
+
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An interceptor coalescing the concurrent GET requests on the same key. It handles the
+ * {@link org.wisdom.api.cache.Coalesced} annotation.
+ * <p>
+ * The first request invokes the action. The requests received until the result is computed wait for it in an
+ * asynchronous result completed with a copy of the result, so they do not hold any thread. Streamed results are
+ * read once and buffered. If the action throws an exception, the waiting requests fail with the same exception.
+ * <p>
+ * By default, the key identifying identical requests contains the URI, the authenticated user, the content
+ * negotiation headers and the headers listed in {@link Coalesced#vary()}, and the requests carrying a session cookie
+ * or credentials are not coalesced, so users never get the result computed for somebody else. The router invokes
+ * this interceptor after the other ones, so the user is authenticated when the key is computed.
+ */
+@Component(immediate = true)
+@Provides(specifications = Interceptor.class)
+@Instantiate
+public class CoalescingInterceptor extends Interceptor<Coalesced> {
+
+    private final ConcurrentMap<String, CompletableFuture<Result>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder executions = new LongAdder();
+
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Intercepts the action. The first request on a key computes the result, the requests on the same key received
+     * during this computation reuse it.
+     *
+     * @param configuration the coalesced annotation instance
+     * @param context       the interception context
+     * @return the result
+     * @throws Exception if the action fails
+     */
+    @Override
+    public Result call(Coalesced configuration, RequestContext context) throws Exception {
+        Context ctx = context.context();
+        if (!HttpMethod.GET.name().equalsIgnoreCase(ctx.request().method())) {
+            return context.proceed();
+        }
+        if (configuration.key().isEmpty()
+                && (ctx.header(HeaderNames.COOKIE) != null || ctx.header(HeaderNames.AUTHORIZATION) != null)) {
+            // The result may depend on the session or on the credentials, which are not part of the key.
+            return context.proceed();
+        }
+        String key = key(configuration, ctx);
+        CompletableFuture<Result> future = new CompletableFuture<>();
+        CompletableFuture<Result> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            coalesced.increment();
+            // No thread waits for the result, the engine sends the copy once the result is computed.
+            CompletableFuture<Result> copied = existing.thenApply(CoalescingInterceptor::copy);
+            GateTimer.expire(copied, TimeUnit.SECONDS.toMillis(configuration.timeout()),
+                    () -> copied.completeExceptionally(new TimeoutException("The coalesced request on " + key
+                            + " has not been computed in " + configuration.timeout() + " seconds")));
+            return new AsyncResult(copied);
+        }
+
+        executions.increment();
+        Result result;
+        try {
+            result = context.proceed();
+        } catch (Exception | Error e) { //NOSONAR the waiting requests must be released in all cases.
+            fail(key, future, e);
+            throw e;
+        }
+        return share(key, future, result, ctx);
+    }
+
+    /**
+     * Computes the key identifying the identical requests.
+     */
+    private static String key(Coalesced configuration, Context context) {
+        if (!configuration.key().isEmpty()) {
+            return configuration.key();
+        }
+        StringBuilder key = new StringBuilder(context.request().uri());
+        append(key, context.request().username());
+        append(key, context.header(HeaderNames.ACCEPT));
+        append(key, context.header(HeaderNames.ACCEPT_LANGUAGE));
+        for (String header : configuration.vary()) {
+            append(key, context.header(header));
+        }
+        return key.toString();
+    }
+
+    private static void append(StringBuilder key, String value) {
+        // New lines cannot appear in the URI or in the header values.
+        key.append('\n');
+        if (value != null) {
+            key.append(value);
+        }
+    }
+
+    /**
+     * Shares the result once computed. Asynchronous results are wrapped, so the result is shared once the engine has
+     * computed it.
+     */
+    private Result share(String key, CompletableFuture<Result> future, Result result, Context ctx) throws Exception {
+        if (!(result instanceof AsyncResult)) {
+            try {
+                return complete(key, future, result, ctx);
+            } catch (Exception | Error e) { //NOSONAR the waiting requests must be released in all cases.
+                fail(key, future, e);
+                throw e;
+            }
+        }
+        AsyncResult async = (AsyncResult) result;
+        if (async.stage() != null) {
+            CompletableFuture<Result> shared = new CompletableFuture<>();
+            async.stage().whenComplete((computed, error) -> {
+                if (error != null) {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error;
+                    fail(key, future, cause);
+                    shared.completeExceptionally(cause);
+                    return;
+                }
+                try {
+                    shared.complete(share(key, future, withHeaders(computed, async), ctx));
+                } catch (Exception | Error e) { //NOSONAR the failure is reported to the engine.
+                    shared.completeExceptionally(e);
+                }
+            });
+            return new AsyncResult(shared);
+        }
+        return new AsyncResult(() -> {
+            Result computed;
+            try {
+                computed = async.callable().call();
+            } catch (Exception | Error e) { //NOSONAR the waiting requests must be released in all cases.
+                fail(key, future, e);
+                throw e;
+            }
+            return share(key, future, withHeaders(computed, async), ctx);
+        });
+    }
+
+    /**
+     * Applies the headers of the initial result, as the engine would do.
+     */
+    private static Result withHeaders(Result computed, AsyncResult async) {
+        for (Map.Entry<String, String> header : async.getHeaders().entrySet()) {
+            if (!computed.getHeaders().containsKey(header.getKey())) {
+                computed.with(header.getKey(), header.getValue());
+            }
+        }
+        return computed;
+    }
+
+    /**
+     * Releases the requests waiting for the result, and returns the result to send to the first request.
+     */
+    private Result complete(String key, CompletableFuture<Result> future, Result result, Context context)
+            throws Exception {
+        Result shared = buffer(result, context);
+        // The shared instance is never sent, so it is not modified by the engine while being copied.
+        Result snapshot = copy(shared);
+        inFlight.remove(key, future);
+        future.complete(snapshot);
+        return shared;
+    }
+
+    private void fail(String key, CompletableFuture<Result> future, Throwable e) {
+        inFlight.remove(key, future);
+        future.completeExceptionally(e);
+    }
+
+    /**
+     * Reads the streamed results, so their content can be sent several times.
+     */
+    private static Result buffer(Result result, Context context) throws Exception {
+        Renderable<?> renderable = result.getRenderable();
+        if (renderable == null || !renderable.mustBeChunked()) {
+            return result;
+        }
+        byte[] content;
+        try (InputStream stream = renderable.render(context, result)) {
+            content = ByteStreams.toByteArray(stream);
+        }
+        if (result.getContentType() == null && renderable.mimetype() != null) {
+            result.as(renderable.mimetype());
+        }
+        return result.render(new RenderableByteArray(content, false));
+    }
+
+    /**
+     * Copies the given result. The renderable is shared.
+     */
+    private static Result copy(Result result) {
+        Result copy = new Result(result.getStatusCode());
+        copy.render(result.getRenderable());
+        if (result.getCharset() != null) {
+            copy.with(result.getCharset());
+        }
+        for (Map.Entry<String, String> header : result.getHeaders().entrySet()) {
+            copy.with(header.getKey(), header.getValue());
+        }
+        for (Cookie cookie : result.getCookies()) {
+            copy.with(cookie);
+        }
+        return copy;
+    }
+
+    /**
+     * @return the number of action invocations.
+     */
+    public long getExecutions() {
+        return executions.sum();
+    }
+
+    /**
+     * @return the number of requests that reused the result computed for another request.
+     */
+    public long getCoalescedRequests() {
+        return coalesced.sum();
+    }
+
+    /**
+     * Gets the {@link org.wisdom.api.cache.Coalesced} annotation class.
+     *
+     * @return the annotation
+     */
+    @Override
+    public Class<Coalesced> annotation() {
+        return Coalesced.class;
+    }
+}
@@ -35,12 +35,23 @@ import java.util.List;
 
 /**
  * Handles the {@link org.wisdom.api.annotations.BeanParameter} annotated parameters.
+ * <p>
+ * The constructor and setters of a bean class are analyzed once, when the first bean of the class is bound. The
+ * result is attached to the class using a {@link ClassValue}, so it is collected along with the class when the bundle
+ * providing it is refreshed or uninstalled.
  */
 public class BeanHandler implements RouteParameterHandler {
     private static final java.lang.String SETTER_PREFIX = "set";
 
     private static final Logger LOGGER = LoggerFactory.getLogger(BeanHandler.class);
 
+    private static final ClassValue<BeanBinding> BINDINGS = new ClassValue<BeanBinding>() {
+        @Override
+        protected BeanBinding computeValue(Class<?> type) {
+            return new BeanBinding(type);
+        }
+    };
+
     /**
      * Creates the parameter's value.
      *
@@ -51,28 +62,13 @@ public class BeanHandler implements RouteParameterHandler {
      */
     @Override
     public Object create(ActionParameter argument, Context context, ParameterFactories engine) {
-        Object object = createNewInstance(argument.getRawType(), context, engine);
-
-        for (Method method : argument.getRawType().getMethods()) {
-            if (method.getName().startsWith(SETTER_PREFIX)) {
-                if (method.getParameterTypes().length != 1) {
-                    LOGGER.warn("The class {} has a setter method called {} but with too many parameters to be " +
-                                    "injected with the 'BeanParameter' annotation", argument.getRawType().getName(),
-                            method.getName());
-                    continue;
-                }
-
-                // Only 1 parameter
-                Annotation[] annotation = method.getParameterAnnotations()[0];
-                Class<?> typesOfParameter = method.getParameterTypes()[0];
-                Type genericTypeOfParameter = method.getGenericParameterTypes()[0];
-                ActionParameter parameter = ActionParameter.from(method, annotation, typesOfParameter,
-                        genericTypeOfParameter);
-                // An exception is thrown if we can't build the parameter object.
-                Object value = Bindings.create(parameter, context, engine);
-                if (value != null) {
-                    inject(object, method, value);
-                }
+        BeanBinding binding = BINDINGS.get(argument.getRawType());
+        Object object = binding.newInstance(context, engine);
+        for (int i = 0; i < binding.setters.length; i++) {
+            // An exception is thrown if we can't build the parameter object.
+            Object value = Bindings.create(binding.setterParameters[i], context, engine);
+            if (value != null) {
+                inject(object, binding.setters[i], value);
             }
         }
         return object;
@@ -80,9 +76,6 @@ public class BeanHandler implements RouteParameterHandler {
 
     private void inject(Object object, Method method, Object value) {
         try {
-            if (!method.isAccessible()) {
-                method.setAccessible(true);
-            }
             method.invoke(object, value);
         } catch (IllegalAccessException e) {
             throw new IllegalArgumentException("Cannot inject the value " + value + " in the method " + method
@@ -105,39 +98,7 @@ public class BeanHandler implements RouteParameterHandler {
         return arguments;
     }
 
-
-    private Object createNewInstance(Class<?> rawType, Context context, ParameterFactories engine) {
-        try {
-            // If we have an empty constructor use it.
-            Constructor<?> cst = getNoArgConstructor(rawType);
-            if (cst != null) {
-                return cst.newInstance();
-            }
-
-            // Try to get a constructor with annotated parameters.
-            cst = findConstructor(rawType);
-            if (cst == null) {
-                throw new IllegalArgumentException("Cannot build an instance of '" + rawType.getName() + "', " +
-                        "cannot find a suitable constructor.");
-            }
-
-            List<ActionParameter> parameters = buildActionParameterList(cst);
-            Object[] values = new Object[parameters.size()];
-            for (int i = 0; i < parameters.size(); i++) {
-                ActionParameter argument = parameters.get(i);
-                values[i] = Bindings.create(argument, context, engine);
-            }
-
-            return cst.newInstance(values);
-
-        } catch (InstantiationException | IllegalAccessException e) {
-            throw new IllegalArgumentException("Cannot build an instance of '" + rawType.getName(), e);
-        } catch (InvocationTargetException e) { //NOSONAR
-            throw new IllegalArgumentException("Cannot build an instance of '" + rawType.getName(), e.getTargetException());
-        }
-    }
-
-    private Constructor<?> findConstructor(Class<?> rawType) {
+    private static Constructor<?> findConstructor(Class<?> rawType) {
         for (Constructor constructor : rawType.getConstructors()) {
             Annotation[][] annotations = constructor.getParameterAnnotations();
             // Just check that all parameters are annotated, a more in-depth check is done during the creation of the
@@ -161,5 +122,86 @@ public class BeanHandler implements RouteParameterHandler {
         }
         return null;
     }
-}
 
+    /**
+     * The binding metadata of a bean class: the constructor and its parameters, and the setters with their parameter.
+     */
+    private static final class BeanBinding {
+
+        private final Class<?> type;
+
+        /**
+         * The constructor, {@literal null} if the class has no suitable constructor.
+         */
+        private final Constructor<?> constructor;
+
+        private final ActionParameter[] constructorParameters;
+
+        private final Method[] setters;
+
+        private final ActionParameter[] setterParameters;
+
+        BeanBinding(Class<?> type) {
+            this.type = type;
+            // If we have an empty constructor use it, otherwise try to get a constructor with annotated parameters.
+            Constructor<?> cst = getNoArgConstructor(type);
+            if (cst != null) {
+                constructorParameters = new ActionParameter[0];
+            } else {
+                cst = findConstructor(type);
+                if (cst != null) {
+                    List<ActionParameter> parameters = buildActionParameterList(cst);
+                    constructorParameters = parameters.toArray(new ActionParameter[parameters.size()]);
+                } else {
+                    constructorParameters = new ActionParameter[0];
+                }
+            }
+            constructor = cst;
+
+            List<Method> methods = new ArrayList<>();
+            List<ActionParameter> parameters = new ArrayList<>();
+            for (Method method : type.getMethods()) {
+                if (method.getName().startsWith(SETTER_PREFIX)) {
+                    if (method.getParameterTypes().length != 1) {
+                        LOGGER.warn("The class {} has a setter method called {} but with too many parameters to be " +
+                                        "injected with the 'BeanParameter' annotation", type.getName(),
+                                method.getName());
+                        continue;
+                    }
+
+                    // Only 1 parameter
+                    Annotation[] annotation = method.getParameterAnnotations()[0];
+                    Class<?> typesOfParameter = method.getParameterTypes()[0];
+                    Type genericTypeOfParameter = method.getGenericParameterTypes()[0];
+                    parameters.add(ActionParameter.from(method, annotation, typesOfParameter,
+                            genericTypeOfParameter));
+                    if (!method.isAccessible()) {
+                        method.setAccessible(true);
+                    }
+                    methods.add(method);
+                }
+            }
+            setters = methods.toArray(new Method[methods.size()]);
+            setterParameters = parameters.toArray(new ActionParameter[parameters.size()]);
+        }
+
+        Object newInstance(Context context, ParameterFactories engine) {
+            if (constructor == null) {
+                throw new IllegalArgumentException("Cannot build an instance of '" + type.getName() + "', " +
+                        "cannot find a suitable constructor.");
+            }
+            try {
+                Object[] values = new Object[constructorParameters.length];
+                for (int i = 0; i < constructorParameters.length; i++) {
+                    values[i] = Bindings.create(constructorParameters[i], context, engine);
+                }
+                return constructor.newInstance(values);
+            } catch (InstantiationException | IllegalAccessException e) {
+                throw new IllegalArgumentException("Cannot build an instance of '" + type.getName(), e);
+            } catch (InvocationTargetException e) { //NOSONAR
+                throw new IllegalArgumentException("Cannot build an instance of '" + type.getName(),
+                        e.getTargetException());
+            }
+        }
+    }
+}
@@ -19,33 +19,93 @@
  */
 package org.wisdom.router.security;
 
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import org.apache.felix.ipojo.annotations.Bind;
 import org.apache.felix.ipojo.annotations.Component;
 import org.apache.felix.ipojo.annotations.Instantiate;
 import org.apache.felix.ipojo.annotations.Provides;
-import org.apache.felix.ipojo.annotations.Requires;
+import org.apache.felix.ipojo.annotations.Unbind;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wisdom.api.http.Context;
 import org.wisdom.api.http.Result;
 import org.wisdom.api.http.Results;
 import org.wisdom.api.interception.Interceptor;
 import org.wisdom.api.interception.RequestContext;
+import org.wisdom.api.security.AuthenticationCache;
 import org.wisdom.api.security.Authenticated;
 import org.wisdom.api.security.Authenticator;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * An interceptor checking that action methods are accessed while being authenticated only.
  * It handles the {@link org.wisdom.api.security.Authenticated} annotation.
+ * <p>
+ * The authenticators are indexed by name, the index being rebuilt when an authenticator arrives or leaves. The user
+ * names computed by the authenticators returning the credentials of the request and a cache duration are cached,
+ * using a digest of the credentials as key. The cache is bounded, cleared when the authenticators change, and can be
+ * invalidated using the {@link org.wisdom.api.security.AuthenticationCache} service.
  */
 @Component(immediate = true)
-@Provides(specifications = Interceptor.class)
+@Provides(specifications = {Interceptor.class, AuthenticationCache.class})
 @Instantiate
-public class AuthenticationInterceptor extends Interceptor<Authenticated> {
+public class AuthenticationInterceptor extends Interceptor<Authenticated> implements AuthenticationCache {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AuthenticationInterceptor.class);
 
-    @Requires(optional = true)
-    Authenticator[] authenticators;
+    /**
+     * The maximum number of cached authentications.
+     */
+    static final int MAX_CACHED_AUTHENTICATIONS = 10000;
+
+    private final List<Authenticator> authenticators = new ArrayList<>();
+
+    private volatile AuthenticatorIndex index = new AuthenticatorIndex(authenticators);
+
+    private final Map<HashCode, CachedAuthentication> cache = new ConcurrentHashMap<>();
+
+    /**
+     * Incremented on each invalidation, so an authentication computed before an invalidation is not cached after it.
+     */
+    private final AtomicLong generation = new AtomicLong();
 
+    /**
+     * Binds an authenticator.
+     *
+     * @param authenticator the authenticator
+     */
+    @Bind(aggregate = true, optional = true)
+    public synchronized void bindAuthenticator(Authenticator authenticator) {
+        authenticators.add(authenticator);
+        refresh();
+    }
+
+    /**
+     * Unbinds an authenticator.
+     *
+     * @param authenticator the authenticator
+     */
+    @Unbind(aggregate = true)
+    public synchronized void unbindAuthenticator(Authenticator authenticator) {
+        authenticators.remove(authenticator);
+        refresh();
+    }
+
+    private void refresh() {
+        index = new AuthenticatorIndex(authenticators);
+        // A replaced authenticator may not accept the credentials accepted by the previous one.
+        invalidateAll();
+    }
 
     /**
      * Intercepts the action, and checks if the current request is authenticated.
@@ -68,7 +128,7 @@ public class AuthenticationInterceptor extends Interceptor<Authenticated> {
     public Result call(Authenticated configuration, RequestContext context) throws Exception {
         Authenticator authenticator = getAuthenticator(context, configuration.value());
         if (authenticator != null) {
-            String username = authenticator.getUserName(context.context());
+            String username = authenticate(authenticator, context.context());
             if (username == null) {
                 // We cut the interception chain on purpose.
                 context.context().request().setUsername(null);
@@ -86,30 +146,113 @@ public class AuthenticationInterceptor extends Interceptor<Authenticated> {
     }
 
     private Authenticator getAuthenticator(RequestContext context, String value) {
-        if (authenticators.length == 0) {
+        AuthenticatorIndex idx = index;
+        Authenticator[] current = idx.authenticators;
+        if (current.length == 0) {
             return null;
         }
 
         if (value == null || value.length() == 0) {
             // This is the default value.
-            if (authenticators.length > 1) {
+            if (current.length > 1) {
                 // Default value but several authenticator
                 LOGGER.warn("The action {} require authentication, but does not specify the authenticator. " +
                                 "But, several authenticators are available, picked one randomly ({})",
-                        context.context().path(), authenticators[0]
+                        context.context().path(), current[0]
                 );
             }
-            return authenticators[0];
+            return current[0];
+        }
+
+        return idx.byName.get(value);
+    }
+
+    /**
+     * Retrieves the name of the user emitting the request, from the cache if the authenticator allows it.
+     *
+     * @param authenticator the authenticator
+     * @param context       the context
+     * @return the user name, {@literal null} if the request is not authenticated
+     */
+    private String authenticate(Authenticator authenticator, Context context) {
+        long duration = authenticator.getCacheDuration();
+        String credentials = duration > 0 ? authenticator.getCredentials(context) : null;
+        if (credentials == null) {
+            return authenticator.getUserName(context);
+        }
+
+        HashCode key = Hashing.sha256().newHasher()
+                .putString(authenticator.getName(), StandardCharsets.UTF_8)
+                .putByte((byte) 0)
+                .putString(credentials, StandardCharsets.UTF_8)
+                .hash();
+        long now = System.nanoTime();
+        CachedAuthentication cached = cache.get(key);
+        if (cached != null) {
+            if (!cached.isExpired(now)) {
+                return cached.username;
+            }
+            cache.remove(key, cached);
+        }
+
+        long current = generation.get();
+        String username = authenticator.getUserName(context);
+        if (username != null && generation.get() == current) {
+            if (cache.size() >= MAX_CACHED_AUTHENTICATIONS) {
+                evictExpired(now);
+            }
+            if (cache.size() < MAX_CACHED_AUTHENTICATIONS) {
+                CachedAuthentication authentication = new CachedAuthentication(username,
+                        now + TimeUnit.MILLISECONDS.toNanos(duration));
+                cache.put(key, authentication);
+                if (generation.get() != current) {
+                    // Invalidated while being cached, the invalidation may have missed it.
+                    cache.remove(key, authentication);
+                }
+            }
+        }
+        return username;
+    }
+
+    private void evictExpired(long now) {
+        Iterator<CachedAuthentication> iterator = cache.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().isExpired(now)) {
+                iterator.remove();
+            }
         }
+    }
 
-        // Iterate over the authenticator to find the right one.
-        for (Authenticator authenticator : authenticators) {
-            if (authenticator.getName().equals(value)) {
-                return authenticator;
+    /**
+     * Removes the cached authentications of the given user.
+     *
+     * @param username the user name
+     */
+    @Override
+    public void invalidate(String username) {
+        generation.incrementAndGet();
+        Iterator<CachedAuthentication> iterator = cache.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().username.equals(username)) {
+                iterator.remove();
             }
         }
+    }
 
-        return null;
+    /**
+     * Removes all the cached authentications.
+     */
+    @Override
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.clear();
+    }
+
+    /**
+     * @return the number of cached authentications, including the expired ones not evicted yet.
+     */
+    int getCachedAuthenticationCount() {
+        return cache.size();
     }
 
     /**
@@ -121,4 +264,44 @@ public class AuthenticationInterceptor extends Interceptor<Authenticated> {
     public Class<Authenticated> annotation() {
         return Authenticated.class;
     }
+
+    /**
+     * The authenticators, in binding order, and indexed by name. The index is immutable, and rebuilt when the
+     * authenticators change.
+     */
+    private static final class AuthenticatorIndex {
+
+        private final Authenticator[] authenticators;
+
+        private final Map<String, Authenticator> byName = new HashMap<>();
+
+        private AuthenticatorIndex(List<Authenticator> authenticators) {
+            this.authenticators = authenticators.toArray(new Authenticator[authenticators.size()]);
+            for (Authenticator authenticator : this.authenticators) {
+                // The first authenticator with a name wins, as when the authenticators were iterated.
+                if (!byName.containsKey(authenticator.getName())) {
+                    byName.put(authenticator.getName(), authenticator);
+                }
+            }
+        }
+    }
+
+    /**
+     * A cached authentication.
+     */
+    private static final class CachedAuthentication {
+
+        private final String username;
+
+        private final long expiration;
+
+        private CachedAuthentication(String username, long expiration) {
+            this.username = username;
+            this.expiration = expiration;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiration >= 0;
+        }
+    }
 }
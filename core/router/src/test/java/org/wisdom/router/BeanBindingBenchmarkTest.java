@@ -0,0 +1,200 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.router;
+
+import org.junit.Test;
+import org.wisdom.api.annotations.FormParameter;
+import org.wisdom.api.annotations.QueryParameter;
+import org.wisdom.api.content.ParameterConverter;
+import org.wisdom.api.content.ParameterFactories;
+import org.wisdom.api.content.ParameterFactory;
+import org.wisdom.api.router.parameters.ActionParameter;
+import org.wisdom.api.router.parameters.Source;
+import org.wisdom.content.converters.ParamConverterEngine;
+import org.wisdom.router.parameter.Bindings;
+import org.wisdom.test.parents.FakeContext;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures the binding of a {@link org.wisdom.api.annotations.BeanParameter} bean with 15 properties read from the
+ * query and the form. The result is compared with the analysis of the bean class on every binding, as done before
+ * the binding metadata was cached.
+ */
+public class BeanBindingBenchmarkTest {
+
+    private static final int WARMUP = 5000;
+    private static final int ITERATIONS = 20000;
+
+    private final ParameterFactories engine = new ParamConverterEngine(
+            Collections.<ParameterConverter>emptyList(),
+            Collections.<ParameterFactory>emptyList());
+
+    @Test
+    public void testBindingOfAFifteenPropertiesBean() throws Exception {
+        FakeContext context = new FakeContext()
+                .setParameter("name", "wisdom")
+                .setParameter("version", "1")
+                .setParameter("size", "1024")
+                .setParameter("enabled", "true")
+                .setParameter("ratio", "0.5")
+                .setParameter("sort", "asc")
+                .setParameter("page", "3")
+                .setParameter("limit", "50")
+                .setFormField("email", "wisdom@example.com")
+                .setFormField("city", "Grenoble")
+                .setFormField("zip", "38000")
+                .setFormField("age", "7")
+                .setFormField("newsletter", "false")
+                .setFormField("comment", "hello")
+                .setFormField("score", "12.5");
+        ActionParameter argument = new ActionParameter(null, Source.BEAN, FifteenPropertiesBean.class);
+
+        FifteenPropertiesBean bean = (FifteenPropertiesBean) Bindings.create(argument, context, engine);
+        assertThat(bean.name).isEqualTo("wisdom");
+        assertThat(bean.limit).isEqualTo(50);
+        assertThat(bean.email).isEqualTo("wisdom@example.com");
+        assertThat(bean.score).isEqualTo(12.5);
+
+        for (int i = 0; i < WARMUP; i++) {
+            Bindings.create(argument, context, engine);
+            analyzeAndBind(context);
+        }
+
+        long begin = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            Bindings.create(argument, context, engine);
+        }
+        long cached = System.nanoTime() - begin;
+
+        begin = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            analyzeAndBind(context);
+        }
+        long analyzed = System.nanoTime() - begin;
+
+        System.out.println("Bean binding - cached metadata: " + cached / ITERATIONS + " ns/bean, analysis on "
+                + "every binding: " + analyzed / ITERATIONS + " ns/bean");
+        assertThat(cached).isLessThan(analyzed);
+    }
+
+    /**
+     * Binds the bean the way it was done before the metadata was cached: the setters and their annotations are
+     * looked up for each bean.
+     */
+    private Object analyzeAndBind(FakeContext context) throws Exception {
+        Object bean = FifteenPropertiesBean.class.getConstructor().newInstance();
+        for (Method method : FifteenPropertiesBean.class.getMethods()) {
+            if (method.getName().startsWith("set") && method.getParameterTypes().length == 1) {
+                Annotation[] annotations = method.getParameterAnnotations()[0];
+                ActionParameter parameter = ActionParameter.from(method, annotations, method.getParameterTypes()[0],
+                        method.getGenericParameterTypes()[0]);
+                Object value = Bindings.create(parameter, context, engine);
+                if (value != null) {
+                    method.setAccessible(true);
+                    method.invoke(bean, value);
+                }
+            }
+        }
+        return bean;
+    }
+
+    public static class FifteenPropertiesBean {
+        private String name;
+        private int version;
+        private long size;
+        private boolean enabled;
+        private double ratio;
+        private String sort;
+        private int page;
+        private int limit;
+        private String email;
+        private String city;
+        private String zip;
+        private int age;
+        private boolean newsletter;
+        private String comment;
+        private double score;
+
+        public void setName(@QueryParameter("name") String name) {
+            this.name = name;
+        }
+
+        public void setVersion(@QueryParameter("version") int version) {
+            this.version = version;
+        }
+
+        public void setSize(@QueryParameter("size") long size) {
+            this.size = size;
+        }
+
+        public void setEnabled(@QueryParameter("enabled") boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public void setRatio(@QueryParameter("ratio") double ratio) {
+            this.ratio = ratio;
+        }
+
+        public void setSort(@QueryParameter("sort") String sort) {
+            this.sort = sort;
+        }
+
+        public void setPage(@QueryParameter("page") int page) {
+            this.page = page;
+        }
+
+        public void setLimit(@QueryParameter("limit") int limit) {
+            this.limit = limit;
+        }
+
+        public void setEmail(@FormParameter("email") String email) {
+            this.email = email;
+        }
+
+        public void setCity(@FormParameter("city") String city) {
+            this.city = city;
+        }
+
+        public void setZip(@FormParameter("zip") String zip) {
+            this.zip = zip;
+        }
+
+        public void setAge(@FormParameter("age") int age) {
+            this.age = age;
+        }
+
+        public void setNewsletter(@FormParameter("newsletter") boolean newsletter) {
+            this.newsletter = newsletter;
+        }
+
+        public void setComment(@FormParameter("comment") String comment) {
+            this.comment = comment;
+        }
+
+        public void setScore(@FormParameter("score") double score) {
+            this.score = score;
+        }
+    }
+}
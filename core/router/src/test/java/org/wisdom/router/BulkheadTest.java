@@ -0,0 +1,195 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.router;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.wisdom.api.annotations.MaxConcurrency;
+import org.wisdom.api.annotations.Route;
+import org.wisdom.api.http.Context;
+import org.wisdom.api.http.HeaderNames;
+import org.wisdom.api.http.HttpMethod;
+import org.wisdom.api.http.Request;
+import org.wisdom.api.http.Result;
+import org.wisdom.api.http.Status;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks the bulkhead limiting the concurrent invocations of the routes annotated with {@link MaxConcurrency}.
+ */
+public class BulkheadTest {
+
+    private RequestRouter router;
+    private Context context;
+
+    @Before
+    public void setUp() {
+        router = new RequestRouter();
+        Request request = mock(Request.class);
+        when(request.contentMimeType()).thenReturn("text/plain");
+        context = mock(Context.class);
+        when(context.request()).thenReturn(request);
+        Context.CONTEXT.set(context);
+    }
+
+    @After
+    public void tearDown() {
+        Context.CONTEXT.remove();
+    }
+
+    @Test
+    public void testRejectionOnceTheLimitIsReached() {
+        Bulkhead bulkhead = new Bulkhead(2, 0, 1000, Status.TOO_MANY_REQUESTS);
+        assertThat(bulkhead.tryAcquire()).isTrue();
+        assertThat(bulkhead.tryAcquire()).isTrue();
+        assertThat(bulkhead.tryAcquire()).isFalse();
+        assertThat(bulkhead.enqueue()).isNull();
+
+        Result result = bulkhead.reject();
+        assertThat(result.getStatusCode()).isEqualTo(Status.TOO_MANY_REQUESTS);
+        assertThat(result.getHeaders()).containsEntry(HeaderNames.RETRY_AFTER, "1");
+        assertThat(bulkhead.getRejected()).isEqualTo(1);
+
+        bulkhead.release();
+        assertThat(bulkhead.getActive()).isEqualTo(1);
+        assertThat(bulkhead.tryAcquire()).isTrue();
+    }
+
+    @Test
+    public void testReleasedSlotsAreHandedOverToWaitingRequests() throws Exception {
+        Bulkhead bulkhead = new Bulkhead(1, 1, 1000, Status.SERVICE_UNAVAILABLE);
+        assertThat(bulkhead.tryAcquire()).isTrue();
+        CompletableFuture<Void> slot = bulkhead.enqueue();
+        assertThat(slot).isNotNull();
+        assertThat(bulkhead.getWaiting()).isEqualTo(1);
+        // The queue is full.
+        assertThat(bulkhead.enqueue()).isNull();
+
+        bulkhead.release();
+        assertThat(slot.isDone() && !slot.isCancelled()).isTrue();
+        assertThat(bulkhead.getActive()).isEqualTo(1);
+        assertThat(bulkhead.getWaiting()).isEqualTo(0);
+    }
+
+    @Test
+    public void testWaitingRequestsGiveUpAfterTheTimeout() throws Exception {
+        Bulkhead bulkhead = new Bulkhead(1, 1, 10, Status.SERVICE_UNAVAILABLE);
+        assertThat(bulkhead.tryAcquire()).isTrue();
+        CompletableFuture<Void> slot = bulkhead.enqueue();
+        try {
+            slot.get(5, TimeUnit.SECONDS);
+            fail("The request should have been given up");
+        } catch (CancellationException e) {
+            // Expected.
+        }
+        assertThat(bulkhead.getWaiting()).isEqualTo(0);
+
+        // The slot is not given to the request that gave up.
+        bulkhead.release();
+        assertThat(bulkhead.getActive()).isEqualTo(0);
+    }
+
+    @Test
+    public void testQueuedRequestsAreInvokedOnceTheSlotIsReleased() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        FakeController controller = new FakeController() {
+            @Route(method = HttpMethod.GET, uri = "/limited")
+            @MaxConcurrency(value = 1, queue = 1)
+            public Result limited() {
+                return async(() -> {
+                    done.await(5, TimeUnit.SECONDS);
+                    return ok("done");
+                });
+            }
+        };
+        router.bindController(controller);
+        org.wisdom.api.router.Route route = router.getRouteFor(HttpMethod.GET, "/limited");
+        Bulkhead bulkhead = ((RouteDelegate) route).getBulkhead();
+
+        try (FakeEngine engine = new FakeEngine(2, context)) {
+            CompletableFuture<Result> first = engine.dispatch(route);
+            CompletableFuture<Result> queued = engine.dispatch(route);
+            assertThat(bulkhead.getWaiting()).isEqualTo(1);
+            assertThat(engine.dispatch(route).get(5, TimeUnit.SECONDS).getStatusCode())
+                    .isEqualTo(Status.SERVICE_UNAVAILABLE);
+
+            done.countDown();
+            assertThat(first.get(5, TimeUnit.SECONDS).getStatusCode()).isEqualTo(Status.OK);
+            assertThat(queued.get(5, TimeUnit.SECONDS).getStatusCode()).isEqualTo(Status.OK);
+            assertThat(bulkhead.getActive()).isEqualTo(0);
+            assertThat(bulkhead.getWaiting()).isEqualTo(0);
+        }
+    }
+
+    @Test
+    public void testSaturatedRouteDoesNotHoldTheWorkerThreads() throws Exception {
+        CountDownLatch open = new CountDownLatch(1);
+        router.bindController(new FakeController() {
+            @Route(method = HttpMethod.GET, uri = "/limited")
+            @MaxConcurrency(value = 1, queue = 50, timeout = 30000)
+            public Result limited() {
+                return async(() -> {
+                    open.await(5, TimeUnit.SECONDS);
+                    return ok();
+                });
+            }
+
+            @Route(method = HttpMethod.GET, uri = "/fast")
+            public Result fast() {
+                return async(() -> ok());
+            }
+        });
+        org.wisdom.api.router.Route limited = router.getRouteFor(HttpMethod.GET, "/limited");
+        org.wisdom.api.router.Route fast = router.getRouteFor(HttpMethod.GET, "/fast");
+
+        // Two worker threads, as a small engine executor. The running request holds one of them.
+        try (FakeEngine engine = new FakeEngine(2, context)) {
+            List<CompletableFuture<Result>> responses = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                responses.add(engine.dispatch(limited));
+            }
+            assertThat(((RouteDelegate) limited).getBulkhead().getWaiting()).isEqualTo(19);
+
+            // The waiting requests do not hold the other worker, the other routes are still served.
+            for (int i = 0; i < 10; i++) {
+                assertThat(engine.dispatch(fast).get(5, TimeUnit.SECONDS).getStatusCode()).isEqualTo(Status.OK);
+            }
+            assertThat(responses.stream().filter(CompletableFuture::isDone).count()).isEqualTo(0);
+
+            open.countDown();
+            for (CompletableFuture<Result> response : responses) {
+                assertThat(response.get(5, TimeUnit.SECONDS).getStatusCode()).isEqualTo(Status.OK);
+            }
+            assertThat(((RouteDelegate) limited).getBulkhead().getActive()).isEqualTo(0);
+        }
+    }
+}
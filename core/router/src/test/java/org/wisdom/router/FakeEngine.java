@@ -0,0 +1,103 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.router;
+
+import org.wisdom.api.http.AsyncResult;
+import org.wisdom.api.http.Context;
+import org.wisdom.api.http.Result;
+import org.wisdom.api.router.Route;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Processes the results of the routes as the engine does: the asynchronous results are computed on a fixed pool of
+ * worker threads, and the results completed by a stage are processed once completed, without holding a worker.
+ */
+public class FakeEngine implements AutoCloseable {
+
+    private final ExecutorService workers;
+
+    private final Context context;
+
+    /**
+     * Creates the engine.
+     *
+     * @param threads the number of worker threads
+     * @param context the context of the requests
+     */
+    public FakeEngine(int threads, Context context) {
+        this.workers = Executors.newFixedThreadPool(threads);
+        this.context = context;
+    }
+
+    /**
+     * Invokes the route from the current thread (the event loop), and computes the result.
+     *
+     * @param route the route
+     * @return the future completed with the computed result
+     */
+    public CompletableFuture<Result> dispatch(Route route) {
+        CompletableFuture<Result> response = new CompletableFuture<>();
+        Context.CONTEXT.set(context);
+        try {
+            handle(route.invoke(), response);
+        } catch (Exception e) {
+            response.completeExceptionally(e);
+        } finally {
+            Context.CONTEXT.remove();
+        }
+        return response;
+    }
+
+    private void handle(Result result, CompletableFuture<Result> response) {
+        if (!(result instanceof AsyncResult)) {
+            response.complete(result);
+            return;
+        }
+        AsyncResult async = (AsyncResult) result;
+        if (async.stage() != null) {
+            async.stage().whenComplete((r, e) -> {
+                if (e != null) {
+                    response.completeExceptionally(e);
+                } else {
+                    handle(r, response);
+                }
+            });
+            return;
+        }
+        workers.execute(() -> {
+            Context.CONTEXT.set(context);
+            try {
+                handle(async.callable().call(), response);
+            } catch (Exception e) {
+                response.completeExceptionally(e);
+            } finally {
+                Context.CONTEXT.remove();
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        workers.shutdownNow();
+    }
+}
@@ -115,6 +115,51 @@ public class ReverseRouterTest {
 
     }
 
+    @Test
+    public void testFirstRouteWins() throws Exception {
+        FakeController controller = new FakeController();
+        controller.setRoutes(ImmutableList.of(
+                new RouteBuilder().route(HttpMethod.GET).on("/foo/{id}").to(controller, "foo"),
+                new RouteBuilder().route(HttpMethod.POST).on("/bar/{id}").to(controller, "foo")
+        ));
+        router.bindController(controller);
+        assertThat(router.getReverseRouteFor(controller, "foo", "id", "1")).isEqualTo("/foo/1");
+    }
+
+    @Test
+    public void testValuesAreNotInterpretedAsRegex() throws Exception {
+        FakeController controller = new FakeController();
+        controller.setRoutes(ImmutableList.of(
+                new RouteBuilder().route(HttpMethod.GET).on("/foo/{id}/{id}").to(controller, "foo")
+        ));
+        router.bindController(controller);
+        assertThat(router.getReverseRouteFor(controller, "foo", "id", "$1\\")).isEqualTo("/foo/$1%5C/$1%5C");
+        // Each character is encoded once.
+        assertThat(router.getReverseRouteFor(controller, "foo", "id", "a b%")).isEqualTo("/foo/a%20b%25/a%20b%25");
+    }
+
+    @Test
+    public void testNonReplaceablePlaceholders() throws Exception {
+        FakeController controller = new FakeController();
+        controller.setRoutes(ImmutableList.of(
+                new RouteBuilder().route(HttpMethod.GET).on("/foo/{id<[0-9]+>}/{rest*}").to(controller, "foo")
+        ));
+        router.bindController(controller);
+        assertThat(router.getReverseRouteFor(controller, "foo", "id", "1"))
+                .isEqualTo("/foo/{id<[0-9]+>}/{rest*}?id=1");
+    }
+
+    @Test
+    public void testQueryParametersKeepTheirOrder() throws Exception {
+        FakeController controller = new FakeController();
+        controller.setRoutes(ImmutableList.of(
+                new RouteBuilder().route(HttpMethod.GET).on("/foo/{id}").to(controller, "foo")
+        ));
+        router.bindController(controller);
+        assertThat(router.getReverseRouteFor(controller, "foo", "z", "1", "id", "2", "a", "3"))
+                .isEqualTo("/foo/2?z=1&a=3");
+    }
+
     public void checkEncoding(String decoded1, String decoded2, String decoded3,
                               String encoded1, String encoded2, String encoded3) throws Exception {
         final String expected = "/urlcoding/" + encoded1 + "/" + encoded2 + "?q=" + encoded3;
@@ -0,0 +1,149 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.router;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Before;
+import org.junit.Test;
+import org.wisdom.api.DefaultController;
+import org.wisdom.api.http.HttpMethod;
+import org.wisdom.api.http.Result;
+import org.wisdom.api.router.Route;
+import org.wisdom.api.router.RouteBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures the time needed to compute the links of a page containing 200 reverse routes, as a template using the
+ * {@literal routes} dialect would do, in an application exposing a few hundred routes. The result is compared with
+ * a linear scan of the routes replacing the placeholders with regular expressions.
+ */
+public class ReverseRoutingBenchmarkTest {
+
+    private static final int LINKS = 200;
+    private static final int WARMUP = 1000;
+    private static final int PAGES = 2000;
+
+    private final RequestRouter router = new RequestRouter();
+
+    private final List<Map<String, Object>> parameters = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        // Routes registered before the ones of the page.
+        for (int i = 0; i < 30; i++) {
+            FakeController other = new FakeController();
+            List<Route> routes = new ArrayList<>();
+            for (int j = 0; j < 10; j++) {
+                routes.add(new RouteBuilder().route(HttpMethod.GET).on("/other/" + i + "/" + j + "/{id}")
+                        .to(other, "bar"));
+            }
+            other.setRoutes(routes);
+            router.bindController(other);
+        }
+        router.bindController(new CatalogController());
+
+        for (int i = 0; i < LINKS; i++) {
+            parameters.add(ImmutableMap.<String, Object>of("category", "books" + (i % 7), "id", i,
+                    "page", i % 3));
+        }
+    }
+
+    @Test
+    public void testRenderPage() {
+        assertThat(render()).isEqualTo(renderWithLinearScan());
+
+        for (int i = 0; i < WARMUP; i++) {
+            render();
+            renderWithLinearScan();
+        }
+
+        long begin = System.nanoTime();
+        for (int i = 0; i < PAGES; i++) {
+            render();
+        }
+        long indexed = System.nanoTime() - begin;
+
+        begin = System.nanoTime();
+        for (int i = 0; i < PAGES; i++) {
+            renderWithLinearScan();
+        }
+        long scanned = System.nanoTime() - begin;
+
+        System.out.println("Page with " + LINKS + " reverse routes - indexed: "
+                + TimeUnit.NANOSECONDS.toMicros(indexed / PAGES) + " us, linear scan: "
+                + TimeUnit.NANOSECONDS.toMicros(scanned / PAGES) + " us");
+        assertThat(indexed).isLessThan(scanned);
+    }
+
+    private int render() {
+        int length = 0;
+        for (int i = 0; i < LINKS; i++) {
+            length += router.getReverseRouteFor(CatalogController.class, "item", parameters.get(i)).length();
+        }
+        return length;
+    }
+
+    /**
+     * The reverse routing computed by scanning the routes, and replacing the placeholders using regular expressions.
+     */
+    private int renderWithLinearScan() {
+        int length = 0;
+        for (int i = 0; i < LINKS; i++) {
+            for (Route route : router.getRoutes()) {
+                if (route.getControllerClass().getName().equals(CatalogController.class.getName())
+                        && route.getControllerMethod().getName().equals("item")) {
+                    String url = route.getUrl();
+                    StringBuilder query = new StringBuilder();
+                    for (Map.Entry<String, Object> entry : parameters.get(i).entrySet()) {
+                        if (url.contains("{" + entry.getKey() + "}")) {
+                            url = url.replaceAll(String.format("\\{%s(\\+)?\\}", entry.getKey()),
+                                    entry.getValue().toString());
+                        } else {
+                            query.append(query.length() == 0 ? "?" : "&").append(entry.getKey()).append('=')
+                                    .append(entry.getValue());
+                        }
+                    }
+                    length += url.length() + query.length();
+                    break;
+                }
+            }
+        }
+        return length;
+    }
+
+    private static class CatalogController extends DefaultController {
+
+        @org.wisdom.api.annotations.Route(method = HttpMethod.GET, uri = "/catalog/{category}")
+        public Result category() {
+            return ok();
+        }
+
+        @org.wisdom.api.annotations.Route(method = HttpMethod.GET, uri = "/catalog/{category}/{id}")
+        public Result item() {
+            return ok();
+        }
+    }
+}
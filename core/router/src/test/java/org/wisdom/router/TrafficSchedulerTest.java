@@ -0,0 +1,247 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.router;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.wisdom.api.annotations.Route;
+import org.wisdom.api.annotations.TrafficClass;
+import org.wisdom.api.http.Context;
+import org.wisdom.api.http.HeaderNames;
+import org.wisdom.api.http.HttpMethod;
+import org.wisdom.api.http.Request;
+import org.wisdom.api.http.Result;
+import org.wisdom.api.http.Status;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks the scheduling of the routes annotated with {@link TrafficClass}.
+ */
+public class TrafficSchedulerTest {
+
+    private RequestRouter router;
+    private Context context;
+
+    @Before
+    public void setUp() {
+        router = new RequestRouter();
+        Request request = mock(Request.class);
+        when(request.contentMimeType()).thenReturn("text/plain");
+        context = mock(Context.class);
+        when(context.request()).thenReturn(request);
+        Context.CONTEXT.set(context);
+    }
+
+    @After
+    public void tearDown() {
+        Context.CONTEXT.remove();
+    }
+
+    @Test
+    public void testSlotsAreSharedAccordingToTheWeights() throws Exception {
+        TrafficScheduler scheduler = new TrafficScheduler(1, 100);
+        TrafficScheduler.Lane bulk = scheduler.configure(TrafficClass.BULK, 1, 50, 1000);
+        TrafficScheduler.Lane interactive = scheduler.configure(TrafficClass.INTERACTIVE, 8, 50, 1000);
+        assertThat(interactive.tryAcquire()).isTrue();
+        assertThat(bulk.tryAcquire()).isFalse();
+
+        List<CompletableFuture<Void>> bulkRequests = new ArrayList<>();
+        List<CompletableFuture<Void>> interactiveRequests = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            bulkRequests.add(bulk.enqueue());
+            interactiveRequests.add(interactive.enqueue());
+        }
+        assertThat(scheduler.getWaiting()).isEqualTo(18);
+
+        // Each release hands the slot over to a single waiting request.
+        for (int i = 0; i < 9; i++) {
+            interactive.release();
+            assertThat(scheduler.getActive()).isEqualTo(1);
+        }
+        assertThat(interactiveRequests.stream().filter(CompletableFuture::isDone).count()).isEqualTo(8);
+        assertThat(bulkRequests.stream().filter(CompletableFuture::isDone).count()).isEqualTo(1);
+        // Requests of the same class are served in order.
+        assertThat(bulkRequests.get(0).isDone()).isTrue();
+    }
+
+    @Test
+    public void testLowWeightClassesAreShedFirst() throws Exception {
+        TrafficScheduler scheduler = new TrafficScheduler(1, 2);
+        TrafficScheduler.Lane bulk = scheduler.configure(TrafficClass.BULK, 1, 10, 1000);
+        TrafficScheduler.Lane interactive = scheduler.configure(TrafficClass.INTERACTIVE, 8, 10, 1000);
+        assertThat(bulk.tryAcquire()).isTrue();
+
+        CompletableFuture<Void> first = bulk.enqueue();
+        CompletableFuture<Void> second = bulk.enqueue();
+        // The scheduler is full, the most recent bulk request is evicted.
+        CompletableFuture<Void> page = interactive.enqueue();
+        assertThat(page).isNotNull();
+        assertThat(second.isCancelled()).isTrue();
+        assertThat(bulk.getWaiting()).isEqualTo(1);
+        // Bulk requests cannot evict anybody.
+        assertThat(bulk.enqueue()).isNull();
+
+        Result result = bulk.reject();
+        assertThat(result.getStatusCode()).isEqualTo(Status.SERVICE_UNAVAILABLE);
+        assertThat(result.getHeaders()).containsEntry(HeaderNames.RETRY_AFTER, "1");
+        assertThat(bulk.getRejected()).isEqualTo(1);
+
+        bulk.release();
+        assertThat(page.isDone() && !page.isCancelled()).isTrue();
+        assertThat(first.isDone()).isFalse();
+        interactive.release();
+        assertThat(first.isDone() && !first.isCancelled()).isTrue();
+        bulk.release();
+        assertThat(scheduler.getActive()).isEqualTo(0);
+        assertThat(scheduler.getWaiting()).isEqualTo(0);
+    }
+
+    @Test
+    public void testWaitingRequestsGiveUpAfterTheTimeout() throws Exception {
+        TrafficScheduler scheduler = new TrafficScheduler(1, 10);
+        TrafficScheduler.Lane lane = scheduler.configure("sync", 1, 10, 10);
+        assertThat(lane.tryAcquire()).isTrue();
+        CompletableFuture<Void> slot = lane.enqueue();
+        try {
+            slot.get(5, TimeUnit.SECONDS);
+            fail("The request should have been given up");
+        } catch (CancellationException e) {
+            // Expected.
+        }
+        assertThat(scheduler.getWaiting()).isEqualTo(0);
+
+        // The slot is not given to the request that gave up.
+        lane.release();
+        assertThat(scheduler.getActive()).isEqualTo(0);
+    }
+
+    @Test
+    public void testUnconfiguredClassesGetTheDefaultSettings() {
+        TrafficScheduler scheduler = new TrafficScheduler();
+        assertThat(scheduler.lane(TrafficClass.INTERACTIVE).getWeight())
+                .isEqualTo(TrafficScheduler.DEFAULT_INTERACTIVE_WEIGHT);
+        assertThat(scheduler.lane("reports").getWeight()).isEqualTo(TrafficScheduler.DEFAULT_WEIGHT);
+        assertThat(scheduler.lane("reports")).isSameAs(scheduler.lane("reports"));
+    }
+
+    @Test
+    public void testWaitingRequestsDoNotHoldTheWorkerThreads() throws Exception {
+        CountDownLatch open = new CountDownLatch(1);
+        List<String> invoked = Collections.synchronizedList(new ArrayList<>());
+        router.bindController(new FakeController() {
+            @Route(method = HttpMethod.GET, uri = "/sync")
+            @TrafficClass(TrafficClass.BULK)
+            public Result sync() {
+                return async(() -> {
+                    invoked.add("bulk");
+                    open.await(5, TimeUnit.SECONDS);
+                    return ok();
+                });
+            }
+
+            @Route(method = HttpMethod.GET, uri = "/page")
+            @TrafficClass(TrafficClass.INTERACTIVE)
+            public Result page() {
+                invoked.add("page");
+                return ok();
+            }
+
+            @Route(method = HttpMethod.GET, uri = "/health")
+            public Result health() {
+                return ok();
+            }
+        });
+        assertThat(((RouteDelegate) router.getRouteFor(HttpMethod.GET, "/page")).getTrafficClass())
+                .isEqualTo(TrafficClass.INTERACTIVE);
+        TrafficScheduler scheduler = new TrafficScheduler(1, 100);
+        scheduler.configure(TrafficClass.BULK, 1, 50, 30000);
+        scheduler.configure(TrafficClass.INTERACTIVE, 8, 50, 30000);
+        router.setTrafficScheduler(scheduler);
+
+        org.wisdom.api.router.Route bulk = router.getRouteFor(HttpMethod.GET, "/sync");
+        org.wisdom.api.router.Route page = router.getRouteFor(HttpMethod.GET, "/page");
+        org.wisdom.api.router.Route health = router.getRouteFor(HttpMethod.GET, "/health");
+        // Two worker threads, as a small engine executor. A blocked bulk request holds one of them.
+        try (FakeEngine engine = new FakeEngine(2, context)) {
+            List<CompletableFuture<Result>> responses = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                responses.add(engine.dispatch(bulk));
+            }
+            CompletableFuture<Result> interactive = engine.dispatch(page);
+            assertThat(scheduler.getWaiting()).isEqualTo(20);
+
+            // The waiting requests do not hold the workers, other routes are still served.
+            assertThat(engine.dispatch(health).get(5, TimeUnit.SECONDS).getStatusCode()).isEqualTo(Status.OK);
+            assertThat(invoked).containsExactly("bulk");
+
+            open.countDown();
+            assertThat(interactive.get(5, TimeUnit.SECONDS).getStatusCode()).isEqualTo(Status.OK);
+            for (CompletableFuture<Result> response : responses) {
+                assertThat(response.get(5, TimeUnit.SECONDS).getStatusCode()).isEqualTo(Status.OK);
+            }
+            // The interactive request is invoked right after the running bulk request.
+            assertThat(invoked).hasSize(21);
+            assertThat(invoked.indexOf("page")).isEqualTo(1);
+            assertThat(scheduler.getActive()).isEqualTo(0);
+            assertThat(scheduler.getWaiting()).isEqualTo(0);
+        }
+    }
+
+    @Test
+    public void testRejectedWaitingRequestsGetTheRejectionResult() throws Exception {
+        CountDownLatch open = new CountDownLatch(1);
+        router.bindController(new FakeController() {
+            @Route(method = HttpMethod.GET, uri = "/sync")
+            @TrafficClass(TrafficClass.BULK)
+            public Result sync() {
+                return async(() -> {
+                    open.await(5, TimeUnit.SECONDS);
+                    return ok();
+                });
+            }
+        });
+        TrafficScheduler scheduler = new TrafficScheduler(1, 100);
+        scheduler.configure(TrafficClass.BULK, 1, 50, 10);
+        router.setTrafficScheduler(scheduler);
+
+        org.wisdom.api.router.Route bulk = router.getRouteFor(HttpMethod.GET, "/sync");
+        try (FakeEngine engine = new FakeEngine(2, context)) {
+            CompletableFuture<Result> running = engine.dispatch(bulk);
+            Result queued = engine.dispatch(bulk).get(5, TimeUnit.SECONDS);
+            assertThat(queued.getStatusCode()).isEqualTo(Status.SERVICE_UNAVAILABLE);
+            open.countDown();
+            assertThat(running.get(5, TimeUnit.SECONDS).getStatusCode()).isEqualTo(Status.OK);
+            assertThat(scheduler.getActive()).isEqualTo(0);
+        }
+    }
+}
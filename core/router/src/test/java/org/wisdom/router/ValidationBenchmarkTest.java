@@ -0,0 +1,134 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.router;
+
+import org.hibernate.validator.constraints.Email;
+import org.junit.Before;
+import org.junit.Test;
+import org.wisdom.api.Controller;
+import org.wisdom.api.annotations.Parameter;
+import org.wisdom.api.annotations.Route;
+import org.wisdom.api.content.ParameterConverter;
+import org.wisdom.api.content.ParameterFactory;
+import org.wisdom.api.http.HttpMethod;
+import org.wisdom.api.http.Result;
+import org.wisdom.api.http.Status;
+import org.wisdom.content.converters.ParamConverterEngine;
+import org.wisdom.test.parents.Invocation;
+
+import javax.validation.Validation;
+import javax.validation.Validator;
+import javax.validation.constraints.NotNull;
+import java.lang.reflect.Method;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.wisdom.test.parents.Action.action;
+
+/**
+ * Measures the invocation of actions with and without constrained parameters. The result is compared with the
+ * validation of the parameters on every invocation, as done when the constraint metadata was not checked.
+ */
+public class ValidationBenchmarkTest {
+
+    private static final int WARMUP = 20000;
+    private static final int ITERATIONS = 100000;
+
+    private RequestRouter router;
+    private Validator validator;
+
+    @Before
+    public void setUp() {
+        router = new RequestRouter();
+        validator = Validation.buildDefaultValidatorFactory().getValidator();
+        router.setValidator(validator);
+        router.setParameterConverterEngine(
+                new ParamConverterEngine(
+                        Collections.<ParameterConverter>emptyList(),
+                        Collections.<ParameterFactory>emptyList()));
+        router.bindController(new FakeController() {
+            @Route(method = HttpMethod.GET, uri = "/constrained")
+            public Result constrained(@NotNull @Email @Parameter("email") String email) {
+                return ok();
+            }
+
+            @Route(method = HttpMethod.GET, uri = "/unconstrained")
+            public Result unconstrained(@Parameter("email") String email) {
+                return ok();
+            }
+        });
+    }
+
+    @Test
+    public void testConstrainedAndUnconstrainedActions() throws Exception {
+        final org.wisdom.api.router.Route constrained = router.getRouteFor(HttpMethod.GET, "/constrained");
+        final org.wisdom.api.router.Route unconstrained = router.getRouteFor(HttpMethod.GET, "/unconstrained");
+        final Method method = unconstrained.getControllerMethod();
+        final Object[] parameters = {"wisdom@wisdom.io"};
+        final long[] times = new long[3];
+
+        Result result = action(new Invocation() {
+            @Override
+            public Result invoke() throws Throwable {
+                for (int i = 0; i < WARMUP; i++) {
+                    constrained.invoke();
+                    unconstrained.invoke();
+                    validateAndInvoke(unconstrained, method, parameters);
+                }
+
+                long begin = System.nanoTime();
+                for (int i = 0; i < ITERATIONS; i++) {
+                    unconstrained.invoke();
+                }
+                times[0] = System.nanoTime() - begin;
+
+                begin = System.nanoTime();
+                for (int i = 0; i < ITERATIONS; i++) {
+                    validateAndInvoke(unconstrained, method, parameters);
+                }
+                times[1] = System.nanoTime() - begin;
+
+                begin = System.nanoTime();
+                for (int i = 0; i < ITERATIONS; i++) {
+                    constrained.invoke();
+                }
+                times[2] = System.nanoTime() - begin;
+                return constrained.invoke();
+            }
+        }).parameter("email", "wisdom@wisdom.io").invoke().getResult();
+        assertThat(result.getStatusCode()).isEqualTo(Status.OK);
+
+        System.out.println("Action invocation - unconstrained: " + times[0] / ITERATIONS + " ns, unconstrained "
+                + "validated on every invocation: " + times[1] / ITERATIONS + " ns, constrained: "
+                + times[2] / ITERATIONS + " ns");
+        assertThat(times[0]).isLessThan(times[1]);
+    }
+
+    /**
+     * Invokes the action after the validation of its parameters, as done when the constraint metadata was not
+     * checked.
+     */
+    private Result validateAndInvoke(org.wisdom.api.router.Route route, Method method, Object[] parameters)
+            throws Throwable {
+        validator.forExecutables().validateParameters((Controller) route.getControllerObject(), method,
+                parameters);
+        return route.invoke();
+    }
+}
@@ -140,6 +140,35 @@ public class ValidationDetectionTest {
         assertThat(result.getResult().getStatusCode()).isEqualTo(Status.OK);
     }
 
+    @Test
+    public void testValidatorReplacement() {
+        router.setValidator(null);
+
+        FakeController controller = new FakeController() {
+            @Route(method = HttpMethod.GET, uri = "/")
+            public Result index(@NotNull @Parameter("name") String name) {
+                return ok();
+            }
+        };
+
+        router.bindController(controller);
+
+        final org.wisdom.api.router.Route route = router.getRouteFor(HttpMethod.GET, "/");
+        Invocation invocation = new Invocation() {
+            @Override
+            public Result invoke() throws Throwable {
+                return route.invoke();
+            }
+        };
+        assertThat(action(invocation).invoke().getResult().getStatusCode()).isEqualTo(Status.OK);
+
+        // The constraint metadata is retrieved from the new validator.
+        router.setValidator(Validation.buildDefaultValidatorFactory().getValidator());
+        assertThat(action(invocation).invoke().getResult().getStatusCode()).isEqualTo(Status.BAD_REQUEST);
+        assertThat(action(invocation).parameter("name", "wisdom").invoke().getResult().getStatusCode())
+                .isEqualTo(Status.OK);
+    }
+
     @Test
     public void testValidationRequiredWithSeveralParameters() {
         FakeController controller = new FakeController() {
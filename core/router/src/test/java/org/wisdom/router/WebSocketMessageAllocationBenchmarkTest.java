@@ -0,0 +1,172 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.router;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.wisdom.api.DefaultController;
+import org.wisdom.api.annotations.Body;
+import org.wisdom.api.annotations.OnMessage;
+import org.wisdom.api.concurrent.ManagedExecutorService;
+import org.wisdom.api.content.ParameterConverter;
+import org.wisdom.api.content.ParameterFactory;
+import org.wisdom.api.http.websockets.WebSocketDispatcher;
+import org.wisdom.content.converters.ParamConverterEngine;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Measures the memory allocated and the throughput when dispatching 64KB binary frames to several
+ * {@link OnMessage} callbacks receiving the raw payload. {@link ByteBuffer} and {@link InputStream} callbacks must
+ * receive the frame data without copy, while {@literal byte[]} callbacks share a single copy.
+ */
+public class WebSocketMessageAllocationBenchmarkTest {
+
+    private static final int FRAME_SIZE = 64 * 1024;
+
+    /**
+     * The allocation budget per message, in bytes. Copying the frame once would exceed it.
+     */
+    private static final long BUDGET = 8 * 1024;
+
+    private static final int WARMUP = 20000;
+    private static final int ITERATIONS = 50000;
+
+    private WebSocketRouter router;
+
+    private long checksum;
+
+    @Before
+    public void setUp() {
+        router = new WebSocketRouter();
+        router.dispatchers = new WebSocketDispatcher[]{mock(WebSocketDispatcher.class)};
+        router.converter = new ParamConverterEngine(
+                Collections.<ParameterConverter>emptyList(),
+                Collections.<ParameterFactory>emptyList());
+        // Runs the callbacks in the caller thread, so their allocations are measured too.
+        router.executor = (ManagedExecutorService) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{ManagedExecutorService.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("submit")) {
+                        ((Callable) args[0]).call();
+                    }
+                    return null;
+                });
+    }
+
+    @Test
+    public void testBinaryFramesWithoutCopy() {
+        router.bindController(new DefaultController() {
+
+            @OnMessage("/ws")
+            public void buffer(@Body ByteBuffer buffer) {
+                checksum += buffer.get(buffer.limit() - 1);
+            }
+
+            @OnMessage("/ws")
+            public void stream(@Body InputStream stream) throws IOException {
+                checksum += stream.read();
+            }
+
+            @OnMessage("/ws")
+            public void other(@Body ByteBuffer buffer) {
+                checksum += buffer.remaining();
+            }
+        });
+
+        long perMessage = measure("ByteBuffer and InputStream");
+        if (perMessage >= 0) {
+            assertThat(perMessage).isLessThanOrEqualTo(BUDGET);
+        }
+    }
+
+    @Test
+    public void testBinaryFramesAsByteArrays() {
+        router.bindController(new DefaultController() {
+
+            @OnMessage("/ws")
+            public void bytes(@Body byte[] bytes) {
+                checksum += bytes[bytes.length - 1];
+            }
+
+            @OnMessage("/ws")
+            public void other(@Body byte[] bytes) {
+                checksum += bytes.length;
+            }
+
+            @OnMessage("/ws")
+            public void buffer(@Body ByteBuffer buffer) {
+                checksum += buffer.remaining();
+            }
+        });
+
+        // The frame data does not fill the backing array, so it is copied, but only once for all callbacks.
+        long perMessage = measure("byte[]");
+        if (perMessage >= 0) {
+            assertThat(perMessage).isLessThanOrEqualTo(FRAME_SIZE + BUDGET);
+        }
+    }
+
+    /**
+     * Dispatches frames to the bound callbacks.
+     *
+     * @return the number of bytes allocated per message, {@literal -1} if the JVM cannot measure it.
+     */
+    private long measure(String name) {
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!bean.isThreadAllocatedMemorySupported()) {
+            return -1;
+        }
+        bean.setThreadAllocatedMemoryEnabled(true);
+
+        // As in vert.x, the frame data is a region of a heap buffer.
+        byte[] data = new byte[FRAME_SIZE + 16];
+        new Random(0).nextBytes(data);
+        ByteBuffer frame = ByteBuffer.wrap(data, 8, FRAME_SIZE).slice();
+
+        for (int i = 0; i < WARMUP; i++) {
+            router.received("/ws", "client", frame.duplicate());
+        }
+
+        long tid = Thread.currentThread().getId();
+        long allocated = bean.getThreadAllocatedBytes(tid);
+        long begin = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            router.received("/ws", "client", frame.duplicate());
+        }
+        long duration = System.nanoTime() - begin;
+        long perMessage = (bean.getThreadAllocatedBytes(tid) - allocated) / ITERATIONS;
+
+        System.out.println(name + " callbacks - dispatched " + ITERATIONS + " frames of " + FRAME_SIZE + " bytes: "
+                + (ITERATIONS * 1000000000L / duration) + " messages/s, " + perMessage + " bytes allocated per "
+                + "message");
+        assertThat(checksum).isNotZero();
+        return perMessage;
+    }
+}
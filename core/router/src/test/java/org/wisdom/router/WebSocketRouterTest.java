@@ -24,6 +24,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.NullNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.commons.io.IOUtils;
 import org.junit.Test;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
@@ -35,6 +36,9 @@ import org.wisdom.api.content.ParameterFactory;
 import org.wisdom.api.http.websockets.WebSocketDispatcher;
 import org.wisdom.content.converters.ParamConverterEngine;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.Collections;
 import java.util.HashMap;
@@ -184,6 +188,95 @@ public class WebSocketRouterTest {
         router.unbindController(controller);
     }
 
+    @Test
+    public void testControllerWithBinaryMessages() throws IOException {
+        WebSocketRouter router = new WebSocketRouter();
+        final WebSocketDispatcher dispatcher = mock(WebSocketDispatcher.class);
+        router.dispatchers = new WebSocketDispatcher[]{dispatcher};
+        router.executor = mock(ManagedExecutorService.class);
+        router.converter = new ParamConverterEngine(
+                Collections.<ParameterConverter>emptyList(),
+                Collections.<ParameterFactory>emptyList());
+        doAnswer(new Answer() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                ((Callable<Void>) invocation.getArguments()[0]).call();
+                return null;
+            }
+        }).when(router.executor).submit(any(Callable.class));
+
+        final Map<String, Object> results = new HashMap<>();
+        final DefaultController controller = new DefaultController() {
+
+            @OnMessage("/ws")
+            public void buffer(@Body ByteBuffer buffer) {
+                results.put("buffer", buffer);
+                // Consuming the buffer must not affect the other callbacks.
+                buffer.position(buffer.limit());
+            }
+
+            @OnMessage("/ws")
+            public void stream(@Body InputStream stream) {
+                results.put("stream", stream);
+            }
+
+            @OnMessage("/ws")
+            public void bytes(@Body byte[] bytes) {
+                results.put("bytes", bytes);
+            }
+
+            @OnMessage("/ws")
+            public void text(@Body String text) {
+                results.put("text", text);
+            }
+
+        };
+        router.bindController(controller);
+        assertThat(router.listeners).hasSize(4);
+
+        // The frame data is a slice of a larger array, as for network buffers.
+        byte[] data = "--hello--".getBytes(Charset.defaultCharset());
+        ByteBuffer frame = ByteBuffer.wrap(data, 2, 5).slice();
+        router.received("/ws", "client", frame);
+
+        ByteBuffer buffer = (ByteBuffer) results.get("buffer");
+        // The callbacks share the frame data, they cannot modify it.
+        assertThat(buffer.isReadOnly()).isTrue();
+        assertThat(buffer.capacity()).isEqualTo(5);
+        assertThat(IOUtils.toString((InputStream) results.get("stream"), Charset.defaultCharset()))
+                .isEqualTo("hello");
+        assertThat((byte[]) results.get("bytes")).isEqualTo("hello".getBytes(Charset.defaultCharset()));
+        assertThat(results.get("text")).isEqualTo("hello");
+        // The frame itself is left untouched.
+        assertThat(frame.remaining()).isEqualTo(5);
+
+        // The engine dispatches read-only frames.
+        results.clear();
+        router.received("/ws", "client", frame.asReadOnlyBuffer());
+        assertThat(((ByteBuffer) results.get("buffer")).isReadOnly()).isTrue();
+        assertThat(IOUtils.toString((InputStream) results.get("stream"), Charset.defaultCharset()))
+                .isEqualTo("hello");
+        assertThat((byte[]) results.get("bytes")).isEqualTo("hello".getBytes(Charset.defaultCharset()));
+        assertThat(results.get("text")).isEqualTo("hello");
+
+        // When the array holds exactly the frame data, it is passed as it is.
+        results.clear();
+        router.received("/ws", "client", data);
+        assertThat(results.get("bytes")).isSameAs(data);
+
+        router.unbindController(controller);
+    }
+
+    @Test
+    public void testMessageIsDecodedOnce() {
+        WebSocketMessage message = new WebSocketMessage(ByteBuffer.wrap("hello".getBytes(Charset.defaultCharset())));
+        assertThat(message.size()).isEqualTo(5);
+        assertThat(message.text()).isEqualTo("hello").isSameAs(message.text());
+        assertThat(message.bytes()).isSameAs(message.bytes());
+        assertThat(message.buffer()).isNotSameAs(message.buffer());
+        assertThat(message.buffer().isReadOnly()).isTrue();
+    }
+
     @Test
     public void testControllerWithOpenAndCloseAnnotations() {
         WebSocketRouter router = new WebSocketRouter();
@@ -0,0 +1,310 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.router.batch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.net.MediaType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.wisdom.api.annotations.Body;
+import org.wisdom.api.annotations.MaxConcurrency;
+import org.wisdom.api.annotations.Parameter;
+import org.wisdom.api.annotations.PathParameter;
+import org.wisdom.api.annotations.Route;
+import org.wisdom.api.concurrent.ManagedExecutorService;
+import org.wisdom.api.content.ParameterConverter;
+import org.wisdom.api.content.ParameterFactory;
+import org.wisdom.api.cookies.Cookies;
+import org.wisdom.api.cookies.FlashCookie;
+import org.wisdom.api.cookies.SessionCookie;
+import org.wisdom.api.http.*;
+import org.wisdom.content.converters.ParamConverterEngine;
+import org.wisdom.content.jackson.JacksonSingleton;
+import org.wisdom.router.Bulkhead;
+import org.wisdom.router.FakeController;
+import org.wisdom.router.RequestRouter;
+import org.wisdom.router.RouteDelegate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks the dispatching of the batch entries.
+ */
+public class BatchControllerTest {
+
+    private RequestRouter router;
+    private JacksonSingleton json;
+    private ExecutorService threads;
+    private BatchController batch;
+    private Context context;
+    private SessionCookie session;
+    private FlashCookie flash;
+    private final Set<String> threadNames = ConcurrentHashMap.newKeySet();
+
+    @Before
+    public void setUp() {
+        router = new RequestRouter();
+        router.setParameterConverterEngine(new ParamConverterEngine(
+                Collections.<ParameterConverter>emptyList(), Collections.<ParameterFactory>emptyList()));
+        json = new JacksonSingleton();
+        json.validate();
+
+        threads = Executors.newFixedThreadPool(4);
+        ManagedExecutorService executor = mock(ManagedExecutorService.class);
+        doAnswer(invocation -> {
+            threads.execute((Runnable) invocation.getArguments()[0]);
+            return null;
+        }).when(executor).execute(any(Runnable.class));
+
+        batch = new BatchController(router, json, executor, "/batch", 10);
+        router.bindController(batch);
+        router.bindController(new FakeController() {
+            @Route(method = HttpMethod.GET, uri = "/items/{id}")
+            public Result item(@PathParameter("id") int id, @Parameter("expand") boolean expand) {
+                threadNames.add(Thread.currentThread().getName());
+                return ok(ImmutableMap.of("id", id, "expand", expand)).json();
+            }
+
+            @Route(method = HttpMethod.GET, uri = "/slow")
+            public Result slow() {
+                return async(() -> ok("slow"));
+            }
+
+            @Route(method = HttpMethod.GET, uri = "/latch/{count}")
+            public Result latch(@PathParameter("count") int count) throws InterruptedException {
+                threadNames.add(Thread.currentThread().getName());
+                Thread.sleep(count);
+                return ok("done");
+            }
+
+            @Route(method = HttpMethod.POST, uri = "/items")
+            public Result create(@Body Item item) {
+                session().put("last", item.name);
+                return status(Status.CREATED).render(item).with(HeaderNames.LOCATION, "/items/" + item.id);
+            }
+
+            @Route(method = HttpMethod.GET, uri = "/visit/{page}")
+            public Result visit(@PathParameter("page") String page, @Parameter("delay") int delay)
+                    throws InterruptedException {
+                String previous = session().get("last");
+                Thread.sleep(delay);
+                session().put("last", page);
+                flash().success(page);
+                return ok(previous + "->" + session().get("last"));
+            }
+
+            @Route(method = HttpMethod.GET, uri = "/limited")
+            @MaxConcurrency(value = 1, queue = 1, timeout = 5000)
+            public Result limited() {
+                return async(() -> ok("limited"));
+            }
+
+            @Route(method = HttpMethod.GET, uri = "/image")
+            public Result image() {
+                return ok(new byte[]{1, 2, 3}).as("image/png");
+            }
+        });
+
+        Request request = mock(Request.class);
+        when(request.headers()).thenReturn(ImmutableMap.<String, List<String>>of(
+                HeaderNames.ACCEPT, Collections.singletonList(MimeTypes.JSON)));
+        session = mock(SessionCookie.class);
+        flash = mock(FlashCookie.class);
+        context = mock(Context.class);
+        when(context.request()).thenReturn(request);
+        when(context.session()).thenReturn(session);
+        when(context.flash()).thenReturn(flash);
+        Context.CONTEXT.set(context);
+    }
+
+    @After
+    public void tearDown() {
+        Context.CONTEXT.remove();
+        threads.shutdownNow();
+    }
+
+    private JsonNode send(String entries) throws Exception {
+        when(context.body(JsonNode.class)).thenReturn(json.parse(entries));
+        Result result = router.getRouteFor(HttpMethod.POST, "/batch").invoke();
+        assertThat(result).isInstanceOf(AsyncResult.class);
+        result = ((AsyncResult) result).callable().call();
+        assertThat(result.getStatusCode()).isEqualTo(Status.OK);
+        return (JsonNode) result.getRenderable().content();
+    }
+
+    @Test
+    public void testEntriesAreDispatchedInOrder() throws Exception {
+        JsonNode results = send("[" +
+                "{\"uri\": \"/items/1?expand=true\"}," +
+                "{\"method\": \"POST\", \"uri\": \"/items\", \"body\": {\"id\": 2, \"name\": \"two\"}}," +
+                "{\"uri\": \"/slow\"}," +
+                "{\"uri\": \"/image\"}," +
+                "{\"uri\": \"/missing\"}" +
+                "]");
+
+        assertThat(results.size()).isEqualTo(5);
+        assertThat(results.get(0).get("status").asInt()).isEqualTo(200);
+        assertThat(results.get(0).get("body").get("id").asInt()).isEqualTo(1);
+        assertThat(results.get(0).get("body").get("expand").asBoolean()).isTrue();
+
+        assertThat(results.get(1).get("status").asInt()).isEqualTo(201);
+        assertThat(results.get(1).get("headers").get(HeaderNames.LOCATION).asText()).isEqualTo("/items/2");
+        assertThat(results.get(1).get("body").get("name").asText()).isEqualTo("two");
+        // The session of the batch request is shared.
+        verify(session).put("last", "two");
+
+        assertThat(results.get(2).get("body").asText()).isEqualTo("slow");
+
+        assertThat(results.get(3).get("encoding").asText()).isEqualTo("base64");
+        assertThat(results.get(3).get("body").asText()).isEqualTo("AQID");
+
+        assertThat(results.get(4).get("status").asInt()).isEqualTo(404);
+    }
+
+    @Test
+    public void testSafeEntriesAreDispatchedInParallel() throws Exception {
+        StringBuilder entries = new StringBuilder("[");
+        for (int i = 0; i < 8; i++) {
+            entries.append("{\"uri\": \"/latch/50\"},");
+        }
+        entries.setLength(entries.length() - 1);
+        JsonNode results = send(entries.append("]").toString());
+
+        assertThat(results.size()).isEqualTo(8);
+        for (JsonNode result : results) {
+            assertThat(result.get("body").asText()).isEqualTo("done");
+        }
+        assertThat(threadNames.size()).isGreaterThan(1);
+    }
+
+    @Test
+    public void testParallelEntriesWorkOnCopiesOfTheSessionMergedInOrder() throws Exception {
+        when(session.getData()).thenReturn(ImmutableMap.of("last", "home"));
+        // The first entries complete last.
+        JsonNode results = send("[" +
+                "{\"uri\": \"/visit/a?delay=100\"}," +
+                "{\"uri\": \"/visit/b?delay=50\"}," +
+                "{\"uri\": \"/visit/c?delay=0\"}" +
+                "]");
+
+        // Each entry sees the session of the batch request and its own changes only.
+        assertThat(results.get(0).get("body").asText()).isEqualTo("home->a");
+        assertThat(results.get(1).get("body").asText()).isEqualTo("home->b");
+        assertThat(results.get(2).get("body").asText()).isEqualTo("home->c");
+
+        InOrder order = inOrder(session, flash);
+        order.verify(session).put("last", "a");
+        order.verify(flash).put(FlashCookie.FLASH_SUCCESS, "a");
+        order.verify(session).put("last", "b");
+        order.verify(flash).put(FlashCookie.FLASH_SUCCESS, "b");
+        order.verify(session).put("last", "c");
+        order.verify(flash).put(FlashCookie.FLASH_SUCCESS, "c");
+        verify(session, never()).get(anyString());
+    }
+
+    @Test
+    public void testQueuedAsynchronousEntry() throws Exception {
+        Bulkhead bulkhead = ((RouteDelegate) router.getRouteFor(HttpMethod.GET, "/limited")).getBulkhead();
+        // Another request holds the only slot, so the entry is queued, and handed over the slot once released.
+        assertThat(bulkhead.tryAcquire()).isTrue();
+        threads.execute(() -> {
+            while (bulkhead.getWaiting() == 0) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+            bulkhead.release();
+        });
+
+        JsonNode results = send("[{\"uri\": \"/limited\"}]");
+        assertThat(results.get(0).get("status").asInt()).isEqualTo(200);
+        assertThat(results.get(0).get("body").asText()).isEqualTo("limited");
+        // The slot is released once the asynchronous result of the action is computed.
+        assertThat(bulkhead.getActive()).isEqualTo(0);
+        assertThat(bulkhead.getWaiting()).isEqualTo(0);
+    }
+
+    @Test
+    public void testEntryRequestHeaders() {
+        Request parent = mock(Request.class);
+        Cookies cookies = mock(Cookies.class);
+        when(parent.cookies()).thenReturn(cookies);
+        when(parent.headers()).thenReturn(ImmutableMap.<String, List<String>>of(
+                HeaderNames.COOKIE, Collections.singletonList("id=1"),
+                HeaderNames.CONTENT_TYPE, Collections.singletonList(MimeTypes.JSON)));
+        // The quality and the media types set by the client may be malformed, they are then ignored.
+        BatchRequest request = new BatchRequest(parent, "GET", "/items", ImmutableMap.of(HeaderNames.ACCEPT,
+                "application/xml;q=0.5, ???, text/html;q=high"));
+
+        List<MediaType> types = new ArrayList<>(request.mediaTypes());
+        assertThat(types).hasSize(2);
+        assertThat(types.get(0).subtype()).isEqualTo("html");
+        assertThat(types.get(1).subtype()).isEqualTo("xml");
+        assertThat(request.mediaType()).isEqualTo(types.get(0));
+        // The cookies of the batch request are shared, but not its body.
+        assertThat(request.getHeader(HeaderNames.COOKIE)).isEqualTo("id=1");
+        assertThat(request.cookies()).isSameAs(cookies);
+        assertThat(request.getHeader(HeaderNames.CONTENT_TYPE)).isNull();
+    }
+
+    @Test
+    public void testInvalidBatches() throws Exception {
+        when(context.body(JsonNode.class)).thenReturn(json.parse("{}"));
+        assertThat(router.getRouteFor(HttpMethod.POST, "/batch").invoke().getStatusCode())
+                .isEqualTo(Status.BAD_REQUEST);
+
+        StringBuilder entries = new StringBuilder("[");
+        for (int i = 0; i < 11; i++) {
+            entries.append("{\"uri\": \"/items/").append(i).append("\"},");
+        }
+        entries.setLength(entries.length() - 1);
+        when(context.body(JsonNode.class)).thenReturn(json.parse(entries.append("]").toString()));
+        assertThat(router.getRouteFor(HttpMethod.POST, "/batch").invoke().getStatusCode())
+                .isEqualTo(Status.PAYLOAD_TOO_LARGE);
+
+        JsonNode results = send("[{\"method\": \"POST\", \"uri\": \"/batch\", \"body\": []}, {\"uri\": \"items\"}]");
+        assertThat(results.get(0).get("status").asInt()).isEqualTo(400);
+        assertThat(results.get(1).get("status").asInt()).isEqualTo(400);
+    }
+
+    public static class Item {
+        public int id;
+        public String name;
+    }
+}
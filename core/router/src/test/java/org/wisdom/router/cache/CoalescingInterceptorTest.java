@@ -0,0 +1,431 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.router.cache;
+
+import com.google.common.io.ByteStreams;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.wisdom.api.DefaultController;
+import org.wisdom.api.annotations.Route;
+import org.wisdom.api.cache.Coalesced;
+import org.wisdom.api.http.AsyncResult;
+import org.wisdom.api.http.Context;
+import org.wisdom.api.http.HeaderNames;
+import org.wisdom.api.http.HttpMethod;
+import org.wisdom.api.http.Request;
+import org.wisdom.api.http.Result;
+import org.wisdom.api.http.Results;
+import org.wisdom.api.http.Status;
+import org.wisdom.api.interception.Interceptor;
+import org.wisdom.api.interception.RequestContext;
+import org.wisdom.api.security.Authenticated;
+import org.wisdom.router.RequestRouter;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks the behavior of the coalescing interceptor.
+ */
+public class CoalescingInterceptorTest {
+
+    private static final int REQUESTS = 500;
+
+    private CoalescingInterceptor interceptor;
+    private Coalesced configuration;
+    private RequestContext ic;
+    private Request request;
+    private ExecutorService threads;
+
+    @Before
+    public void setUp() {
+        interceptor = new CoalescingInterceptor();
+        configuration = mock(Coalesced.class);
+        when(configuration.key()).thenReturn("");
+        when(configuration.timeout()).thenReturn(60);
+        when(configuration.vary()).thenReturn(new String[0]);
+        ic = mock(RequestContext.class);
+        Context ctx = mock(Context.class);
+        request = mock(Request.class);
+        when(ic.context()).thenReturn(ctx);
+        when(ctx.request()).thenReturn(request);
+        when(request.method()).thenReturn("GET");
+        when(request.uri()).thenReturn("/expensive");
+        threads = Executors.newFixedThreadPool(REQUESTS);
+    }
+
+    @After
+    public void tearDown() {
+        threads.shutdownNow();
+    }
+
+    @Test
+    public void testConcurrentRequestsTriggerOneExecution() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        when(ic.proceed()).then(invocation -> {
+            executions.incrementAndGet();
+            // Keep the computation in flight until all the other requests are waiting for it.
+            awaitCoalescedRequests(REQUESTS - 1);
+            return Results.ok("expensive").json();
+        });
+
+        List<Result> results = sendConcurrently(REQUESTS, () -> interceptor.call(configuration, ic));
+
+        assertThat(executions.get()).isEqualTo(1);
+        assertThat(interceptor.getExecutions()).isEqualTo(1);
+        assertThat(interceptor.getCoalescedRequests()).isEqualTo(REQUESTS - 1);
+        for (Result result : results) {
+            assertThat(result.getStatusCode()).isEqualTo(200);
+            assertThat(result.getRenderable().content()).isEqualTo("expensive");
+            assertThat(result.getContentType()).isEqualTo("application/json");
+        }
+
+        // Nothing is kept once the result is computed.
+        call();
+        assertThat(executions.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testStreamedResultsAreReadOnce() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        when(ic.proceed()).then(invocation -> {
+            executions.incrementAndGet();
+            awaitCoalescedRequests(1);
+            return Results.ok(new ByteArrayInputStream("streamed".getBytes(StandardCharsets.UTF_8)));
+        });
+
+        List<Result> results = sendConcurrently(2, () -> interceptor.call(configuration, ic));
+
+        assertThat(executions.get()).isEqualTo(1);
+        for (Result result : results) {
+            assertThat(result.getRenderable().mustBeChunked()).isFalse();
+            assertThat(new String(ByteStreams.toByteArray(result.getRenderable().render(ic.context(), result)),
+                    StandardCharsets.UTF_8)).isEqualTo("streamed");
+        }
+    }
+
+    @Test
+    public void testFailuresAreShared() throws Exception {
+        when(ic.proceed()).then(invocation -> {
+            awaitCoalescedRequests(1);
+            throw new IllegalStateException("boom");
+        });
+
+        List<Future<Result>> futures = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        for (int i = 0; i < 2; i++) {
+            futures.add(threads.submit(() -> {
+                start.await();
+                return call();
+            }));
+        }
+        start.countDown();
+        for (Future<Result> future : futures) {
+            try {
+                future.get(10, TimeUnit.SECONDS);
+                throw new AssertionError("The request should have failed");
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).isInstanceOf(IllegalStateException.class).hasMessage("boom");
+            }
+        }
+        assertThat(interceptor.getExecutions()).isEqualTo(1);
+    }
+
+    @Test
+    public void testOnlyGetRequestsAreCoalesced() throws Exception {
+        when(request.method()).thenReturn("POST");
+        when(ic.proceed()).thenReturn(Results.ok());
+        interceptor.call(configuration, ic);
+        interceptor.call(configuration, ic);
+        assertThat(interceptor.getExecutions()).isZero();
+        assertThat(interceptor.getCoalescedRequests()).isZero();
+    }
+
+    @Test
+    public void testRequestsFromDifferentUsersOrWithDifferentNegotiationAreNotCoalesced() throws Exception {
+        Context ctx = ic.context();
+        when(configuration.vary()).thenReturn(new String[]{"X-Tenant"});
+        CountDownLatch open = new CountDownLatch(1);
+        when(ic.proceed()).thenReturn(Results.async(() -> {
+            open.await(5, TimeUnit.SECONDS);
+            return Results.ok("expensive");
+        }));
+
+        Result first = interceptor.call(configuration, ic);
+        when(request.username()).thenReturn("alice");
+        Result alice = interceptor.call(configuration, ic);
+        when(ctx.header("Accept")).thenReturn("application/json");
+        Result json = interceptor.call(configuration, ic);
+        when(ctx.header("Accept-Language")).thenReturn("fr");
+        Result french = interceptor.call(configuration, ic);
+        when(ctx.header("X-Tenant")).thenReturn("acme");
+        Result tenant = interceptor.call(configuration, ic);
+        Result same = interceptor.call(configuration, ic);
+
+        assertThat(interceptor.getExecutions()).isEqualTo(5);
+        assertThat(interceptor.getCoalescedRequests()).isEqualTo(1);
+        open.countDown();
+        for (Result result : new Result[]{first, alice, json, french, tenant, same}) {
+            assertThat(((AsyncResult) result).callable().call().getStatusCode()).isEqualTo(200);
+        }
+    }
+
+    @Test
+    public void testWaitingRequestsDoNotHoldAThread() throws Exception {
+        CountDownLatch open = new CountDownLatch(1);
+        when(ic.proceed()).thenReturn(Results.async(() -> {
+            open.await(5, TimeUnit.SECONDS);
+            return Results.ok("expensive");
+        }));
+
+        AsyncResult first = (AsyncResult) interceptor.call(configuration, ic);
+        List<CompletableFuture<Result>> waiting = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            AsyncResult result = (AsyncResult) interceptor.call(configuration, ic);
+            // Completed once the result is computed, the engine does not run anything meanwhile.
+            assertThat(result.stage()).isNotNull();
+            waiting.add(result.stage().toCompletableFuture());
+        }
+        assertThat(waiting.stream().filter(CompletableFuture::isDone).count()).isEqualTo(0);
+
+        // A single worker thread computes the result.
+        Future<Result> computed = threads.submit(first.callable());
+        open.countDown();
+        assertThat(computed.get(5, TimeUnit.SECONDS).getStatusCode()).isEqualTo(200);
+        for (CompletableFuture<Result> result : waiting) {
+            assertThat(result.get(5, TimeUnit.SECONDS).getRenderable().content()).isEqualTo("expensive");
+        }
+        assertThat(interceptor.getExecutions()).isEqualTo(1);
+    }
+
+    @Test
+    public void testWaitingRequestsGiveUpAfterTheTimeout() throws Exception {
+        when(configuration.timeout()).thenReturn(0);
+        when(ic.proceed()).thenReturn(Results.async(() -> Results.ok("late")));
+
+        interceptor.call(configuration, ic);
+        AsyncResult waiting = (AsyncResult) interceptor.call(configuration, ic);
+        try {
+            waiting.stage().toCompletableFuture().get(5, TimeUnit.SECONDS);
+            throw new AssertionError("The request should have been given up");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause()).isInstanceOf(TimeoutException.class);
+        }
+    }
+
+    @Test
+    public void testRequestsCarryingCookiesOrCredentialsAreNotCoalesced() throws Exception {
+        Context ctx = ic.context();
+        CountDownLatch open = new CountDownLatch(1);
+        when(ic.proceed()).thenReturn(Results.async(() -> {
+            open.await(5, TimeUnit.SECONDS);
+            return Results.ok("expensive");
+        }));
+
+        interceptor.call(configuration, ic);
+        when(ctx.header(HeaderNames.COOKIE)).thenReturn("session=alice");
+        interceptor.call(configuration, ic);
+        when(ctx.header(HeaderNames.COOKIE)).thenReturn(null);
+        when(ctx.header(HeaderNames.AUTHORIZATION)).thenReturn("Basic Ym9iOnNlY3JldA==");
+        interceptor.call(configuration, ic);
+        assertThat(interceptor.getExecutions()).isEqualTo(1);
+        assertThat(interceptor.getCoalescedRequests()).isZero();
+
+        // Unless the key is set explicitly.
+        when(configuration.key()).thenReturn("catalog");
+        interceptor.call(configuration, ic);
+        interceptor.call(configuration, ic);
+        assertThat(interceptor.getExecutions()).isEqualTo(2);
+        assertThat(interceptor.getCoalescedRequests()).isEqualTo(1);
+        open.countDown();
+    }
+
+    @Test
+    public void testCoalescingOnTheClassRunsAfterTheAuthentication() throws Exception {
+        checkRequestsAreAuthenticatedBeforeBeingCoalesced(new CoalescedClassController(), "/class");
+    }
+
+    @Test
+    public void testCoalescingDeclaredBeforeTheAuthenticationRunsAfterIt() throws Exception {
+        checkRequestsAreAuthenticatedBeforeBeingCoalesced(new CoalescedMethodController(), "/method");
+    }
+
+    private void checkRequestsAreAuthenticatedBeforeBeingCoalesced(SecuredController controller, String uri)
+            throws Exception {
+        RequestRouter router = new RequestRouter() {
+            @Override
+            protected List<Interceptor<?>> getInterceptors() {
+                return Arrays.asList(interceptor, new TokenInterceptor());
+            }
+        };
+        router.bindController(controller);
+        org.wisdom.api.router.Route route = router.getRouteFor(HttpMethod.GET, uri);
+
+        Result alice = invoke(route, "alice");
+        Result anonymous = invoke(route, null);
+        Result bob = invoke(route, "bob");
+        Result again = invoke(route, "alice");
+
+        assertThat(anonymous.getStatusCode()).isEqualTo(Status.UNAUTHORIZED);
+        assertThat(interceptor.getExecutions()).isEqualTo(2);
+        assertThat(interceptor.getCoalescedRequests()).isEqualTo(1);
+        controller.open.countDown();
+        assertThat(content(alice)).isEqualTo("secret of alice");
+        assertThat(content(bob)).isEqualTo("secret of bob");
+        assertThat(content(again)).isEqualTo("secret of alice");
+    }
+
+    private static Result invoke(org.wisdom.api.router.Route route, String token) throws Exception {
+        Request req = mock(Request.class);
+        when(req.method()).thenReturn("GET");
+        when(req.uri()).thenReturn(route.getUrl());
+        when(req.contentMimeType()).thenReturn("text/plain");
+        doCallRealMethod().when(req).setUsername(any());
+        doCallRealMethod().when(req).username();
+        Context ctx = mock(Context.class);
+        when(ctx.request()).thenReturn(req);
+        when(ctx.header("X-Token")).thenReturn(token);
+        Context.CONTEXT.set(ctx);
+        try {
+            return route.invoke();
+        } finally {
+            Context.CONTEXT.remove();
+        }
+    }
+
+    private static Object content(Result result) throws Exception {
+        if (result instanceof AsyncResult) {
+            result = ((AsyncResult) result).callable().call();
+        }
+        return result.getRenderable().content();
+    }
+
+    private Result call() throws Exception {
+        Result result = interceptor.call(configuration, ic);
+        if (result instanceof AsyncResult) {
+            // Computed by the engine on its executor.
+            result = ((AsyncResult) result).callable().call();
+        }
+        return result;
+    }
+
+    private List<Result> sendConcurrently(int count, Callable<Result> action) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Result>> futures = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            futures.add(threads.submit(() -> {
+                start.await();
+                Result result = action.call();
+                if (result instanceof AsyncResult) {
+                    result = ((AsyncResult) result).callable().call();
+                }
+                return result;
+            }));
+        }
+        start.countDown();
+        List<Result> results = new ArrayList<>();
+        for (Future<Result> future : futures) {
+            results.add(future.get(30, TimeUnit.SECONDS));
+        }
+        return results;
+    }
+
+    private void awaitCoalescedRequests(long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (interceptor.getCoalescedRequests() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+
+    /**
+     * Authenticates the requests using the user name given in the X-Token header, unlike the interceptor under test
+     * that only sees the headers.
+     */
+    private static class TokenInterceptor extends Interceptor<Authenticated> {
+
+        @Override
+        public Result call(Authenticated configuration, RequestContext context) throws Exception {
+            String user = context.context().header("X-Token");
+            context.context().request().setUsername(user);
+            return user == null ? Results.unauthorized() : context.proceed();
+        }
+
+        @Override
+        public Class<Authenticated> annotation() {
+            return Authenticated.class;
+        }
+    }
+
+    /**
+     * An action returning a secret of the authenticated user, computed once {@link #open} is released.
+     */
+    public abstract static class SecuredController extends DefaultController {
+
+        final CountDownLatch open = new CountDownLatch(1);
+
+        Result secret() {
+            String user = Context.CONTEXT.get().request().username();
+            return async(() -> {
+                open.await(5, TimeUnit.SECONDS);
+                return ok("secret of " + user);
+            });
+        }
+    }
+
+    @Coalesced
+    public static class CoalescedClassController extends SecuredController {
+
+        @Route(method = HttpMethod.GET, uri = "/class")
+        @Authenticated
+        public Result action() {
+            return secret();
+        }
+    }
+
+    public static class CoalescedMethodController extends SecuredController {
+
+        @Route(method = HttpMethod.GET, uri = "/method")
+        @Coalesced
+        @Authenticated
+        public Result action() {
+            return secret();
+        }
+    }
+}
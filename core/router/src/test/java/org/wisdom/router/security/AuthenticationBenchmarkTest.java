@@ -0,0 +1,180 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.router.security;
+
+import com.google.common.io.BaseEncoding;
+import org.junit.Test;
+import org.wisdom.api.http.Context;
+import org.wisdom.api.http.Result;
+import org.wisdom.api.http.Results;
+import org.wisdom.api.interception.Filter;
+import org.wisdom.api.interception.Interceptor;
+import org.wisdom.api.interception.RequestContext;
+import org.wisdom.api.router.Route;
+import org.wisdom.api.security.Authenticated;
+import org.wisdom.api.security.Authenticator;
+import org.wisdom.test.parents.FakeContext;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.lang.annotation.Annotation;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Collections;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures the authentication of requests on a route secured with a bearer token, with and without caching. The
+ * authenticator verifies the token signature using 200 rounds of HMAC, standing in for an expensive verification
+ * (key derivation, store lookup...).
+ */
+public class AuthenticationBenchmarkTest {
+
+    private static final int WARMUP = 1000;
+    private static final int ITERATIONS = 5000;
+
+    private static final String TOKEN = "Bearer admin." + sign("admin");
+
+    private static final Authenticated SECURED = new Authenticated() {
+        @Override
+        public String value() {
+            return "token";
+        }
+
+        @Override
+        public Class<? extends Annotation> annotationType() {
+            return Authenticated.class;
+        }
+    };
+
+    private static final Filter ACTION = new Filter() {
+        @Override
+        public Result call(Route route, RequestContext context) {
+            return Results.ok("authenticated");
+        }
+
+        @Override
+        public Pattern uri() {
+            return null;
+        }
+
+        @Override
+        public int priority() {
+            return 0;
+        }
+    };
+
+    @Test
+    public void testBearerTokenSecuredRoute() throws Exception {
+        long uncached = measure(0);
+        long cached = measure(60000);
+        System.out.println("Bearer token authentication - verified on every request: " + uncached / ITERATIONS
+                + " ns, cached: " + cached / ITERATIONS + " ns");
+        assertThat(cached).isLessThan(uncached);
+    }
+
+    private long measure(long duration) throws Exception {
+        AuthenticationInterceptor interceptor = new AuthenticationInterceptor();
+        interceptor.bindAuthenticator(new TokenAuthenticator(duration));
+        FakeContext context = new FakeContext().setHeader("Authorization", TOKEN);
+        Context.CONTEXT.set(context);
+        try {
+            assertThat(interceptor.call(SECURED, request()).getStatusCode()).isEqualTo(200);
+            assertThat(context.request().username()).isEqualTo("admin");
+
+            for (int i = 0; i < WARMUP; i++) {
+                interceptor.call(SECURED, request());
+            }
+            long begin = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                interceptor.call(SECURED, request());
+            }
+            return System.nanoTime() - begin;
+        } finally {
+            Context.CONTEXT.remove();
+        }
+    }
+
+    /**
+     * @return a request context invoking an action returning {@literal 200 - OK}.
+     */
+    private static RequestContext request() {
+        return new RequestContext(null, Collections.<Filter>emptyList(),
+                Collections.<Interceptor<?>, Object>emptyMap(), null, ACTION);
+    }
+
+    private static String sign(String user) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec("a-secret-key".getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            byte[] signature = user.getBytes(StandardCharsets.UTF_8);
+            for (int i = 0; i < 200; i++) {
+                signature = mac.doFinal(signature);
+            }
+            return BaseEncoding.base16().lowerCase().encode(signature);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class TokenAuthenticator implements Authenticator {
+
+        private final long duration;
+
+        private TokenAuthenticator(long duration) {
+            this.duration = duration;
+        }
+
+        @Override
+        public String getName() {
+            return "token";
+        }
+
+        @Override
+        public String getUserName(Context context) {
+            String token = context.header("Authorization");
+            if (token == null || !token.startsWith("Bearer ")) {
+                return null;
+            }
+            String[] parts = token.substring("Bearer ".length()).split("\\.");
+            if (parts.length == 2 && sign(parts[0]).equals(parts[1])) {
+                return parts[0];
+            }
+            return null;
+        }
+
+        @Override
+        public Result onUnauthorized(Context context) {
+            return Results.unauthorized();
+        }
+
+        @Override
+        public String getCredentials(Context context) {
+            return context.header("Authorization");
+        }
+
+        @Override
+        public long getCacheDuration() {
+            return duration;
+        }
+    }
+}
@@ -56,7 +56,7 @@ public class AuthenticationInterceptorTest {
     @Test
     public void testSuccessfulAuthWithOnlyOneAuthenticator() throws Throwable {
         AuthenticationInterceptor interceptor = new AuthenticationInterceptor();
-        interceptor.authenticators = new Authenticator[]{new TrueAuthenticator()};
+        interceptor.bindAuthenticator(new TrueAuthenticator());
 
         Authenticated authenticated = mock(Authenticated.class);
         RequestContext ic = mock(RequestContext.class);
@@ -74,7 +74,7 @@ public class AuthenticationInterceptorTest {
     @Test
     public void testFailedAuthWithOnlyOneAuthenticator() throws Throwable {
         AuthenticationInterceptor interceptor = new AuthenticationInterceptor();
-        interceptor.authenticators = new Authenticator[]{new FalseAuthenticator()};
+        interceptor.bindAuthenticator(new FalseAuthenticator());
 
         Authenticated authenticated = mock(Authenticated.class);
         RequestContext ic = mock(RequestContext.class);
@@ -92,7 +92,7 @@ public class AuthenticationInterceptorTest {
     @Test
     public void testAuthWithNoAuthenticator() throws Throwable {
         AuthenticationInterceptor interceptor = new AuthenticationInterceptor();
-        interceptor.authenticators = new Authenticator[]{};
+        // No authenticator bound.
 
         Authenticated authenticated = mock(Authenticated.class);
         RequestContext ic = mock(RequestContext.class);
@@ -110,7 +110,7 @@ public class AuthenticationInterceptorTest {
     @Test
     public void testAuthWithNoMatchingAuthenticator() throws Throwable {
         AuthenticationInterceptor interceptor = new AuthenticationInterceptor();
-        interceptor.authenticators = new Authenticator[]{new TrueAuthenticator()};
+        interceptor.bindAuthenticator(new TrueAuthenticator());
 
         Authenticated authenticated = mock(Authenticated.class);
         when(authenticated.value()).thenReturn("admin");
@@ -129,7 +129,8 @@ public class AuthenticationInterceptorTest {
     @Test
     public void testAuthWithMatchingAuthenticator() throws Throwable {
         AuthenticationInterceptor interceptor = new AuthenticationInterceptor();
-        interceptor.authenticators = new Authenticator[]{new TrueAuthenticator(), new AdminAuthenticator()};
+        interceptor.bindAuthenticator(new TrueAuthenticator());
+        interceptor.bindAuthenticator(new AdminAuthenticator());
 
         Authenticated authenticated = mock(Authenticated.class);
         when(authenticated.value()).thenReturn("admin");
@@ -146,6 +147,147 @@ public class AuthenticationInterceptorTest {
         assertThat(username).isEqualTo("admin");
     }
 
+    @Test
+    public void testCachedAuthentication() throws Throwable {
+        AuthenticationInterceptor interceptor = new AuthenticationInterceptor();
+        TokenAuthenticator authenticator = new TokenAuthenticator();
+        interceptor.bindAuthenticator(new TrueAuthenticator());
+        interceptor.bindAuthenticator(authenticator);
+
+        Authenticated authenticated = mock(Authenticated.class);
+        when(authenticated.value()).thenReturn("token");
+        RequestContext ic = mock(RequestContext.class);
+        Context ctx = mock(Context.class);
+        Request request = mock(Request.class);
+        when(ic.context()).thenReturn(ctx);
+        when(ic.proceed()).thenReturn(Results.ok("authenticated"));
+        when(ctx.request()).thenReturn(request);
+        doAnswer(usernameAnswer).when(request).setUsername(anyString());
+
+        // Failed authentications are not cached.
+        when(ctx.header("Authorization")).thenReturn("Bearer wrong");
+        assertThat(interceptor.call(authenticated, ic).getStatusCode()).isEqualTo(401);
+        assertThat(interceptor.call(authenticated, ic).getStatusCode()).isEqualTo(401);
+        assertThat(authenticator.calls).isEqualTo(2);
+        assertThat(interceptor.getCachedAuthenticationCount()).isEqualTo(0);
+
+        when(ctx.header("Authorization")).thenReturn("Bearer secret");
+        assertThat(interceptor.call(authenticated, ic).getStatusCode()).isEqualTo(200);
+        assertThat(interceptor.call(authenticated, ic).getStatusCode()).isEqualTo(200);
+        assertThat(username).isEqualTo("admin");
+        assertThat(authenticator.calls).isEqualTo(3);
+
+        interceptor.invalidate("someone-else");
+        assertThat(interceptor.call(authenticated, ic).getStatusCode()).isEqualTo(200);
+        assertThat(authenticator.calls).isEqualTo(3);
+
+        interceptor.invalidate("admin");
+        assertThat(interceptor.call(authenticated, ic).getStatusCode()).isEqualTo(200);
+        assertThat(authenticator.calls).isEqualTo(4);
+
+        interceptor.invalidateAll();
+        assertThat(interceptor.call(authenticated, ic).getStatusCode()).isEqualTo(200);
+        assertThat(authenticator.calls).isEqualTo(5);
+
+        // Replacing the authenticator clears the cache.
+        TokenAuthenticator replacement = new TokenAuthenticator();
+        interceptor.unbindAuthenticator(authenticator);
+        interceptor.bindAuthenticator(replacement);
+        assertThat(interceptor.call(authenticated, ic).getStatusCode()).isEqualTo(200);
+        assertThat(replacement.calls).isEqualTo(1);
+    }
+
+    @Test
+    public void testAuthenticationInvalidatedWhileBeingComputedIsNotCached() throws Throwable {
+        AuthenticationInterceptor interceptor = new AuthenticationInterceptor();
+        TokenAuthenticator authenticator = new TokenAuthenticator();
+        interceptor.bindAuthenticator(authenticator);
+
+        Authenticated authenticated = mock(Authenticated.class);
+        RequestContext ic = mock(RequestContext.class);
+        Context ctx = mock(Context.class);
+        when(ic.context()).thenReturn(ctx);
+        when(ic.proceed()).thenReturn(Results.ok("authenticated"));
+        when(ctx.request()).thenReturn(mock(Request.class));
+        when(ctx.header("Authorization")).thenReturn("Bearer secret");
+
+        // The user logs out while the request is being authenticated.
+        authenticator.during = () -> interceptor.invalidate("admin");
+        assertThat(interceptor.call(authenticated, ic).getStatusCode()).isEqualTo(200);
+        assertThat(interceptor.getCachedAuthenticationCount()).isEqualTo(0);
+
+        authenticator.during = interceptor::invalidateAll;
+        assertThat(interceptor.call(authenticated, ic).getStatusCode()).isEqualTo(200);
+        assertThat(interceptor.getCachedAuthenticationCount()).isEqualTo(0);
+
+        authenticator.during = null;
+        assertThat(interceptor.call(authenticated, ic).getStatusCode()).isEqualTo(200);
+        assertThat(interceptor.call(authenticated, ic).getStatusCode()).isEqualTo(200);
+        assertThat(interceptor.getCachedAuthenticationCount()).isEqualTo(1);
+        assertThat(authenticator.calls).isEqualTo(3);
+    }
+
+    @Test
+    public void testCachedAuthenticationExpiration() throws Throwable {
+        AuthenticationInterceptor interceptor = new AuthenticationInterceptor();
+        TokenAuthenticator authenticator = new TokenAuthenticator();
+        authenticator.duration = 1;
+        interceptor.bindAuthenticator(authenticator);
+
+        Authenticated authenticated = mock(Authenticated.class);
+        RequestContext ic = mock(RequestContext.class);
+        Context ctx = mock(Context.class);
+        when(ic.context()).thenReturn(ctx);
+        when(ic.proceed()).thenReturn(Results.ok("authenticated"));
+        when(ctx.request()).thenReturn(mock(Request.class));
+        when(ctx.header("Authorization")).thenReturn("Bearer secret");
+
+        assertThat(interceptor.call(authenticated, ic).getStatusCode()).isEqualTo(200);
+        Thread.sleep(5);
+        assertThat(interceptor.call(authenticated, ic).getStatusCode()).isEqualTo(200);
+        assertThat(authenticator.calls).isEqualTo(2);
+    }
+
+    private class TokenAuthenticator implements Authenticator {
+
+        private int calls;
+
+        private long duration = 60000;
+
+        /**
+         * Run while the user name is being computed, to simulate a concurrent invalidation.
+         */
+        private Runnable during;
+
+        @Override
+        public String getName() {
+            return "token";
+        }
+
+        @Override
+        public String getUserName(Context context) {
+            calls++;
+            if (during != null) {
+                during.run();
+            }
+            return "Bearer secret".equals(context.header("Authorization")) ? "admin" : null;
+        }
+
+        @Override
+        public Result onUnauthorized(Context context) {
+            return Results.unauthorized();
+        }
+
+        @Override
+        public String getCredentials(Context context) {
+            return context.header("Authorization");
+        }
+
+        @Override
+        public long getCacheDuration() {
+            return duration;
+        }
+    }
 
     private class TrueAuthenticator implements Authenticator {
 
@@ -0,0 +1,69 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.api.annotations;
+
+import org.wisdom.api.http.Status;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Limits the number of concurrent invocations of an action (bulkhead), so a slow action cannot use all the threads
+ * serving the requests. Once the limit is reached, the requests wait in a bounded queue, if any, and are rejected
+ * when the queue is full or when they waited too long. Waiting requests do not hold any thread, the action is invoked
+ * on the executor once a slot is handed over to the request. Rejected requests receive a response with the
+ * configured status and a {@literal Retry-After} header.
+ * <p>
+ * When set on a controller class, each action of the class gets its own limit. Asynchronous results hold their slot
+ * until they are computed.
+ * <p>
+ * This annotation is retrieved and analyzed at runtime (by the router).
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface MaxConcurrency {
+
+    /**
+     * The maximum number of concurrent invocations of the action.
+     */
+    int value();
+
+    /**
+     * The maximum number of requests waiting for a slot. The waiting requests are processed asynchronously, and do
+     * not use any thread while waiting. Defaults to 0, meaning that the requests are rejected as soon as the limit is
+     * reached.
+     */
+    int queue() default 0;
+
+    /**
+     * How long a request waits for a slot (in milliseconds). Once elapsed, the request is rejected with the
+     * configured status. Defaults to 1 second.
+     */
+    long timeout() default 1000;
+
+    /**
+     * The status of the response sent to rejected requests, generally {@link Status#SERVICE_UNAVAILABLE} or
+     * {@link Status#TOO_MANY_REQUESTS}. Defaults to {@link Status#SERVICE_UNAVAILABLE}.
+     */
+    int status() default Status.SERVICE_UNAVAILABLE;
+
+}
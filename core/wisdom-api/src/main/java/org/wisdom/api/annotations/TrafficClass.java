@@ -0,0 +1,61 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.api.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Sets the traffic class of an action. The invocations of the actions having a traffic class share a limited number
+ * of slots. When all the slots are in use, the requests wait in the queue of their class, and released slots are
+ * given to the classes in proportion to their weight (weighted fair scheduling). So, a flood of background requests
+ * cannot delay the user-facing pages. When the queues are full, the requests of the classes having the lowest weight
+ * are rejected first, with a {@literal 503 - Service Unavailable} response and a {@literal Retry-After} header. The
+ * requests waiting longer than the timeout of their class are rejected the same way. Waiting requests do not hold any
+ * thread, the action is invoked on the executor once a slot is handed over to the request.
+ * <p>
+ * The number of slots, and the weight, queue size and timeout of each class are set in the {@literal router.traffic}
+ * configuration. The {@link #INTERACTIVE} class has a weight of 8 by default, and the other classes a weight of 1.
+ * When set on a controller class, all the actions of the class get the traffic class.
+ * <p>
+ * This annotation is retrieved and analyzed at runtime (by the router).
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface TrafficClass {
+
+    /**
+     * The class of user-facing requests.
+     */
+    String INTERACTIVE = "interactive";
+
+    /**
+     * The class of background requests, such as synchronization or exports.
+     */
+    String BULK = "bulk";
+
+    /**
+     * The name of the traffic class.
+     */
+    String value();
+
+}
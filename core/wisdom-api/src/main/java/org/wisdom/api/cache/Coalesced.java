@@ -0,0 +1,66 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.api.cache;
+
+import org.wisdom.api.annotations.Interception;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Mark an action whose concurrent GET requests with the same key are coalesced: while the action computes the result
+ * of a request, the identical requests received in the meantime do not invoke the action, they wait for this
+ * computation and get a copy of its result. Unlike {@link Cached}, nothing is kept once the result is computed.
+ * <p>
+ * The whole result is shared, including its cookies. By default, requests are identical when they have the same URI,
+ * the same authenticated user ({@link org.wisdom.api.http.Request#username()}), and the same {@literal Accept} and
+ * {@literal Accept-Language} headers. If the result depends on other headers, list them in {@link #vary()}. The
+ * requests carrying a {@literal Cookie} or an {@literal Authorization} header, whose result may depend on the session
+ * or on the credentials, are not coalesced unless {@link #key()} is set. The coalescing happens once the other
+ * interceptors, such as the authentication, have processed the request. Use this annotation on resources such as
+ * public catalogs or aggregated data. Streamed results are read once and buffered, so they are shared too.
+ */
+@Interception
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Coalesced {
+
+    /**
+     * The key identifying identical requests. Defaults to the request's URI (the path and the query), the
+     * authenticated user, the {@literal Accept} and {@literal Accept-Language} headers and the headers listed in
+     * {@link #vary()}. When set, all the requests share the result, whoever sends them, including the requests
+     * carrying cookies or credentials.
+     */
+    String key() default "";
+
+    /**
+     * The names of the additional request headers the result depends on. Requests having different values for these
+     * headers are not coalesced. Ignored when {@link #key()} is set.
+     */
+    String[] vary() default {};
+
+    /**
+     * How long the coalesced requests wait for the result (in second). Defaults to 60 seconds.
+     */
+    int timeout() default 60;
+
+}
@@ -56,7 +56,8 @@ public interface Xml {
      * and so you must close it.
      *
      * @param stream   the input stream, must not be {@literal null}
-     * @param encoding the encoding, if {@literal null}, UTF-8 is used.
+     * @param encoding the encoding, if {@literal null}, the encoding is detected from the byte order mark and the
+     *                 XML declaration, UTF-8 being used if none.
      * @return the built document
      * @throws java.io.IOException if the given stream is not a valid XML document,
      *                             or if the given encoding is not supported.
@@ -0,0 +1,126 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.api.exceptions;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Finds the {@link ExceptionMapper} handling an exception. The mapper handling the class of the exception is
+ * selected, or, if none, the mapper handling its closest parent class. Classes are compared by name, so an exception
+ * class loaded by another class loader than the one used by the mapper is still handled.
+ * <p>
+ * The mappers are indexed by class name, and the mapper selected for an exception class is cached. As the mappers
+ * are generally dynamic services, they are added and removed from the service binding callbacks, which rebuild the
+ * index. Lookups only read the current index.
+ * <p>
+ * This class is thread-safe.
+ */
+public class ExceptionMapperIndex {
+
+    /**
+     * The maximum number of cached exception classes. Once reached, the cache is cleared.
+     */
+    private static final int MAX_CACHED_CLASSES = 256;
+
+    private final List<ExceptionMapper> mappers = new ArrayList<>();
+
+    private volatile Index index = new Index(mappers);
+
+    /**
+     * Adds a mapper. If several mappers handle the same class, the first one added is used.
+     *
+     * @param mapper the mapper
+     */
+    public synchronized void add(ExceptionMapper mapper) {
+        mappers.add(mapper);
+        index = new Index(mappers);
+    }
+
+    /**
+     * Removes a mapper.
+     *
+     * @param mapper the mapper
+     */
+    public synchronized void remove(ExceptionMapper mapper) {
+        mappers.remove(mapper);
+        index = new Index(mappers);
+    }
+
+    /**
+     * Finds the mapper handling the given exception.
+     *
+     * @param exception the exception
+     * @return the mapper handling the class of the exception or its closest parent class, {@code null} if none
+     */
+    public ExceptionMapper get(Throwable exception) {
+        if (exception == null) {
+            return null;
+        }
+        return index.get(exception.getClass());
+    }
+
+    /**
+     * An immutable set of mappers, with the mappers selected for the exception classes looked up so far.
+     */
+    private static final class Index {
+
+        private final Map<String, ExceptionMapper> byName = new HashMap<>();
+
+        private final Map<Class<?>, Optional<ExceptionMapper>> selected = new ConcurrentHashMap<>();
+
+        private Index(Collection<? extends ExceptionMapper> mappers) {
+            for (ExceptionMapper mapper : mappers) {
+                // The first mapper registered for a class wins.
+                String name = mapper.getExceptionClass().getName();
+                if (!byName.containsKey(name)) {
+                    byName.put(name, mapper);
+                }
+            }
+        }
+
+        private ExceptionMapper get(Class<?> clazz) {
+            if (byName.isEmpty()) {
+                return null;
+            }
+            Optional<ExceptionMapper> mapper = selected.get(clazz);
+            if (mapper == null) {
+                mapper = Optional.ofNullable(lookup(clazz));
+                if (selected.size() >= MAX_CACHED_CLASSES) {
+                    selected.clear();
+                }
+                selected.put(clazz, mapper);
+            }
+            return mapper.orElse(null);
+        }
+
+        private ExceptionMapper lookup(Class<?> clazz) {
+            Class<?> current = clazz;
+            while (current != null && current != Object.class) {
+                ExceptionMapper mapper = byName.get(current.getName());
+                if (mapper != null) {
+                    return mapper;
+                }
+                current = current.getSuperclass();
+            }
+            return null;
+        }
+    }
+}
@@ -110,6 +110,21 @@ public class HttpException extends RuntimeException implements Status {
         this.status = status;
     }
 
+    /**
+     * Constructs a new instance with the message and specified HTTP status code, with or without stack trace.
+     *
+     * @param status             the HTTP status code that will be returned to the client.
+     * @param message            the detail message (which is saved for later retrieval by the
+     *                           {@link Throwable#getMessage()} method).
+     * @param cause              the underlying cause of the exception, may be {@code null}.
+     * @param writableStackTrace whether or not the stack trace should be filled in.
+     * @see StacklessHttpException
+     */
+    protected HttpException(int status, String message, Throwable cause, boolean writableStackTrace) {
+        super(message, cause, false, writableStackTrace);
+        this.status = status;
+    }
+
 
     /**
      * Builds the {@link org.wisdom.api.http.Result} instance for the current instance.
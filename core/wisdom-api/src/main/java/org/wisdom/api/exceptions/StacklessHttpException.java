@@ -0,0 +1,49 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.api.exceptions;
+
+/**
+ * A {@link HttpException} without stack trace. Filling the stack trace is the most expensive part of the creation
+ * of an exception. This exception is meant to be thrown by actions to stop the processing of a request with a
+ * specific status (such as {@literal 400 - Bad Request} or {@literal 404 - Not Found}), where the stack trace is
+ * useless. So, under load (or under attack), these error responses cost about the same as regular responses.
+ */
+public class StacklessHttpException extends HttpException {
+
+    /**
+     * Constructs a new instance with a blank message and specified HTTP status code.
+     *
+     * @param status the HTTP status code that will be returned to the client.
+     */
+    public StacklessHttpException(int status) {
+        this(status, "");
+    }
+
+    /**
+     * Constructs a new instance with the message and specified HTTP status code.
+     *
+     * @param status  the HTTP status code that will be returned to the client.
+     * @param message the detail message (which is saved for later retrieval by the {@link Throwable#getMessage()}
+     *                method).
+     */
+    public StacklessHttpException(int status, String message) {
+        super(status, message, null, false);
+    }
+}
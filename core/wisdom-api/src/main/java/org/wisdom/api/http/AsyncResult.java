@@ -19,12 +19,19 @@
  */
 package org.wisdom.api.http;
 
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
 
 /**
  * An extension of result instructing the engine to render the result asynchronously. That means that the result
  * computation is delegated to another thread (and not the request thread), and is written and sent to the client
  * when the computation is completed.
+ * <p>
+ * The result is either computed by a callable, executed by the engine on one of its threads, or completed by a
+ * {@link CompletionStage}. In the latter case, no thread waits for the result: the engine processes the result
+ * produced by the stage once completed. This result can itself be asynchronous.
  */
 public class AsyncResult extends Result {
 
@@ -33,6 +40,11 @@ public class AsyncResult extends Result {
      */
     private final Callable<Result> callable;
 
+    /**
+     * The stage completing the result, {@literal null} if the result is computed by the callable.
+     */
+    private final CompletionStage<Result> stage;
+
     /**
      * Creates a new asynchronous result.
      *
@@ -41,12 +53,60 @@ public class AsyncResult extends Result {
      */
     public AsyncResult(Callable<Result> callable) {
         this.callable = callable;
+        this.stage = null;
+    }
+
+    /**
+     * Creates a new asynchronous result completed by the given stage. The engine processes the result once the stage
+     * is completed, without holding a thread meanwhile. The {@link #callable()} of such a result blocks until the
+     * stage is completed, it is meant for the code already running asynchronously (a batch entry for instance).
+     *
+     * @param stage the stage producing the result, must not be {@literal null}. The produced result can be an
+     *              asynchronous result.
+     */
+    public AsyncResult(CompletionStage<Result> stage) {
+        this.stage = stage;
+        this.callable = () -> await(stage);
     }
 
     /**
-     * @return the callable.
+     * @return the callable. For the results completed by a stage, the callable waits until the stage is completed,
+     * and computes the produced result until it is not asynchronous.
      */
     public Callable<Result> callable() {
         return callable;
     }
+
+    /**
+     * @return the stage completing the result, {@literal null} if the result is computed by the callable.
+     */
+    public CompletionStage<Result> stage() {
+        return stage;
+    }
+
+    private static Result await(CompletionStage<Result> stage) throws Exception {
+        Result result;
+        try {
+            result = stage.toCompletableFuture().get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+        // The produced result can be asynchronous at several levels (a deferred invocation producing an
+        // asynchronous result for instance), compute them all, as the engine would do.
+        while (result instanceof AsyncResult) {
+            AsyncResult async = (AsyncResult) result;
+            Result computed = async.callable().call();
+            // Apply the headers of the asynchronous result, as the engine would do.
+            for (Map.Entry<String, String> header : async.getHeaders().entrySet()) {
+                if (!computed.getHeaders().containsKey(header.getKey())) {
+                    computed.with(header.getKey(), header.getValue());
+                }
+            }
+            result = computed;
+        }
+        return result;
+    }
 }
@@ -26,7 +26,9 @@ import org.wisdom.api.cookies.SessionCookie;
 import org.wisdom.api.router.Route;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.Type;
 import java.util.Collection;
 import java.util.List;
@@ -332,6 +334,22 @@ public interface Context {
      */
     BufferedReader reader() throws IOException;
 
+    /**
+     * Gets a stream to read the request body as sent in the request. Unlike {@link #body()}, the body is not decoded
+     * into a String, so body parsers should prefer this method. This default implementation reads the array returned
+     * by {@link #raw()}; implementations holding the body in chunks read them without copying.
+     *
+     * @return the stream, {@code null} if the request has no body
+     * @throws IOException if the body cannot be read
+     */
+    default InputStream stream() throws IOException {
+        byte[] raw = raw();
+        if (raw == null) {
+            return null;
+        }
+        return new ByteArrayInputStream(raw);
+    }
+
     /**
      * Get the route for this context.
      *
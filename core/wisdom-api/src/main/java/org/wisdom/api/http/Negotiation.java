@@ -23,12 +23,25 @@ import com.google.common.net.MediaType;
 
 import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 /**
  * A class providing methods to ease the selection of negotiated content.
  */
 public final class Negotiation {
 
+    /**
+     * The maximum number of cached parsed media types.
+     */
+    private static final int MAX_CACHED_MEDIA_TYPES = 256;
+
+    /**
+     * The parsed media types used as keys of the negotiated results. These keys are generally constants, so are
+     * parsed once.
+     */
+    private static final Map<String, MediaType> MEDIA_TYPES = new ConcurrentHashMap<>();
+
     private Negotiation() {
         // Avoid direct instantiation.
     }
@@ -40,6 +53,9 @@ public final class Negotiation {
      * <p/>
      * This methods retrieves the accepted media type in their preference order and check,
      * one-by-one if the given results match one of them. So, it ensures we get the most acceptable result.
+     * <p/>
+     * All the given results are built before the selection. When building a result is expensive (rendering a
+     * template, serializing a large object...), use {@link #acceptLazily(java.util.Map)}.
      *
      * @param results the set of result structured as follows: mime-type -> result. The mime-type (keys) must be
      *                valid mime type such as 'application/json' or 'text/html'.
@@ -47,6 +63,45 @@ public final class Negotiation {
      * none of the given results match the request.
      */
     public static Result accept(Map<String, ? extends Result> results) {
+        String selected = select(results.keySet());
+        if (selected == null) {
+            return Results.status(Status.NOT_ACCEPTABLE);
+        }
+        return results.get(selected).with(HeaderNames.VARY, HeaderNames.ACCEPT);
+    }
+
+    /**
+     * 'Accept' based negotiation, building only the selected result.
+     * This method determines the result to send to the client based on the 'Accept' header of the request, exactly
+     * as {@link #accept(java.util.Map)}, but the results are given as suppliers. Only the supplier of the selected
+     * result is called.
+     * <pre>
+     * return Negotiation.acceptLazily(ImmutableMap.of(
+     *     MimeTypes.HTML, () -&gt; ok(render(template, "items", items)),
+     *     MimeTypes.JSON, () -&gt; ok(items).json()));
+     * </pre>
+     *
+     * @param results the set of result suppliers structured as follows: mime-type -> supplier of the result. The
+     *                mime-type (keys) must be valid mime type such as 'application/json' or 'text/html'.
+     * @return the selected result, or a result with the status {@link org.wisdom.api.http.Status#NOT_ACCEPTABLE} if
+     * none of the given results match the request.
+     */
+    public static Result acceptLazily(Map<String, ? extends Supplier<? extends Result>> results) {
+        String selected = select(results.keySet());
+        if (selected == null) {
+            return Results.status(Status.NOT_ACCEPTABLE);
+        }
+        return results.get(selected).get().with(HeaderNames.VARY, HeaderNames.ACCEPT);
+    }
+
+    /**
+     * Selects the most acceptable mime type among the given ones, according to the media types accepted by the
+     * current request.
+     *
+     * @param types the mime types
+     * @return the selected mime type, {@code null} if none is acceptable
+     */
+    private static String select(Collection<String> types) {
         Context context = Context.CONTEXT.get();
         if (context == null) {
             throw new IllegalStateException("Negotiation cannot be achieved outside of a request");
@@ -55,14 +110,25 @@ public final class Negotiation {
         // accepted cannot be empty, if the header is missing text/* is added.
         for (MediaType media : accepted) {
             // Do we have a matching key.
-            for (Map.Entry<String, ? extends Result> entry : results.entrySet()) {
-                MediaType input = MediaType.parse(entry.getKey());
-                if (input.is(media)) {
-                    return entry.getValue().with(HeaderNames.VARY, HeaderNames.ACCEPT);
+            for (String type : types) {
+                if (parse(type).is(media)) {
+                    return type;
                 }
             }
         }
-        return Results.status(Status.NOT_ACCEPTABLE);
+        return null;
+    }
+
+    private static MediaType parse(String type) {
+        MediaType media = MEDIA_TYPES.get(type);
+        if (media == null) {
+            media = MediaType.parse(type);
+            if (MEDIA_TYPES.size() >= MAX_CACHED_MEDIA_TYPES) {
+                MEDIA_TYPES.clear();
+            }
+            MEDIA_TYPES.put(type, media);
+        }
+        return media;
     }
 
     //TODO Negotiation based on the Languages, Content-Type...
@@ -49,6 +49,31 @@ public abstract class Request extends RequestHeader {
         this.username = username;
     }
 
+    /**
+     * The encoded path parameters, extracted by the router.
+     */
+    private Map<String, String> pathParameters = null;
+
+    /**
+     * Gets the encoded path parameters extracted by the router when it has selected the route handling this request.
+     * The parameters are not decoded.
+     *
+     * @return the immutable map of encoded path parameters, {@literal null} if the router has not set them
+     */
+    public Map<String, String> pathParameters() {
+        return pathParameters;
+    }
+
+    /**
+     * Sets the encoded path parameters of this request.
+     * Must only be called by the router.
+     *
+     * @param pathParameters the immutable map of encoded path parameters
+     */
+    public void pathParameters(Map<String, String> pathParameters) {
+        this.pathParameters = pathParameters;
+    }
+
     /**
      * The Content-Type header field indicates the media type of the request
      * body sent to the recipient. E.g. {@code Content-Type: text/html;
@@ -112,6 +137,17 @@ public abstract class Request extends RequestHeader {
      */
     public abstract String method();
 
+    /**
+     * Checks whether this request is a {@literal HEAD} request. When no action handles the {@literal HEAD} request,
+     * the action handling the {@literal GET} request on the same URL is invoked, and the response is sent without
+     * body. Such actions can use this method to skip the computation of the body, and only set the headers.
+     *
+     * @return {@literal true} if the method of this request is {@literal HEAD}, {@literal false} otherwise
+     */
+    public boolean isHead() {
+        return HttpMethod.HEAD.name().equalsIgnoreCase(method());
+    }
+
     /**
      * Get the parameter with the given key from the request. The parameter may
      * either be a query parameter, or in the case of form submissions, may be a
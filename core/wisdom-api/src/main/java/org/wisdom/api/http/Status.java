@@ -63,6 +63,7 @@ public interface Status {
     int UNSUPPORTED_MEDIA_TYPE = 415;
     int REQUESTED_RANGE_NOT_SATISFIABLE = 416;
     int EXPECTATION_FAILED = 417;
+    int TOO_MANY_REQUESTS = 429;
     int INTERNAL_SERVER_ERROR = 500;
     int NOT_IMPLEMENTED = 501;
     int BAD_GATEWAY = 502;
@@ -19,6 +19,8 @@
  */
 package org.wisdom.api.http.websockets;
 
+import java.nio.ByteBuffer;
+
 /**
  * Classes implementing this interface should register themselves on {@link WebSocketDispatcher} to receive
  * notification when client are opening, closing web sockets or sending data.
@@ -34,6 +36,24 @@ public interface WebSocketListener {
      */
     public void received(String uri, String client, byte[] content);
 
+    /**
+     * Callback invoked when data is received on the web socket identified by its url. This variant receives a view on
+     * the frame data, avoiding a copy. The buffer is shared with the other listeners, and so is generally read-only.
+     * Implementations wanting to modify the bytes must copy them. The buffer can be kept after the method returns.
+     * <p>
+     * The default implementation copies the data and calls {@link #received(String, String, byte[])}.
+     *
+     * @param uri     the url of the web socket
+     * @param client  the client id
+     * @param content the received content
+     */
+    default void received(String uri, String client, ByteBuffer content) {
+        ByteBuffer view = content.duplicate();
+        byte[] bytes = new byte[view.remaining()];
+        view.get(bytes);
+        received(uri, client, bytes);
+    }
+
     /**
      * Callback invoked when a new client connects on a web socket identified by its url.
      *
@@ -282,6 +282,36 @@ public class Route {
         return matches(HttpMethod.from(method), uri);
     }
 
+    /**
+     * Matches the given method and uri, and extracts the path parameters in the same pass. The router uses this
+     * method to select the route, so the parameters are not extracted again when the action reads them.
+     *
+     * @param method the method
+     * @param uri    the uri
+     * @return the immutable map of the encoded path parameters (empty if the route does not declare parameters),
+     * {@literal null} if the route does not match
+     */
+    public Map<String, String> match(HttpMethod method, String uri) {
+        if (this.httpMethod != method || regex == null) {
+            return null;
+        }
+        Matcher m = regex.matcher(uri);
+        if (!m.matches()) {
+            return null;
+        }
+        // Wildcards such as /foo* are groups without names.
+        int count = Math.min(m.groupCount(), parameterNames.size());
+        if (count == 0) {
+            return Collections.emptyMap();
+        }
+        // Optional groups inside a parameter regex may be null, and a name may be repeated (the last value wins).
+        Map<String, String> map = Maps.newHashMapWithExpectedSize(count);
+        for (int i = 1; i < count + 1; i++) {
+            map.put(parameterNames.get(i - 1), m.group(i));
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
     /**
      * This method does not do any decoding / encoding.
      * <p>
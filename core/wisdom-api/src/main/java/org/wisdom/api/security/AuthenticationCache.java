@@ -0,0 +1,44 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.api.security;
+
+/**
+ * Service letting applications remove the cached authentications, when the credentials are not valid anymore (log
+ * off, revoked token, changed password...).
+ * <p>
+ * Authentications are only cached for the {@link org.wisdom.api.security.Authenticator} services returning the
+ * credentials of the request and a positive cache duration (see {@link Authenticator#getCredentials(
+ *org.wisdom.api.http.Context)} and {@link Authenticator#getCacheDuration()}).
+ */
+public interface AuthenticationCache {
+
+    /**
+     * Removes the cached authentications of the given user.
+     *
+     * @param username the user name
+     */
+    void invalidate(String username);
+
+    /**
+     * Removes all the cached authentications.
+     */
+    void invalidateAll();
+
+}
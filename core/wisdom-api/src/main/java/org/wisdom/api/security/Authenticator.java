@@ -57,4 +57,33 @@ public interface Authenticator {
      */
     Result onUnauthorized(Context context);
 
+    /**
+     * Retrieves the credentials sent with the request, such as the value of the {@literal Authorization} header or of
+     * a token cookie. When the credentials are returned and {@link #getCacheDuration()} is positive, the user name
+     * computed by {@link #getUserName(Context)} is cached, and reused for the requests sending the same credentials.
+     * The credentials are not kept, only their digest is.
+     * <p>
+     * The default implementation returns {@literal null}, so the authentication is not cached.
+     *
+     * @param context the context
+     * @return the credentials, {@literal null} if the request does not carry credentials or if the authentication of
+     * this request must not be cached.
+     */
+    default String getCredentials(Context context) {
+        return null;
+    }
+
+    /**
+     * Gets how long the user name of authenticated credentials is cached. Only successful authentications are cached.
+     * Cached authentications can be removed using the {@link org.wisdom.api.security.AuthenticationCache} service,
+     * for instance when the user logs off or when a token is revoked.
+     * <p>
+     * The default implementation returns {@literal 0}, so the authentication is not cached.
+     *
+     * @return the duration in milliseconds, {@literal 0} to disable the cache.
+     */
+    default long getCacheDuration() {
+        return 0;
+    }
+
 }
@@ -0,0 +1,113 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.api.exceptions;
+
+import org.junit.Test;
+import org.wisdom.api.http.Result;
+
+import java.util.NoSuchElementException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the selection of the exception mappers.
+ */
+public class ExceptionMapperIndexTest {
+
+    private final ExceptionMapperIndex index = new ExceptionMapperIndex();
+
+    @Test
+    public void testExactMatch() {
+        Mapper<NullPointerException> npe = new Mapper<>(NullPointerException.class);
+        Mapper<IllegalStateException> ise = new Mapper<>(IllegalStateException.class);
+        index.add(npe);
+        index.add(ise);
+        assertThat(index.get(new NullPointerException())).isSameAs(npe);
+        assertThat(index.get(new IllegalStateException())).isSameAs(ise);
+        assertThat(index.get(new NoSuchElementException())).isNull();
+        // Cached.
+        assertThat(index.get(new NullPointerException())).isSameAs(npe);
+        assertThat(index.get(new NoSuchElementException())).isNull();
+    }
+
+    @Test
+    public void testClosestParentClass() {
+        Mapper<RuntimeException> runtime = new Mapper<>(RuntimeException.class);
+        Mapper<IllegalArgumentException> iae = new Mapper<>(IllegalArgumentException.class);
+        index.add(runtime);
+        index.add(iae);
+        assertThat(index.get(new NumberFormatException())).isSameAs(iae);
+        assertThat(index.get(new IllegalArgumentException())).isSameAs(iae);
+        assertThat(index.get(new NullPointerException())).isSameAs(runtime);
+        assertThat(index.get(new Exception())).isNull();
+    }
+
+    @Test
+    public void testFirstMapperWins() {
+        Mapper<IllegalStateException> first = new Mapper<>(IllegalStateException.class);
+        Mapper<IllegalStateException> second = new Mapper<>(IllegalStateException.class);
+        index.add(first);
+        index.add(second);
+        assertThat(index.get(new IllegalStateException())).isSameAs(first);
+
+        index.remove(first);
+        assertThat(index.get(new IllegalStateException())).isSameAs(second);
+    }
+
+    @Test
+    public void testMapperArrivalAndDeparture() {
+        assertThat(index.get(new NumberFormatException())).isNull();
+
+        Mapper<RuntimeException> runtime = new Mapper<>(RuntimeException.class);
+        index.add(runtime);
+        assertThat(index.get(new NumberFormatException())).isSameAs(runtime);
+
+        // The cached selection is dropped when a mapper arrives.
+        Mapper<NumberFormatException> nfe = new Mapper<>(NumberFormatException.class);
+        index.add(nfe);
+        assertThat(index.get(new NumberFormatException())).isSameAs(nfe);
+
+        index.remove(nfe);
+        assertThat(index.get(new NumberFormatException())).isSameAs(runtime);
+
+        index.remove(runtime);
+        assertThat(index.get(new NumberFormatException())).isNull();
+        assertThat(index.get(null)).isNull();
+    }
+
+    private static class Mapper<X extends Exception> implements ExceptionMapper<X> {
+
+        private final Class<X> clazz;
+
+        private Mapper(Class<X> clazz) {
+            this.clazz = clazz;
+        }
+
+        @Override
+        public Class<X> getExceptionClass() {
+            return clazz;
+        }
+
+        @Override
+        public Result toResult(X exception) {
+            return new Result().status(500);
+        }
+    }
+}
@@ -64,4 +64,19 @@ public class HttpExceptionTest {
         assertThat(result.getRenderable().content()).isEqualTo("bad");
     }
 
+    @Test
+    public void testStacklessException() {
+        HttpException exception = new StacklessHttpException(404);
+        assertThat(exception.getStackTrace()).isEmpty();
+        Result result = exception.toResult();
+        assertThat(result.getStatusCode()).isEqualTo(404);
+        assertThat(result.getRenderable().content()).isEqualTo("");
+
+        result = new StacklessHttpException(400, "bad").toResult();
+        assertThat(result.getStatusCode()).isEqualTo(400);
+        assertThat(result.getRenderable().content()).isEqualTo("bad");
+
+        assertThat(new HttpException(400).getStackTrace()).isNotEmpty();
+    }
+
 }
\ No newline at end of file
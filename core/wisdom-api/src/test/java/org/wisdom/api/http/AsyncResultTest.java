@@ -22,8 +22,10 @@ package org.wisdom.api.http;
 import org.junit.Test;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
 
 /**
  * Checks the syntax to build an async result
@@ -40,6 +42,54 @@ public class AsyncResultTest {
         });
 
         assertThat(async.callable()).isNotNull();
+        assertThat(async.stage()).isNull();
         assertThat(async.callable().call().getStatusCode()).isEqualTo(200);
     }
+
+    @Test
+    public void testAsyncCompletedByAStage() throws Exception {
+        CompletableFuture<Result> future = new CompletableFuture<>();
+        AsyncResult async = new AsyncResult(future);
+        assertThat(async.stage()).isSameAs(future);
+
+        future.complete(new AsyncResult(() -> Results.ok().with("X-Computed", "true")));
+        Result result = async.callable().call();
+        assertThat(result.getStatusCode()).isEqualTo(200);
+        assertThat(result.getHeaders()).containsEntry("X-Computed", "true");
+
+        // Several levels of asynchronous results, as produced by a queued invocation of an asynchronous action.
+        CompletableFuture<Result> queued = new CompletableFuture<>();
+        queued.complete(new AsyncResult(() -> new AsyncResult(() -> new AsyncResult(() -> Results.ok().render("done"))
+                .with("X-Action", "true")).with("X-Queued", "true")));
+        result = new AsyncResult(queued).callable().call();
+        assertThat(result).isNotInstanceOf(AsyncResult.class);
+        assertThat(result.getRenderable().content()).isEqualTo("done");
+        assertThat(result.getHeaders()).containsEntry("X-Action", "true").containsEntry("X-Queued", "true");
+
+        CompletableFuture<Result> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IllegalStateException("failed"));
+        try {
+            new AsyncResult(failed).callable().call();
+            fail("The failure should have been thrown");
+        } catch (IllegalStateException e) {
+            assertThat(e).hasMessage("failed");
+        }
+    }
+
+    @Test
+    public void testCallableOfAStageWaitsForTheCompletion() throws Exception {
+        CompletableFuture<Result> future = new CompletableFuture<>();
+        AsyncResult async = new AsyncResult(future);
+        Thread completion = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            future.complete(Results.ok().render("completed"));
+        });
+        completion.start();
+        assertThat(async.callable().call().getRenderable().content()).isEqualTo("completed");
+        completion.join();
+    }
 }
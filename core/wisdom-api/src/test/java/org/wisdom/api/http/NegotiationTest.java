@@ -0,0 +1,111 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.api.http;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.net.MediaType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks the 'Accept' based negotiation.
+ */
+public class NegotiationTest {
+
+    private Request request;
+
+    @Before
+    public void setUp() {
+        request = mock(Request.class);
+        Context context = mock(Context.class);
+        when(context.request()).thenReturn(request);
+        Context.CONTEXT.set(context);
+    }
+
+    @After
+    public void tearDown() {
+        Context.CONTEXT.remove();
+    }
+
+    @Test
+    public void testAccept() {
+        when(request.mediaTypes()).thenReturn(ImmutableList.of(MediaType.JSON_UTF_8.withoutParameters(),
+                MediaType.ANY_TYPE));
+        Result result = Negotiation.accept(ImmutableMap.of(
+                MimeTypes.HTML, Results.ok("html"),
+                MimeTypes.JSON, Results.ok("json")));
+        assertThat(result.getRenderable().content()).isEqualTo("json");
+        assertThat(result.getHeaders().get(HeaderNames.VARY)).isEqualTo(HeaderNames.ACCEPT);
+
+        when(request.mediaTypes()).thenReturn(ImmutableList.of(MediaType.PNG));
+        result = Negotiation.accept(ImmutableMap.of(MimeTypes.HTML, Results.ok("html")));
+        assertThat(result.getStatusCode()).isEqualTo(Status.NOT_ACCEPTABLE);
+    }
+
+    @Test
+    public void testAcceptLazily() {
+        final AtomicInteger html = new AtomicInteger();
+        final AtomicInteger json = new AtomicInteger();
+        ImmutableMap<String, Supplier<Result>> results = ImmutableMap.<String, Supplier<Result>>of(
+                MimeTypes.HTML, () -> {
+                    html.incrementAndGet();
+                    return Results.ok("html");
+                },
+                MimeTypes.JSON, () -> {
+                    json.incrementAndGet();
+                    return Results.ok("json");
+                });
+
+        when(request.mediaTypes()).thenReturn(ImmutableList.of(MediaType.JSON_UTF_8.withoutParameters()));
+        Result result = Negotiation.acceptLazily(results);
+        assertThat(result.getRenderable().content()).isEqualTo("json");
+        assertThat(result.getHeaders().get(HeaderNames.VARY)).isEqualTo(HeaderNames.ACCEPT);
+        assertThat(html.get()).isEqualTo(0);
+        assertThat(json.get()).isEqualTo(1);
+
+        // The first acceptable type wins.
+        when(request.mediaTypes()).thenReturn(ImmutableList.of(MediaType.parse("text/*"), MediaType.ANY_TYPE));
+        result = Negotiation.acceptLazily(results);
+        assertThat(result.getRenderable().content()).isEqualTo("html");
+        assertThat(html.get()).isEqualTo(1);
+        assertThat(json.get()).isEqualTo(1);
+
+        when(request.mediaTypes()).thenReturn(ImmutableList.of(MediaType.PNG));
+        result = Negotiation.acceptLazily(results);
+        assertThat(result.getStatusCode()).isEqualTo(Status.NOT_ACCEPTABLE);
+        assertThat(html.get()).isEqualTo(1);
+        assertThat(json.get()).isEqualTo(1);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testNegotiationOutsideOfARequest() {
+        Context.CONTEXT.remove();
+        Negotiation.acceptLazily(ImmutableMap.<String, Supplier<Result>>of(MimeTypes.HTML, () -> Results.ok()));
+    }
+}
@@ -65,4 +65,17 @@ public class RequestTest {
         assertThat(my.contentCharset()).isNull();
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testIsHead() throws Exception {
+        Request my = Mockito.mock(Request.class, Mockito.CALLS_REAL_METHODS);
+        doReturn("HEAD").when(my).method();
+        assertThat(my.isHead()).isTrue();
+
+        doReturn("GET").when(my).method();
+        assertThat(my.isHead()).isFalse();
+
+        doReturn(null).when(my).method();
+        assertThat(my.isHead()).isFalse();
+    }
+
+}
@@ -105,7 +105,61 @@ public class RouteTest {
         assertThat(route1.isCompliantWithRequestContentType(request1)).isEqualTo(2);
     }
 
+    @Test
+    public void testMatchExtractsThePathParameters() throws Exception {
+        Controller controller = new DefaultController() {
+            public Result method() {
+                return null;
+            }
+        };
+        Route route = new RouteBuilder().route(HttpMethod.GET).on("/shop/{category}/{id}").to(controller, "method");
 
+        assertThat(route.match(HttpMethod.GET, "/shop/books/42"))
+                .containsEntry("category", "books")
+                .containsEntry("id", "42")
+                .hasSize(2);
+        assertThat(route.match(HttpMethod.POST, "/shop/books/42")).isNull();
+        assertThat(route.match(HttpMethod.GET, "/shop/books")).isNull();
+
+        Route simple = new RouteBuilder().route(HttpMethod.GET).on("/shop").to(controller, "method");
+        assertThat(simple.match(HttpMethod.GET, "/shop")).isEmpty();
+    }
+
+    @Test
+    public void testMatchWithAnOptionalGroupInTheParameterRegex() throws Exception {
+        Controller controller = new DefaultController() {
+            public Result method() {
+                return null;
+            }
+        };
+        Route route = new RouteBuilder().route(HttpMethod.GET).on("/items/{id<[0-9]+(\\.json)?>}")
+                .to(controller, "method");
+
+        assertThat(route.match(HttpMethod.GET, "/items/42.json")).containsEntry("id", "42.json");
+        assertThat(route.match(HttpMethod.GET, "/items/42")).containsEntry("id", "42");
+        assertThat(route.match(HttpMethod.GET, "/items/abc")).isNull();
+
+        // The inner group shifts the following parameters, and does not match here, so the value is null.
+        Route nested = new RouteBuilder().route(HttpMethod.GET).on("/items/{id<[0-9]+(\\.json)?>}/{name}")
+                .to(controller, "method");
+        assertThat(nested.match(HttpMethod.GET, "/items/42/wisdom"))
+                .hasSize(2)
+                .containsEntry("id", "42")
+                .containsEntry("name", null);
+    }
 
+    @Test
+    public void testMatchWithARepeatedParameterName() throws Exception {
+        Controller controller = new DefaultController() {
+            public Result method() {
+                return null;
+            }
+        };
+        Route route = new RouteBuilder().route(HttpMethod.GET).on("/compare/{id}/{id}").to(controller, "method");
 
-}
\ No newline at end of file
+        assertThat(route.match(HttpMethod.GET, "/compare/1/2"))
+                .hasSize(1)
+                .containsEntry("id", "2")
+                .isEqualTo(route.getPathParametersEncoded("/compare/1/2"));
+    }
+}
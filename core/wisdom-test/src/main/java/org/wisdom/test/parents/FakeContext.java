@@ -31,10 +31,14 @@ import org.wisdom.api.http.Request;
 import org.wisdom.api.router.Route;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.StringReader;
 import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -480,6 +484,20 @@ public class FakeContext implements Context {
         return null;
     }
 
+    /**
+     * @return a stream on the String form of the body encoded with the charset of the request (UTF-8 if not set),
+     * {@literal null} if no body.
+     */
+    @Override
+    public InputStream stream() {
+        String body = body();
+        if (body != null) {
+            Charset charset = request().contentCharset();
+            return new ByteArrayInputStream(body.getBytes(charset == null ? StandardCharsets.UTF_8 : charset));
+        }
+        return null;
+    }
+
     /**
      * Not supported in tests.
      *
@@ -19,25 +19,59 @@
  */
 package io.vertx.core.http.impl;
 
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.compression.ZlibCodecFactory;
+import io.netty.handler.codec.compression.ZlibWrapper;
 import io.netty.handler.codec.http.HttpContentCompressor;
+import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpResponse;
 import org.wisdom.api.http.HeaderNames;
+import org.wisdom.framework.vertx.compression.CompressionPolicy;
 
 /**
  * Extends the {@link HttpContentCompressor} to check whether or not the compression is disabled.
- * If so, it skip the compression step.
+ * If so, it skip the compression step. It also applies the compression level set in the
+ * {@link CompressionPolicy#LEVEL_HEADER} header.
  *
  * @author <a href="http://escoffier.me">Clement Escoffier</a>
  */
 public class WisdomHttpContentCompressor extends HttpContentCompressor {
 
+    /**
+     * The window bits and memory level used by Netty by default.
+     */
+    private static final int WINDOW_BITS = 15;
+    private static final int MEM_LEVEL = 8;
+
     @Override
     protected Result beginEncode(HttpResponse response, String acceptEncoding) throws Exception {
         String disabled = response.headers().get(HeaderNames.X_WISDOM_DISABLED_ENCODING_HEADER);
+        String level = response.headers().get(CompressionPolicy.LEVEL_HEADER);
+        if (level != null) {
+            response.headers().remove(CompressionPolicy.LEVEL_HEADER);
+        }
         if ("true".equals(disabled)) {
             response.headers().remove(HeaderNames.X_WISDOM_DISABLED_ENCODING_HEADER);
             return null;
         }
-        return super.beginEncode(response, acceptEncoding);
+        if (level == null) {
+            return super.beginEncode(response, acceptEncoding);
+        }
+        return beginEncode(response, acceptEncoding, Integer.parseInt(level));
+    }
+
+    private Result beginEncode(HttpResponse response, String acceptEncoding, int level) {
+        String contentEncoding = response.headers().get(HttpHeaders.Names.CONTENT_ENCODING);
+        if (contentEncoding != null && !HttpHeaders.Values.IDENTITY.equalsIgnoreCase(contentEncoding)) {
+            return null;
+        }
+        ZlibWrapper wrapper = determineWrapper(acceptEncoding);
+        if (wrapper == null) {
+            return null;
+        }
+        String targetContentEncoding = wrapper == ZlibWrapper.GZIP ? HttpHeaders.Values.GZIP
+                : HttpHeaders.Values.DEFLATE;
+        return new Result(targetContentEncoding, new EmbeddedChannel(
+                ZlibCodecFactory.newZlibEncoder(wrapper, level, WINDOW_BITS, MEM_LEVEL)));
     }
 }
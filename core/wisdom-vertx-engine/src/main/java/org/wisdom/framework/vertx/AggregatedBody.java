@@ -0,0 +1,182 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.vertx.core.buffer.Buffer;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Aggregates the chunks composing a request body without copying them. Chunks are added as components of a
+ * {@link CompositeByteBuf} obtained from the pooled allocator, and the body can then be read as bytes,
+ * as an {@link InputStream} or as a {@link String}. The byte array form is only materialized when requested, and is
+ * computed once.
+ * <p>
+ * Instances must be released using {@link #release()} once the request has been handled. Only the byte array form,
+ * if computed before, remains readable once released.
+ */
+public class AggregatedBody {
+
+    /**
+     * The maximum number of components before the composite buffer gets consolidated. Chunks are generally 8Kb long,
+     * so consolidation only happens for bodies larger than 8Mb.
+     */
+    static final int MAX_COMPONENTS = 1024;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    /**
+     * The composite buffer, created when the first chunk arrives.
+     */
+    private CompositeByteBuf composite;
+
+    /**
+     * The body as byte array, computed lazily.
+     */
+    private byte[] bytes;
+
+    /**
+     * Whether the aggregated chunks have been released.
+     */
+    private boolean released;
+
+    /**
+     * Appends a chunk to the body. The chunk content is not copied, so the given buffer must not be modified after
+     * this call.
+     *
+     * @param chunk the chunk
+     * @throws IllegalStateException if the body has been released
+     */
+    public void append(Buffer chunk) {
+        if (chunk == null || chunk.length() == 0) {
+            return;
+        }
+        if (released) {
+            throw new IllegalStateException("The body has been released");
+        }
+        if (composite == null) {
+            composite = PooledByteBufAllocator.DEFAULT.compositeHeapBuffer(MAX_COMPONENTS);
+        }
+        // The buffer returned by getByteBuf is a duplicate sharing the reference count with the chunk,
+        // retain it as it is going to be released with the composite buffer.
+        ByteBuf buf = chunk.getByteBuf().retain();
+        composite.addComponent(buf);
+        composite.writerIndex(composite.writerIndex() + buf.readableBytes());
+        bytes = null;
+    }
+
+    /**
+     * @return the number of bytes of the body.
+     */
+    public int length() {
+        if (composite == null) {
+            return 0;
+        }
+        return composite.readableBytes();
+    }
+
+    /**
+     * Gets the body as byte array. The array is computed once, and then cached. When the body is composed of a
+     * single chunk backed by an array of the right size, this array is returned directly.
+     *
+     * @return the body, empty if the request has no body.
+     * @throws IllegalStateException if the body has been released before the array was computed
+     */
+    public byte[] bytes() {
+        if (bytes != null) {
+            return bytes;
+        }
+        checkNotReleased();
+        if (composite == null) {
+            return EMPTY;
+        }
+        if (composite.numComponents() == 1) {
+            ByteBuf single = composite.component(0);
+            if (single.hasArray() && single.arrayOffset() + single.readerIndex() == 0
+                    && single.array().length == single.readableBytes()) {
+                bytes = single.array();
+                return bytes;
+            }
+        }
+        bytes = new byte[composite.readableBytes()];
+        composite.getBytes(composite.readerIndex(), bytes);
+        return bytes;
+    }
+
+    /**
+     * Gets an input stream reading the body. The stream reads directly from the aggregated chunks.
+     *
+     * @return the stream, empty if the request has no body.
+     * @throws IllegalStateException if the body has been released before the array was computed
+     */
+    public InputStream stream() {
+        if (bytes == null) {
+            checkNotReleased();
+        }
+        if (bytes != null || composite == null) {
+            return new ByteArrayInputStream(bytes());
+        }
+        return new ByteBufInputStream(composite.duplicate());
+    }
+
+    /**
+     * Decodes the body as {@link String}, without going through the byte array form.
+     *
+     * @param charset the charset
+     * @return the body as String, empty if the request has no body.
+     * @throws IllegalStateException if the body has been released before the array was computed
+     */
+    public String asString(Charset charset) {
+        if (bytes == null) {
+            checkNotReleased();
+        }
+        if (composite == null) {
+            return bytes == null ? "" : new String(bytes, charset);
+        }
+        return composite.toString(charset);
+    }
+
+    private void checkNotReleased() {
+        if (released) {
+            throw new IllegalStateException("The body has been released");
+        }
+    }
+
+    /**
+     * Releases the aggregated chunks. The byte array form, if already computed, stays available. Otherwise, reading
+     * the body afterwards throws an {@link IllegalStateException}, unless the request has no body.
+     */
+    public void release() {
+        if (composite != null) {
+            composite.release();
+            composite = null;
+        } else if (bytes == null) {
+            // Nothing to lose, the empty body stays readable.
+            bytes = EMPTY;
+        }
+        released = true;
+    }
+}
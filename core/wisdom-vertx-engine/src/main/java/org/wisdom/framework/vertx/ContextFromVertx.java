@@ -38,14 +38,16 @@ import org.wisdom.framework.vertx.cookies.SessionCookieImpl;
 import org.wisdom.framework.vertx.file.VertxFileUpload;
 
 import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.lang.reflect.Type;
 import java.net.URI;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -56,10 +58,23 @@ public class ContextFromVertx implements Context {
     private static AtomicLong ids = new AtomicLong();
     private final long id;
     private final ServiceAccessor services;
-    private final FlashCookieImpl flash;
-    private final SessionCookieImpl session;
+    /**
+     * The flash and session cookies, created on first access.
+     */
+    private FlashCookieImpl flash;
+    private SessionCookieImpl session;
     private final Vertx vertx;
 
+    /**
+     * The time at which the request was received, in milliseconds since the epoch.
+     */
+    private final long timestamp = System.currentTimeMillis();
+
+    /**
+     * The value of {@link System#nanoTime()} when the request was received, used to compute the serving time.
+     */
+    private final long start = System.nanoTime();
+
 
     private /*not final*/ Route route;
     /**
@@ -68,6 +83,16 @@ public class ContextFromVertx implements Context {
     private RequestFromVertx request;
     private io.vertx.core.Context vertxContext;
 
+    /**
+     * The (encoded) path parameters, extracted by the router or once from the path.
+     */
+    private Map<String, String> pathParameters;
+
+    /**
+     * The decoded path parameters that required decoding, created lazily.
+     */
+    private Map<String, String> decodedPathParameters;
+
 
     /**
      * Creates a new context.
@@ -80,10 +105,6 @@ public class ContextFromVertx implements Context {
         services = accessor;
         request = new RequestFromVertx(req);
         this.vertx = vertx;
-        flash = new FlashCookieImpl(accessor.getConfiguration());
-        session = new SessionCookieImpl(accessor.getCrypto(), accessor.getConfiguration());
-        flash.init(this);
-        session.init(this);
 
         if (vertxContext == null) {
             throw new IllegalArgumentException("Creating a context from vert.x outside of an event loop");
@@ -145,6 +166,10 @@ public class ContextFromVertx implements Context {
      */
     @Override
     public FlashCookie flash() {
+        if (flash == null) {
+            flash = new FlashCookieImpl(services.getConfiguration());
+            flash.init(this);
+        }
         return flash;
     }
 
@@ -159,9 +184,27 @@ public class ContextFromVertx implements Context {
      */
     @Override
     public SessionCookie session() {
+        if (session == null) {
+            session = new SessionCookieImpl(services.getCrypto(), services.getConfiguration());
+            session.init(this);
+        }
         return session;
     }
 
+    /**
+     * Adds the flash and session cookies to the given result. If they have not been used, and the request has no
+     * cookies, there is nothing to send back, so they are not even created.
+     *
+     * @param result the result
+     */
+    public void saveFlashAndSession(Result result) {
+        if (flash == null && session == null && !request.hasCookies()) {
+            return;
+        }
+        flash().save(this, result);
+        session().save(this, result);
+    }
+
     /**
      * Get cookie from context.
      *
@@ -340,17 +383,27 @@ public class ContextFromVertx implements Context {
      */
     @Override
     public String parameterFromPath(String name) {
-        String encodedParameter = route.getPathParametersEncoded(
-                path()).get(name);
+        String encodedParameter = parameterFromPathEncoded(name);
         if (encodedParameter == null) {
             return null;
+        } else if (encodedParameter.indexOf('%') == -1 && !encodedParameter.startsWith("//")) {
+            // Nothing to decode.
+            return encodedParameter;
         } else {
-            // #514 - If the encoded parameter contains : it should be encoded manually.
-            // Some library don't meaning that the URI creation fails as : is not allowed.
-            if (encodedParameter.contains(":")) {
-                encodedParameter = encodedParameter.replace(":", "%3A");
+            if (decodedPathParameters == null) {
+                decodedPathParameters = new HashMap<>(4);
+            }
+            String decoded = decodedPathParameters.get(name);
+            if (decoded == null) {
+                // #514 - If the encoded parameter contains : it should be encoded manually.
+                // Some library don't meaning that the URI creation fails as : is not allowed.
+                if (encodedParameter.contains(":")) {
+                    encodedParameter = encodedParameter.replace(":", "%3A");
+                }
+                decoded = URI.create(encodedParameter).getPath();
+                decodedPathParameters.put(name, decoded);
             }
-            return URI.create(encodedParameter).getPath();
+            return decoded;
         }
     }
 
@@ -367,7 +420,14 @@ public class ContextFromVertx implements Context {
      */
     @Override
     public String parameterFromPathEncoded(String name) {
-        return route.getPathParametersEncoded(path()).get(name);
+        if (pathParameters == null) {
+            // Reuse the parameters extracted by the router when it has matched the route.
+            pathParameters = request.pathParameters();
+            if (pathParameters == null) {
+                pathParameters = route.getPathParametersEncoded(path());
+            }
+        }
+        return pathParameters.get(name);
     }
 
     /**
@@ -512,6 +572,17 @@ public class ContextFromVertx implements Context {
         return request.getRawBody();
     }
 
+    /**
+     * Gets a stream to read the request body. The stream reads the received chunks directly, without copying or
+     * decoding them.
+     *
+     * @return the stream, {@code null} if the request has no body
+     */
+    @Override
+    public InputStream stream() {
+        return request.getRawBodyAsStream();
+    }
+
     /**
      * Gets the reader to read the request.
      *
@@ -519,9 +590,9 @@ public class ContextFromVertx implements Context {
      */
     @Override
     public BufferedReader reader() throws IOException {
-        byte[] raw = request.getRawBody();
+        InputStream raw = request.getRawBodyAsStream();
         if (raw != null) {
-            return IOUtils.toBufferedReader(new InputStreamReader(new ByteArrayInputStream(raw)));
+            return IOUtils.toBufferedReader(new InputStreamReader(raw));
         }
         return null;
     }
@@ -593,6 +664,7 @@ public class ContextFromVertx implements Context {
      */
     public void cleanup() {
         request.getFiles().forEach(VertxFileUpload::cleanup);
+        request.release();
     }
 
     /**
@@ -618,6 +690,20 @@ public class ContextFromVertx implements Context {
         return vertxContext;
     }
 
+    /**
+     * @return the time at which the request was received, in milliseconds since the epoch.
+     */
+    public long timestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return the time elapsed since the request was received, in microseconds.
+     */
+    public long elapsed() {
+        return TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+    }
+
     @Override
     public String toString() {
         return "context-" + id + " / " + vertxContext;
@@ -27,6 +27,7 @@ import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.HttpServerRequest;
 import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.http.HttpVersion;
 import io.vertx.core.streams.Pump;
 import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
@@ -37,6 +38,12 @@ import org.wisdom.api.exceptions.ExceptionMapper;
 import org.wisdom.api.exceptions.HttpException;
 import org.wisdom.api.http.*;
 import org.wisdom.api.router.Route;
+import org.wisdom.framework.vertx.accesslog.AccessLog;
+import org.wisdom.framework.vertx.cache.CachedResponse;
+import org.wisdom.framework.vertx.cache.ETagGenerator;
+import org.wisdom.framework.vertx.cache.MicroCache;
+import org.wisdom.framework.vertx.compression.CompressionPolicy;
+import org.wisdom.framework.vertx.compression.RequestBodyInflater;
 import org.wisdom.framework.vertx.cookies.CookieHelper;
 import org.wisdom.framework.vertx.file.DiskFileUpload;
 import org.wisdom.framework.vertx.file.MixedFileUpload;
@@ -45,7 +52,9 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Map;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.ZipException;
 
 /**
  * Handles HTTP Request. Don't forget that request may arrive as chunk.
@@ -60,9 +69,13 @@ public class HttpHandler implements Handler<HttpServerRequest> {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpHandler.class);
 
+    private static final String HTTP_1_0 = "HTTP/1.0";
+    private static final String HTTP_1_1 = "HTTP/1.1";
+
     private final ServiceAccessor accessor;
     private final Vertx vertx;
     private final Server server;
+    private final AccessLog accessLog;
 
     /**
      * Creates the handler.
@@ -76,6 +89,7 @@ public class HttpHandler implements Handler<HttpServerRequest> {
         this.accessor = accessor;
         this.vertx = vertx;
         this.server = server;
+        this.accessLog = server.getAccessLog();
     }
 
     /**
@@ -88,6 +102,15 @@ public class HttpHandler implements Handler<HttpServerRequest> {
      */
     @Override
     public void handle(final HttpServerRequest request) {
+        long begin = System.nanoTime();
+        try {
+            receive(request);
+        } finally {
+            server.getLoad().record(begin);
+        }
+    }
+
+    private void receive(final HttpServerRequest request) {
         LOGGER.debug("A request has arrived on the server : {} {}", request.method(), request.path());
         final ContextFromVertx context = new ContextFromVertx(vertx, vertx.getOrCreateContext(), accessor, request);
 
@@ -97,9 +120,21 @@ public class HttpHandler implements Handler<HttpServerRequest> {
                     server.getOnDeniedResult(),
                     false,
                     true);
+        } else if (!server.admit()) {
+            LOGGER.debug("Request on {} rejected by {}, too many requests in progress", request.path(),
+                    server.name());
+            // The body of the request is not read, so the connection cannot be reused.
+            writeResponse(context, (RequestFromVertx) context.request(),
+                    server.getOverloadedResult(),
+                    false,
+                    HttpUtils.isPostOrPut(request));
         } else {
-            Buffer raw = Buffer.buffer(0);
+            final Handler<Void> admission =
+                    server.getMaxConcurrentRequests() > 0 ? releaseOnEnd(request.response()) : null;
+            AggregatedBody raw = new AggregatedBody();
             RequestFromVertx req = (RequestFromVertx) context.request();
+            // Attach the body immediately, so it's released with the context even if the request is cancelled.
+            req.setRawBody(raw);
             AtomicBoolean error = new AtomicBoolean();
             if (HttpUtils.isPostOrPut(request)) {
                 request.setExpectMultipart(true);
@@ -117,6 +152,38 @@ public class HttpHandler implements Handler<HttpServerRequest> {
 
             int maxBodySize =
                     accessor.getConfiguration().getIntegerWithDefault("request.body.max.size", 100 * 1024);
+
+            // Compressed bodies are inflated while being read. The size limit applies to the inflated body.
+            String encoding = request.headers().get(HeaderNames.CONTENT_ENCODING);
+            final RequestBodyInflater inflater;
+            if (RequestBodyInflater.isCompressed(encoding)) {
+                if (!RequestBodyInflater.isSupported(encoding) || HttpUtils.isForm(request)) {
+                    LOGGER.debug("Unsupported request content encoding {} on {}", encoding, request.path());
+                    writeResponse(context, req, new Result(Status.UNSUPPORTED_MEDIA_TYPE)
+                                    .render("Unsupported content encoding - request cancelled")
+                                    .as(MimeTypes.TEXT),
+                            false, true);
+                    return;
+                }
+                inflater = new RequestBodyInflater(encoding, maxBodySize);
+                // The application sees the inflated body.
+                request.headers().remove(HeaderNames.CONTENT_ENCODING);
+                request.headers().remove(HeaderNames.CONTENT_LENGTH);
+                // The native memory of the inflater is released if the client leaves while sending the body.
+                request.exceptionHandler(t -> {
+                    LOGGER.debug("Cannot read the body of {}", request.path(), t);
+                    inflater.release();
+                });
+                request.response().closeHandler(v -> {
+                    if (admission != null) {
+                        admission.handle(null);
+                    }
+                    inflater.release();
+                });
+            } else {
+                inflater = null;
+            }
+
             request.handler(event -> {
                 if (event == null) {
                     return;
@@ -124,16 +191,35 @@ public class HttpHandler implements Handler<HttpServerRequest> {
 
                 // To avoid we run out of memory we cut the read body to 100Kb. This can be configured using the
                 // "request.body.max.size" property.
-                boolean exceeded = raw.length() >= maxBodySize;
-
-                // We may have the content in different HTTP message, check if we already have a content.
-                // Issue #257.
-                if (!exceeded) {
-                    raw.appendBuffer(event);
+                boolean exceeded;
+                if (inflater == null) {
+                    exceeded = raw.length() >= maxBodySize;
+                    // We may have the content in different HTTP message, check if we already have a content.
+                    // Issue #257. The chunks are aggregated without being copied.
+                    if (!exceeded) {
+                        raw.append(event);
+                    }
                 } else {
+                    try {
+                        exceeded = !inflater.inflate(event, raw::append);
+                    } catch (ZipException e) {
+                        LOGGER.debug("Cannot inflate the body of {}", request.path(), e);
+                        request.handler(null);
+                        error.set(true);
+                        inflater.release();
+                        writeResponse(context, req, Results.badRequest("Malformed compressed body - request "
+                                + "cancelled").as(MimeTypes.TEXT), false, true);
+                        return;
+                    }
+                }
+
+                if (exceeded) {
                     // Remove the handler as we stop reading the request.
                     request.handler(null);
                     error.set(true);
+                    if (inflater != null) {
+                        inflater.release();
+                    }
                     writeResponse(context, req, new Result(Status.PAYLOAD_TOO_LARGE)
                             .render("Body size exceeded - request cancelled")
                                     .as(MimeTypes.TEXT),
@@ -146,19 +232,55 @@ public class HttpHandler implements Handler<HttpServerRequest> {
                     // Error already written.
                     return;
                 }
-                req.setRawBody(raw);
-                // Notifies the context that the request has been read, we start the dispatching.
-                if (context.ready()) {
-                    // Dispatch.
-                    dispatch(context, (RequestFromVertx) context.request());
-                } else {
-                    writeResponse(context, req,
-                            Results.badRequest("Request processing failed"), false, true);
+                if (inflater != null) {
+                    try {
+                        inflater.finish();
+                        request.headers().set(HeaderNames.CONTENT_LENGTH, Integer.toString(raw.length()));
+                    } catch (ZipException e) {
+                        LOGGER.debug("Truncated compressed body on {}", request.path(), e);
+                        writeResponse(context, req, Results.badRequest("Truncated compressed body")
+                                .as(MimeTypes.TEXT), false, true);
+                        return;
+                    } finally {
+                        inflater.release();
+                    }
+                }
+                long begin = System.nanoTime();
+                try {
+                    // Notifies the context that the request has been read, we start the dispatching.
+                    if (context.ready()) {
+                        // Dispatch.
+                        dispatch(context, (RequestFromVertx) context.request());
+                    } else {
+                        writeResponse(context, req,
+                                Results.badRequest("Request processing failed"), false, true);
+                    }
+                } finally {
+                    server.getLoad().record(begin);
                 }
             });
         }
     }
 
+    /**
+     * Releases the admission slot of the request once its response is written, or if the connection is closed
+     * before.
+     *
+     * @param response the response
+     * @return the handler releasing the slot, to be called by a close handler replacing the one set here
+     */
+    private Handler<Void> releaseOnEnd(HttpServerResponse response) {
+        AtomicBoolean released = new AtomicBoolean();
+        Handler<Void> release = v -> {
+            if (released.compareAndSet(false, true)) {
+                server.release();
+            }
+        };
+        response.bodyEndHandler(release);
+        response.closeHandler(release);
+        return release;
+    }
+
     /**
      * The request is now completed, clean everything.
      *
@@ -174,6 +296,15 @@ public class HttpHandler implements Handler<HttpServerRequest> {
 
 
     private void dispatch(ContextFromVertx context, RequestFromVertx request) {
+        MicroCache cache = server.getMicroCache();
+        if (cache != null && cache.isCacheable(request.getVertxRequest())) {
+            CachedResponse cached = cache.get(request.getVertxRequest());
+            if (cached != null) {
+                LOGGER.debug("Serving {} {} from the cache", context.request().method(), context.path());
+                writeCachedResponse(context, request.getVertxRequest(), cached);
+                return;
+            }
+        }
         LOGGER.debug("Dispatching {} {}", context.request().method(), context.path());
         // 2 Register context
         Context.CONTEXT.set(context);
@@ -234,8 +365,7 @@ public class HttpHandler implements Handler<HttpServerRequest> {
             final RequestFromVertx request,
             final AsyncResult asyncResult) {
 
-        ManagedFutureTask<Result> future = accessor.getExecutor().submit(asyncResult.callable());
-        Futures.addCallback(future, new FutureCallback<Result>() {
+        FutureCallback<Result> callback = new FutureCallback<Result>() {
             @Override
             public void onSuccess(Result result) {
                 // We got a result, write it here.
@@ -246,6 +376,22 @@ public class HttpHandler implements Handler<HttpServerRequest> {
                         headers.put(header.getKey(), header.getValue());
                     }
                 }
+                if (result instanceof AsyncResult) {
+                    // The computation continues asynchronously (a deferred result admitted by the router for
+                    // instance). The context is propagated to the thread computing the result.
+                    Context previous = Context.CONTEXT.get();
+                    Context.CONTEXT.set(context);
+                    try {
+                        handleAsyncResult(context, request, (AsyncResult) result);
+                    } finally {
+                        if (previous == null) {
+                            Context.CONTEXT.remove();
+                        } else {
+                            Context.CONTEXT.set(previous);
+                        }
+                    }
+                    return;
+                }
                 writeResponse(context, request, result, true, false);
             }
 
@@ -270,8 +416,23 @@ public class HttpHandler implements Handler<HttpServerRequest> {
 
                 writeResponse(context, request, Results.internalServerError(t), false, false);
             }
-        }/*, MoreExecutors.directExecutor()*/);
-        //TODO Which executor should we use here ?
+        };
+        if (asyncResult.stage() != null) {
+            // No thread waits for the result, it is processed by the executor once the stage is completed.
+            asyncResult.stage().whenCompleteAsync((result, error) -> {
+                if (error == null) {
+                    callback.onSuccess(result);
+                } else if (error instanceof CompletionException && error.getCause() != null) {
+                    callback.onFailure(error.getCause());
+                } else {
+                    callback.onFailure(error);
+                }
+            }, server.executor());
+            return;
+        }
+
+        ManagedFutureTask<Result> future = server.executor().submit(asyncResult.callable());
+        Futures.addCallback(future, callback);
     }
 
     private void writeResponse(
@@ -310,10 +471,23 @@ public class HttpHandler implements Handler<HttpServerRequest> {
             LOGGER.debug("Disabling encoding for {} - size ({} bytes) not in range",
                     request.path(), length);
             result.withoutCompression();
+        } else if (server.hasCompressionEnabled()) {
+            applyCompressionPolicy(result, renderable);
         }
 
-        finalizeWriteReponse(context, request.getVertxRequest(),
-                result, stream, success, handleFlashAndSessionCookie, closeConnection);
+        // The result is rendered by the calling thread (the executor for the asynchronous results), but the response
+        // is written on the event loop of the connection. Writing it from another thread races with the next request
+        // received on the same (persistent) connection, which could then never be handled.
+        io.vertx.core.Context eventLoop = context.vertxContext();
+        if (eventLoop == null || Vertx.currentContext() == eventLoop) {
+            finalizeWriteReponse(context, request.getVertxRequest(),
+                    result, stream, success, handleFlashAndSessionCookie, closeConnection);
+        } else {
+            final InputStream content = stream;
+            final boolean rendered = success;
+            eventLoop.runOnContext(v -> finalizeWriteReponse(context, request.getVertxRequest(),
+                    result, content, rendered, handleFlashAndSessionCookie, closeConnection));
+        }
     }
 
     /**
@@ -367,8 +541,7 @@ public class HttpHandler implements Handler<HttpServerRequest> {
 
         // copy cookies / flash and session
         if (handleFlashAndSessionCookie) {
-            context.flash().save(context, result);
-            context.session().save(context, result);
+            context.saveFlashAndSession(result);
         }
 
         // copy cookies
@@ -380,6 +553,9 @@ public class HttpHandler implements Handler<HttpServerRequest> {
             response.headers().add(HeaderNames.SET_COOKIE, encoded);
         }
         response.setStatusCode(HttpUtils.getStatusFromResult(result, success));
+        if (!hasBody(response.getStatusCode())) {
+            removeCompressionHeaders(response);
+        }
         if (renderable.mustBeChunked()) {
             LOGGER.debug("Building the chunked response for {} {} ({})", request.method(), request.uri(), context);
             if (renderable.length() > 0 && !response.headers().contains(HeaderNames.CONTENT_LENGTH)) {
@@ -397,13 +573,15 @@ public class HttpHandler implements Handler<HttpServerRequest> {
             // In addition, we can't keep the connection open.
             response.putHeader(HeaderNames.CONNECTION, "close");
 
-            final AsyncInputStream s = new AsyncInputStream(vertx, accessor.getExecutor(), stream);
+            final AsyncInputStream s = new AsyncInputStream(vertx, server.executor(), stream);
             s.setContext(context.vertxContext());
             final Pump pump = Pump.pump(s, response);
+            final long length = renderable.length();
             s.endHandler(event -> context.vertxContext().runOnContext(event1 -> {
                         LOGGER.debug("Ending chunked response for {}", request.uri());
                         response.end();
                         response.close();
+                        log(context, request, response, length);
                         cleanup(context);
                     })
             );
@@ -429,11 +607,34 @@ public class HttpHandler implements Handler<HttpServerRequest> {
                 response.putHeader(HeaderNames.CONTENT_LENGTH, Long.toString(cont.length));
             }
 
+            // Tag the response, before caching it, so the tag is served with the cached response.
+            ETagGenerator etags = server.getETagGenerator();
+            String etag = null;
+            if (etags != null && success && response.getStatusCode() == Status.OK
+                    && !response.headers().contains(HeaderNames.ETAG) && etags.isApplicable(request)) {
+                // The compressor does not encode the disabled or already encoded responses.
+                boolean encoded = server.hasCompressionEnabled()
+                        && !"true".equals(response.headers().get(HeaderNames.X_WISDOM_DISABLED_ENCODING_HEADER))
+                        && !response.headers().contains(HeaderNames.CONTENT_ENCODING);
+                etag = etags.compute(cont, encoded);
+                response.putHeader(HeaderNames.ETAG, etag);
+            }
+
+            // Only the responses computed by an action are cached, not the errors.
+            MicroCache cache = server.getMicroCache();
+            if (cache != null && handleFlashAndSessionCookie && success && cache.isCacheable(request)) {
+                cache.put(request, response.getStatusCode(), response.headers(), cont);
+            }
+
             if (keepAlive) {
                 // Add keep alive header as per:
                 // - http://www.w3.org/Protocols/HTTP/1.1/draft-ietf-http-v11-spec-01.html#Connection
                 response.putHeader(HeaderNames.CONNECTION, "keep-alive");
             }
+            if (etag != null && ETagGenerator.isNotModified(request, etag)) {
+                writeNotModified(context, request, response, keepAlive && !closeConnection);
+                return;
+            }
             response.write(Buffer.buffer(cont));
             if (HttpUtils.isKeepAlive(request) && !closeConnection) {
                 response.end();
@@ -441,10 +642,137 @@ public class HttpHandler implements Handler<HttpServerRequest> {
                 response.end();
                 response.close();
             }
+            log(context, request, response, cont.length);
             cleanup(context);
         }
     }
 
+    /**
+     * Writes a response taken from the cache. The router, the filters and the action are not invoked.
+     *
+     * @param context  the HTTP context
+     * @param request  the Vert.x request
+     * @param cached   the cached response
+     */
+    private void writeCachedResponse(ContextFromVertx context, HttpServerRequest request, CachedResponse cached) {
+        HttpServerResponse response = request.response();
+        for (Map.Entry<String, String> header : cached.headers()) {
+            response.headers().add(header.getKey(), header.getValue());
+        }
+        response.setStatusCode(cached.status());
+        boolean keepAlive = HttpUtils.isKeepAlive(request);
+        if (keepAlive) {
+            response.putHeader(HeaderNames.CONNECTION, "keep-alive");
+        }
+        if (cached.etag() != null && ETagGenerator.isNotModified(request, cached.etag())) {
+            writeNotModified(context, request, response, keepAlive);
+            return;
+        }
+        response.end(cached.content());
+        if (!keepAlive) {
+            response.close();
+        }
+        log(context, request, response, cached.content().length());
+        cleanup(context);
+    }
+
+    /**
+     * Answers {@literal 304 - Not Modified} as the client already has the response, whose headers are set. The body
+     * is not written.
+     *
+     * @param context   the HTTP context
+     * @param request   the Vert.x request
+     * @param response  the response
+     * @param keepAlive whether or not the connection is kept open
+     */
+    private void writeNotModified(ContextFromVertx context, HttpServerRequest request, HttpServerResponse response,
+                                  boolean keepAlive) {
+        LOGGER.debug("Not modified response for {} {}", request.method(), request.uri());
+        response.setStatusCode(Status.NOT_MODIFIED);
+        removeCompressionHeaders(response);
+        response.end();
+        if (!keepAlive) {
+            response.close();
+        }
+        log(context, request, response, 0);
+        cleanup(context);
+    }
+
+    /**
+     * Records the request in the access log, if enabled.
+     *
+     * @param context  the HTTP context
+     * @param request  the Vert.x request
+     * @param response the response
+     * @param bytes    the size of the response body, {@literal -1} if unknown
+     */
+    private void log(ContextFromVertx context, HttpServerRequest request, HttpServerResponse response, long bytes) {
+        if (accessLog == null) {
+            return;
+        }
+        accessLog.record(context.timestamp(),
+                request.remoteAddress().host(),
+                request.method().name(),
+                request.uri(),
+                request.version() == HttpVersion.HTTP_1_0 ? HTTP_1_0 : HTTP_1_1,
+                response.getStatusCode(),
+                bytes,
+                context.elapsed(),
+                request.headers().get(HeaderNames.REFERER),
+                request.headers().get(HeaderNames.USER_AGENT));
+    }
+
+    /**
+     * Disables the compression of the response if its type is not compressed, and sets the compression level
+     * according to the load of the event loops.
+     *
+     * @param result     the result
+     * @param renderable the rendered object
+     */
+    private void applyCompressionPolicy(Result result, Renderable<?> renderable) {
+        if ("true".equals(result.getHeaders().get(HeaderNames.X_WISDOM_DISABLED_ENCODING_HEADER))) {
+            return;
+        }
+        CompressionPolicy policy = server.getCompressionPolicy();
+        String type = result.getContentType();
+        if (type == null) {
+            type = renderable.mimetype();
+        }
+        if (!policy.accept(type)) {
+            result.withoutCompression();
+            return;
+        }
+        int level = policy.level(server.getLoad().utilization());
+        if (level == 0) {
+            result.withoutCompression();
+        } else if (level != CompressionPolicy.DEFAULT_LEVEL) {
+            result.with(CompressionPolicy.LEVEL_HEADER, Integer.toString(level));
+        }
+    }
+
+    /**
+     * Checks whether a response with the given status has a body. Netty does not encode the responses without body,
+     * so the compressor does not remove the internal compression headers from these responses.
+     *
+     * @param status the status of the response
+     * @return {@code false} for the {@literal 1xx}, {@literal 204 - No Content} and {@literal 304 - Not Modified}
+     * responses, {@code true} otherwise
+     */
+    private static boolean hasBody(int status) {
+        return status >= Status.OK && status != Status.NO_CONTENT && status != Status.NOT_MODIFIED;
+    }
+
+    /**
+     * Removes the headers used by the engine to configure the compression of a response, so they are not sent to
+     * the client.
+     *
+     * @param response the response
+     */
+    private static void removeCompressionHeaders(HttpServerResponse response) {
+        response.headers().remove(CompressionPolicy.LEVEL_HEADER);
+        response.headers().remove(HeaderNames.X_WISDOM_DISABLED_ENCODING_HEADER);
+    }
+
     private boolean shouldEncodingBeDisabledForResponse(long length, Result result) {
         return server.hasCompressionEnabled()
                 && (
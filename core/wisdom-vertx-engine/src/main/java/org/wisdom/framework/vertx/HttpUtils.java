@@ -27,6 +27,7 @@ import org.wisdom.api.content.ContentSerializer;
 import org.wisdom.api.http.*;
 
 import java.io.InputStream;
+import java.util.Locale;
 
 /**
  * A set of utility methods used to handle HTTP requests.
@@ -155,4 +156,20 @@ public class HttpUtils {
         return request.method().name().equalsIgnoreCase(HttpMethod.POST.name())
                 || request.method().name().equalsIgnoreCase(HttpMethod.PUT.name());
     }
+
+    /**
+     * Checks whether the given request has a form body ({@literal multipart/form-data} or
+     * {@literal application/x-www-form-urlencoded}). Such bodies are decoded by vert.x while being read.
+     *
+     * @param request the request
+     * @return {@code true} if the request body is a form, {@code false} otherwise.
+     */
+    public static boolean isForm(HttpServerRequest request) {
+        String type = request.headers().get(HeaderNames.CONTENT_TYPE);
+        if (type == null) {
+            return false;
+        }
+        type = type.toLowerCase(Locale.ENGLISH);
+        return type.startsWith(MimeTypes.MULTIPART) || type.startsWith(MimeTypes.FORM);
+    }
 }
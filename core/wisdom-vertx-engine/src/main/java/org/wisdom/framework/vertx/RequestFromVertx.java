@@ -24,7 +24,6 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.net.MediaType;
 import io.vertx.core.MultiMap;
-import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.HttpServerRequest;
 import io.vertx.core.net.SocketAddress;
 import org.wisdom.api.cookies.Cookie;
@@ -35,6 +34,7 @@ import org.wisdom.api.http.Request;
 import org.wisdom.framework.vertx.cookies.CookiesImpl;
 import org.wisdom.framework.vertx.file.VertxFileUpload;
 
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.*;
@@ -46,7 +46,11 @@ import java.util.*;
 public class RequestFromVertx extends Request {
 
     private final HttpServerRequest request;
-    private final Cookies cookies;
+
+    /**
+     * The cookies, parsed lazily.
+     */
+    private Cookies cookies;
 
     /**
      * List of uploaded files.
@@ -56,16 +60,21 @@ public class RequestFromVertx extends Request {
     /**
      * The raw body.
      */
-    private Buffer raw = Buffer.factory.buffer(0);
+    private AggregatedBody raw = new AggregatedBody();
 
     /**
-     * The map used to store data shared in the request scope.
+     * The map used to store data shared in the request scope, created lazily.
      */
-    private final Map<String, Object> data;
+    private Map<String, Object> data;
 
     private Map<String, List<String>> formData;
     private Map<String, List<String>> headers;
 
+    /**
+     * The raw path, computed lazily.
+     */
+    private String path;
+
     /**
      * Creates a {@link org.wisdom.framework.vertx.RequestFromVertx} object
      *
@@ -73,8 +82,6 @@ public class RequestFromVertx extends Request {
      */
     public RequestFromVertx(final HttpServerRequest request) {
         this.request = request;
-        this.cookies = new CookiesImpl(request);
-        this.data = new HashMap<>();
     }
 
     /**
@@ -196,11 +203,35 @@ public class RequestFromVertx extends Request {
      */
     @Override
     public String path() {
+        if (path == null) {
+            path = getRawPath(request.uri());
+        }
+        return path;
+    }
+
+    /**
+     * Extracts the raw path from the given request URI. Most requests use a path such as {@literal /foo?k=v}, in
+     * this case the path is just cut before the query, absolute URIs are parsed.
+     *
+     * @param uri the uri
+     * @return the raw path, not decoded
+     */
+    static String getRawPath(String uri) {
+        int length = uri.length();
+        if (length > 0 && uri.charAt(0) == '/' && (length == 1 || uri.charAt(1) != '/')) {
+            for (int i = 1; i < length; i++) {
+                char c = uri.charAt(i);
+                if (c == '?' || c == '#') {
+                    return uri.substring(0, i);
+                }
+            }
+            return uri;
+        }
         try {
-            return new URI(request.uri()).getRawPath();
+            return new URI(uri).getRawPath();
         } catch (URISyntaxException e) { //NOSONAR
             // Should never be the case.
-            return uri();
+            return uri;
         }
     }
 
@@ -314,9 +345,21 @@ public class RequestFromVertx extends Request {
      */
     @Override
     public Cookies cookies() {
+        if (cookies == null) {
+            cookies = new CookiesImpl(request);
+        }
         return cookies;
     }
 
+    /**
+     * Checks whether the request has a {@literal Cookie} header, without parsing the cookies.
+     *
+     * @return {@code true} if the request has cookies
+     */
+    public boolean hasCookies() {
+        return cookies != null || request.headers().contains(HeaderNames.COOKIE);
+    }
+
     /**
      * Gets a cookie with the given name.
      *
@@ -324,7 +367,7 @@ public class RequestFromVertx extends Request {
      * @return the cookie, {@code null} if no cookie have the given name
      */
     public Cookie cookie(String name) {
-        return cookies.get(name);
+        return cookies().get(name);
     }
 
     /**
@@ -511,6 +554,9 @@ public class RequestFromVertx extends Request {
      */
     @Override
     public Map<String, Object> data() {
+        if (data == null) {
+            data = new HashMap<>();
+        }
         return data;
     }
 
@@ -524,11 +570,14 @@ public class RequestFromVertx extends Request {
     }
 
     /**
-     * Gets the form data.
+     * Gets the form data. The map is mutable, so filters can add form attributes.
      *
      * @return the form data
      */
     public Map<String, List<String>> getFormData() {
+        if (formData == null) {
+            formData = new HashMap<>();
+        }
         return formData;
     }
 
@@ -541,16 +590,31 @@ public class RequestFromVertx extends Request {
         if (raw == null) {
             return null;
         }
-        return raw.toString(Charsets.UTF_8.displayName());
+        return raw.asString(Charsets.UTF_8);
     }
 
     /**
-     * Gets the 'raw' body.
+     * Gets the 'raw' body. The returned array is shared, and must not be modified.
      *
      * @return the raw body, {@code null} if there is no body.
      */
     public byte[] getRawBody() {
-        return raw.getBytes();
+        if (raw == null) {
+            return null;
+        }
+        return raw.bytes();
+    }
+
+    /**
+     * Gets a stream to read the 'raw' body. The stream reads the received chunks directly, without copying them.
+     *
+     * @return the stream, {@code null} if there is no body.
+     */
+    public InputStream getRawBodyAsStream() {
+        if (raw == null) {
+            return null;
+        }
+        return raw.stream();
     }
 
     /**
@@ -587,11 +651,20 @@ public class RequestFromVertx extends Request {
                 return true;
             }
         }
-        formData = new HashMap<>();
+        // Not a form, the (empty) form data is created on demand.
         return true;
     }
 
-    protected void setRawBody(Buffer raw) {
+    protected void setRawBody(AggregatedBody raw) {
         this.raw = raw;
     }
+
+    /**
+     * Releases the resources held by the request, especially the aggregated body.
+     */
+    public void release() {
+        if (raw != null) {
+            raw.release();
+        }
+    }
 }
@@ -24,18 +24,31 @@ import io.vertx.core.*;
 import io.vertx.core.http.ClientAuth;
 import io.vertx.core.http.HttpServer;
 import io.vertx.core.http.HttpServerOptions;
+import io.vertx.core.net.impl.SSLHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wisdom.api.concurrent.ManagedExecutorService;
 import org.wisdom.api.configuration.ApplicationConfiguration;
 import org.wisdom.api.configuration.Configuration;
+import org.wisdom.api.http.HeaderNames;
+import org.wisdom.api.http.MimeTypes;
 import org.wisdom.api.http.Result;
 import org.wisdom.api.http.Results;
+import org.wisdom.api.http.Status;
+import org.wisdom.framework.vertx.accesslog.AccessLog;
+import org.wisdom.framework.vertx.cache.ETagGenerator;
+import org.wisdom.framework.vertx.cache.MicroCache;
+import org.wisdom.framework.vertx.compression.CompressionPolicy;
+import org.wisdom.framework.vertx.compression.EventLoopLoad;
 import org.wisdom.framework.vertx.ssl.SSLServerContext;
+import org.wisdom.framework.vertx.ssl.TlsConfiguration;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.regex.Pattern;
 
 /**
@@ -96,6 +109,11 @@ public class Server {
      */
     private final boolean authentication;
 
+    /**
+     * The TLS settings, only used if SSL is enabled.
+     */
+    private final TlsConfiguration tls;
+
     /**
      * The list of accepted patterns.
      */
@@ -119,6 +137,72 @@ public class Server {
 
     private Context context;
 
+    /**
+     * The number of event loops dedicated to this server, {@literal 0} to use the event loops shared by all servers.
+     */
+    private int eventLoops;
+
+    /**
+     * The vert.x instance owning the dedicated event loops, {@code null} if the server uses the shared event loops.
+     */
+    private Vertx dedicated;
+
+    /**
+     * The contexts of the dedicated vert.x instance, one per dedicated event loop, each one creating an HTTP server
+     * instance. Empty if the server uses the shared event loops.
+     */
+    private List<Context> loops = Collections.emptyList();
+
+    /**
+     * The name of the executor used by this server, {@code null} to use the system executor.
+     */
+    private String executorName;
+
+    /**
+     * The executor used by this server, {@code null} to use the system executor.
+     */
+    private ManagedExecutorService executor;
+
+    /**
+     * The maximum number of requests processed concurrently, {@literal 0} for no limit.
+     */
+    private int maxConcurrentRequests;
+
+    /**
+     * The number of requests being processed.
+     */
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * The number of requests rejected because of the admission limit.
+     */
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * The compression policy.
+     */
+    private final CompressionPolicy compression;
+
+    /**
+     * The load of the event loops handling the requests of this server.
+     */
+    private EventLoopLoad load = new EventLoopLoad(1);
+
+    /**
+     * The access log, {@code null} if disabled.
+     */
+    private AccessLog accessLog;
+
+    /**
+     * The cache of the responses to anonymous requests, {@code null} if disabled.
+     */
+    private MicroCache cache;
+
+    /**
+     * The generator of the entity tags of the responses, {@code null} if disabled.
+     */
+    private ETagGenerator etags;
+
     /**
      * Creates the default HTTP server (listening on port 9000 / `http.port`), no SSL, no mutual authentication,
      * accept all requests.
@@ -170,7 +254,11 @@ public class Server {
                               Vertx vertx,
                               String name,
                               Configuration configuration) {
-        return new Server(
+        Configuration tls = configuration.getConfiguration("tls");
+        if (tls == null) {
+            tls = accessor.getConfiguration().getConfiguration("vertx.tls");
+        }
+        Server server = new Server(
                 accessor,
                 vertx,
                 name,
@@ -180,8 +268,21 @@ public class Server {
                 configuration.get("host"),
                 configuration.getList("allow"),
                 configuration.getList("deny"),
-                configuration.get("onDenied")
+                configuration.get("onDenied"),
+                TlsConfiguration.from(tls)
         );
+        server.setEventLoops(configuration.getIntegerWithDefault("event-loops", 0));
+        server.setExecutorName(configuration.get("executor"));
+        server.setMaxConcurrentRequests(configuration.getIntegerWithDefault("max-concurrent-requests", 0));
+        Configuration cache = configuration.getConfiguration("micro-cache");
+        if (cache != null) {
+            server.setMicroCache(MicroCache.create(cache));
+        }
+        Configuration etag = configuration.getConfiguration("etag");
+        if (etag != null) {
+            server.setETagGenerator(ETagGenerator.create(etag));
+        }
+        return server;
     }
 
     /**
@@ -204,6 +305,32 @@ public class Server {
                   boolean ssl, boolean authentication,
                   String host,
                   List<String> allow, List<String> deny, String onDenied) {
+        this(accessor, vertx, name, port, ssl, authentication, host, allow, deny, onDenied,
+                TlsConfiguration.from(accessor.getConfiguration().getConfiguration("vertx.tls")));
+    }
+
+    /**
+     * Creates a new server.
+     *
+     * @param accessor       the service accessor
+     * @param vertx          the vertx singleton
+     * @param name           the server name
+     * @param port           the port
+     * @param ssl            whether or not SSL is enabled
+     * @param host           the listened interface
+     * @param allow          the set of path with wildcards accepted by the server
+     * @param deny           the set of path with wildcards rejected by the server
+     * @param authentication whether or not mutual authentication is enabled
+     * @param onDenied       the redirection URL if a request is denied by the server
+     * @param tls            the TLS settings, used if SSL is enabled
+     */
+    public Server(ServiceAccessor accessor,
+                  Vertx vertx,
+                  String name, int port,
+                  boolean ssl, boolean authentication,
+                  String host,
+                  List<String> allow, List<String> deny, String onDenied,
+                  TlsConfiguration tls) {
         Preconditions.checkNotNull(accessor);
         Preconditions.checkNotNull(vertx);
         Preconditions.checkNotNull(name);
@@ -221,6 +348,7 @@ public class Server {
         this.port = port;
         this.ssl = ssl;
         this.authentication = authentication;
+        this.tls = tls;
 
         List<Pattern> allowedPatterns = new ArrayList<>();
         List<Pattern> deniedPatterns = new ArrayList<>();
@@ -237,6 +365,11 @@ public class Server {
         this.deny = deniedPatterns;
         this.onDenied = onDenied;
 
+        this.compression = CompressionPolicy.from(
+                configuration.getConfiguration("vertx.compression-policy"));
+        this.cache = MicroCache.create(configuration.getConfiguration("vertx.micro-cache"));
+        this.etags = ETagGenerator.create(configuration.getConfiguration("vertx.etag"));
+
         this.logger = LoggerFactory.getLogger("server-" + name);
     }
 
@@ -247,12 +380,86 @@ public class Server {
     public void bind(Handler<AsyncResult<Void>> completion) {
         logger.info("Starting server {}", name);
         context = vertx.getOrCreateContext();
+        if (eventLoops > 0) {
+            logger.info("Server {} uses {} dedicated event loop(s)", name, eventLoops);
+            dedicated = Vertx.vertx(new VertxOptions().setEventLoopPoolSize(eventLoops));
+            load = new EventLoopLoad(eventLoops);
+            // The contexts are created from the current thread, which does not belong to the dedicated instance:
+            // each new context is attached to the next event loop. From a dedicated event loop,
+            // getOrCreateContext would return the context of this event loop.
+            List<Context> contexts = new ArrayList<>(eventLoops);
+            for (int i = 0; i < eventLoops; i++) {
+                contexts.add(dedicated.getOrCreateContext());
+            }
+            loops = contexts;
+        }
         bind(port, completion);
     }
 
     private void bind(int p, Handler<AsyncResult<Void>> completion) {
         // Get port number.
         final int thePort = pickAPort(port);
+        HttpServerOptions options = createOptions();
+
+        listen(options, thePort, 0, event -> {
+            if (event.succeeded()) {
+                logger.info("Wisdom is going to serve HTTP requests on port {}.", thePort);
+                port = thePort;
+                // The other event loops listen on the same port, vert.x distributes the connections among them.
+                listenOnOtherEventLoops(options, 1, completion);
+            } else if (port == 0) {
+                logger.debug("Cannot bind on port {} (port already used probably)", thePort, event.cause());
+                bind(0, completion);
+            } else {
+                logger.error("Cannot bind on port {} (port already used probably)", thePort, event.cause());
+                completion.handle(Future.failedFuture("Cannot bind on port " + thePort));
+            }
+        });
+    }
+
+    private void listenOnOtherEventLoops(HttpServerOptions options, int loop,
+                                         Handler<AsyncResult<Void>> completion) {
+        if (loop >= loops.size()) {
+            completion.handle(Future.succeededFuture());
+            return;
+        }
+        listen(options, port, loop, event -> {
+            if (event.succeeded()) {
+                listenOnOtherEventLoops(options, loop + 1, completion);
+            } else {
+                logger.error("Cannot bind on port {} from a dedicated event loop", port, event.cause());
+                completion.handle(Future.failedFuture("Cannot bind on port " + port));
+            }
+        });
+    }
+
+    /**
+     * Creates a HTTP server and starts listening. With dedicated event loops, the server is created from the context
+     * of the given dedicated event loop, and the connections accepted by this server are handled on this event loop.
+     */
+    private void listen(HttpServerOptions options, int thePort, int loop,
+                        Handler<AsyncResult<HttpServer>> handler) {
+        if (dedicated == null) {
+            http = createServer(vertx, options);
+            http.listen(thePort, host, handler);
+        } else {
+            loops.get(loop).runOnContext(v -> createServer(dedicated, options).listen(thePort, host, handler));
+        }
+    }
+
+    private HttpServer createServer(Vertx owner, HttpServerOptions options) {
+        // The SSL engine is created with the server, so the TLS settings must be set at that time.
+        SSLHelper.setServerConfiguration(ssl ? tls : null);
+        try {
+            return owner.createHttpServer(options)
+                    .requestHandler(new HttpHandler(owner, accessor, this))
+                    .websocketHandler(new WebSocketHandler(accessor, this, owner.eventBus()));
+        } finally {
+            SSLHelper.setServerConfiguration(null);
+        }
+    }
+
+    private HttpServerOptions createOptions() {
         HttpServerOptions options = new HttpServerOptions();
         if (ssl) {
             options.setSsl(true);
@@ -261,6 +468,7 @@ public class Server {
             if (authentication) {
                 options.setClientAuth(ClientAuth.REQUIRED);
             }
+            tls.getCiphers().forEach(options::addEnabledCipherSuite);
         }
 
         if (hasCompressionEnabled()) {
@@ -285,24 +493,7 @@ public class Server {
         if (configuration.getIntegerWithDefault("vertx.sendBufferSize", -1) != -1) {
             options.setSendBufferSize(configuration.getInteger("vertx.sendBufferSize"));
         }
-
-        http = vertx.createHttpServer(options)
-                .requestHandler(new HttpHandler(vertx, accessor, this))
-                .websocketHandler(new WebSocketHandler(accessor, this));
-
-        http.listen(thePort, host, event -> {
-            if (event.succeeded()) {
-                logger.info("Wisdom is going to serve HTTP requests on port {}.", thePort);
-                port = thePort;
-                completion.handle(Future.succeededFuture());
-            } else if (port == 0) {
-                logger.debug("Cannot bind on port {} (port already used probably)", thePort, event.cause());
-                bind(0, completion);
-            } else {
-                logger.error("Cannot bind on port {} (port already used probably)", thePort, event.cause());
-                completion.handle(Future.failedFuture("Cannot bind on port " + thePort));
-            }
-        });
+        return options;
     }
 
     /**
@@ -350,6 +541,55 @@ public class Server {
     }
 
 
+    /**
+     * Sets the access log used to record the requests served by this server. It must be set before the server is
+     * bound.
+     *
+     * @param accessLog the access log, {@code null} to disable the access log
+     */
+    public void setAccessLog(AccessLog accessLog) {
+        this.accessLog = accessLog;
+    }
+
+    /**
+     * @return the access log, {@code null} if disabled.
+     */
+    public AccessLog getAccessLog() {
+        return accessLog;
+    }
+
+    /**
+     * Sets the cache storing the responses to the anonymous requests received by this server.
+     *
+     * @param cache the cache, {@code null} to disable the caching
+     */
+    public void setMicroCache(MicroCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * @return the cache of the responses to anonymous requests, {@code null} if disabled.
+     */
+    public MicroCache getMicroCache() {
+        return cache;
+    }
+
+    /**
+     * Sets the generator of the entity tags of the responses sent by this server.
+     *
+     * @param etags the generator, {@code null} to disable the entity tags
+     */
+    public void setETagGenerator(ETagGenerator etags) {
+        this.etags = etags;
+    }
+
+    /**
+     * @return the generator of the entity tags of the responses, {@code null} if disabled.
+     */
+    public ETagGenerator getETagGenerator() {
+        return etags;
+    }
+
     /**
      * Gets the server's name.
      *
@@ -368,7 +608,15 @@ public class Server {
         }
 
         context.runOnContext(v -> {
-            if (http != null) {
+            if (dedicated != null) {
+                // Closing the dedicated instance closes the servers it owns and releases its event loops.
+                dedicated.close(event -> {
+                    logger.info("The server '{}' has been stopped (bound port: {})", name, port);
+                    completion.handle(Future.<Void>succeededFuture());
+                });
+                dedicated = null;
+                loops = Collections.emptyList();
+            } else if (http != null) {
                 http.close(event -> {
                     logger.info("The server '{}' has been stopped (bound port: {})", name, port);
                     completion.handle(Future.<Void>succeededFuture());
@@ -377,6 +625,148 @@ public class Server {
         });
     }
 
+    /**
+     * Sets the number of event loops dedicated to this server. It must be set before the server is bound.
+     *
+     * @param eventLoops the number of event loops, {@literal 0} to use the event loops shared by all servers
+     */
+    public void setEventLoops(int eventLoops) {
+        this.eventLoops = eventLoops;
+    }
+
+    /**
+     * @return the number of event loops dedicated to this server, {@literal 0} if it uses the shared event loops.
+     */
+    public int getEventLoops() {
+        return eventLoops;
+    }
+
+    /**
+     * Sets the name of the executor used by this server, as configured in the `pools.executors` configuration.
+     *
+     * @param executorName the name, {@code null} to use the system executor
+     */
+    public void setExecutorName(String executorName) {
+        this.executorName = executorName;
+    }
+
+    /**
+     * @return the name of the executor used by this server, {@code null} if it uses the system executor.
+     */
+    public String getExecutorName() {
+        return executorName;
+    }
+
+    /**
+     * Sets the executor used by this server to compute asynchronous results and to read streamed responses.
+     *
+     * @param executor the executor, {@code null} to use the system executor
+     */
+    public void setExecutor(ManagedExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * @return the executor used by this server.
+     */
+    public ManagedExecutorService executor() {
+        if (executor == null) {
+            return accessor.getExecutor();
+        }
+        return executor;
+    }
+
+    /**
+     * Sets the maximum number of requests this server processes concurrently. Requests received once the limit is
+     * reached are rejected with a {@literal 503 - Service Unavailable} response.
+     *
+     * @param maxConcurrentRequests the limit, {@literal 0} for no limit
+     */
+    public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    /**
+     * @return the maximum number of requests processed concurrently, {@literal 0} for no limit.
+     */
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    /**
+     * Checks whether a new request can be processed. If this method returns {@code true}, {@link #release()} must be
+     * called once the response has been written.
+     *
+     * @return {@code true} if the request is admitted, {@code false} if the server is saturated
+     */
+    public boolean admit() {
+        if (maxConcurrentRequests <= 0) {
+            return true;
+        }
+        if (inFlight.incrementAndGet() > maxConcurrentRequests) {
+            inFlight.decrementAndGet();
+            rejected.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Notifies the server that an admitted request has been processed.
+     */
+    public void release() {
+        if (maxConcurrentRequests > 0) {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * @return the result sent when a request is rejected because the server is saturated.
+     */
+    public Result getOverloadedResult() {
+        return new Result(Status.SERVICE_UNAVAILABLE)
+                .render("Server overloaded - request rejected").as(MimeTypes.TEXT)
+                .with(HeaderNames.RETRY_AFTER, "1");
+    }
+
+    /**
+     * @return the number of requests being processed, only counted when an admission limit is set.
+     */
+    public int getInFlightRequests() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return the number of requests rejected because of the admission limit.
+     */
+    public long getRejectedRequests() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return the compression policy.
+     */
+    public CompressionPolicy getCompressionPolicy() {
+        return compression;
+    }
+
+    /**
+     * Sets the load of the event loops handling the requests of this server. The servers sharing the same event
+     * loops must share the same instance. Servers with dedicated event loops create their own instance when bound.
+     *
+     * @param load the load
+     */
+    public void setLoad(EventLoopLoad load) {
+        this.load = load;
+    }
+
+    /**
+     * @return the load of the event loops handling the requests of this server.
+     */
+    public EventLoopLoad getLoad() {
+        return load;
+    }
+
     /**
      * Gets whether or not SSL is enabled on the current server.
      *
@@ -386,6 +776,15 @@ public class Server {
         return ssl;
     }
 
+    /**
+     * Gets the TLS settings of the server, including the handshake metrics.
+     *
+     * @return the TLS settings, only used if SSL is enabled
+     */
+    public TlsConfiguration tls() {
+        return tls;
+    }
+
     /**
      * Gets the port listen by the server.
      *
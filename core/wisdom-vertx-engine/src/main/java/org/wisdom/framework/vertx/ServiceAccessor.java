@@ -24,6 +24,7 @@ import org.wisdom.api.configuration.ApplicationConfiguration;
 import org.wisdom.api.content.ContentEngine;
 import org.wisdom.api.crypto.Crypto;
 import org.wisdom.api.exceptions.ExceptionMapper;
+import org.wisdom.api.exceptions.ExceptionMapperIndex;
 import org.wisdom.api.router.Router;
 
 import java.util.Collection;
@@ -39,7 +40,7 @@ public class ServiceAccessor {
     private final ContentEngine contentEngines;
     private final ManagedExecutorService executor;
     private final WisdomVertxServer dispatcher;
-    private final Collection<ExceptionMapper> mappers;
+    private final ExceptionMapperIndex index = new ExceptionMapperIndex();
 
     public ServiceAccessor(Crypto crypto, ApplicationConfiguration configuration, Router router,
                            ContentEngine engine, ManagedExecutorService executor, WisdomVertxServer dispatcher,
@@ -50,7 +51,11 @@ public class ServiceAccessor {
         this.contentEngines = engine;
         this.executor = executor;
         this.dispatcher = dispatcher;
-        this.mappers = mappers;
+        if (mappers != null) {
+            for (ExceptionMapper mapper : mappers) {
+                index.add(mapper);
+            }
+        }
     }
 
     public Crypto getCrypto() {
@@ -77,12 +82,32 @@ public class ServiceAccessor {
         return dispatcher;
     }
 
+    /**
+     * Adds an exception mapper.
+     *
+     * @param mapper the mapper
+     */
+    public void addExceptionMapper(ExceptionMapper mapper) {
+        index.add(mapper);
+    }
+
+    /**
+     * Removes an exception mapper.
+     *
+     * @param mapper the mapper
+     */
+    public void removeExceptionMapper(ExceptionMapper mapper) {
+        index.remove(mapper);
+    }
+
+    /**
+     * Gets the mapper handling the given exception, i.e. the mapper handling the class of the exception or its
+     * closest parent class.
+     *
+     * @param t the exception
+     * @return the mapper, {@code null} if none
+     */
     public ExceptionMapper getExceptionMapper(Exception t) {
-        for (ExceptionMapper mapper : mappers) {
-            if (mapper.getExceptionClass().getName().equals(t.getClass().getName())) {
-                return mapper;
-            }
-        }
-        return null;
+        return index.get(t);
     }
 }
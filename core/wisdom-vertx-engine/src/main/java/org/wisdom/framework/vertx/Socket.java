@@ -35,6 +35,11 @@ public class Socket {
      */
     private final ServerWebSocket delegate;
 
+    /**
+     * The event bus of the vert.x instance owning the socket, {@code null} if owned by the main instance.
+     */
+    private final EventBus bus;
+
     /**
      * Creates an instance of {@link org.wisdom.framework.vertx.Socket} delegating to
      * a {@link ServerWebSocket} instance.
@@ -42,7 +47,20 @@ public class Socket {
      * @param delegate the delegate
      */
     public Socket(ServerWebSocket delegate) {
+        this(delegate, null);
+    }
+
+    /**
+     * Creates an instance of {@link org.wisdom.framework.vertx.Socket} delegating to
+     * a {@link ServerWebSocket} instance owned by the vert.x instance of the given bus. The socket write handlers
+     * are only registered on this bus.
+     *
+     * @param delegate the delegate
+     * @param bus      the event bus of the vert.x instance owning the socket, {@code null} for the main instance
+     */
+    public Socket(ServerWebSocket delegate, EventBus bus) {
         this.delegate = delegate;
+        this.bus = bus;
     }
 
 
@@ -80,19 +98,26 @@ public class Socket {
      * Sends a text frame on the socket.
      *
      * @param message the message
-     * @param bus     the Vert.x event bus.
+     * @param bus     the Vert.x event bus, used if the socket is owned by the main vert.x instance.
      */
     public void publish(String message, EventBus bus) {
-        bus.publish(getWriteHandlerId(), message);
+        bus(bus).publish(getWriteHandlerId(), message);
     }
 
     /**
      * Sends a binary frame on the socket.
      *
      * @param message the message
-     * @param bus     the Vert.x event bus.
+     * @param bus     the Vert.x event bus, used if the socket is owned by the main vert.x instance.
      */
     public void publish(byte[] message, EventBus bus) {
-        bus.publish(getBinaryWriteHandlerId(), Buffer.buffer(message));
+        bus(bus).publish(getBinaryWriteHandlerId(), Buffer.buffer(message));
+    }
+
+    private EventBus bus(EventBus main) {
+        if (bus == null) {
+            return main;
+        }
+        return bus;
     }
 }
@@ -20,6 +20,7 @@
 package org.wisdom.framework.vertx;
 
 import io.vertx.core.Handler;
+import io.vertx.core.eventbus.EventBus;
 import io.vertx.core.http.ServerWebSocket;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,6 +45,11 @@ public class WebSocketHandler implements Handler<ServerWebSocket> {
      */
     private final Server configuration;
 
+    /**
+     * The event bus of the vert.x instance owning the sockets, {@code null} to use the main one.
+     */
+    private final EventBus bus;
+
     /**
      * Creates an instance of {@link org.wisdom.framework.vertx.WebSocketHandler}
      *
@@ -52,8 +58,22 @@ public class WebSocketHandler implements Handler<ServerWebSocket> {
      *                            allowed or denied
      */
     public WebSocketHandler(ServiceAccessor accessor, Server server) {
+        this(accessor, server, null);
+    }
+
+    /**
+     * Creates an instance of {@link org.wisdom.framework.vertx.WebSocketHandler} for a server having its own vert.x
+     * instance. The frames are written on the sockets through the event bus of this instance.
+     *
+     * @param accessor the service accessor
+     * @param server   the server configuration - used to check whether or not the message should be
+     *                 allowed or denied
+     * @param bus      the event bus of the vert.x instance owning the sockets
+     */
+    public WebSocketHandler(ServiceAccessor accessor, Server server, EventBus bus) {
         this.accessor = accessor;
         this.configuration = server;
+        this.bus = bus;
     }
 
     /**
@@ -70,7 +90,7 @@ public class WebSocketHandler implements Handler<ServerWebSocket> {
             return;
         }
 
-        final Socket sock = new Socket(socket);
+        final Socket sock = new Socket(socket, bus);
         accessor.getDispatcher().addSocket(socket.path(), sock);
 
         socket.closeHandler(event -> {
@@ -78,7 +98,7 @@ public class WebSocketHandler implements Handler<ServerWebSocket> {
             accessor.getDispatcher().removeSocket(socket.path(), sock);
         });
 
-        socket.handler(event -> accessor.getDispatcher().received(socket.path(), event.getBytes(), sock));
+        socket.handler(event -> accessor.getDispatcher().received(socket.path(), event, sock));
 
     }
 }
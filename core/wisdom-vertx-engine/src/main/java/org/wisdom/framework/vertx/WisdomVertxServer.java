@@ -20,6 +20,7 @@
 package org.wisdom.framework.vertx;
 
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.spi.VerticleFactory;
 import org.apache.felix.ipojo.annotations.*;
 import org.slf4j.Logger;
@@ -34,8 +35,13 @@ import org.wisdom.api.exceptions.ExceptionMapper;
 import org.wisdom.api.http.websockets.WebSocketDispatcher;
 import org.wisdom.api.http.websockets.WebSocketListener;
 import org.wisdom.api.router.Router;
+import org.wisdom.framework.vertx.accesslog.AccessLog;
+import org.wisdom.framework.vertx.compression.EventLoopLoad;
+import org.wisdom.framework.vertx.warmup.Warmup;
+import org.wisdom.framework.vertx.warmup.WarmupReport;
 
 import java.net.InetAddress;
+import java.nio.ByteBuffer;
 import java.util.*;
 
 
@@ -99,22 +105,37 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
     private ManagedExecutorService executor;
 
     /**
-     * The exception mappers.
+     * The executors that can be used by the servers, in addition to the system one.
      */
-    @Requires(specification = ExceptionMapper.class, optional = true)
-    private Collection<ExceptionMapper> mappers;
+    @Requires(specification = ManagedExecutorService.class, optional = true)
+    private Collection<ManagedExecutorService> executors;
 
     /**
      * The accessor to get all the services.
      */
     ServiceAccessor accessor = new ServiceAccessor(crypto, configuration, router,
-            engine, executor, this, mappers); //NOSONAR
+            engine, executor, this, null); //NOSONAR
 
     private InetAddress address;
 
     protected List<Server> servers = new ArrayList<>(2);
     private String deploymentId;
 
+    /**
+     * The access log, {@code null} if disabled.
+     */
+    private AccessLog accessLog;
+
+    /**
+     * The report of the last warmup, {@code null} if the warmup is disabled or not completed.
+     */
+    private volatile WarmupReport warmupReport;
+
+    /**
+     * Whether the server is stopped, checked when the warmup completes.
+     */
+    private volatile boolean stopped;
+
     /**
      * Starts the servers (HTTP and HTTPS).
      * The actual start is asynchronous.
@@ -155,6 +176,26 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
             }
         }
 
+        // The servers without dedicated event loops are all handled by the event loop of the verticle.
+        EventLoopLoad load = new EventLoopLoad(1);
+        for (Server server : this.servers) {
+            if (server.getExecutorName() != null) {
+                server.setExecutor(findExecutor(server.getExecutorName()));
+            }
+            if (server.getEventLoops() == 0) {
+                server.setLoad(load);
+            }
+        }
+
+        accessLog = AccessLog.create(configuration);
+        if (accessLog != null) {
+            LOGGER.info("Enabling the access log");
+            accessLog.start();
+            for (Server server : this.servers) {
+                server.setAccessLog(accessLog);
+            }
+        }
+
         // Check whether or not the wisdom-internal verticle factory is already registered
         boolean found = false;
         for (VerticleFactory factory : vertx.verticleFactories()) {
@@ -167,12 +208,50 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
             vertx.registerVerticleFactory(new WisdomInternalVerticleFactory(accessor, this.servers));
         }
 
+        stopped = false;
+        warmupReport = null;
+        Warmup warmup = Warmup.create(configuration);
+        if (warmup == null) {
+            deploy();
+        } else {
+            // The servers are bound once the warmup is completed, so the first requests run on compiled code.
+            LOGGER.info("Warming up with {} request(s) before starting the servers", warmup.getRequests().size());
+            warmup.run(vertx, accessor, report -> {
+                warmupReport = report;
+                if (!stopped) {
+                    deploy();
+                }
+            });
+        }
+    }
+
+    private void deploy() {
         vertx.runOnContext(v -> vertx.deployVerticle("wisdom-internal:wisdom", ar -> {
             LOGGER.info("Wisdom verticle deployed : " + ar.result());
             deploymentId = ar.result();
         }));
     }
 
+    /**
+     * @return the report of the warmup run before the servers are started, {@code null} if the warmup is disabled or
+     * not completed yet.
+     */
+    public WarmupReport getWarmupReport() {
+        return warmupReport;
+    }
+
+    private ManagedExecutorService findExecutor(String name) {
+        if (executors != null) {
+            for (ManagedExecutorService candidate : executors) {
+                if (name.equals(candidate.name())) {
+                    return candidate;
+                }
+            }
+        }
+        LOGGER.warn("Cannot find the executor {}, the system executor is used instead", name);
+        return null;
+    }
+
     private void initializeInetAddress() {
         address = null;
         try {
@@ -194,17 +273,43 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
      */
     @Invalidate
     public void stop() {
+        stopped = true;
         listeners.clear();
         LOGGER.info("Stopping the vert.x server");
 
         vertx.runOnContext(v -> {
             if (deploymentId != null) {
-                vertx.undeploy(deploymentId, ar -> LOGGER.info("Wisdom verticle un-deployed"));
+                vertx.undeploy(deploymentId, ar -> {
+                    LOGGER.info("Wisdom verticle un-deployed");
+                    if (accessLog != null) {
+                        accessLog.stop();
+                    }
+                });
             }
         });
 
     }
 
+    /**
+     * Binds an exception mapper.
+     *
+     * @param mapper the mapper
+     */
+    @Bind(aggregate = true, optional = true)
+    public void bindExceptionMapper(ExceptionMapper mapper) {
+        accessor.addExceptionMapper(mapper);
+    }
+
+    /**
+     * Unbinds an exception mapper.
+     *
+     * @param mapper the mapper
+     */
+    @Unbind(aggregate = true)
+    public void unbindExceptionMapper(ExceptionMapper mapper) {
+        accessor.removeExceptionMapper(mapper);
+    }
+
     /**
      * @return the hostname.
      */
@@ -441,13 +546,31 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
      * @param socket  the client channel
      */
     public void received(String uri, byte[] content, Socket socket) {
+        dispatch(uri, ByteBuffer.wrap(content), socket);
+    }
+
+    /**
+     * Method called when a frame is received on a web socket. The listeners receive a read-only view on the frame
+     * data, without copy, as the data is shared by all the listeners. Vert.x copies the frame data from the network buffers into a heap buffer that is never
+     * released nor reused, so the listeners can keep it after this method returns.
+     *
+     * @param uri     the web socket url
+     * @param content the frame data
+     * @param socket  the client channel
+     */
+    public void received(String uri, Buffer content, Socket socket) {
+        dispatch(uri, content.getByteBuf().nioBuffer(), socket);
+    }
+
+    private void dispatch(String uri, ByteBuffer content, Socket socket) {
         List<WebSocketListener> localListeners;
         synchronized (this) {
             localListeners = new ArrayList<>(this.listeners);
         }
 
+        String id = id(socket);
         for (WebSocketListener listener : localListeners) {
-            listener.received(uri, id(socket), content);
+            listener.received(uri, id, content.asReadOnlyBuffer());
         }
     }
 
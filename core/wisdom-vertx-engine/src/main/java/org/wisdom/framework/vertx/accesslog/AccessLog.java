@@ -0,0 +1,273 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx.accesslog;
+
+import com.google.common.base.Charsets;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wisdom.api.configuration.ApplicationConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The engine access log. Requests are recorded on the event loop into a pre-allocated, lock-free ring buffer. A
+ * background thread drains the buffer, formats the entries and writes them in batches to a rolling file.
+ * <p>
+ * Recording never blocks: when the ring buffer is full (the writer cannot keep up), the entry is dropped and
+ * counted (see {@link #dropped()}).
+ * <p>
+ * The access log is configured using the {@literal vertx.access-log} prefix:
+ * <pre>
+ * vertx.access-log {
+ *     enabled: true
+ *     file: logs/access.log
+ *     format: common # common, combined or a pattern, see {@link AccessLogFormat}
+ *     max-size: 10Mb # the size above which the file is rolled
+ *     max-files: 5 # the number of rolled files to keep
+ *     buffer: 16384 # the number of entries the ring buffer can hold
+ * }
+ * </pre>
+ */
+public class AccessLog {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AccessLog.class);
+
+    /**
+     * The default capacity of the ring buffer.
+     */
+    public static final int DEFAULT_CAPACITY = 16384;
+
+    /**
+     * The maximum number of entries formatted in a single batch.
+     */
+    private static final int MAX_BATCH = 1024;
+
+    /**
+     * How long the writer thread sleeps when the buffer is empty.
+     */
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final AccessLogEntry[] slots;
+    private final int mask;
+
+    /**
+     * The next sequence to claim by producers.
+     */
+    private final AtomicLong claimed = new AtomicLong();
+
+    /**
+     * The next sequence to consume. Only written by the writer thread.
+     */
+    private volatile long consumed;
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final AccessLogFormat format;
+    private final RollingFileWriter writer;
+    private final StringBuilder builder = new StringBuilder(256 * MAX_BATCH);
+
+    private volatile boolean running;
+    private Thread thread;
+
+    /**
+     * Creates the access log from the application configuration.
+     *
+     * @param configuration the configuration
+     * @return the access log, {@code null} if the access log is not enabled.
+     */
+    public static AccessLog create(ApplicationConfiguration configuration) {
+        if (!configuration.getBooleanWithDefault("vertx.access-log.enabled", false)) {
+            return null;
+        }
+        return new AccessLog(
+                configuration.getFileWithDefault("vertx.access-log.file", "logs/access.log"),
+                configuration.getWithDefault("vertx.access-log.format", "common"),
+                configuration.getBytes("vertx.access-log.max-size", 10L * 1024 * 1024),
+                configuration.getIntegerWithDefault("vertx.access-log.max-files", 5),
+                configuration.getIntegerWithDefault("vertx.access-log.buffer", DEFAULT_CAPACITY));
+    }
+
+    /**
+     * Creates the access log. The access log must be started using {@link #start()}.
+     *
+     * @param file     the log file
+     * @param format   the format
+     * @param maxSize  the size in bytes above which the file is rolled
+     * @param maxFiles the number of rolled files to keep
+     * @param capacity the capacity of the ring buffer, rounded to the next power of 2
+     */
+    public AccessLog(File file, String format, long maxSize, int maxFiles, int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new AccessLogEntry[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new AccessLogEntry();
+        }
+        this.mask = size - 1;
+        this.format = new AccessLogFormat(format);
+        this.writer = new RollingFileWriter(file, maxSize, maxFiles);
+    }
+
+    /**
+     * Starts the writer thread.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::drain, "wisdom-access-log");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops the writer thread. Pending entries are written before the file is closed.
+     */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) { //NOSONAR
+            LOGGER.warn("Interrupted while waiting for the access log writer to complete");
+        }
+        thread = null;
+    }
+
+    /**
+     * Records a request. This method is called on the event loop and must not block.
+     *
+     * @param timestamp the time at which the request was received (milliseconds since the epoch)
+     * @param remote    the remote host
+     * @param method    the HTTP method
+     * @param uri       the URI
+     * @param protocol  the protocol
+     * @param status    the response status
+     * @param bytes     the size of the response body, {@literal -1} if unknown
+     * @param duration  the time taken to serve the request in microseconds
+     * @param referer   the referer header, may be {@code null}
+     * @param userAgent the user agent header, may be {@code null}
+     * @return {@code true} if the request was recorded, {@code false} if it was dropped.
+     */
+    public boolean record(long timestamp, String remote, String method, String uri, String protocol, int status,
+                          long bytes, long duration, String referer, String userAgent) {
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence - consumed >= slots.length) {
+                dropped.incrementAndGet();
+                return false;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+
+        AccessLogEntry entry = slots[(int) sequence & mask];
+        entry.timestamp = timestamp;
+        entry.remote = remote;
+        entry.method = method;
+        entry.uri = uri;
+        entry.protocol = protocol;
+        entry.status = status;
+        entry.bytes = bytes;
+        entry.duration = duration;
+        entry.referer = referer;
+        entry.userAgent = userAgent;
+        // Publish the slot, the volatile write makes the previous writes visible to the writer thread.
+        entry.published = sequence;
+        return true;
+    }
+
+    /**
+     * @return the number of entries dropped because the ring buffer was full.
+     */
+    public long dropped() {
+        return dropped.get();
+    }
+
+    /**
+     * @return the capacity of the ring buffer.
+     */
+    public int capacity() {
+        return slots.length;
+    }
+
+    private void drain() {
+        try {
+            while (running) {
+                if (writeBatch() == 0) {
+                    flush();
+                    LockSupport.parkNanos(IDLE_NANOS);
+                }
+            }
+            // Write the remaining entries.
+            while (writeBatch() > 0) {
+                // Loop until the buffer is empty.
+            }
+            flush();
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Formats and writes the available entries, up to {@link #MAX_BATCH}.
+     *
+     * @return the number of written entries
+     */
+    int writeBatch() {
+        long next = consumed;
+        int count = 0;
+        builder.setLength(0);
+        while (count < MAX_BATCH) {
+            AccessLogEntry entry = slots[(int) next & mask];
+            if (entry.published != next) {
+                break;
+            }
+            format.format(entry, builder);
+            builder.append(System.lineSeparator());
+            entry.clear();
+            next++;
+            count++;
+        }
+        if (count > 0) {
+            consumed = next;
+            try {
+                writer.write(builder.toString().getBytes(Charsets.UTF_8));
+            } catch (IOException e) {
+                LOGGER.error("Cannot write the access log", e);
+            }
+        }
+        return count;
+    }
+
+    private void flush() {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            LOGGER.error("Cannot flush the access log", e);
+        }
+    }
+}
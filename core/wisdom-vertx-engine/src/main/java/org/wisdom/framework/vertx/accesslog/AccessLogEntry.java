@@ -0,0 +1,128 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx.accesslog;
+
+/**
+ * A slot of the access log ring buffer. Slots are pre-allocated and reused, so recording a request only copies
+ * references and primitive values.
+ * <p>
+ * The {@link #published} field is written by the producer once the slot is filled, and read by the writer thread
+ * to detect that the slot can be consumed.
+ */
+public class AccessLogEntry {
+
+    long timestamp;
+    String remote;
+    String method;
+    String uri;
+    String protocol;
+    int status;
+    long bytes;
+    long duration;
+    String referer;
+    String userAgent;
+
+    /**
+     * The sequence of the last request recorded in this slot, {@literal -1} if not used yet.
+     */
+    volatile long published = -1;
+
+    /**
+     * Releases the references held by the slot, once formatted.
+     */
+    void clear() {
+        remote = null;
+        method = null;
+        uri = null;
+        protocol = null;
+        referer = null;
+        userAgent = null;
+    }
+
+    /**
+     * @return the time at which the request was received, in milliseconds since the epoch.
+     */
+    public long timestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return the remote host.
+     */
+    public String remote() {
+        return remote;
+    }
+
+    /**
+     * @return the HTTP method.
+     */
+    public String method() {
+        return method;
+    }
+
+    /**
+     * @return the requested URI, including the query string.
+     */
+    public String uri() {
+        return uri;
+    }
+
+    /**
+     * @return the protocol, such as {@literal HTTP/1.1}.
+     */
+    public String protocol() {
+        return protocol;
+    }
+
+    /**
+     * @return the response status.
+     */
+    public int status() {
+        return status;
+    }
+
+    /**
+     * @return the size of the response body in bytes, {@literal -1} if unknown.
+     */
+    public long bytes() {
+        return bytes;
+    }
+
+    /**
+     * @return the time taken to serve the request in microseconds.
+     */
+    public long duration() {
+        return duration;
+    }
+
+    /**
+     * @return the {@literal Referer} header, {@code null} if not set.
+     */
+    public String referer() {
+        return referer;
+    }
+
+    /**
+     * @return the {@literal User-Agent} header, {@code null} if not set.
+     */
+    public String userAgent() {
+        return userAgent;
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx.accesslog;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A compiled access log format. The pattern is parsed once, and each entry is then formatted by walking the list of
+ * segments. The supported directives are a subset of the Apache HTTPD ones:
+ * <ul>
+ * <li>{@literal %h}: the remote host</li>
+ * <li>{@literal %t}: the time the request was received, such as {@literal [10/Oct/2015:13:55:36 +0200]}</li>
+ * <li>{@literal %r}: the request line, such as {@literal GET /foo HTTP/1.1}</li>
+ * <li>{@literal %m}: the request method</li>
+ * <li>{@literal %U}: the requested URI, including the query string</li>
+ * <li>{@literal %H}: the request protocol</li>
+ * <li>{@literal %s}: the response status</li>
+ * <li>{@literal %b}: the size of the response body in bytes, {@literal -} if empty or unknown</li>
+ * <li>{@literal %D}: the time taken to serve the request, in microseconds</li>
+ * <li>{@literal %T}: the time taken to serve the request, in milliseconds</li>
+ * <li>{@literal %{Referer}i}: the {@literal Referer} header</li>
+ * <li>{@literal %{User-Agent}i}: the {@literal User-Agent} header</li>
+ * <li>{@literal %%}: the {@literal %} character</li>
+ * </ul>
+ * The {@link #COMMON} and {@link #COMBINED} formats can be referenced using the {@literal common} and {@literal
+ * combined} names.
+ * <p>
+ * Instances are not thread-safe, and are only used by the access log writer thread.
+ */
+public class AccessLogFormat {
+
+    /**
+     * The common log format.
+     */
+    public static final String COMMON = "%h - - %t \"%r\" %s %b";
+
+    /**
+     * The combined log format.
+     */
+    public static final String COMBINED = COMMON + " \"%{Referer}i\" \"%{User-Agent}i\"";
+
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("dd/MMM/yyyy:HH:mm:ss Z", Locale.ENGLISH)
+            .withZone(ZoneId.systemDefault());
+
+    private final List<Object> segments = new ArrayList<>();
+
+    /**
+     * The second of the last formatted date, as most entries of a batch are received during the same second.
+     */
+    private long lastSecond = -1;
+    private String lastDate;
+
+    /**
+     * Compiles the given pattern.
+     *
+     * @param pattern the pattern, or one of the {@literal common} and {@literal combined} names
+     * @throws IllegalArgumentException if the pattern contains an unknown directive
+     */
+    public AccessLogFormat(String pattern) {
+        if ("common".equalsIgnoreCase(pattern)) {
+            pattern = COMMON;
+        } else if ("combined".equalsIgnoreCase(pattern)) {
+            pattern = COMBINED;
+        }
+        parse(pattern);
+    }
+
+    private void parse(String pattern) {
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            if (c != '%' || i == pattern.length() - 1) {
+                literal.append(c);
+                i++;
+                continue;
+            }
+            char directive = pattern.charAt(i + 1);
+            if (directive == '%') {
+                literal.append('%');
+                i += 2;
+                continue;
+            }
+            if (literal.length() > 0) {
+                segments.add(literal.toString());
+                literal.setLength(0);
+            }
+            if (directive == '{') {
+                int end = pattern.indexOf("}i", i);
+                if (end == -1) {
+                    throw new IllegalArgumentException("Unterminated header directive in access log format: "
+                            + pattern);
+                }
+                String header = pattern.substring(i + 2, end);
+                if ("Referer".equalsIgnoreCase(header)) {
+                    segments.add(Field.REFERER);
+                } else if ("User-Agent".equalsIgnoreCase(header)) {
+                    segments.add(Field.USER_AGENT);
+                } else {
+                    throw new IllegalArgumentException("Unsupported header in access log format: " + header);
+                }
+                i = end + 2;
+            } else {
+                segments.add(Field.from(directive));
+                i += 2;
+            }
+        }
+        if (literal.length() > 0) {
+            segments.add(literal.toString());
+        }
+    }
+
+    /**
+     * Appends the formatted entry to the given builder. No line separator is appended.
+     *
+     * @param entry   the entry
+     * @param builder the builder
+     */
+    public void format(AccessLogEntry entry, StringBuilder builder) {
+        for (Object segment : segments) {
+            if (segment instanceof String) {
+                builder.append((String) segment);
+                continue;
+            }
+            switch ((Field) segment) {
+                case HOST:
+                    appendOrDash(builder, entry.remote);
+                    break;
+                case TIME:
+                    builder.append('[').append(date(entry.timestamp)).append(']');
+                    break;
+                case REQUEST_LINE:
+                    builder.append(entry.method).append(' ').append(entry.uri).append(' ').append(entry.protocol);
+                    break;
+                case METHOD:
+                    builder.append(entry.method);
+                    break;
+                case URI:
+                    builder.append(entry.uri);
+                    break;
+                case PROTOCOL:
+                    builder.append(entry.protocol);
+                    break;
+                case STATUS:
+                    builder.append(entry.status);
+                    break;
+                case BYTES:
+                    if (entry.bytes <= 0) {
+                        builder.append('-');
+                    } else {
+                        builder.append(entry.bytes);
+                    }
+                    break;
+                case MICROS:
+                    builder.append(entry.duration);
+                    break;
+                case MILLIS:
+                    builder.append(entry.duration / 1000);
+                    break;
+                case REFERER:
+                    appendOrDash(builder, entry.referer);
+                    break;
+                case USER_AGENT:
+                    appendOrDash(builder, entry.userAgent);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private String date(long timestamp) {
+        long second = timestamp / 1000;
+        if (second != lastSecond) {
+            lastSecond = second;
+            lastDate = DATE.format(Instant.ofEpochMilli(timestamp));
+        }
+        return lastDate;
+    }
+
+    private static void appendOrDash(StringBuilder builder, String value) {
+        if (value == null) {
+            builder.append('-');
+        } else {
+            builder.append(value);
+        }
+    }
+
+    private enum Field {
+        HOST, TIME, REQUEST_LINE, METHOD, URI, PROTOCOL, STATUS, BYTES, MICROS, MILLIS, REFERER, USER_AGENT;
+
+        static Field from(char directive) {
+            switch (directive) {
+                case 'h':
+                    return HOST;
+                case 't':
+                    return TIME;
+                case 'r':
+                    return REQUEST_LINE;
+                case 'm':
+                    return METHOD;
+                case 'U':
+                    return URI;
+                case 'H':
+                    return PROTOCOL;
+                case 's':
+                    return STATUS;
+                case 'b':
+                    return BYTES;
+                case 'D':
+                    return MICROS;
+                case 'T':
+                    return MILLIS;
+                default:
+                    throw new IllegalArgumentException("Unsupported directive in access log format: %" + directive);
+            }
+        }
+    }
+}
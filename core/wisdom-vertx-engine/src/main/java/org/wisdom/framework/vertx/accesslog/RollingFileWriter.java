@@ -0,0 +1,124 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx.accesslog;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes batches of log lines to a file, and rolls the file once it exceeds a given size. When rolling, {@literal
+ * access.log} is renamed to {@literal access.log.1}, {@literal access.log.1} to {@literal access.log.2} and so on,
+ * up to the maximum number of kept files.
+ * <p>
+ * Instances are not thread-safe, and are only used by the access log writer thread.
+ */
+public class RollingFileWriter {
+
+    private final File file;
+    private final long maxSize;
+    private final int maxFiles;
+
+    private OutputStream stream;
+    private long size;
+
+    /**
+     * Creates the writer.
+     *
+     * @param file     the file
+     * @param maxSize  the size in bytes above which the file is rolled, {@literal 0} or negative to disable rolling
+     * @param maxFiles the number of rolled files to keep
+     */
+    public RollingFileWriter(File file, long maxSize, int maxFiles) {
+        this.file = file;
+        this.maxSize = maxSize;
+        this.maxFiles = maxFiles;
+    }
+
+    /**
+     * Writes the given batch. The batch is never split between two files.
+     *
+     * @param batch the batch
+     * @throws IOException if the batch cannot be written
+     */
+    public void write(byte[] batch) throws IOException {
+        if (stream == null) {
+            open();
+        }
+        if (maxSize > 0 && size > 0 && size + batch.length > maxSize) {
+            roll();
+        }
+        stream.write(batch);
+        size += batch.length;
+    }
+
+    /**
+     * Flushes the written batches to the file.
+     *
+     * @throws IOException if the file cannot be flushed
+     */
+    public void flush() throws IOException {
+        if (stream != null) {
+            stream.flush();
+        }
+    }
+
+    /**
+     * Closes the file.
+     */
+    public void close() {
+        IOUtils.closeQuietly(stream);
+        stream = null;
+    }
+
+    private void open() throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            FileUtils.forceMkdir(parent);
+        }
+        size = file.length();
+        stream = new BufferedOutputStream(new FileOutputStream(file, true));
+    }
+
+    private void roll() throws IOException {
+        close();
+        File last = new File(file.getPath() + "." + maxFiles);
+        FileUtils.deleteQuietly(last);
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            File rolled = new File(file.getPath() + "." + i);
+            if (rolled.isFile() && !rolled.renameTo(new File(file.getPath() + "." + (i + 1)))) {
+                throw new IOException("Cannot roll " + rolled.getAbsolutePath());
+            }
+        }
+        if (maxFiles > 0) {
+            if (!file.renameTo(new File(file.getPath() + ".1"))) {
+                throw new IOException("Cannot roll " + file.getAbsolutePath());
+            }
+        } else {
+            FileUtils.deleteQuietly(file);
+        }
+        open();
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2015 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx.cache;
+
+import io.vertx.core.MultiMap;
+import io.vertx.core.buffer.Buffer;
+import org.wisdom.api.http.HeaderNames;
+import org.wisdom.framework.vertx.compression.CompressionPolicy;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A response stored in the {@link MicroCache}: the status, the headers and the body, as written for the request that
+ * populated the cache, along with the values of the request headers the response varies on.
+ */
+public class CachedResponse {
+
+    private final int status;
+
+    private final List<Map.Entry<String, String>> headers;
+
+    private final Buffer content;
+
+    private final String[] vary;
+
+    private final String[] values;
+
+    private final long expiration;
+
+    private final String etag;
+
+    /**
+     * Creates the cached response.
+     *
+     * @param status     the status
+     * @param headers    the response headers, copied
+     * @param content    the body
+     * @param vary       the names of the request headers the response varies on
+     * @param request    the headers of the request
+     * @param expiration the {@link System#nanoTime()} value after which the response is expired
+     */
+    CachedResponse(int status, MultiMap headers, byte[] content, String[] vary, MultiMap request,
+                   long expiration) {
+        this.status = status;
+        this.headers = new ArrayList<>(headers.size());
+        for (Map.Entry<String, String> header : headers) {
+            // The connection management and the compression level depend on the request and the load.
+            if (!HeaderNames.CONNECTION.equalsIgnoreCase(header.getKey())
+                    && !CompressionPolicy.LEVEL_HEADER.equalsIgnoreCase(header.getKey())) {
+                this.headers.add(new AbstractMap.SimpleImmutableEntry<>(header.getKey(),
+                        header.getValue()));
+            }
+        }
+        // The buffer is not released when written, so it can be written for each hit.
+        this.content = Buffer.buffer(content);
+        this.vary = vary;
+        this.values = new String[vary.length];
+        for (int i = 0; i < vary.length; i++) {
+            values[i] = request.get(vary[i]);
+        }
+        this.expiration = expiration;
+        this.etag = headers.get(HeaderNames.ETAG);
+    }
+
+    boolean isExpired(long now) {
+        return now - expiration >= 0;
+    }
+
+    boolean matches(MultiMap request) {
+        for (int i = 0; i < vary.length; i++) {
+            if (!Objects.equals(values[i], request.get(vary[i]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the status.
+     */
+    public int status() {
+        return status;
+    }
+
+    /**
+     * @return the headers, without the connection header.
+     */
+    public List<Map.Entry<String, String>> headers() {
+        return headers;
+    }
+
+    /**
+     * @return the entity tag of the response, {@code null} if the response is not tagged.
+     */
+    public String etag() {
+        return etag;
+    }
+
+    /**
+     * @return the body.
+     */
+    public Buffer content() {
+        return content;
+    }
+}
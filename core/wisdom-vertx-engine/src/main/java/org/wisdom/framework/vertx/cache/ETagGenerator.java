@@ -0,0 +1,137 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2015 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx.cache;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServerRequest;
+import org.wisdom.api.configuration.Configuration;
+import org.wisdom.api.http.HeaderNames;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Computes entity tags for the responses to GET requests on the configured paths, and checks the
+ * {@literal If-None-Match} header of the requests against them. When the client already has the response, the HTTP
+ * handler answers {@literal 304 - Not Modified} without writing the body.
+ * <p>
+ * The tag is a non-cryptographic hash (murmur3) of the body, as it would be sent without compression. So, two
+ * responses get the same tag if and only if they have the same content. The tag is strong when the body is sent as
+ * is. When the body may be compressed, the gzip, deflate and identity representations differ while having the same
+ * content, so the tag is weak. Only the responses with a {@literal 200} status, computed completely (not chunked)
+ * and without an entity tag set by the action are tagged.
+ * <p>
+ * The generation is configured using:
+ * <pre>
+ * etag {
+ *     paths: ["/api/*"] # the paths on which entity tags are computed, with wildcards
+ * }
+ * </pre>
+ */
+public class ETagGenerator {
+
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    private static final String WEAK_PREFIX = "W/";
+
+    private final List<Pattern> paths;
+
+    /**
+     * Creates the generator from the given configuration object.
+     *
+     * @param configuration the configuration, may be {@code null}
+     * @return the generator, {@code null} if the configuration is {@code null} or does not declare any path
+     */
+    public static ETagGenerator create(Configuration configuration) {
+        if (configuration == null || !configuration.has("paths")) {
+            return null;
+        }
+        List<String> paths = configuration.getList("paths");
+        if (paths.isEmpty()) {
+            return null;
+        }
+        return new ETagGenerator(paths);
+    }
+
+    /**
+     * Creates the generator.
+     *
+     * @param paths the paths on which entity tags are computed, with wildcards such as {@literal /api/*}
+     */
+    public ETagGenerator(List<String> paths) {
+        this.paths = Globs.compile(paths);
+    }
+
+    /**
+     * Checks whether the response to the given request must be tagged.
+     *
+     * @param request the request
+     * @return {@code true} if the request is a GET request on a configured path
+     */
+    public boolean isApplicable(HttpServerRequest request) {
+        if (request.method() != HttpMethod.GET) {
+            return false;
+        }
+        return Globs.matches(paths, request.path());
+    }
+
+    /**
+     * Computes the entity tag of the given body.
+     *
+     * @param content the body, before compression
+     * @param encoded whether the body may be compressed when sent
+     * @return the quoted entity tag, weak if the body may be compressed, strong otherwise
+     */
+    public String compute(byte[] content, boolean encoded) {
+        String tag = '"' + HASH.hashBytes(content).toString() + '"';
+        return encoded ? WEAK_PREFIX + tag : tag;
+    }
+
+    /**
+     * Checks whether the client sending the given request already has the response tagged with the given entity tag,
+     * that is, whether the {@literal If-None-Match} header of the request lists the tag or is {@literal *}. As
+     * required for this header, the tags are compared using the weak comparison: the weak and strong tags with the
+     * same value match.
+     *
+     * @param request the request
+     * @param etag    the quoted entity tag of the response
+     * @return {@code true} if the response does not need to be sent
+     */
+    public static boolean isNotModified(HttpServerRequest request, String etag) {
+        String header = request.headers().get(HeaderNames.IF_NONE_MATCH);
+        if (header == null) {
+            return false;
+        }
+        String opaque = opaque(etag);
+        for (String candidate : header.split(",")) {
+            String tag = opaque(candidate.trim());
+            if (tag.equals("*") || tag.equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String opaque(String tag) {
+        return tag.startsWith(WEAK_PREFIX) ? tag.substring(WEAK_PREFIX.length()) : tag;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2015 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Compiles and matches the path globs of the cache configurations, such as {@literal /catalog*}.
+ */
+final class Globs {
+
+    private Globs() {
+        // Avoid direct instantiation.
+    }
+
+    /**
+     * Compiles the given paths with wildcards. Everything but the wildcards matches literally.
+     *
+     * @param paths the paths
+     * @return the patterns
+     */
+    static List<Pattern> compile(List<String> paths) {
+        List<Pattern> patterns = new ArrayList<>();
+        for (String path : paths) {
+            patterns.add(compile(path.trim()));
+        }
+        return patterns;
+    }
+
+    /**
+     * Compiles a path with wildcards. Everything but the wildcards matches literally.
+     *
+     * @param path the path
+     * @return the pattern
+     */
+    static Pattern compile(String path) {
+        StringBuilder regex = new StringBuilder();
+        String[] literals = path.split("\\*", -1);
+        for (int i = 0; i < literals.length; i++) {
+            if (i > 0) {
+                regex.append(".*");
+            }
+            if (!literals[i].isEmpty()) {
+                regex.append(Pattern.quote(literals[i]));
+            }
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    /**
+     * Checks whether the given path matches one of the patterns.
+     *
+     * @param patterns the patterns
+     * @param path     the path
+     * @return {@code true} if one of the patterns matches the whole path
+     */
+    static boolean matches(List<Pattern> patterns, String path) {
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(path).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2015 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx.cache;
+
+import io.vertx.core.MultiMap;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServerRequest;
+import org.wisdom.api.configuration.Configuration;
+import org.wisdom.api.http.HeaderNames;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * A short-lived cache of the responses to anonymous GET requests, checked by the HTTP handler before the routing. A
+ * hit is written without invoking the router, the filters or the action, and without serializing the result again.
+ * <p>
+ * Only the requests on the configured paths, without cookies and without credentials are cached. A response is
+ * stored if its status is {@literal 200}, if it does not set cookies, if it is not marked as private or
+ * {@literal no-store}, and if its body has been fully computed (chunked responses are not cached). The request
+ * headers listed in the {@literal Vary} header of the response are part of the cache key. Responses are stored
+ * uncompressed, the compression is applied to each hit, according to the request.
+ * <p>
+ * The cache is configured using:
+ * <pre>
+ * micro-cache {
+ *     paths: ["/", "/catalog*"] # the cached paths, with wildcards
+ *     ttl: 1s # how long a response is served from the cache
+ *     max-entries: 256 # the maximum number of cached responses
+ *     max-size: 64Kb # the maximum size of a cached response body
+ * }
+ * </pre>
+ * The cached bodies use at most {@code max-entries * max-size} bytes of heap, 16Mb with the default values.
+ */
+public class MicroCache {
+
+    /**
+     * The default time to live in milliseconds.
+     */
+    public static final long DEFAULT_TTL = 1000;
+
+    /**
+     * The default maximum number of cached responses.
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+
+    /**
+     * The default maximum size of a cached body.
+     */
+    public static final long DEFAULT_MAX_SIZE = 64 * 1024;
+
+    private final List<Pattern> paths;
+
+    private final long ttl;
+
+    private final int maxEntries;
+
+    private final long maxSize;
+
+    private final Map<String, CachedResponse> entries = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates the cache from the given configuration object.
+     *
+     * @param configuration the configuration, may be {@code null}
+     * @return the cache, {@code null} if the configuration is {@code null} or does not declare any path
+     */
+    public static MicroCache create(Configuration configuration) {
+        if (configuration == null || !configuration.has("paths")) {
+            return null;
+        }
+        List<String> paths = configuration.getList("paths");
+        if (paths.isEmpty()) {
+            return null;
+        }
+        return new MicroCache(paths,
+                configuration.getDuration("ttl", TimeUnit.MILLISECONDS, DEFAULT_TTL),
+                configuration.getIntegerWithDefault("max-entries", DEFAULT_MAX_ENTRIES),
+                configuration.getBytes("max-size", DEFAULT_MAX_SIZE));
+    }
+
+    /**
+     * Creates the cache.
+     *
+     * @param paths      the cached paths, with wildcards such as {@literal /catalog*}
+     * @param ttl        how long a response is served from the cache, in milliseconds
+     * @param maxEntries the maximum number of cached responses
+     * @param maxSize    the maximum size of a cached body, in bytes
+     */
+    public MicroCache(List<String> paths, long ttl, int maxEntries, long maxSize) {
+        this.paths = Globs.compile(paths);
+        this.ttl = TimeUnit.MILLISECONDS.toNanos(ttl);
+        this.maxEntries = maxEntries;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Checks whether the response to the given request can be served from the cache, and stored in the cache.
+     *
+     * @param request the request
+     * @return {@code true} if the request is an anonymous GET request on a cached path
+     */
+    public boolean isCacheable(HttpServerRequest request) {
+        if (request.method() != HttpMethod.GET) {
+            return false;
+        }
+        MultiMap headers = request.headers();
+        if (headers.contains(HeaderNames.COOKIE) || headers.contains(HeaderNames.AUTHORIZATION)) {
+            return false;
+        }
+        return Globs.matches(paths, request.path());
+    }
+
+    /**
+     * Retrieves the cached response to the given request.
+     *
+     * @param request the request, must be cacheable
+     * @return the response, {@code null} if there is no valid response in the cache
+     */
+    public CachedResponse get(HttpServerRequest request) {
+        CachedResponse response = entries.get(request.uri());
+        if (response == null) {
+            misses.increment();
+            return null;
+        }
+        if (response.isExpired(System.nanoTime())) {
+            entries.remove(request.uri(), response);
+            misses.increment();
+            return null;
+        }
+        if (!response.matches(request.headers())) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return response;
+    }
+
+    /**
+     * Stores the response to the given request, if it can be cached.
+     *
+     * @param request the request, must be cacheable
+     * @param status  the status of the response
+     * @param headers the headers of the response
+     * @param content the body of the response
+     * @return {@code true} if the response has been stored
+     */
+    public boolean put(HttpServerRequest request, int status, MultiMap headers, byte[] content) {
+        if (status != 200 || content.length > maxSize || headers.contains(HeaderNames.SET_COOKIE)) {
+            return false;
+        }
+        String control = headers.get(HeaderNames.CACHE_CONTROL);
+        if (control != null && (control.contains("no-store") || control.contains("private")
+                || control.contains("no-cache"))) {
+            return false;
+        }
+        String[] vary = vary(headers.get(HeaderNames.VARY));
+        if (vary == null) {
+            return false;
+        }
+        long now = System.nanoTime();
+        if (entries.size() >= maxEntries && !entries.containsKey(request.uri())) {
+            evictExpired(now);
+            if (entries.size() >= maxEntries) {
+                return false;
+            }
+        }
+        entries.put(request.uri(), new CachedResponse(status, headers, content, vary, request.headers(),
+                now + ttl));
+        return true;
+    }
+
+    /**
+     * Parses the {@literal Vary} header.
+     *
+     * @param value the value of the header, may be {@code null}
+     * @return the names of the request headers, {@code null} if the response varies on everything ({@literal *})
+     */
+    private static String[] vary(String value) {
+        if (value == null || value.isEmpty()) {
+            return new String[0];
+        }
+        String[] names = value.split(",");
+        for (int i = 0; i < names.length; i++) {
+            names[i] = names[i].trim();
+            if ("*".equals(names[i])) {
+                return null;
+            }
+        }
+        return names;
+    }
+
+    private void evictExpired(long now) {
+        Iterator<CachedResponse> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().isExpired(now)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes all the cached responses.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * @return the number of cached responses, including the expired ones not evicted yet.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the number of requests served from the cache.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of cacheable requests that were not served from the cache.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2015 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx.compression;
+
+import org.wisdom.api.configuration.Configuration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Decides whether and how much a response is compressed. The decision depends on the content type of the response
+ * and on the load of the event loops: when the event loops get busy, a faster compression level is used, and under
+ * heavy load the compression is disabled, so the CPU is spent serving requests.
+ * <p>
+ * The policy is read from a configuration object such as:
+ * <pre>
+ * compression-policy {
+ *     level: 6 # the compression level, from 1 (fastest) to 9 (best)
+ *     mime-types: ["text/*", "application/json"] # the compressed types, all types if not set
+ *     fast-level: 1 # the level used when the event loops are busy
+ *     fast-threshold: 0.7 # the event loop utilization above which the fast level is used
+ *     off-threshold: 0.9 # the event loop utilization above which responses are not compressed
+ * }
+ * </pre>
+ * The size bounds of the compressed responses are configured with the {@literal encoding.min} and
+ * {@literal encoding.max} keys.
+ */
+public class CompressionPolicy {
+
+    /**
+     * Internal header used to pass the compression level of a response to the compressor. The compressor removes it,
+     * and the engine removes it from the responses without body, which are not compressed.
+     */
+    public static final String LEVEL_HEADER = "X-Wisdom-Compression-Level";
+
+    /**
+     * The default compression level, as used by Netty.
+     */
+    public static final int DEFAULT_LEVEL = 6;
+
+    private final int level;
+
+    private final List<String> mimeTypes;
+
+    private final int fastLevel;
+
+    private final double fastThreshold;
+
+    private final double offThreshold;
+
+    /**
+     * Creates the compression policy from the given configuration object.
+     *
+     * @param configuration the configuration, may be {@code null} to use the defaults
+     * @return the policy
+     */
+    public static CompressionPolicy from(Configuration configuration) {
+        if (configuration == null) {
+            return new CompressionPolicy(DEFAULT_LEVEL, Collections.<String>emptyList(), 1, 0.7, 0.9);
+        }
+        List<String> types = Collections.emptyList();
+        if (configuration.has("mime-types")) {
+            types = configuration.getList("mime-types");
+        }
+        return new CompressionPolicy(
+                configuration.getIntegerWithDefault("level", DEFAULT_LEVEL),
+                types,
+                configuration.getIntegerWithDefault("fast-level", 1),
+                configuration.getDoubleWithDefault("fast-threshold", 0.7),
+                configuration.getDoubleWithDefault("off-threshold", 0.9));
+    }
+
+    /**
+     * Creates the compression policy.
+     *
+     * @param level         the compression level, from 1 to 9
+     * @param mimeTypes     the compressed mime types (such as {@literal text/*}), empty to compress all types
+     * @param fastLevel     the level used when the utilization of the event loops exceeds the fast threshold
+     * @param fastThreshold the utilization (from 0 to 1) above which the fast level is used
+     * @param offThreshold  the utilization (from 0 to 1) above which the compression is disabled
+     */
+    public CompressionPolicy(int level, List<String> mimeTypes, int fastLevel, double fastThreshold,
+                             double offThreshold) {
+        this.level = level;
+        this.mimeTypes = new ArrayList<>(mimeTypes);
+        this.fastLevel = fastLevel;
+        this.fastThreshold = fastThreshold;
+        this.offThreshold = offThreshold;
+    }
+
+    /**
+     * Checks whether responses of the given type can be compressed.
+     *
+     * @param mimeType the mime type of the response, may contain parameters such as the charset, {@code null} if
+     *                 unknown
+     * @return {@code true} if the type is compressed
+     */
+    public boolean accept(String mimeType) {
+        if (mimeTypes.isEmpty()) {
+            return true;
+        }
+        if (mimeType == null) {
+            return false;
+        }
+        int end = mimeType.indexOf(';');
+        String type = (end == -1 ? mimeType : mimeType.substring(0, end)).trim();
+        for (String candidate : mimeTypes) {
+            if (candidate.endsWith("/*")) {
+                if (type.regionMatches(true, 0, candidate, 0, candidate.length() - 1)) {
+                    return true;
+                }
+            } else if (type.equalsIgnoreCase(candidate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Computes the compression level according to the load of the event loops.
+     *
+     * @param utilization the utilization of the event loops, from 0 (idle) to 1 (saturated)
+     * @return the compression level, {@literal 0} if the response must not be compressed
+     */
+    public int level(double utilization) {
+        if (utilization >= offThreshold) {
+            return 0;
+        }
+        if (utilization >= fastThreshold) {
+            return fastLevel;
+        }
+        return level;
+    }
+
+    /**
+     * @return the compression level used when the event loops are not busy.
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * @return the compressed mime types, empty if all types are compressed.
+     */
+    public List<String> getMimeTypes() {
+        return Collections.unmodifiableList(mimeTypes);
+    }
+
+    /**
+     * @return the compression level used when the event loops are busy.
+     */
+    public int getFastLevel() {
+        return fastLevel;
+    }
+
+    /**
+     * @return the utilization above which the fast level is used.
+     */
+    public double getFastThreshold() {
+        return fastThreshold;
+    }
+
+    /**
+     * @return the utilization above which the compression is disabled.
+     */
+    public double getOffThreshold() {
+        return offThreshold;
+    }
+}
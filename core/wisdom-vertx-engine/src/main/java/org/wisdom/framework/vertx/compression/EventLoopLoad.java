@@ -0,0 +1,119 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2015 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx.compression;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Estimates the utilization of a set of event loops: the share of time spent handling requests. The handlers report
+ * the time they spend on the event loops, and the utilization is computed over a sliding window, the first time it is
+ * requested once the window has elapsed.
+ * <p>
+ * The estimation only covers the time measured by the handlers (reading the request, invoking the action, writing and
+ * compressing the response), not the network I/O done by Netty.
+ */
+public class EventLoopLoad {
+
+    /**
+     * The default length of the sampling window.
+     */
+    public static final long DEFAULT_WINDOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private final int eventLoops;
+
+    private final long window;
+
+    private final LongAdder busy = new LongAdder();
+
+    private volatile long sampleStart;
+
+    private long busyAtSampleStart;
+
+    private volatile double utilization;
+
+    /**
+     * Creates an instance using the default sampling window.
+     *
+     * @param eventLoops the number of event loops
+     */
+    public EventLoopLoad(int eventLoops) {
+        this(eventLoops, DEFAULT_WINDOW);
+    }
+
+    /**
+     * Creates an instance.
+     *
+     * @param eventLoops the number of event loops
+     * @param window     the length of the sampling window in nanoseconds
+     */
+    public EventLoopLoad(int eventLoops, long window) {
+        this.eventLoops = Math.max(1, eventLoops);
+        this.window = window;
+        this.sampleStart = System.nanoTime();
+    }
+
+    /**
+     * Records the time spent on an event loop since the given instant.
+     *
+     * @param begin the value of {@link System#nanoTime()} when the work started
+     */
+    public void record(long begin) {
+        busy.add(System.nanoTime() - begin);
+    }
+
+    /**
+     * Records the time spent on an event loop.
+     *
+     * @param nanos the duration in nanoseconds
+     */
+    public void busy(long nanos) {
+        busy.add(nanos);
+    }
+
+    /**
+     * @return the utilization of the event loops computed over the last sampling window, from 0 (idle) to 1
+     * (saturated).
+     */
+    public double utilization() {
+        long now = System.nanoTime();
+        // Only synchronize when the window has elapsed.
+        if (now - sampleStart >= window) {
+            sample(now);
+        }
+        return utilization;
+    }
+
+    /**
+     * Computes the utilization if the sampling window has elapsed.
+     *
+     * @param now the current time in nanoseconds
+     */
+    synchronized void sample(long now) {
+        long elapsed = now - sampleStart;
+        if (elapsed < window) {
+            return;
+        }
+        long total = busy.sum();
+        utilization = Math.min(1.0, (total - busyAtSampleStart) / ((double) elapsed * eventLoops));
+        sampleStart = now;
+        busyAtSampleStart = total;
+    }
+}
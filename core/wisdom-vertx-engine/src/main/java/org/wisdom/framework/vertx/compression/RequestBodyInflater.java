@@ -0,0 +1,395 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2015 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Inflates a {@literal gzip} or {@literal deflate} encoded request body, chunk by chunk, as the chunks are received.
+ * The inflated content is emitted in blocks of at most {@link #BLOCK_SIZE} bytes, and the inflation stops as soon as
+ * the inflated size exceeds the limit, so a small compressed body cannot make the server allocate a huge amount of
+ * memory (zip bomb).
+ * <p>
+ * The {@literal deflate} encoding accepts both the zlib format (as specified by HTTP) and raw deflate data (as sent
+ * by some clients). Concatenated gzip members are supported.
+ * <p>
+ * Instances are not thread safe, they are used on the event loop handling the request, and must be released using
+ * {@link #release()}.
+ */
+public class RequestBodyInflater {
+
+    /**
+     * The maximum size of the emitted blocks.
+     */
+    public static final int BLOCK_SIZE = 8192;
+
+    /**
+     * The maximum size of a gzip header, to avoid buffering an endless file name.
+     */
+    private static final int MAX_HEADER_SIZE = 64 * 1024;
+
+    private static final int GZIP_TRAILER_SIZE = 8;
+
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private enum State {
+        HEADER, BODY, TRAILER, DONE
+    }
+
+    private final boolean gzip;
+
+    private final long limit;
+
+    private final CRC32 crc;
+
+    private Inflater inflater;
+
+    private State state = State.HEADER;
+
+    /**
+     * The header or trailer bytes received so far.
+     */
+    private byte[] pending = EMPTY;
+
+    /**
+     * The array receiving the compressed bytes of the current chunk, reused.
+     */
+    private byte[] input = EMPTY;
+
+    /**
+     * The array receiving the inflated bytes, handed to the sink once full.
+     */
+    private byte[] output;
+
+    private long received;
+
+    private long inflated;
+
+    private long member;
+
+    private boolean released;
+
+    /**
+     * Checks whether the given content encoding denotes a compressed body.
+     *
+     * @param encoding the value of the {@literal Content-Encoding} header, may be {@code null}
+     * @return {@code true} if the encoding is not {@literal identity}
+     */
+    public static boolean isCompressed(String encoding) {
+        return encoding != null && !encoding.trim().isEmpty() && !"identity".equalsIgnoreCase(encoding.trim());
+    }
+
+    /**
+     * Checks whether the given content encoding can be inflated.
+     *
+     * @param encoding the value of the {@literal Content-Encoding} header
+     * @return {@code true} if the encoding is {@literal gzip}, {@literal x-gzip} or {@literal deflate}
+     */
+    public static boolean isSupported(String encoding) {
+        if (encoding == null) {
+            return false;
+        }
+        String value = encoding.trim();
+        return "gzip".equalsIgnoreCase(value) || "x-gzip".equalsIgnoreCase(value)
+                || "deflate".equalsIgnoreCase(value);
+    }
+
+    /**
+     * Creates the inflater.
+     *
+     * @param encoding the content encoding, must be supported
+     * @param limit    the maximum size of the inflated body, in bytes
+     */
+    public RequestBodyInflater(String encoding, long limit) {
+        if (!isSupported(encoding)) {
+            throw new IllegalArgumentException("Unsupported content encoding: " + encoding);
+        }
+        this.gzip = !"deflate".equalsIgnoreCase(encoding.trim());
+        this.limit = limit;
+        if (gzip) {
+            this.crc = new CRC32();
+            this.inflater = new Inflater(true);
+        } else {
+            // The format (zlib or raw) is detected from the first bytes.
+            this.crc = null;
+        }
+    }
+
+    /**
+     * Inflates a chunk of the body.
+     *
+     * @param chunk the compressed chunk
+     * @param sink  receives the inflated blocks
+     * @return {@code false} if the inflated body exceeds the limit, in this case the inflation must be stopped
+     * @throws ZipException if the body is malformed
+     */
+    public boolean inflate(Buffer chunk, Handler<Buffer> sink) throws ZipException {
+        if (released) {
+            throw new IllegalStateException("The inflater has been released");
+        }
+        ByteBuf buf = chunk.getByteBuf();
+        int length = buf.readableBytes();
+        if (length == 0) {
+            return true;
+        }
+        received += length;
+        byte[] in;
+        int offset;
+        if (buf.hasArray()) {
+            in = buf.array();
+            offset = buf.arrayOffset() + buf.readerIndex();
+        } else {
+            if (input.length < length) {
+                input = new byte[Math.max(length, BLOCK_SIZE)];
+            }
+            buf.getBytes(buf.readerIndex(), input, 0, length);
+            in = input;
+            offset = 0;
+        }
+        int end = offset + length;
+
+        while (offset < end) {
+            switch (state) {
+                case HEADER:
+                    pending = append(pending, in, offset, end);
+                    offset = end;
+                    int size = header(pending);
+                    if (size >= 0) {
+                        // The bytes following the header are the beginning of the compressed data.
+                        in = pending;
+                        offset = size;
+                        end = pending.length;
+                        pending = EMPTY;
+                        state = State.BODY;
+                    }
+                    break;
+                case BODY:
+                    inflater.setInput(in, offset, end - offset);
+                    if (!drain(sink)) {
+                        return false;
+                    }
+                    if (inflater.finished()) {
+                        offset = end - inflater.getRemaining();
+                        state = gzip ? State.TRAILER : State.DONE;
+                    } else {
+                        offset = end;
+                    }
+                    break;
+                case TRAILER:
+                    int missing = GZIP_TRAILER_SIZE - pending.length;
+                    int read = Math.min(missing, end - offset);
+                    pending = append(pending, in, offset, offset + read);
+                    offset += read;
+                    if (pending.length == GZIP_TRAILER_SIZE) {
+                        trailer(pending);
+                        pending = EMPTY;
+                        // Another gzip member may follow.
+                        state = State.DONE;
+                    }
+                    break;
+                default:
+                    if (!gzip || (in[offset] & 0xFF) != 0x1F) {
+                        // Ignore the data following the compressed stream, unless it is another gzip member.
+                        return true;
+                    }
+                    state = State.HEADER;
+                    inflater.reset();
+                    crc.reset();
+                    member = 0;
+                    break;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks that the whole compressed body has been received. This method must be called once the last chunk has
+     * been inflated.
+     *
+     * @throws ZipException if the body is truncated
+     */
+    public void finish() throws ZipException {
+        if (received > 0 && state != State.DONE) {
+            throw new ZipException("Unexpected end of the compressed body");
+        }
+    }
+
+    /**
+     * @return the number of inflated bytes.
+     */
+    public long inflated() {
+        return inflated;
+    }
+
+    /**
+     * Releases the native resources used by the inflater. This method can be called several times, for instance
+     * when the body has been read and when the connection is closed.
+     */
+    public void release() {
+        released = true;
+        if (inflater != null) {
+            inflater.end();
+            inflater = null;
+        }
+    }
+
+    /**
+     * Inflates the current input, and emits the inflated blocks.
+     *
+     * @return {@code false} if the limit is exceeded
+     */
+    private boolean drain(Handler<Buffer> sink) throws ZipException {
+        while (true) {
+            if (output == null) {
+                output = new byte[BLOCK_SIZE];
+            }
+            int count;
+            try {
+                count = inflater.inflate(output);
+            } catch (DataFormatException e) {
+                throw (ZipException) new ZipException("Malformed compressed body: " + e.getMessage()).initCause(e);
+            }
+            if (count == 0) {
+                if (inflater.needsDictionary()) {
+                    throw new ZipException("Compressed bodies using a preset dictionary are not supported");
+                }
+                return true;
+            }
+            inflated += count;
+            member += count;
+            if (inflated > limit) {
+                return false;
+            }
+            if (crc != null) {
+                crc.update(output, 0, count);
+            }
+            byte[] block;
+            if (count == BLOCK_SIZE) {
+                // Hand the array over, a new one is allocated for the next block.
+                block = output;
+                output = null;
+            } else {
+                block = Arrays.copyOf(output, count);
+            }
+            sink.handle(Buffer.buffer(Unpooled.wrappedBuffer(block)));
+        }
+    }
+
+    /**
+     * Parses the header of the compressed data.
+     *
+     * @param bytes the bytes received so far
+     * @return the size of the header, {@literal -1} if more bytes are required
+     */
+    private int header(byte[] bytes) throws ZipException {
+        if (!gzip) {
+            if (bytes.length < 2) {
+                return -1;
+            }
+            // Zlib header: compression method 8 and a header checksum multiple of 31.
+            int cmf = bytes[0] & 0xFF;
+            int flg = bytes[1] & 0xFF;
+            boolean zlib = (cmf & 0x0F) == Deflater.DEFLATED && ((cmf << 8) | flg) % 31 == 0;
+            inflater = new Inflater(!zlib);
+            return 0;
+        }
+        if (bytes.length < 10) {
+            return -1;
+        }
+        if ((bytes[0] & 0xFF) != 0x1F || (bytes[1] & 0xFF) != 0x8B) {
+            throw new ZipException("Not in GZIP format");
+        }
+        if (bytes[2] != Deflater.DEFLATED) {
+            throw new ZipException("Unsupported GZIP compression method");
+        }
+        int flags = bytes[3] & 0xFF;
+        int position = 10;
+        if ((flags & FEXTRA) != 0) {
+            if (bytes.length < position + 2) {
+                return -1;
+            }
+            position += 2 + ((bytes[position] & 0xFF) | ((bytes[position + 1] & 0xFF) << 8));
+        }
+        if ((flags & FNAME) != 0) {
+            position = skipZeroTerminated(bytes, position);
+        }
+        if (position >= 0 && (flags & FCOMMENT) != 0) {
+            position = skipZeroTerminated(bytes, position);
+        }
+        if (position >= 0 && (flags & FHCRC) != 0) {
+            position += 2;
+        }
+        if (position < 0 || position > bytes.length) {
+            if (bytes.length > MAX_HEADER_SIZE) {
+                throw new ZipException("GZIP header too large");
+            }
+            return -1;
+        }
+        return position;
+    }
+
+    private static int skipZeroTerminated(byte[] bytes, int position) {
+        for (int i = position; i < bytes.length; i++) {
+            if (bytes[i] == 0) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private void trailer(byte[] bytes) throws ZipException {
+        long checksum = readInt(bytes, 0);
+        long size = readInt(bytes, 4);
+        if (checksum != crc.getValue()) {
+            throw new ZipException("Corrupted GZIP body (invalid CRC)");
+        }
+        if (size != (member & 0xFFFFFFFFL)) {
+            throw new ZipException("Corrupted GZIP body (invalid size)");
+        }
+    }
+
+    private static long readInt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFFL)
+                | (bytes[offset + 1] & 0xFFL) << 8
+                | (bytes[offset + 2] & 0xFFL) << 16
+                | (bytes[offset + 3] & 0xFFL) << 24;
+    }
+
+    private static byte[] append(byte[] bytes, byte[] data, int from, int to) {
+        byte[] result = Arrays.copyOf(bytes, bytes.length + to - from);
+        System.arraycopy(data, from, result, bytes.length, to - from);
+        return result;
+    }
+}
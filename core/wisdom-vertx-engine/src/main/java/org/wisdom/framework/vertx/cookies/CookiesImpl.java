@@ -27,6 +27,7 @@ import io.vertx.core.http.HttpServerRequest;
 import org.wisdom.api.cookies.Cookie;
 import org.wisdom.api.cookies.Cookies;
 
+import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
 
@@ -35,12 +36,16 @@ import java.util.Set;
  */
 public class CookiesImpl implements Cookies {
 
-    private Map<String, Cookie> cookies = Maps.newTreeMap();
+    private final Map<String, Cookie> cookies;
 
     public CookiesImpl(HttpServerRequest request) {
         Set<io.netty.handler.codec.http.cookie.Cookie> localCookies;
         String value = request.headers().get(HttpHeaders.Names.COOKIE);
-        if (value != null) {
+        if (value == null) {
+            // No cookies, avoid creating a map.
+            cookies = Collections.emptyMap();
+        } else {
+            cookies = Maps.newTreeMap();
             localCookies = ServerCookieDecoder.LAX.decode(value);
             for (io.netty.handler.codec.http.cookie.Cookie cookie : localCookies) {
                 this.cookies.put(cookie.name(), CookieHelper.convertNettyCookieToWisdomCookie((DefaultCookie) cookie));
@@ -0,0 +1,100 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2015 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx.ssl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the TLS handshakes of a server, distinguishing full handshakes from resumed ones, and accumulates their
+ * duration. Handshakes complete on the event loops, so the counters are updated concurrently.
+ */
+public class HandshakeMetrics {
+
+    private final LongAdder full = new LongAdder();
+    private final LongAdder fullTime = new LongAdder();
+    private final LongAdder resumed = new LongAdder();
+    private final LongAdder resumedTime = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    void full(long nanos) {
+        full.increment();
+        fullTime.add(nanos);
+    }
+
+    void resumed(long nanos) {
+        resumed.increment();
+        resumedTime.add(nanos);
+    }
+
+    void failed() {
+        failed.increment();
+    }
+
+    /**
+     * @return the number of full handshakes.
+     */
+    public long getFullHandshakes() {
+        return full.sum();
+    }
+
+    /**
+     * @return the number of handshakes that resumed a cached session.
+     */
+    public long getResumedHandshakes() {
+        return resumed.sum();
+    }
+
+    /**
+     * @return the number of failed handshakes.
+     */
+    public long getFailedHandshakes() {
+        return failed.sum();
+    }
+
+    /**
+     * @return the mean duration of the full handshakes in microseconds, {@literal 0} if none.
+     */
+    public long getMeanFullHandshakeTime() {
+        return mean(fullTime, full);
+    }
+
+    /**
+     * @return the mean duration of the resumed handshakes in microseconds, {@literal 0} if none.
+     */
+    public long getMeanResumedHandshakeTime() {
+        return mean(resumedTime, resumed);
+    }
+
+    private static long mean(LongAdder time, LongAdder count) {
+        long c = count.sum();
+        if (c == 0) {
+            return 0;
+        }
+        return TimeUnit.NANOSECONDS.toMicros(time.sum() / c);
+    }
+
+    @Override
+    public String toString() {
+        return "full: " + getFullHandshakes() + " (mean " + getMeanFullHandshakeTime() + " us), resumed: "
+                + getResumedHandshakes() + " (mean " + getMeanResumedHandshakeTime() + " us), failed: "
+                + getFailedHandshakes();
+    }
+}
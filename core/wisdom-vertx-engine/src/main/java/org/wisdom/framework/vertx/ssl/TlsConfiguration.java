@@ -0,0 +1,206 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2015 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx.ssl;
+
+import io.netty.handler.ssl.SslHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wisdom.api.configuration.Configuration;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSessionContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The TLS settings of a server: enabled protocols and cipher suites, and tuning of the server-side session cache
+ * used to resume sessions. Each instance also holds the {@link HandshakeMetrics} of the server using it.
+ * <p>
+ * The settings are read from a configuration object such as:
+ * <pre>
+ * tls {
+ *     protocols: [TLSv1.2]
+ *     ciphers: [TLS_ECDHE_RSA_WITH_AES_128_GCM_SHA256, TLS_ECDHE_RSA_WITH_AES_128_CBC_SHA256]
+ *     session-cache-size: 20000 # the number of cached sessions, 0 for no limit
+ *     session-timeout: 1h # how long a session can be resumed, 0 for no limit
+ * }
+ * </pre>
+ * Unset values keep the vert.x and JDK defaults.
+ */
+public class TlsConfiguration {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger("wisdom-vertx-engine");
+
+    /**
+     * The name of the value bound to the sessions having completed a handshake. A resumed session is the one taken
+     * from the server session cache, so it carries the value bound by its first handshake.
+     */
+    private static final String ESTABLISHED = TlsConfiguration.class.getName() + ".established";
+
+    private final List<String> protocols;
+
+    private final List<String> ciphers;
+
+    private final int sessionCacheSize;
+
+    private final long sessionTimeout;
+
+    private final HandshakeMetrics metrics = new HandshakeMetrics();
+
+    /**
+     * Creates the TLS configuration from the given configuration object.
+     *
+     * @param configuration the configuration, may be {@code null} to use the defaults
+     * @return the TLS configuration
+     */
+    public static TlsConfiguration from(Configuration configuration) {
+        if (configuration == null) {
+            return new TlsConfiguration(Collections.<String>emptyList(), Collections.<String>emptyList(), -1, -1);
+        }
+        return new TlsConfiguration(
+                list(configuration, "protocols"),
+                list(configuration, "ciphers"),
+                configuration.getIntegerWithDefault("session-cache-size", -1),
+                configuration.getDuration("session-timeout", TimeUnit.SECONDS, -1));
+    }
+
+    private static List<String> list(Configuration configuration, String key) {
+        if (!configuration.has(key)) {
+            return Collections.emptyList();
+        }
+        return configuration.getList(key);
+    }
+
+    /**
+     * Creates the TLS configuration.
+     *
+     * @param protocols        the enabled protocols, empty to use the default protocols
+     * @param ciphers          the enabled cipher suites, empty to use the default cipher suites
+     * @param sessionCacheSize the size of the session cache, negative to keep the JDK default
+     * @param sessionTimeout   the session timeout in seconds, negative to keep the JDK default
+     */
+    public TlsConfiguration(List<String> protocols, List<String> ciphers, int sessionCacheSize, long sessionTimeout) {
+        this.protocols = new ArrayList<>(protocols);
+        this.ciphers = new ArrayList<>(ciphers);
+        this.sessionCacheSize = sessionCacheSize;
+        this.sessionTimeout = sessionTimeout;
+    }
+
+    /**
+     * @return the enabled protocols, empty if the default protocols are used.
+     */
+    public List<String> getProtocols() {
+        return Collections.unmodifiableList(protocols);
+    }
+
+    /**
+     * @return the enabled cipher suites, empty if the default cipher suites are used.
+     */
+    public List<String> getCiphers() {
+        return Collections.unmodifiableList(ciphers);
+    }
+
+    /**
+     * @return the size of the session cache, negative if the JDK default is used.
+     */
+    public int getSessionCacheSize() {
+        return sessionCacheSize;
+    }
+
+    /**
+     * @return the session timeout in seconds, negative if the JDK default is used.
+     */
+    public long getSessionTimeout() {
+        return sessionTimeout;
+    }
+
+    /**
+     * @return the handshake metrics.
+     */
+    public HandshakeMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Configures the server session cache of the given SSL context. This method is called once per server, when the
+     * SSL context is created.
+     *
+     * @param context the context
+     */
+    public void configure(SSLContext context) {
+        SSLSessionContext sessions = context.getServerSessionContext();
+        if (sessionCacheSize >= 0) {
+            sessions.setSessionCacheSize(sessionCacheSize);
+        }
+        if (sessionTimeout >= 0) {
+            sessions.setSessionTimeout((int) Math.min(Integer.MAX_VALUE, sessionTimeout));
+        }
+    }
+
+    /**
+     * Restricts the protocols enabled on the given engine. Only the protocols supported by the engine are enabled.
+     *
+     * @param engine the engine
+     */
+    public void configure(SSLEngine engine) {
+        if (protocols.isEmpty()) {
+            return;
+        }
+        List<String> enabled = new ArrayList<>(protocols);
+        enabled.retainAll(Arrays.asList(engine.getSupportedProtocols()));
+        if (enabled.isEmpty()) {
+            LOGGER.warn("None of the configured TLS protocols {} are supported, supported protocols are {}",
+                    protocols, Arrays.toString(engine.getSupportedProtocols()));
+            return;
+        }
+        engine.setEnabledProtocols(enabled.toArray(new String[enabled.size()]));
+    }
+
+    /**
+     * Records the outcome and duration of the handshake of the given handler. The duration is measured from the
+     * creation of the handler (when the connection is accepted) to the completion of the handshake. A handshake is
+     * counted as resumed if its session already completed a handshake, i.e. if it was taken from the server session
+     * cache.
+     *
+     * @param handler the handler, just created
+     */
+    public void track(SslHandler handler) {
+        final long begin = System.nanoTime();
+        handler.handshakeFuture().addListener(future -> {
+            long duration = System.nanoTime() - begin;
+            if (!future.isSuccess()) {
+                metrics.failed();
+                return;
+            }
+            SSLSession session = handler.engine().getSession();
+            if (session.getValue(ESTABLISHED) != null) {
+                metrics.resumed(duration);
+            } else {
+                session.putValue(ESTABLISHED, Boolean.TRUE);
+                metrics.full(duration);
+            }
+        });
+    }
+}
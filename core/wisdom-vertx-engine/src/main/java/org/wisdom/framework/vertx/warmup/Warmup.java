@@ -0,0 +1,356 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx.warmup;
+
+import com.google.common.io.ByteStreams;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wisdom.api.configuration.ApplicationConfiguration;
+import org.wisdom.api.configuration.Configuration;
+import org.wisdom.api.http.HeaderNames;
+import org.wisdom.api.http.HttpMethod;
+import org.wisdom.api.http.MimeTypes;
+import org.wisdom.api.router.Router;
+import org.wisdom.framework.vertx.Server;
+import org.wisdom.framework.vertx.ServiceAccessor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Replays synthetic requests before the servers accept traffic, so the hot paths (routing, parameter binding,
+ * serialization, templates...) are compiled by the JIT before the first real requests. The requests are sent to a
+ * server bound on the loopback interface, and so go through the same dispatch path as the real requests. The
+ * warmup waits until the replayed requests are routed (the controllers may be published after the engine), and
+ * never lasts more than the configured timeout.
+ * <p>
+ * The warmup is configured using the {@literal vertx.warmup} prefix:
+ * <pre>
+ * vertx.warmup {
+ *     requests: ["/", "GET /api/items?page=1", "POST /api/cart {\"item\": 1}"]
+ *     unsafe: true # the POST, PUT, DELETE... requests of the list are ignored unless this flag is set
+ *     file: "conf/warmup.txt" # requests recorded in a file, one per line, access log files are supported
+ *     iterations: 1000 # how many times the requests are replayed
+ *     timeout: 30s # the maximum duration of the warmup
+ * }
+ * </pre>
+ * The replayed requests reach the real controllers. Only the safe requests ({@literal GET} and {@literal HEAD}) are
+ * replayed from a file, and the other methods of the request list require the {@literal unsafe} flag.
+ */
+public class Warmup {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Warmup.class);
+
+    /**
+     * The default number of iterations.
+     */
+    public static final int DEFAULT_ITERATIONS = 1000;
+
+    /**
+     * The default maximum duration of the warmup, in milliseconds.
+     */
+    public static final long DEFAULT_TIMEOUT = 30000;
+
+    /**
+     * The maximum number of distinct requests read from a file.
+     */
+    public static final int MAX_RECORDED_REQUESTS = 100;
+
+    /**
+     * The request line of an access log entry, such as {@literal "GET /index.html HTTP/1.1"}.
+     */
+    private static final Pattern REQUEST_LINE = Pattern.compile("\"([A-Za-z]+) (\\S+) HTTP/[0-9.]+\"");
+
+    private final List<WarmupRequest> requests;
+
+    private final int iterations;
+
+    private final long timeout;
+
+    /**
+     * Creates the warmup from the application configuration.
+     *
+     * @param configuration the configuration
+     * @return the warmup, {@code null} if the warmup is not configured.
+     */
+    public static Warmup create(ApplicationConfiguration configuration) {
+        Configuration warmup = configuration.getConfiguration("vertx.warmup");
+        if (warmup == null || !warmup.getBooleanWithDefault("enabled", true)) {
+            return null;
+        }
+        boolean unsafe = warmup.getBooleanWithDefault("unsafe", false);
+        Set<WarmupRequest> requests = new LinkedHashSet<>();
+        for (String line : warmup.getList("requests")) {
+            WarmupRequest request = parse(line);
+            if (request == null) {
+                continue;
+            }
+            if (!unsafe && !isSafe(request.getMethod())) {
+                LOGGER.warn("Ignoring the warmup request '{}' - {} requests are only replayed when 'vertx.warmup"
+                        + ".unsafe' is set", line, request.getMethod());
+                continue;
+            }
+            requests.add(request);
+        }
+        if (warmup.get("file") != null) {
+            requests.addAll(load(configuration.getFileWithDefault("vertx.warmup.file", (File) null)));
+        }
+        if (requests.isEmpty()) {
+            LOGGER.warn("The warmup is configured, but does not contain any request");
+            return null;
+        }
+        return new Warmup(new ArrayList<>(requests),
+                warmup.getIntegerWithDefault("iterations", DEFAULT_ITERATIONS),
+                warmup.getDuration("timeout", TimeUnit.MILLISECONDS, DEFAULT_TIMEOUT));
+    }
+
+    /**
+     * Creates the warmup.
+     *
+     * @param requests   the replayed requests
+     * @param iterations how many times the requests are replayed
+     * @param timeout    the maximum duration of the warmup, in milliseconds
+     */
+    public Warmup(List<WarmupRequest> requests, int iterations, long timeout) {
+        this.requests = Collections.unmodifiableList(new ArrayList<>(requests));
+        this.iterations = iterations;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Parses a request, written as {@literal METHOD URI [BODY]} or as a path (a {@literal GET} request). Access log
+     * entries are also supported, the request line is extracted.
+     *
+     * @param line the line
+     * @return the request, {@code null} if the line is empty, a comment, or is not a valid request
+     */
+    public static WarmupRequest parse(String line) {
+        String trimmed = line.trim();
+        if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+            return null;
+        }
+        Matcher matcher = REQUEST_LINE.matcher(trimmed);
+        if (matcher.find()) {
+            return request(matcher.group(1), matcher.group(2), null, line);
+        }
+        if (trimmed.startsWith("/")) {
+            return new WarmupRequest(HttpMethod.GET, trimmed, null);
+        }
+        String[] segments = trimmed.split("\\s+", 3);
+        if (segments.length < 2 || !segments[1].startsWith("/")) {
+            LOGGER.warn("Ignoring the warmup request '{}' - expected 'METHOD URI [BODY]'", line);
+            return null;
+        }
+        return request(segments[0], segments[1], segments.length == 3 ? segments[2] : null, line);
+    }
+
+    private static WarmupRequest request(String method, String uri, String body, String line) {
+        try {
+            return new WarmupRequest(HttpMethod.from(method), uri, body);
+        } catch (IllegalArgumentException e) { //NOSONAR the line is ignored.
+            LOGGER.warn("Ignoring the warmup request '{}' - unknown method {}", line, method);
+            return null;
+        }
+    }
+
+    /**
+     * Checks whether requests using the given method can be replayed without side effects.
+     *
+     * @param method the method
+     * @return {@code true} for {@literal GET} and {@literal HEAD}, {@code false} otherwise
+     */
+    public static boolean isSafe(HttpMethod method) {
+        return method == HttpMethod.GET || method == HttpMethod.HEAD;
+    }
+
+    /**
+     * Reads the requests recorded in the given file. Only the {@literal GET} and {@literal HEAD} requests are
+     * kept, as the recorded requests are replayed without their body on the real controllers.
+     *
+     * @param file the file
+     * @return the distinct safe requests, in the order of the file, at most {@link #MAX_RECORDED_REQUESTS}
+     */
+    public static Set<WarmupRequest> load(File file) {
+        Set<WarmupRequest> requests = new LinkedHashSet<>();
+        try {
+            for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+                WarmupRequest request = parse(line);
+                if (request == null || !isSafe(request.getMethod())) {
+                    continue;
+                }
+                if (requests.add(request) && requests.size() == MAX_RECORDED_REQUESTS) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Cannot read the warmup requests from {}", file.getAbsolutePath(), e);
+        }
+        return requests;
+    }
+
+    /**
+     * @return the replayed requests.
+     */
+    public List<WarmupRequest> getRequests() {
+        return requests;
+    }
+
+    /**
+     * Runs the warmup. A server bound on a random port of the loopback interface receives the requests, and is
+     * closed once the warmup is completed. The requests are sent from a worker thread.
+     *
+     * @param vertx      the vertx instance
+     * @param accessor   the service accessor
+     * @param completion called once the warmup is completed, with the report, {@code null} if the warmup failed
+     */
+    public void run(Vertx vertx, ServiceAccessor accessor, Handler<WarmupReport> completion) {
+        Server server = new Server(accessor, vertx, "warmup", 0, false, false, "127.0.0.1",
+                Collections.<String>emptyList(), Collections.<String>emptyList(), null);
+        // The responses must be computed, not served from the cache.
+        server.setMicroCache(null);
+        server.bind(bound -> {
+            if (bound.failed()) {
+                LOGGER.warn("Cannot start the warmup server, the warmup is skipped: {}", bound.cause());
+                completion.handle(null);
+                return;
+            }
+            vertx.<WarmupReport>executeBlocking(
+                    future -> future.complete(replay(accessor.getRouter(), server.port())),
+                    false,
+                    ar -> server.close(closed -> {
+                        if (ar.failed()) {
+                            LOGGER.warn("The warmup has failed", ar.cause());
+                            completion.handle(null);
+                        } else {
+                            LOGGER.info("The {}", ar.result());
+                            completion.handle(ar.result());
+                        }
+                    }));
+        });
+    }
+
+    /**
+     * Sends the requests to the given port.
+     *
+     * @param router the router, used to wait until the requests are routed
+     * @param port   the port
+     * @return the report
+     */
+    WarmupReport replay(Router router, int port) {
+        long begin = System.currentTimeMillis();
+        long deadline = begin + timeout;
+        waitForRoutes(router, deadline);
+
+        int sent = 0;
+        int failures = 0;
+        long first = 0;
+        long last = 0;
+        for (int i = 0; i < iterations && System.currentTimeMillis() < deadline; i++) {
+            long start = System.nanoTime();
+            for (WarmupRequest request : requests) {
+                if (!send(port, request)) {
+                    failures++;
+                }
+                sent++;
+            }
+            last = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start) / requests.size();
+            if (i == 0) {
+                first = last;
+            }
+        }
+        return new WarmupReport(System.currentTimeMillis() - begin, sent, failures, first, last);
+    }
+
+    private void waitForRoutes(Router router, long deadline) {
+        if (router == null) {
+            return;
+        }
+        List<WarmupRequest> missing = new ArrayList<>(requests);
+        while (true) {
+            missing.removeIf(request -> !router.getRouteFor(request.getMethod(), request.getPath(), null)
+                    .isUnbound());
+            if (missing.isEmpty()) {
+                return;
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                LOGGER.warn("The warmup requests {} are not routed, they are replayed anyway", missing);
+                return;
+            }
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Sends a request and reads the response. The connections are kept alive and reused by the JDK.
+     *
+     * @return {@code true} if the request got a response that is not a server error
+     */
+    private static boolean send(int port, WarmupRequest request) {
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) new URL("http", "127.0.0.1", port, request.getUri()).openConnection();
+            connection.setRequestMethod(request.getMethod().name());
+            if (request.getBody() != null) {
+                String body = request.getBody();
+                connection.setDoOutput(true);
+                connection.setRequestProperty(HeaderNames.CONTENT_TYPE,
+                        body.startsWith("{") || body.startsWith("[") ? MimeTypes.JSON : MimeTypes.TEXT);
+                try (OutputStream out = connection.getOutputStream()) {
+                    out.write(body.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            int status = connection.getResponseCode();
+            InputStream stream = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+            if (stream != null) {
+                try (InputStream in = stream) {
+                    ByteStreams.copy(in, ByteStreams.nullOutputStream());
+                }
+            }
+            return status < 500;
+        } catch (IOException e) {
+            LOGGER.debug("Cannot send the warmup request {}", request, e);
+            if (connection != null) {
+                connection.disconnect();
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx.warmup;
+
+/**
+ * The outcome of a {@link Warmup}.
+ */
+public class WarmupReport {
+
+    private final long duration;
+    private final int requests;
+    private final int failures;
+    private final long first;
+    private final long last;
+
+    /**
+     * Creates the report.
+     *
+     * @param duration the duration of the warmup, in milliseconds, including the time spent waiting for the routes
+     * @param requests the number of replayed requests
+     * @param failures the number of requests that could not be sent, or that got a server error
+     * @param first    the mean latency of the requests of the first iteration, in microseconds
+     * @param last     the mean latency of the requests of the last iteration, in microseconds
+     */
+    public WarmupReport(long duration, int requests, int failures, long first, long last) {
+        this.duration = duration;
+        this.requests = requests;
+        this.failures = failures;
+        this.first = first;
+        this.last = last;
+    }
+
+    /**
+     * @return the duration of the warmup, in milliseconds.
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    /**
+     * @return the number of replayed requests.
+     */
+    public int getRequests() {
+        return requests;
+    }
+
+    /**
+     * @return the number of requests that could not be sent, or that got a server error.
+     */
+    public int getFailures() {
+        return failures;
+    }
+
+    /**
+     * @return the mean latency of the requests of the first iteration, in microseconds.
+     */
+    public long getFirstIterationLatency() {
+        return first;
+    }
+
+    /**
+     * @return the mean latency of the requests of the last iteration, in microseconds.
+     */
+    public long getLastIterationLatency() {
+        return last;
+    }
+
+    @Override
+    public String toString() {
+        return "warmup completed in " + duration + " ms: " + requests + " requests (" + failures + " failed), mean "
+                + "latency " + first + " us in the first iteration, " + last + " us in the last one";
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx.warmup;
+
+import org.wisdom.api.http.HttpMethod;
+
+import java.util.Objects;
+
+/**
+ * A request replayed by the {@link Warmup}.
+ */
+public class WarmupRequest {
+
+    private final HttpMethod method;
+    private final String uri;
+    private final String body;
+
+    /**
+     * Creates the request.
+     *
+     * @param method the method
+     * @param uri    the URI, with the query if any
+     * @param body   the body, {@code null} if none
+     */
+    public WarmupRequest(HttpMethod method, String uri, String body) {
+        this.method = method;
+        this.uri = uri;
+        this.body = body;
+    }
+
+    /**
+     * @return the method.
+     */
+    public HttpMethod getMethod() {
+        return method;
+    }
+
+    /**
+     * @return the URI, with the query if any.
+     */
+    public String getUri() {
+        return uri;
+    }
+
+    /**
+     * @return the path of the URI.
+     */
+    public String getPath() {
+        int index = uri.indexOf('?');
+        return index == -1 ? uri : uri.substring(0, index);
+    }
+
+    /**
+     * @return the body, {@code null} if none.
+     */
+    public String getBody() {
+        return body;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        WarmupRequest that = (WarmupRequest) o;
+        return method == that.method && uri.equals(that.uri) && Objects.equals(body, that.body);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(method, uri, body);
+    }
+
+    @Override
+    public String toString() {
+        return method + " " + uri;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx;
+
+import io.vertx.core.buffer.Buffer;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the allocation of the {@link AggregatedBody} with the {@link Buffer#appendBuffer(Buffer)} approach.
+ */
+public class AggregatedBodyBenchmarkTest {
+
+    private static final int CHUNK_SIZE = 8192;
+
+    /**
+     * Measures the bytes allocated to aggregate and read a 4Kb, 256Kb and 4Mb body, and checks that the
+     * aggregated body allocates less than the previous approach (appending each chunk to a single buffer).
+     */
+    @Test
+    public void testAllocation() throws Exception {
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!bean.isThreadAllocatedMemorySupported()) {
+            return;
+        }
+        bean.setThreadAllocatedMemoryEnabled(true);
+        for (int size : new int[]{4 * 1024, 256 * 1024, 4 * 1024 * 1024}) {
+            List<Buffer> chunks = chunks(content(size));
+            byte[] buffer = new byte[512];
+            // Warm up both approaches.
+            for (int i = 0; i < 20; i++) {
+                appendBuffer(chunks);
+                aggregate(chunks, buffer);
+            }
+
+            long tid = Thread.currentThread().getId();
+            long before = bean.getThreadAllocatedBytes(tid);
+            appendBuffer(chunks);
+            long legacy = bean.getThreadAllocatedBytes(tid) - before;
+
+            before = bean.getThreadAllocatedBytes(tid);
+            aggregate(chunks, buffer);
+            long aggregated = bean.getThreadAllocatedBytes(tid) - before;
+
+            System.out.println("Body of " + size + " bytes - appendBuffer: " + legacy + " bytes allocated, " +
+                    "aggregated: " + aggregated + " bytes allocated");
+            assertThat(aggregated).isLessThan(legacy);
+        }
+    }
+
+    private static long appendBuffer(List<Buffer> chunks) throws Exception {
+        Buffer raw = Buffer.buffer(0);
+        for (Buffer chunk : chunks) {
+            raw.appendBuffer(chunk);
+        }
+        byte[] bytes = raw.getBytes();
+        return bytes.length;
+    }
+
+    private static long aggregate(List<Buffer> chunks, byte[] buffer) throws Exception {
+        AggregatedBody body = new AggregatedBody();
+        for (Buffer chunk : chunks) {
+            body.append(chunk);
+        }
+        long read = 0;
+        try (InputStream stream = body.stream()) {
+            int r;
+            while ((r = stream.read(buffer)) != -1) {
+                read += r;
+            }
+        }
+        body.release();
+        return read;
+    }
+
+    private static byte[] content(int size) {
+        byte[] content = new byte[size];
+        for (int i = 0; i < size; i++) {
+            content[i] = (byte) ('a' + (i % 26));
+        }
+        return content;
+    }
+
+    private static List<Buffer> chunks(byte[] content) {
+        List<Buffer> chunks = new ArrayList<>();
+        for (int i = 0; i < content.length; i += CHUNK_SIZE) {
+            chunks.add(Buffer.buffer().appendBytes(content, i, Math.min(CHUNK_SIZE, content.length - i)));
+        }
+        return chunks;
+    }
+}
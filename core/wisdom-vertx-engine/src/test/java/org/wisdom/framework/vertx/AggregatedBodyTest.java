@@ -0,0 +1,159 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx;
+
+import com.google.common.base.Charsets;
+import io.vertx.core.buffer.Buffer;
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the behavior of the {@link AggregatedBody}.
+ */
+public class AggregatedBodyTest {
+
+    private static final int CHUNK_SIZE = 8192;
+
+    @Test
+    public void testEmptyBody() throws Exception {
+        AggregatedBody body = new AggregatedBody();
+        assertThat(body.length()).isEqualTo(0);
+        assertThat(body.bytes()).isEmpty();
+        assertThat(body.asString(Charsets.UTF_8)).isEmpty();
+        assertThat(IOUtils.toByteArray(body.stream())).isEmpty();
+        body.release();
+    }
+
+    @Test
+    public void testSingleChunk() throws Exception {
+        AggregatedBody body = new AggregatedBody();
+        body.append(Buffer.buffer("hello wisdom"));
+        assertThat(body.length()).isEqualTo(12);
+        assertThat(body.asString(Charsets.UTF_8)).isEqualTo("hello wisdom");
+        assertThat(IOUtils.toString(body.stream(), Charsets.UTF_8)).isEqualTo("hello wisdom");
+        assertThat(new String(body.bytes(), Charsets.UTF_8)).isEqualTo("hello wisdom");
+        // Cached.
+        assertThat(body.bytes()).isSameAs(body.bytes());
+        body.release();
+        // Still available once released.
+        assertThat(new String(body.bytes(), Charsets.UTF_8)).isEqualTo("hello wisdom");
+    }
+
+    @Test
+    public void testMultipleChunks() throws Exception {
+        byte[] content = content(256 * 1024);
+        AggregatedBody body = new AggregatedBody();
+        for (Buffer chunk : chunks(content)) {
+            body.append(chunk);
+        }
+        assertThat(body.length()).isEqualTo(content.length);
+        assertThat(IOUtils.toByteArray(body.stream())).isEqualTo(content);
+        assertThat(body.asString(Charsets.UTF_8)).isEqualTo(new String(content, Charsets.UTF_8));
+        assertThat(body.bytes()).isEqualTo(content);
+        body.release();
+    }
+
+    @Test
+    public void testMoreChunksThanComponents() throws Exception {
+        byte[] content = content((AggregatedBody.MAX_COMPONENTS + 10) * 16);
+        AggregatedBody body = new AggregatedBody();
+        for (int i = 0; i < content.length; i += 16) {
+            body.append(Buffer.buffer().appendBytes(content, i, 16));
+        }
+        assertThat(body.bytes()).isEqualTo(content);
+        body.release();
+    }
+
+    @Test
+    public void testMultiByteCharactersSpanningChunks() throws Exception {
+        byte[] content = "été à l'œil".getBytes(Charsets.UTF_8);
+        AggregatedBody body = new AggregatedBody();
+        for (byte b : content) {
+            body.append(Buffer.buffer(new byte[]{b}));
+        }
+        assertThat(body.asString(Charsets.UTF_8)).isEqualTo("été à l'œil");
+        body.release();
+    }
+
+    @Test
+    public void testReadingAReleasedBody() throws Exception {
+        AggregatedBody body = new AggregatedBody();
+        body.append(Buffer.buffer("hello wisdom"));
+        assertThat(body.asString(Charsets.UTF_8)).isEqualTo("hello wisdom");
+        body.release();
+        // The chunks are gone, the body cannot be read anymore.
+        try {
+            body.asString(Charsets.UTF_8);
+            throw new AssertionError("The body has been released");
+        } catch (IllegalStateException e) {
+            // Expected.
+        }
+        try {
+            body.stream();
+            throw new AssertionError("The body has been released");
+        } catch (IllegalStateException e) {
+            // Expected.
+        }
+        try {
+            body.bytes();
+            throw new AssertionError("The body has been released");
+        } catch (IllegalStateException e) {
+            // Expected.
+        }
+        body.release();
+
+        // Once computed, the byte array form stays readable in all its forms.
+        body = new AggregatedBody();
+        body.append(Buffer.buffer("hello"));
+        body.append(Buffer.buffer(" wisdom"));
+        assertThat(body.bytes()).hasSize(12);
+        body.release();
+        assertThat(body.asString(Charsets.UTF_8)).isEqualTo("hello wisdom");
+        assertThat(IOUtils.toString(body.stream(), Charsets.UTF_8)).isEqualTo("hello wisdom");
+
+        // An empty body has nothing to lose.
+        body = new AggregatedBody();
+        body.release();
+        assertThat(body.asString(Charsets.UTF_8)).isEmpty();
+        assertThat(body.bytes()).isEmpty();
+    }
+
+    private static byte[] content(int size) {
+        byte[] content = new byte[size];
+        for (int i = 0; i < size; i++) {
+            content[i] = (byte) ('a' + (i % 26));
+        }
+        return content;
+    }
+
+    private static List<Buffer> chunks(byte[] content) {
+        List<Buffer> chunks = new ArrayList<>();
+        for (int i = 0; i < content.length; i += CHUNK_SIZE) {
+            chunks.add(Buffer.buffer().appendBytes(content, i, Math.min(CHUNK_SIZE, content.length - i)));
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2015 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.wisdom.api.annotations.PathParameter;
+import org.wisdom.api.annotations.Route;
+import org.wisdom.api.configuration.ApplicationConfiguration;
+import org.wisdom.api.content.BodyParser;
+import org.wisdom.api.content.ContentEngine;
+import org.wisdom.api.content.ParameterConverter;
+import org.wisdom.api.content.ParameterFactory;
+import org.wisdom.api.exceptions.ExceptionMapper;
+import org.wisdom.api.http.Context;
+import org.wisdom.api.http.HttpMethod;
+import org.wisdom.api.http.MimeTypes;
+import org.wisdom.api.http.Result;
+import org.wisdom.content.converters.ParamConverterEngine;
+import org.wisdom.content.jackson.JacksonSingleton;
+import org.wisdom.router.RequestRouter;
+import org.wisdom.router.batch.BatchController;
+import org.wisdom.test.parents.FakeConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compares the time needed to get 50 small JSON documents using 50 requests on a persistent connection, and using
+ * a single batch request.
+ */
+public class BatchBenchmarkTest extends VertxBaseTest {
+
+    private static final int CALLS = 50;
+    private static final int WARMUP = 50;
+    private static final int ITERATIONS = 200;
+
+    private WisdomVertxServer wisdom;
+    private JacksonSingleton json;
+    private String batch;
+
+    @Before
+    public void setUp() throws Exception {
+        ApplicationConfiguration configuration = mock(ApplicationConfiguration.class);
+        when(configuration.getIntegerWithDefault(eq("vertx.http.port"), anyInt())).thenReturn(0);
+        when(configuration.getIntegerWithDefault(eq("vertx.https.port"), anyInt())).thenReturn(-1);
+        when(configuration.getIntegerWithDefault("request.body.max.size", 100 * 1024)).thenReturn(100 * 1024);
+        when(configuration.getIntegerWithDefault("vertx.acceptBacklog", -1)).thenReturn(-1);
+        when(configuration.getIntegerWithDefault("vertx.receiveBufferSize", -1)).thenReturn(-1);
+        when(configuration.getIntegerWithDefault("vertx.sendBufferSize", -1)).thenReturn(-1);
+        when(configuration.getStringArray("wisdom.websocket.subprotocols")).thenReturn(new String[0]);
+        when(configuration.getStringArray("vertx.websocket-subprotocols")).thenReturn(new String[0]);
+        when(configuration.getBaseDir()).thenReturn(new File("target/junk/server/conf"));
+
+        json = new JacksonSingleton();
+        json.validate();
+        BodyParser parser = mock(BodyParser.class);
+        when(parser.invoke(any(Context.class), eq(JsonNode.class), any(Type.class))).then(invocation ->
+                json.parse(((Context) invocation.getArguments()[0]).body()));
+        ContentEngine engine = getMockContentEngine();
+        when(engine.getBodyParserEngineForContentType(anyString())).thenReturn(parser);
+
+        RequestRouter router = new RequestRouter();
+        router.setParameterConverterEngine(new ParamConverterEngine(
+                Collections.<ParameterConverter>emptyList(), Collections.<ParameterFactory>emptyList()));
+        router.bindController(new org.wisdom.api.DefaultController() {
+            @Route(method = HttpMethod.GET, uri = "/api/items/{id}")
+            public Result item(@PathParameter("id") int id) {
+                return ok(json.newObject().put("id", id).put("name", "item-" + id).put("price", id * 1.5));
+            }
+        });
+        router.bindController(new BatchController(router, json, executor, "/batch", CALLS));
+
+        wisdom = new WisdomVertxServer();
+        wisdom.configuration = configuration;
+        wisdom.vertx = vertx;
+        wisdom.accessor = new ServiceAccessor(null, configuration, router, engine, executor, null,
+                Collections.<ExceptionMapper>emptyList());
+        wisdom.start();
+        waitForStart(wisdom);
+
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < CALLS; i++) {
+            builder.append("{\"method\": \"GET\", \"uri\": \"/api/items/").append(i).append("\"},");
+        }
+        builder.setLength(builder.length() - 1);
+        batch = builder.append("]").toString();
+    }
+
+    @After
+    public void tearDown() {
+        if (wisdom != null) {
+            wisdom.stop();
+        }
+    }
+
+    @Test
+    public void testIndividualRequestsVersusBatch() throws Exception {
+        JsonNode results = json.parse(postBatch());
+        assertThat(results.size()).isEqualTo(CALLS);
+        for (int i = 0; i < CALLS; i++) {
+            assertThat(results.get(i).get("status").asInt()).isEqualTo(200);
+            assertThat(results.get(i).get("body").get("name").asText()).isEqualTo("item-" + i);
+        }
+        assertThat(json.parse(get(7)).get("name").asText()).isEqualTo("item-7");
+
+        for (int i = 0; i < WARMUP; i++) {
+            individualRequests();
+            postBatch();
+        }
+        long individual = 0;
+        long batched = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long begin = System.nanoTime();
+            individualRequests();
+            individual += System.nanoTime() - begin;
+            begin = System.nanoTime();
+            postBatch();
+            batched += System.nanoTime() - begin;
+        }
+        System.out.println(CALLS + " individual requests: " + individual / ITERATIONS / 1000 + " us, one batch "
+                + "request: " + batched / ITERATIONS / 1000 + " us");
+        assertThat(batched).isLessThan(individual);
+    }
+
+    private void individualRequests() throws IOException {
+        for (int i = 0; i < CALLS; i++) {
+            get(i);
+        }
+    }
+
+    private String get(int id) throws IOException {
+        URL url = new URL("http://localhost:" + wisdom.httpPort() + "/api/items/" + id);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        assertThat(connection.getResponseCode()).isEqualTo(200);
+        return IOUtils.toString(connection.getInputStream(), StandardCharsets.UTF_8);
+    }
+
+    private String postBatch() throws IOException {
+        URL url = new URL("http://localhost:" + wisdom.httpPort() + "/batch");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", MimeTypes.JSON);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(batch.getBytes(StandardCharsets.UTF_8));
+        }
+        assertThat(connection.getResponseCode()).isEqualTo(200);
+        return IOUtils.toString(connection.getInputStream(), StandardCharsets.UTF_8);
+    }
+}
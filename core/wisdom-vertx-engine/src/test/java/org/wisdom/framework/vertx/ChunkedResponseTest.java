@@ -31,6 +31,7 @@ import org.wisdom.api.DefaultController;
 import org.wisdom.api.configuration.ApplicationConfiguration;
 import org.wisdom.api.content.ContentEngine;
 import org.wisdom.api.exceptions.ExceptionMapper;
+import org.wisdom.api.http.AsyncResult;
 import org.wisdom.api.http.HttpMethod;
 import org.wisdom.api.http.Request;
 import org.wisdom.api.http.Result;
@@ -45,6 +46,7 @@ import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.zip.ZipEntry;
@@ -199,6 +201,70 @@ public class ChunkedResponseTest extends VertxBaseTest {
         assertThat(success).hasSize(NUMBER_OF_CLIENTS);
     }
 
+    @Test
+    public void testDeferredChunkedResponses() throws InterruptedException, IOException {
+        // Prepare the configuration
+        ApplicationConfiguration configuration = mock(ApplicationConfiguration.class);
+        when(configuration.getIntegerWithDefault(eq("vertx.http.port"), anyInt())).thenReturn(0);
+        when(configuration.getIntegerWithDefault(eq("vertx.https.port"), anyInt())).thenReturn(-1);
+        when(configuration.getIntegerWithDefault("vertx.acceptBacklog", -1)).thenReturn(-1);
+        when(configuration.getIntegerWithDefault("vertx.receiveBufferSize", -1)).thenReturn(-1);
+        when(configuration.getIntegerWithDefault("vertx.sendBufferSize", -1)).thenReturn(-1);
+        when(configuration.getStringArray("wisdom.websocket.subprotocols")).thenReturn(new String[0]);
+        when(configuration.getStringArray("vertx.websocket-subprotocols")).thenReturn(new String[0]);
+
+        // Prepare the router with a controller
+        Controller controller = new DefaultController() {
+            @SuppressWarnings("unused")
+            public Result index() {
+                // Completed from another thread, with a result computed by the engine executor.
+                return new AsyncResult(CompletableFuture.supplyAsync(() -> async(() -> {
+                    int count = context().parameterAsInteger("id") * 1000;
+                    byte[] content = new byte[count];
+                    RANDOM.nextBytes(content);
+                    return ok(new ByteArrayInputStream(content));
+                })));
+            }
+        };
+        Router router = mock(Router.class);
+        Route route = new RouteBuilder().route(HttpMethod.GET)
+                .on("/")
+                .to(controller, "index");
+        when(router.getRouteFor(anyString(), anyString(), any(Request.class))).thenReturn(route);
+
+        // Configure the server.
+        server = new WisdomVertxServer();
+        server.configuration = configuration;
+        server.accessor = new ServiceAccessor(
+                null,
+                configuration,
+                router,
+                getMockContentEngine(),
+                executor,
+                null,
+                Collections.<ExceptionMapper>emptyList()
+        );
+        server.vertx = vertx;
+        server.start();
+
+        VertxHttpServerTest.waitForStart(server);
+
+        // Now start bunch of clients
+        CountDownLatch startSignal = new CountDownLatch(1);
+        CountDownLatch doneSignal = new CountDownLatch(NUMBER_OF_CLIENTS);
+
+        int port = server.httpPort();
+
+        for (int i = 1; i < NUMBER_OF_CLIENTS + 1; ++i) // create and start threads
+            executor.submit(new Client(startSignal, doneSignal, port, i));
+
+        startSignal.countDown();      // let all threads proceed
+        doneSignal.await(60, TimeUnit.SECONDS);           // wait for all to finish
+
+        assertThat(failure).isEmpty();
+        assertThat(success).hasSize(NUMBER_OF_CLIENTS);
+    }
+
     @Test
     public void testZippedFileDownload() throws InterruptedException, IOException {
 
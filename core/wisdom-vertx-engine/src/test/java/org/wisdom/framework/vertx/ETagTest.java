@@ -0,0 +1,382 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2015 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.vertx.core.http.HttpServerRequest;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.wisdom.api.Controller;
+import org.wisdom.api.DefaultController;
+import org.wisdom.api.configuration.ApplicationConfiguration;
+import org.wisdom.api.exceptions.ExceptionMapper;
+import org.wisdom.api.http.HeaderNames;
+import org.wisdom.api.http.HttpMethod;
+import org.wisdom.api.http.Request;
+import org.wisdom.api.http.Result;
+import org.wisdom.api.router.Route;
+import org.wisdom.api.router.RouteBuilder;
+import org.wisdom.api.router.Router;
+import org.wisdom.framework.vertx.cache.ETagGenerator;
+import org.wisdom.framework.vertx.compression.CompressionPolicy;
+import org.wisdom.test.parents.FakeConfiguration;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks the entity tags computed by the server and the {@literal 304 - Not Modified} responses, and compares the
+ * bandwidth and the latency of a client polling a 200KB JSON document with and without {@literal If-None-Match}.
+ */
+public class ETagTest extends VertxBaseTest {
+
+    private WisdomVertxServer wisdom;
+    private AtomicInteger invocations = new AtomicInteger();
+    private Server server;
+    private String document;
+
+    @Before
+    public void setUp() throws InterruptedException {
+        ApplicationConfiguration configuration = mock(ApplicationConfiguration.class);
+        when(configuration.getIntegerWithDefault(eq("vertx.http.port"), anyInt())).thenReturn(0);
+        when(configuration.getIntegerWithDefault(eq("vertx.https.port"), anyInt())).thenReturn(-1);
+        when(configuration.getIntegerWithDefault("request.body.max.size", 100 * 1024)).thenReturn(100 * 1024);
+        when(configuration.getIntegerWithDefault("vertx.acceptBacklog", -1)).thenReturn(-1);
+        when(configuration.getIntegerWithDefault("vertx.receiveBufferSize", -1)).thenReturn(-1);
+        when(configuration.getIntegerWithDefault("vertx.sendBufferSize", -1)).thenReturn(-1);
+        when(configuration.getStringArray("wisdom.websocket.subprotocols")).thenReturn(new String[0]);
+        when(configuration.getStringArray("vertx.websocket-subprotocols")).thenReturn(new String[0]);
+        when(configuration.getBaseDir()).thenReturn(new File("target/junk/server/conf"));
+        when(configuration.getConfiguration("vertx.servers")).thenReturn(new FakeConfiguration(
+                Collections.<String, Object>emptyMap()));
+        // Compression of the text responses only, with a non-default level, so the engine passes the level to the
+        // compressor in a header. The JSON responses are sent as is.
+        when(configuration.getBooleanWithDefault("vertx.compression", true)).thenReturn(true);
+        when(configuration.getBytes(eq(ApplicationConfiguration.ENCODING_MIN_SIZE), anyLong())).thenReturn(10L);
+        when(configuration.getBytes(eq(ApplicationConfiguration.ENCODING_MAX_SIZE), anyLong()))
+                .thenReturn(1024L * 1024L);
+        when(configuration.getConfiguration("vertx.compression-policy")).thenReturn(new FakeConfiguration(
+                ImmutableMap.<String, Object>of("level", 5, "mime-types", ImmutableList.of("text/*"))));
+
+        // A 200KB JSON document.
+        StringBuilder builder = new StringBuilder("[");
+        int i = 0;
+        while (builder.length() < 200 * 1024) {
+            builder.append("{\"id\":").append(i).append(",\"name\":\"item-")
+                    .append(Integer.toHexString(i * 31)).append("\"},");
+            i++;
+        }
+        builder.setLength(builder.length() - 1);
+        document = builder.append(']').toString();
+
+        Router router = mock(Router.class);
+        Controller controller = new DefaultController() {
+            @SuppressWarnings("unused")
+            public Result document() {
+                invocations.incrementAndGet();
+                return ok(document).json();
+            }
+
+            @SuppressWarnings("unused")
+            public Result counter() {
+                return ok(String.valueOf(invocations.incrementAndGet()));
+            }
+
+            @SuppressWarnings("unused")
+            public Result text() {
+                return ok("compressible");
+            }
+
+            @SuppressWarnings("unused")
+            public Result tagged() {
+                invocations.incrementAndGet();
+                return ok("tagged").with(HeaderNames.ETAG, "\"v1\"");
+            }
+        };
+        Route json = new RouteBuilder().route(HttpMethod.GET).on("/api/document").to(controller, "document");
+        Route cached = new RouteBuilder().route(HttpMethod.GET).on("/api/cached").to(controller, "document");
+        Route counter = new RouteBuilder().route(HttpMethod.GET).on("/api/counter").to(controller, "counter");
+        Route text = new RouteBuilder().route(HttpMethod.GET).on("/api/text").to(controller, "text");
+        Route tagged = new RouteBuilder().route(HttpMethod.GET).on("/api/tagged").to(controller, "tagged");
+        Route other = new RouteBuilder().route(HttpMethod.GET).on("/other").to(controller, "document");
+        when(router.getRouteFor(anyString(), eq("/api/document"), any(Request.class))).thenReturn(json);
+        when(router.getRouteFor(anyString(), eq("/api/cached"), any(Request.class))).thenReturn(cached);
+        when(router.getRouteFor(anyString(), eq("/api/counter"), any(Request.class))).thenReturn(counter);
+        when(router.getRouteFor(anyString(), eq("/api/tagged"), any(Request.class))).thenReturn(tagged);
+        when(router.getRouteFor(anyString(), eq("/api/text"), any(Request.class))).thenReturn(text);
+        when(router.getRouteFor(anyString(), eq("/other"), any(Request.class))).thenReturn(other);
+
+        wisdom = new WisdomVertxServer();
+        wisdom.configuration = configuration;
+        wisdom.vertx = vertx;
+        wisdom.accessor = new ServiceAccessor(
+                null,
+                configuration,
+                router,
+                getMockContentEngine(),
+                executor,
+                null,
+                Collections.<ExceptionMapper>emptyList()
+        );
+
+        server = Server.from(wisdom.accessor, vertx, "tagged", new FakeConfiguration(
+                ImmutableMap.<String, Object>of(
+                        "port", 0,
+                        "etag", new FakeConfiguration(ImmutableMap.<String, Object>of(
+                                "paths", ImmutableList.of("/api/*"))),
+                        "micro-cache", new FakeConfiguration(ImmutableMap.<String, Object>of(
+                                "paths", ImmutableList.of("/api/cached"),
+                                "ttl", 60000L)))));
+        wisdom.servers.add(server);
+        wisdom.start();
+        int attempt = 0;
+        while (server.port() == 0 && attempt < 100) {
+            Thread.sleep(100);
+            attempt++;
+        }
+        assertThat(server.port()).isPositive();
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(wisdom.servers.size());
+        for (Server s : wisdom.servers) {
+            s.close(ar -> latch.countDown());
+        }
+        latch.await(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testConfiguration() {
+        assertThat(ETagGenerator.create(null)).isNull();
+        assertThat(ETagGenerator.create(new FakeConfiguration(Collections.<String, Object>emptyMap()))).isNull();
+        assertThat(server.getETagGenerator()).isNotNull();
+        assertThat(Server.defaultHttp(wisdom.accessor, vertx).getETagGenerator()).isNull();
+    }
+
+    @Test
+    public void testETagAndNotModified() throws Exception {
+        HttpURLConnection connection = get("/api/document", null);
+        assertThat(connection.getResponseCode()).isEqualTo(200);
+        String etag = connection.getHeaderField(HeaderNames.ETAG);
+        assertThat(etag).startsWith("\"").endsWith("\"");
+        assertThat(IOUtils.toString(connection.getInputStream())).isEqualTo(document);
+
+        // Same content, same tag.
+        assertThat(get("/api/document", null).getHeaderField(HeaderNames.ETAG)).isEqualTo(etag);
+
+        connection = get("/api/document", etag);
+        assertThat(connection.getResponseCode()).isEqualTo(304);
+        assertThat(connection.getHeaderField(HeaderNames.ETAG)).isEqualTo(etag);
+        assertThat(get("/api/document", "\"other\", " + etag).getResponseCode()).isEqualTo(304);
+        assertThat(get("/api/document", "W/" + etag).getResponseCode()).isEqualTo(304);
+        assertThat(get("/api/document", "*").getResponseCode()).isEqualTo(304);
+
+        connection = get("/api/document", "\"other\"");
+        assertThat(connection.getResponseCode()).isEqualTo(200);
+        assertThat(IOUtils.toString(connection.getInputStream())).isEqualTo(document);
+    }
+
+    @Test
+    public void testTheTagChangesWithTheContent() throws Exception {
+        String first = get("/api/counter", null).getHeaderField(HeaderNames.ETAG);
+        String second = get("/api/counter", null).getHeaderField(HeaderNames.ETAG);
+        assertThat(first).isNotNull().isNotEqualTo(second);
+        assertThat(get("/api/counter", first).getResponseCode()).isEqualTo(200);
+    }
+
+    @Test
+    public void testTagsSetByTheActionAndUnconfiguredPaths() throws Exception {
+        HttpURLConnection connection = get("/api/tagged", null);
+        assertThat(connection.getHeaderField(HeaderNames.ETAG)).isEqualTo("\"v1\"");
+        // The engine does not compute tags for this response, so it does not check them either.
+        assertThat(get("/api/tagged", "\"v1\"").getResponseCode()).isEqualTo(200);
+
+        assertThat(get("/other", null).getHeaderField(HeaderNames.ETAG)).isNull();
+        assertThat(get("/other", "*").getResponseCode()).isEqualTo(200);
+    }
+
+    @Test
+    public void testNotModifiedFromTheMicroCache() throws Exception {
+        String etag = get("/api/cached", null).getHeaderField(HeaderNames.ETAG);
+        assertThat(etag).isNotNull();
+        assertThat(invocations.get()).isEqualTo(1);
+
+        // Answered from the cache: the action is not invoked, and the body is not sent.
+        assertThat(get("/api/cached", etag).getResponseCode()).isEqualTo(304);
+        HttpURLConnection connection = get("/api/cached", "\"other\"");
+        assertThat(connection.getResponseCode()).isEqualTo(200);
+        assertThat(connection.getHeaderField(HeaderNames.ETAG)).isEqualTo(etag);
+        assertThat(invocations.get()).isEqualTo(1);
+        assertThat(server.getMicroCache().getHits()).isEqualTo(2);
+    }
+
+    @Test
+    public void testNotModifiedResponsesDoNotExposeTheCompressionHeaders() throws Exception {
+        // Compressed with the configured level.
+        HttpURLConnection connection = get("/api/text", null);
+        assertThat(connection.getResponseCode()).isEqualTo(200);
+        assertThat(connection.getHeaderField(CompressionPolicy.LEVEL_HEADER)).isNull();
+        connection = get("/api/text", connection.getHeaderField(HeaderNames.ETAG));
+        assertThat(connection.getResponseCode()).isEqualTo(304);
+        assertThat(connection.getHeaderField(CompressionPolicy.LEVEL_HEADER)).isNull();
+
+        // Not compressed, computed by the action, then answered from the micro-cache.
+        String etag = get("/api/document", null).getHeaderField(HeaderNames.ETAG);
+        for (String path : new String[]{"/api/document", "/api/cached", "/api/cached"}) {
+            connection = get(path, etag);
+            assertThat(connection.getResponseCode()).isEqualTo(304);
+            assertThat(connection.getHeaderField(CompressionPolicy.LEVEL_HEADER)).isNull();
+            assertThat(connection.getHeaderField(HeaderNames.X_WISDOM_DISABLED_ENCODING_HEADER)).isNull();
+        }
+    }
+
+    @Test
+    public void testResponsesThatMayBeCompressedGetAWeakTag() throws Exception {
+        HttpURLConnection connection = get("/api/text", null);
+        connection.setRequestProperty(HeaderNames.ACCEPT_ENCODING, "gzip");
+        String weak = connection.getHeaderField(HeaderNames.ETAG);
+        assertThat(weak).startsWith("W/\"");
+        // The gzip and identity representations share the same weak tag.
+        assertThat(get("/api/text", null).getHeaderField(HeaderNames.ETAG)).isEqualTo(weak);
+
+        // If-None-Match uses the weak comparison.
+        assertThat(get("/api/text", weak).getResponseCode()).isEqualTo(304);
+        assertThat(get("/api/text", weak.substring(2)).getResponseCode()).isEqualTo(304);
+
+        // The JSON responses are never compressed, their tag is strong.
+        assertThat(get("/api/document", null).getHeaderField(HeaderNames.ETAG)).startsWith("\"");
+    }
+
+    @Test
+    public void testPathsMatchLiterallyExceptTheWildcards() {
+        ETagGenerator generator = new ETagGenerator(ImmutableList.of("/v1+json/*", "/docs(1)?"));
+        assertThat(generator.isApplicable(request("/v1+json/items"))).isTrue();
+        assertThat(generator.isApplicable(request("/v1json/items"))).isFalse();
+        assertThat(generator.isApplicable(request("/v11json/items"))).isFalse();
+        assertThat(generator.isApplicable(request("/docs(1)?"))).isTrue();
+        assertThat(generator.isApplicable(request("/docs1"))).isFalse();
+        assertThat(generator.isApplicable(request("/docs"))).isFalse();
+    }
+
+    private static HttpServerRequest request(String path) {
+        HttpServerRequest request = mock(HttpServerRequest.class);
+        when(request.method()).thenReturn(io.vertx.core.http.HttpMethod.GET);
+        when(request.path()).thenReturn(path);
+        return request;
+    }
+
+    /**
+     * Polls the 200KB document on a persistent connection, with and without the tag of the previous response, and
+     * compares the received bytes and the latency.
+     */
+    @Test
+    public void testPollingBandwidthAndLatency() throws Exception {
+        // A timing comparison, only run in the 'benchmarks' profile.
+        assumeTrue(Boolean.getBoolean("benchmarks"));
+        int warmup = 200;
+        int count = 1000;
+        String etag = get("/api/document", null).getHeaderField(HeaderNames.ETAG);
+        long full = 0;
+        long fullBytes = 0;
+        long conditional = 0;
+        long conditionalBytes = 0;
+        try (Socket socket = new Socket("localhost", server.port())) {
+            socket.setTcpNoDelay(true);
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            for (int i = 0; i < warmup; i++) {
+                exchange(socket, in, null);
+                exchange(socket, in, etag);
+            }
+            for (int i = 0; i < count; i++) {
+                long begin = System.nanoTime();
+                fullBytes += exchange(socket, in, null);
+                full += System.nanoTime() - begin;
+                begin = System.nanoTime();
+                conditionalBytes += exchange(socket, in, etag);
+                conditional += System.nanoTime() - begin;
+            }
+        }
+        System.out.println("Polling a 200KB document - unconditional: " + fullBytes / count + " bytes, "
+                + full / count / 1000 + " us per request; with If-None-Match: " + conditionalBytes / count
+                + " bytes, " + conditional / count / 1000 + " us per request");
+        // On the loopback interface, the latency is dominated by the action, so only the bandwidth is checked.
+        assertThat(conditionalBytes * 100).isLessThan(fullBytes);
+    }
+
+    /**
+     * Sends a GET request on the given connection and reads the response.
+     *
+     * @return the number of bytes received
+     */
+    private static long exchange(Socket socket, InputStream in, String etag) throws IOException {
+        String request = "GET /api/document HTTP/1.1\r\nHost: localhost\r\n";
+        if (etag != null) {
+            request += HeaderNames.IF_NONE_MATCH + ": " + etag + "\r\n";
+        }
+        socket.getOutputStream().write((request + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        StringBuilder head = new StringBuilder();
+        while (!head.toString().endsWith("\r\n\r\n")) {
+            int c = in.read();
+            if (c == -1) {
+                throw new IOException("Connection closed");
+            }
+            head.append((char) c);
+        }
+        if (etag != null) {
+            // No body.
+            assertThat(head.toString()).startsWith("HTTP/1.1 304");
+            return head.length();
+        }
+        assertThat(head.toString()).startsWith("HTTP/1.1 200");
+        int index = head.indexOf("Content-Length: ") + "Content-Length: ".length();
+        int length = Integer.parseInt(head.substring(index, head.indexOf("\r\n", index)));
+        assertThat(IOUtils.skip(in, length)).isEqualTo(length);
+        return head.length() + length;
+    }
+
+    private HttpURLConnection get(String path, String etag) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + server.port() + path)
+                .openConnection();
+        if (etag != null) {
+            connection.setRequestProperty(HeaderNames.IF_NONE_MATCH, etag);
+        }
+        return connection;
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.wisdom.api.Controller;
+import org.wisdom.api.DefaultController;
+import org.wisdom.api.configuration.ApplicationConfiguration;
+import org.wisdom.api.exceptions.ExceptionMapper;
+import org.wisdom.api.http.AsyncResult;
+import org.wisdom.api.http.HttpMethod;
+import org.wisdom.api.http.Request;
+import org.wisdom.api.http.Result;
+import org.wisdom.api.router.Route;
+import org.wisdom.api.router.RouteBuilder;
+import org.wisdom.api.router.Router;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks that the responses of asynchronous results are written on the event loop of the connection, so the next
+ * requests received on a persistent connection are always handled.
+ */
+public class KeepAliveTest extends VertxBaseTest {
+
+    private static final int REQUESTS = 500;
+
+    private WisdomVertxServer server;
+
+    private ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    @Before
+    public void setUp() throws InterruptedException {
+        ApplicationConfiguration configuration = mock(ApplicationConfiguration.class);
+        when(configuration.getIntegerWithDefault(eq("vertx.http.port"), anyInt())).thenReturn(0);
+        when(configuration.getIntegerWithDefault(eq("vertx.https.port"), anyInt())).thenReturn(-1);
+        when(configuration.getIntegerWithDefault("vertx.acceptBacklog", -1)).thenReturn(-1);
+        when(configuration.getIntegerWithDefault("vertx.receiveBufferSize", -1)).thenReturn(-1);
+        when(configuration.getIntegerWithDefault("vertx.sendBufferSize", -1)).thenReturn(-1);
+        when(configuration.getStringArray("wisdom.websocket.subprotocols")).thenReturn(new String[0]);
+        when(configuration.getStringArray("vertx.websocket-subprotocols")).thenReturn(new String[0]);
+
+        Controller controller = new DefaultController() {
+            @SuppressWarnings("unused")
+            public Result callable() {
+                return async(() -> ok("callable"));
+            }
+
+            @SuppressWarnings("unused")
+            public Result stage() {
+                // Completed by a thread that is neither an event loop nor a thread of the executor.
+                CompletableFuture<Result> future = new CompletableFuture<>();
+                scheduler.execute(() -> future.complete(ok("stage")));
+                return new AsyncResult(future);
+            }
+        };
+        Router router = mock(Router.class);
+        Route callable = new RouteBuilder().route(HttpMethod.GET).on("/callable").to(controller, "callable");
+        Route stage = new RouteBuilder().route(HttpMethod.GET).on("/stage").to(controller, "stage");
+        when(router.getRouteFor(anyString(), eq("/callable"), any(Request.class))).thenReturn(callable);
+        when(router.getRouteFor(anyString(), eq("/stage"), any(Request.class))).thenReturn(stage);
+
+        server = new WisdomVertxServer();
+        server.configuration = configuration;
+        server.accessor = new ServiceAccessor(
+                null,
+                configuration,
+                router,
+                getMockContentEngine(),
+                executor,
+                null,
+                Collections.<ExceptionMapper>emptyList()
+        );
+        server.vertx = vertx;
+        server.start();
+
+        VertxHttpServerTest.waitForStart(server);
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+        if (server != null) {
+            server.stop();
+            server = null;
+        }
+    }
+
+    @Test
+    public void testAsyncResponsesOnAPersistentConnection() throws Exception {
+        try (Socket socket = new Socket("localhost", server.httpPort())) {
+            // A response that is never written, or a request that is never handled, fails the test instead of
+            // blocking it.
+            socket.setSoTimeout(5000);
+            socket.setTcpNoDelay(true);
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            for (int i = 0; i < REQUESTS; i++) {
+                assertThat(exchange(socket, in, "/callable")).isEqualTo("callable");
+                assertThat(exchange(socket, in, "/stage")).isEqualTo("stage");
+            }
+        }
+    }
+
+    /**
+     * Sends a GET request on the given connection and reads the response.
+     *
+     * @return the body of the response
+     */
+    private static String exchange(Socket socket, InputStream in, String path) throws IOException {
+        socket.getOutputStream().write(("GET " + path + " HTTP/1.1\r\nHost: localhost\r\n\r\n")
+                .getBytes(StandardCharsets.US_ASCII));
+        StringBuilder head = new StringBuilder();
+        while (!head.toString().endsWith("\r\n\r\n")) {
+            int c = in.read();
+            if (c == -1) {
+                throw new IOException("Connection closed");
+            }
+            head.append((char) c);
+        }
+        assertThat(head.toString()).startsWith("HTTP/1.1 200");
+        int index = head.indexOf("Content-Length: ") + "Content-Length: ".length();
+        int length = Integer.parseInt(head.substring(index, head.indexOf("\r\n", index)));
+        byte[] body = new byte[length];
+        IOUtils.readFully(in, body);
+        return new String(body, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2015 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx;
+
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpServerRequest;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.wisdom.api.DefaultController;
+import org.wisdom.api.http.Result;
+import org.wisdom.api.router.Route;
+import org.wisdom.api.router.RouteBuilder;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Compares the cost of reading the path parameters of a route declaring four parameters, when the parameters are
+ * extracted again from the path by the context, and when the parameters extracted by the router while matching the
+ * route are reused. Each parameter is read twice, as the binding of the action parameters and a template would do.
+ */
+public class PathParametersBenchmarkTest {
+
+    private static final String PATH = "/shop/books/java%20ee/2015/42";
+
+    private static final int WARMUP = 50000;
+    private static final int ITERATIONS = 200000;
+
+    @Rule
+    public RunOnVertxContext runOnVertxContext = new RunOnVertxContext();
+
+    private ServiceAccessor accessor;
+    private Route route;
+
+    @Before
+    public void setUp() {
+        accessor = mock(ServiceAccessor.class);
+        route = new RouteBuilder().route(org.wisdom.api.http.HttpMethod.GET)
+                .on("/shop/{category}/{topic}/{year}/{id}")
+                .to(new DefaultController() {
+                    @SuppressWarnings("unused")
+                    public Result index() {
+                        return ok();
+                    }
+                }, "index");
+    }
+
+    @Test
+    public void testReuseOfTheParametersExtractedByTheRouter() {
+        Vertx vertx = runOnVertxContext.vertx();
+        HttpServerRequest request = RequestFromVertXTest.create(
+                new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, PATH));
+
+        for (int i = 0; i < WARMUP; i++) {
+            extractAgain(vertx, request);
+            reuse(vertx, request);
+        }
+
+        long begin = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            extractAgain(vertx, request);
+        }
+        long again = System.nanoTime() - begin;
+
+        begin = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            reuse(vertx, request);
+        }
+        long reused = System.nanoTime() - begin;
+
+        System.out.println("Path parameters - extracted again: " + again / ITERATIONS + " ns/request, reused: "
+                + reused / ITERATIONS + " ns/request");
+        // Reusing the match result saves the second evaluation of the route regex.
+        assertThat(reused).isLessThan(again);
+    }
+
+    /**
+     * The router only checks whether the route matches, so the context extracts the parameters from the path.
+     */
+    private void extractAgain(Vertx vertx, HttpServerRequest request) {
+        ContextFromVertx context = new ContextFromVertx(vertx, vertx.getOrCreateContext(), accessor, request);
+        if (!route.matches(org.wisdom.api.http.HttpMethod.GET, PATH)) {
+            throw new AssertionError("The route should match");
+        }
+        context.route(route);
+        read(context);
+    }
+
+    /**
+     * The router extracts the parameters while matching the route, and hands them to the request.
+     */
+    private void reuse(Vertx vertx, HttpServerRequest request) {
+        ContextFromVertx context = new ContextFromVertx(vertx, vertx.getOrCreateContext(), accessor, request);
+        Map<String, String> parameters = route.match(org.wisdom.api.http.HttpMethod.GET, PATH);
+        if (parameters == null) {
+            throw new AssertionError("The route should match");
+        }
+        context.request().pathParameters(parameters);
+        context.route(route);
+        read(context);
+    }
+
+    private void read(ContextFromVertx context) {
+        for (int i = 0; i < 2; i++) {
+            if (!"books".equals(context.parameterFromPath("category"))
+                    || !"java ee".equals(context.parameterFromPath("topic"))
+                    || context.parameterFromPathAsInteger("year") != 2015
+                    || context.parameterFromPathAsInteger("id") != 42) {
+                throw new AssertionError("Unexpected path parameters");
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2015 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx;
+
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpServerRequest;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.wisdom.api.DefaultController;
+import org.wisdom.api.http.Result;
+import org.wisdom.api.http.Results;
+import org.wisdom.api.router.Route;
+import org.wisdom.api.router.RouteBuilder;
+
+import java.lang.management.ManagementFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Measures the memory allocated by the engine to handle a minimal GET request: creation of the context and request,
+ * path, path and query parameters, flash and session handling and cleanup. The network layer and the action method
+ * are not included.
+ * <p>
+ * This test is a regression guard, run in the 'benchmarks' profile: if it fails, a change has added transient objects
+ * on the request path.
+ */
+public class RequestAllocationBenchmarkTest {
+
+    /**
+     * The allocation budget per request, in bytes.
+     */
+    private static final long BUDGET = 1024;
+
+    private static final int WARMUP = 50000;
+    private static final int ITERATIONS = 100000;
+
+    @Rule
+    public RunOnVertxContext runOnVertxContext = new RunOnVertxContext();
+
+    private ServiceAccessor accessor;
+    private Route route;
+    private Result result;
+
+    @Before
+    public void setUp() {
+        accessor = mock(ServiceAccessor.class);
+        route = new RouteBuilder().route(org.wisdom.api.http.HttpMethod.GET)
+                .on("/hello/{name}")
+                .to(new DefaultController() {
+                    @SuppressWarnings("unused")
+                    public Result index() {
+                        return ok();
+                    }
+                }, "index");
+        result = Results.ok();
+    }
+
+    @Test
+    public void testAllocationPerRequest() {
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!bean.isThreadAllocatedMemorySupported()) {
+            return;
+        }
+        bean.setThreadAllocatedMemoryEnabled(true);
+
+        Vertx vertx = runOnVertxContext.vertx();
+        io.vertx.core.Context context = vertx.getOrCreateContext();
+        // The Vert.x request is reused, so only the Wisdom layer is measured.
+        HttpServerRequest request = RequestFromVertXTest.create(
+                new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/hello/wisdom?q=1"));
+
+        for (int i = 0; i < WARMUP; i++) {
+            handle(vertx, context, request);
+        }
+
+        long tid = Thread.currentThread().getId();
+        long before = bean.getThreadAllocatedBytes(tid);
+        for (int i = 0; i < ITERATIONS; i++) {
+            handle(vertx, context, request);
+        }
+        long perRequest = (bean.getThreadAllocatedBytes(tid) - before) / ITERATIONS;
+
+        System.out.println("Allocated " + perRequest + " bytes per request (budget: " + BUDGET + " bytes)");
+        assertThat(perRequest).isLessThanOrEqualTo(BUDGET);
+    }
+
+    private void handle(Vertx vertx, io.vertx.core.Context vertxContext, HttpServerRequest request) {
+        ContextFromVertx context = new ContextFromVertx(vertx, vertxContext, accessor, request);
+        RequestFromVertx req = (RequestFromVertx) context.request();
+        req.setRawBody(new AggregatedBody());
+        context.route(route);
+        if (!context.ready()
+                || !"/hello/wisdom".equals(context.path())
+                || !"wisdom".equals(context.parameterFromPath("name"))
+                || !"1".equals(context.parameter("q"))) {
+            throw new AssertionError("Unexpected request data");
+        }
+        context.saveFlashAndSession(result);
+        context.cleanup();
+    }
+}
@@ -0,0 +1,342 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.wisdom.api.Controller;
+import org.wisdom.api.DefaultController;
+import org.wisdom.api.concurrent.ExecutionContextService;
+import org.wisdom.api.concurrent.ManagedExecutorService;
+import org.wisdom.api.configuration.ApplicationConfiguration;
+import org.wisdom.api.exceptions.ExceptionMapper;
+import org.wisdom.api.http.HttpMethod;
+import org.wisdom.api.http.Request;
+import org.wisdom.api.http.Result;
+import org.wisdom.api.router.Route;
+import org.wisdom.api.router.RouteBuilder;
+import org.wisdom.api.router.Router;
+import org.wisdom.executors.ManagedExecutorServiceImpl;
+import org.wisdom.executors.context.HttpExecutionContextService;
+import org.wisdom.test.parents.FakeConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks that a server with dedicated event loops, executor and admission limit is not affected by the load of
+ * another server.
+ */
+public class ServerIsolationTest extends VertxBaseTest {
+
+    /**
+     * The latency objective of the admin server, in milliseconds.
+     */
+    private static final long SLO = 250;
+
+    /**
+     * How long the slow action blocks the event loop, in milliseconds.
+     */
+    private static final long SLOW = 100;
+
+    private WisdomVertxServer wisdom;
+    private Router router;
+    private ManagedExecutorService adminExecutor;
+
+    @Before
+    public void setUp() {
+        ApplicationConfiguration configuration = mock(ApplicationConfiguration.class);
+        when(configuration.getIntegerWithDefault(eq("vertx.http.port"), anyInt())).thenReturn(0);
+        when(configuration.getIntegerWithDefault(eq("vertx.https.port"), anyInt())).thenReturn(-1);
+        when(configuration.getIntegerWithDefault("request.body.max.size", 100 * 1024)).thenReturn(100 * 1024);
+        when(configuration.getIntegerWithDefault("vertx.acceptBacklog", -1)).thenReturn(-1);
+        when(configuration.getIntegerWithDefault("vertx.receiveBufferSize", -1)).thenReturn(-1);
+        when(configuration.getIntegerWithDefault("vertx.sendBufferSize", -1)).thenReturn(-1);
+        when(configuration.getStringArray("wisdom.websocket.subprotocols")).thenReturn(new String[0]);
+        when(configuration.getStringArray("vertx.websocket-subprotocols")).thenReturn(new String[0]);
+        when(configuration.getBaseDir()).thenReturn(new File("target/junk/server/conf"));
+        when(configuration.getConfiguration("vertx.servers")).thenReturn(new FakeConfiguration(
+                Collections.<String, Object>emptyMap()));
+
+        router = mock(Router.class);
+        Controller controller = new DefaultController() {
+            @SuppressWarnings("unused")
+            public Result slow() throws InterruptedException {
+                // Blocks the event loop.
+                Thread.sleep(SLOW);
+                return ok("slow");
+            }
+
+            @SuppressWarnings("unused")
+            public Result health() {
+                return ok("ok");
+            }
+
+            @SuppressWarnings("unused")
+            public Result thread() {
+                return ok(Thread.currentThread().getName());
+            }
+
+            @SuppressWarnings("unused")
+            public Result background() {
+                return async(() -> {
+                    Thread.sleep(300);
+                    return ok(Thread.currentThread().getName());
+                });
+            }
+        };
+        Route slow = new RouteBuilder().route(HttpMethod.GET).on("/slow").to(controller, "slow");
+        Route health = new RouteBuilder().route(HttpMethod.GET).on("/health").to(controller, "health");
+        Route background = new RouteBuilder().route(HttpMethod.GET).on("/async").to(controller, "background");
+        Route thread = new RouteBuilder().route(HttpMethod.GET).on("/thread").to(controller, "thread");
+        when(router.getRouteFor(anyString(), eq("/slow"), any(Request.class))).thenReturn(slow);
+        when(router.getRouteFor(anyString(), eq("/health"), any(Request.class))).thenReturn(health);
+        when(router.getRouteFor(anyString(), eq("/async"), any(Request.class))).thenReturn(background);
+        when(router.getRouteFor(anyString(), eq("/thread"), any(Request.class))).thenReturn(thread);
+
+        wisdom = new WisdomVertxServer();
+        wisdom.configuration = configuration;
+        wisdom.vertx = vertx;
+        wisdom.accessor = new ServiceAccessor(
+                null,
+                configuration,
+                router,
+                getMockContentEngine(),
+                executor,
+                null,
+                Collections.<ExceptionMapper>emptyList()
+        );
+
+        adminExecutor = new ManagedExecutorServiceImpl("admin-executor",
+                new FakeConfiguration(Collections.<String, Object>emptyMap()),
+                ImmutableList.<ExecutionContextService>of(new HttpExecutionContextService()));
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        // Wait until the servers are closed, so the dedicated vert.x instances are closed too.
+        CountDownLatch latch = new CountDownLatch(wisdom.servers.size());
+        for (Server server : wisdom.servers) {
+            server.close(ar -> latch.countDown());
+        }
+        latch.await(10, TimeUnit.SECONDS);
+        if (adminExecutor != null) {
+            adminExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testConfiguration() {
+        Server server = Server.from(wisdom.accessor, vertx, "admin", new FakeConfiguration(
+                ImmutableMap.<String, Object>of(
+                        "port", 0,
+                        "event-loops", 2,
+                        "executor", "admin-executor",
+                        "max-concurrent-requests", 10)));
+        assertThat(server.getEventLoops()).isEqualTo(2);
+        assertThat(server.getExecutorName()).isEqualTo("admin-executor");
+        assertThat(server.getMaxConcurrentRequests()).isEqualTo(10);
+        // The executor is not resolved yet.
+        assertThat(server.executor()).isSameAs(executor);
+
+        server = Server.from(wisdom.accessor, vertx, "public", new FakeConfiguration(
+                ImmutableMap.<String, Object>of("port", 0)));
+        assertThat(server.getEventLoops()).isEqualTo(0);
+        assertThat(server.getExecutorName()).isNull();
+        assertThat(server.getMaxConcurrentRequests()).isEqualTo(0);
+        assertThat(server.admit()).isTrue();
+    }
+
+    @Test
+    public void testAdminLatencyWhilePublicServerIsSaturated() throws Exception {
+        // A timing comparison, only run in the 'benchmarks' profile.
+        assumeTrue(Boolean.getBoolean("benchmarks"));
+        Server main = server("public", ImmutableMap.<String, Object>of("port", 0));
+        Server admin = server("admin", ImmutableMap.<String, Object>of("port", 0, "event-loops", 1));
+        start(main, admin);
+
+        // Saturate the public server: every slow request blocks its event loop.
+        int clients = 16;
+        int requests = 3;
+        CountDownLatch done = new CountDownLatch(clients);
+        for (int i = 0; i < clients; i++) {
+            this.clients.submit(() -> {
+                try {
+                    for (int j = 0; j < requests; j++) {
+                        get(main.port(), "/slow");
+                    }
+                } catch (IOException e) {
+                    // Ignored, the latency of the admin server is what matters.
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        Thread.sleep(SLOW * 2);
+
+        // Meanwhile, the health checks of the admin server are answered on its own event loop.
+        Future<Long> shared = clients(() -> time(main.port(), "/health"));
+        List<Long> latencies = new ArrayList<>();
+        while (done.getCount() > 0 && latencies.size() < 100) {
+            latencies.add(time(admin.port(), "/health"));
+            Thread.sleep(10);
+        }
+        assertThat(done.await(60, TimeUnit.SECONDS)).isTrue();
+
+        Collections.sort(latencies);
+        long max = latencies.get(latencies.size() - 1);
+        System.out.println("Admin health check latency - median: " + latencies.get(latencies.size() / 2)
+                + " ms, max: " + max + " ms over " + latencies.size() + " requests. Public health check latency: "
+                + shared.get() + " ms");
+        assertThat(latencies.size()).isGreaterThan(5);
+        assertThat(max).isLessThan(SLO);
+        // The same health check on the saturated server is queued behind the slow requests.
+        assertThat(shared.get()).isGreaterThan(max);
+    }
+
+    @Test
+    public void testAdmissionLimitAndExecutor() throws Exception {
+        Server admin = server("admin", ImmutableMap.<String, Object>of("port", 0, "event-loops", 1,
+                "max-concurrent-requests", 2));
+        admin.setExecutor(adminExecutor);
+        start(admin);
+
+        int count = 6;
+        List<Future<String>> responses = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            responses.add(clients(() -> {
+                HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + admin.port()
+                        + "/async").openConnection();
+                int status = connection.getResponseCode();
+                if (status == 200) {
+                    return org.apache.commons.io.IOUtils.toString(connection.getInputStream());
+                }
+                assertThat(connection.getHeaderField("Retry-After")).isEqualTo("1");
+                return Integer.toString(status);
+            }));
+        }
+
+        int ok = 0;
+        int rejected = 0;
+        for (Future<String> response : responses) {
+            String result = response.get(30, TimeUnit.SECONDS);
+            if (result.equals("503")) {
+                rejected++;
+            } else {
+                // The asynchronous result is computed by the executor of the server.
+                assertThat(result).startsWith("admin-executor");
+                ok++;
+            }
+        }
+        assertThat(ok + rejected).isEqualTo(count);
+        assertThat(ok).isBetween(2, count - 1);
+        assertThat(admin.getRejectedRequests()).isEqualTo(rejected);
+
+        // The slots are released once the responses are written.
+        int attempt = 0;
+        while (admin.getInFlightRequests() > 0 && attempt < 50) {
+            Thread.sleep(20);
+            attempt++;
+        }
+        assertThat(admin.getInFlightRequests()).isZero();
+        assertThat(clients(() -> get(admin.port(), "/async")).get(30, TimeUnit.SECONDS)).isEqualTo(200);
+    }
+
+    @Test
+    public void testConnectionsAreDistributedAmongTheDedicatedEventLoops() throws Exception {
+        Server admin = server("admin", ImmutableMap.<String, Object>of("port", 0, "event-loops", 2));
+        start(admin);
+
+        Set<String> threads = new HashSet<>();
+        for (int i = 0; i < 20; i++) {
+            HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + admin.port()
+                    + "/thread").openConnection();
+            // A new connection per request, so vert.x picks the server instance, and so the event loop, each time.
+            connection.setRequestProperty("Connection", "close");
+            try {
+                assertThat(connection.getResponseCode()).isEqualTo(200);
+                threads.add(org.apache.commons.io.IOUtils.toString(connection.getInputStream()));
+            } finally {
+                connection.disconnect();
+            }
+        }
+        assertThat(threads).hasSize(2);
+    }
+
+    private Server server(String name, ImmutableMap<String, Object> configuration) {
+        Server server = Server.from(wisdom.accessor, vertx, name, new FakeConfiguration(configuration));
+        wisdom.servers.add(server);
+        return server;
+    }
+
+    private void start(Server... servers) throws InterruptedException {
+        wisdom.start();
+        for (Server server : servers) {
+            int attempt = 0;
+            while (server.port() == 0 && attempt < 100) {
+                Thread.sleep(100);
+                attempt++;
+            }
+            assertThat(server.port()).isPositive();
+        }
+    }
+
+    private <T> Future<T> clients(java.util.concurrent.Callable<T> task) {
+        return this.clients.submit(task);
+    }
+
+    private static int get(int port, String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + path)
+                .openConnection();
+        try {
+            return connection.getResponseCode();
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * @return the duration of the request in milliseconds.
+     */
+    private static long time(int port, String path) throws IOException {
+        long begin = System.nanoTime();
+        assertThat(get(port, path)).isEqualTo(200);
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2015 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.wisdom.api.configuration.ApplicationConfiguration;
+import org.wisdom.api.content.ContentEngine;
+import org.wisdom.api.exceptions.ExceptionMapper;
+import org.wisdom.api.router.Router;
+import org.wisdom.framework.vertx.ssl.AcceptAllTrustManager;
+import org.wisdom.framework.vertx.ssl.HandshakeMetrics;
+import org.wisdom.framework.vertx.ssl.TlsConfiguration;
+import org.wisdom.test.parents.FakeConfiguration;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLHandshakeException;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.TrustManager;
+import java.io.File;
+import java.io.IOException;
+import java.security.SecureRandom;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks the TLS settings of the servers, and demonstrates session resumption on a local HTTPS server using a
+ * self-signed certificate.
+ */
+public class TlsSessionTest extends VertxBaseTest {
+
+    private static final String PROTOCOL = "TLSv1.2";
+
+    private WisdomVertxServer wisdom;
+    private ApplicationConfiguration application;
+
+    @Before
+    public void setUp() {
+        wisdom = new WisdomVertxServer();
+
+        application = mock(ApplicationConfiguration.class);
+        when(application.getIntegerWithDefault(eq("vertx.http.port"), anyInt())).thenReturn(0);
+        when(application.getIntegerWithDefault(eq("vertx.https.port"), anyInt())).thenReturn(0);
+        when(application.getIntegerWithDefault("vertx.acceptBacklog", -1)).thenReturn(-1);
+        when(application.getIntegerWithDefault("vertx.receiveBufferSize", -1)).thenReturn(-1);
+        when(application.getIntegerWithDefault("vertx.sendBufferSize", -1)).thenReturn(-1);
+        when(application.getStringArray("wisdom.websocket.subprotocols")).thenReturn(new String[0]);
+        when(application.getStringArray("vertx.websocket-subprotocols")).thenReturn(new String[0]);
+        when(application.getBaseDir()).thenReturn(new File("target/junk/server/conf"));
+        when(application.getConfiguration("vertx.servers")).thenReturn(new FakeConfiguration(
+                Collections.<String, Object>emptyMap()));
+
+        // Self-signed server certificate.
+        File keystore = new File("src/test/resources/keystore/server/server.jks");
+        assertThat(keystore).isFile();
+        when(application.get("https.keyStore")).thenReturn(keystore.getAbsolutePath());
+        when(application.getWithDefault("https.keyStoreType", "JKS")).thenReturn("JKS");
+        when(application.getWithDefault("https.keyStorePassword", "")).thenReturn("wisdom");
+        when(application.getWithDefault("https.keyStoreAlgorithm", KeyManagerFactory.getDefaultAlgorithm()))
+                .thenReturn(KeyManagerFactory.getDefaultAlgorithm());
+        wisdom.configuration = application;
+        wisdom.vertx = vertx;
+
+        wisdom.accessor = new ServiceAccessor(
+                null,
+                application,
+                mock(Router.class),
+                mock(ContentEngine.class),
+                null,
+                null,
+                Collections.<ExceptionMapper>emptyList()
+        );
+    }
+
+    @After
+    public void tearDown() {
+        if (wisdom != null) {
+            wisdom.stop();
+        }
+    }
+
+    @Test
+    public void testConfiguration() {
+        TlsConfiguration tls = TlsConfiguration.from(new FakeConfiguration(ImmutableMap.<String, Object>of(
+                "protocols", ImmutableList.of("TLSv1.2"),
+                "ciphers", ImmutableList.of("TLS_ECDHE_RSA_WITH_AES_128_GCM_SHA256"),
+                "session-cache-size", 100,
+                "session-timeout", 60L)));
+        assertThat(tls.getProtocols()).containsExactly("TLSv1.2");
+        assertThat(tls.getCiphers()).containsExactly("TLS_ECDHE_RSA_WITH_AES_128_GCM_SHA256");
+        assertThat(tls.getSessionCacheSize()).isEqualTo(100);
+        assertThat(tls.getSessionTimeout()).isEqualTo(60);
+
+        TlsConfiguration defaults = TlsConfiguration.from(null);
+        assertThat(defaults.getProtocols()).isEmpty();
+        assertThat(defaults.getCiphers()).isEmpty();
+        assertThat(defaults.getSessionCacheSize()).isNegative();
+        assertThat(defaults.getSessionTimeout()).isNegative();
+    }
+
+    /**
+     * Connects several times with the same client context (so the client offers its cached session) and with fresh
+     * client contexts (so a full handshake is required), and checks the kind of the handshakes.
+     */
+    @Test
+    public void testSessionResumption() throws Exception {
+        Server server = startServer(ImmutableMap.<String, Object>of(
+                "protocols", ImmutableList.of(PROTOCOL),
+                "session-cache-size", 1000,
+                "session-timeout", 3600L));
+        HandshakeMetrics metrics = server.tls().getMetrics();
+
+        SSLContext shared = client();
+        handshake(shared, server.port());
+        awaitHandshakes(metrics, 1);
+
+        int count = 5;
+        for (int i = 0; i < count; i++) {
+            handshake(client(), server.port());
+            handshake(shared, server.port());
+        }
+        awaitHandshakes(metrics, 1 + 2 * count);
+
+        assertThat(metrics.getFailedHandshakes()).isZero();
+        assertThat(metrics.getFullHandshakes()).isEqualTo(1 + count);
+        assertThat(metrics.getResumedHandshakes()).isEqualTo(count);
+        assertThat(metrics.getMeanFullHandshakeTime()).isPositive();
+        assertThat(metrics.getMeanResumedHandshakeTime()).isPositive();
+    }
+
+    /**
+     * Reconnects right after the first handshake, so the resumed handshakes happen within the millisecond in which
+     * the session was created.
+     */
+    @Test
+    public void testFastReconnections() throws Exception {
+        Server server = startServer(ImmutableMap.<String, Object>of(
+                "protocols", ImmutableList.of(PROTOCOL)));
+        HandshakeMetrics metrics = server.tls().getMetrics();
+
+        SSLContext shared = client();
+        int count = 20;
+        for (int i = 0; i < 1 + count; i++) {
+            handshake(shared, server.port());
+        }
+        awaitHandshakes(metrics, 1 + count);
+
+        assertThat(metrics.getFailedHandshakes()).isZero();
+        assertThat(metrics.getFullHandshakes()).isEqualTo(1);
+        assertThat(metrics.getResumedHandshakes()).isEqualTo(count);
+    }
+
+    /**
+     * Compares the cost of the full and resumed handshakes.
+     */
+    @Test
+    public void testHandshakeTime() throws Exception {
+        // A timing comparison, only run in the 'benchmarks' profile.
+        assumeTrue(Boolean.getBoolean("benchmarks"));
+        Server server = startServer(ImmutableMap.<String, Object>of(
+                "protocols", ImmutableList.of(PROTOCOL),
+                "session-cache-size", 1000,
+                "session-timeout", 3600L));
+        HandshakeMetrics metrics = server.tls().getMetrics();
+
+        // Warm up both paths.
+        SSLContext shared = client();
+        for (int i = 0; i < 20; i++) {
+            handshake(client(), server.port());
+            handshake(shared, server.port());
+        }
+        awaitHandshakes(metrics, 40);
+
+        int count = 50;
+        long full = 0;
+        long resumed = 0;
+        for (int i = 0; i < count; i++) {
+            full += handshake(client(), server.port());
+            resumed += handshake(shared, server.port());
+        }
+        awaitHandshakes(metrics, 40 + 2 * count);
+
+        System.out.println("Client side mean handshake time - full: " + full / count / 1000 + " us, resumed: "
+                + resumed / count / 1000 + " us");
+        System.out.println("Server side handshake metrics - " + metrics);
+        // A resumed handshake skips the certificate and the key exchange.
+        assertThat(resumed).isLessThan(full);
+    }
+
+    @Test
+    public void testCipherRestriction() throws Exception {
+        Server server = startServer(ImmutableMap.<String, Object>of(
+                "protocols", ImmutableList.of(PROTOCOL),
+                "ciphers", ImmutableList.of("TLS_ECDHE_RSA_WITH_AES_128_GCM_SHA256")));
+
+        SSLSocket socket = (SSLSocket) client().getSocketFactory().createSocket("localhost", server.port());
+        try {
+            socket.setEnabledProtocols(new String[]{PROTOCOL});
+            socket.startHandshake();
+            assertThat(socket.getSession().getCipherSuite()).isEqualTo("TLS_ECDHE_RSA_WITH_AES_128_GCM_SHA256");
+        } finally {
+            socket.close();
+        }
+
+        socket = (SSLSocket) client().getSocketFactory().createSocket("localhost", server.port());
+        try {
+            socket.setEnabledProtocols(new String[]{PROTOCOL});
+            socket.setEnabledCipherSuites(new String[]{"TLS_ECDHE_RSA_WITH_AES_128_CBC_SHA256"});
+            socket.startHandshake();
+            throw new AssertionError("The handshake should have failed");
+        } catch (SSLHandshakeException e) {
+            // Expected.
+        } finally {
+            socket.close();
+        }
+
+        HandshakeMetrics metrics = server.tls().getMetrics();
+        awaitHandshakes(metrics, 2);
+        assertThat(metrics.getFullHandshakes()).isEqualTo(1);
+        assertThat(metrics.getFailedHandshakes()).isEqualTo(1);
+    }
+
+    private Server startServer(ImmutableMap<String, Object> tls) throws InterruptedException {
+        FakeConfiguration configuration = new FakeConfiguration(ImmutableMap.<String, Object>of(
+                "port", 0,
+                "ssl", true,
+                "tls", new FakeConfiguration(tls)));
+        Server server = Server.from(wisdom.accessor, vertx, "tls", configuration);
+        wisdom.servers.add(server);
+        wisdom.start();
+        waitForHttpsStart(wisdom);
+        return server;
+    }
+
+    private SSLContext client() throws Exception {
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(null, new TrustManager[]{new AcceptAllTrustManager()}, new SecureRandom());
+        return context;
+    }
+
+    /**
+     * @return the duration of the handshake in nanoseconds, as seen by the client.
+     */
+    private long handshake(SSLContext context, int port) throws IOException {
+        SSLSocket socket = (SSLSocket) context.getSocketFactory().createSocket("localhost", port);
+        try {
+            socket.setEnabledProtocols(new String[]{PROTOCOL});
+            long begin = System.nanoTime();
+            socket.startHandshake();
+            return System.nanoTime() - begin;
+        } finally {
+            socket.close();
+        }
+    }
+
+    /**
+     * Handshakes complete on the server asynchronously, wait until they are all counted.
+     */
+    private void awaitHandshakes(HandshakeMetrics metrics, long expected) throws InterruptedException {
+        int attempt = 0;
+        while (metrics.getFullHandshakes() + metrics.getResumedHandshakes() + metrics.getFailedHandshakes() < expected
+                && attempt < 100) {
+            Thread.sleep(50);
+            attempt++;
+        }
+    }
+}
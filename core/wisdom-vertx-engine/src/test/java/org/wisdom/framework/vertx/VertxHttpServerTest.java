@@ -33,12 +33,17 @@ import org.wisdom.api.router.RouteBuilder;
 import org.wisdom.api.router.Router;
 import org.wisdom.framework.vertx.ssl.SSLServerContext;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.*;
@@ -244,6 +249,80 @@ public class VertxHttpServerTest extends VertxBaseTest {
         assertThat(success).hasSize(num);
     }
 
+    @Test
+    public void testCompressedRequestBodies() throws InterruptedException, IOException {
+        Router router = prepareServer();
+
+        Controller controller = new DefaultController() {
+            @SuppressWarnings("unused")
+            public Result index() {
+                return ok(context().body())
+                        .with("X-Encoding", String.valueOf(context().header(HeaderNames.CONTENT_ENCODING)))
+                        .with("X-Length", String.valueOf(context().header(HeaderNames.CONTENT_LENGTH)));
+            }
+        };
+        Route route = new RouteBuilder().route(HttpMethod.POST)
+                .on("/")
+                .to(controller, "index");
+        when(router.getRouteFor(anyString(), anyString(), any(Request.class))).thenReturn(route);
+
+        server.start();
+        waitForStart(server);
+
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < 1000; i++) {
+            builder.append("{\"id\":").append(i).append("},");
+        }
+        String json = builder.append("{}]").toString();
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(gzip)) {
+            out.write(bytes);
+        }
+        HttpURLConnection connection = post(gzip.toByteArray(), "gzip");
+        assertThat(connection.getResponseCode()).isEqualTo(200);
+        assertThat(IOUtils.toString(connection.getInputStream(), StandardCharsets.UTF_8)).isEqualTo(json);
+        // The application sees the inflated body.
+        assertThat(connection.getHeaderField("X-Encoding")).isEqualTo("null");
+        assertThat(connection.getHeaderField("X-Length")).isEqualTo(Integer.toString(bytes.length));
+
+        ByteArrayOutputStream deflate = new ByteArrayOutputStream();
+        try (OutputStream out = new DeflaterOutputStream(deflate)) {
+            out.write(bytes);
+        }
+        connection = post(deflate.toByteArray(), "deflate");
+        assertThat(connection.getResponseCode()).isEqualTo(200);
+        assertThat(IOUtils.toString(connection.getInputStream(), StandardCharsets.UTF_8)).isEqualTo(json);
+
+        assertThat(post(bytes, "br").getResponseCode()).isEqualTo(Status.UNSUPPORTED_MEDIA_TYPE);
+        assertThat(post(bytes, "gzip").getResponseCode()).isEqualTo(Status.BAD_REQUEST);
+
+        // 10Mb of zeros, far beyond the 100Kb limit once inflated.
+        ByteArrayOutputStream bomb = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bomb)) {
+            out.write(new byte[10 * 1024 * 1024]);
+        }
+        assertThat(bomb.size()).isLessThan(100 * 1024);
+        assertThat(post(bomb.toByteArray(), "gzip").getResponseCode()).isEqualTo(Status.PAYLOAD_TOO_LARGE);
+    }
+
+    private HttpURLConnection post(byte[] body, String encoding) throws IOException {
+        URL url = new URL("http://localhost:" + server.httpPort() + "/");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty(HeaderNames.CONTENT_TYPE, MimeTypes.JSON);
+        connection.setRequestProperty(HeaderNames.CONTENT_ENCODING, encoding);
+        connection.setFixedLengthStreamingMode(body.length);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body);
+        } catch (IOException e) {
+            // The server may reject the request before reading the whole body.
+        }
+        return connection;
+    }
+
     private class Client implements Runnable {
         private final CountDownLatch startSignal;
         private final CountDownLatch doneSignal;
@@ -0,0 +1,219 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.vertx.core.Vertx;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+import org.wisdom.api.DefaultController;
+import org.wisdom.api.annotations.PathParameter;
+import org.wisdom.api.annotations.QueryParameter;
+import org.wisdom.api.annotations.Route;
+import org.wisdom.api.concurrent.ExecutionContextService;
+import org.wisdom.api.concurrent.ManagedExecutorService;
+import org.wisdom.api.configuration.ApplicationConfiguration;
+import org.wisdom.api.content.ParameterConverter;
+import org.wisdom.api.content.ParameterFactory;
+import org.wisdom.api.exceptions.ExceptionMapper;
+import org.wisdom.api.http.HttpMethod;
+import org.wisdom.api.http.Result;
+import org.wisdom.content.converters.ParamConverterEngine;
+import org.wisdom.content.jackson.JacksonSingleton;
+import org.wisdom.executors.ManagedExecutorServiceImpl;
+import org.wisdom.executors.context.HttpExecutionContextService;
+import org.wisdom.framework.vertx.warmup.WarmupReport;
+import org.wisdom.router.RequestRouter;
+import org.wisdom.test.parents.FakeConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures the latency of the first 1000 requests served after the start of the server, with and without warmup.
+ * Each measure runs in a new JVM, so the code is not already compiled by the JIT.
+ */
+public class WarmupBenchmarkTest {
+
+    private static final int REQUESTS = 1000;
+
+    private static final String RESULT = "RESULT ";
+
+    @Test
+    public void testFirstRequestsWithAndWithoutWarmup() throws Exception {
+        long[] cold = measure(false);
+        long[] warm = measure(true);
+        System.out.println("First " + REQUESTS + " requests without warmup: " + cold[0] / 1000 + " ms (p99: "
+                + cold[1] + " us), with warmup: " + warm[0] / 1000 + " ms (p99: " + warm[1] + " us)");
+        assertThat(warm[0]).isLessThan(cold[0]);
+    }
+
+    /**
+     * Starts a JVM running {@link #main(String[])}.
+     *
+     * @return the total and the 99th percentile of the latencies, in microseconds
+     */
+    private long[] measure(boolean warmup) throws Exception {
+        List<String> command = new ArrayList<>(Arrays.asList(
+                new File(System.getProperty("java.home"), "bin/java").getAbsolutePath(),
+                "-cp", System.getProperty("java.class.path")));
+        if (System.getProperty("logback.configurationFile") != null) {
+            command.add("-Dlogback.configurationFile=" + System.getProperty("logback.configurationFile"));
+        }
+        command.add(WarmupBenchmarkTest.class.getName());
+        command.add(Boolean.toString(warmup));
+        // The output goes to a file, so a stuck JVM does not block the test and the timeout applies.
+        File log = File.createTempFile("warmup", ".log");
+        try {
+            Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log).start();
+            if (!process.waitFor(2, TimeUnit.MINUTES)) {
+                process.destroyForcibly().waitFor();
+                throw new AssertionError("The benchmark did not complete in time: "
+                        + FileUtils.readFileToString(log, StandardCharsets.UTF_8));
+            }
+            return result(FileUtils.readFileToString(log, StandardCharsets.UTF_8));
+        } finally {
+            FileUtils.deleteQuietly(log);
+        }
+    }
+
+    private static long[] result(String output) {
+        for (String line : output.split("\n")) {
+            if (line.startsWith(RESULT)) {
+                String[] values = line.substring(RESULT.length()).trim().split(" ");
+                return new long[]{Long.parseLong(values[0]), Long.parseLong(values[1])};
+            }
+        }
+        throw new AssertionError("No result in the output of the benchmark: " + output);
+    }
+
+    /**
+     * Starts the server, with the warmup if the first argument is {@literal true}, and sends the first requests.
+     *
+     * @param args the arguments
+     * @throws Exception if the benchmark fails
+     */
+    public static void main(String[] args) throws Exception {
+        boolean warmup = Boolean.parseBoolean(args[0]);
+        Vertx vertx = Vertx.vertx();
+        ManagedExecutorService executor = new ManagedExecutorServiceImpl("test",
+                new FakeConfiguration(Collections.<String, Object>emptyMap()),
+                ImmutableList.<ExecutionContextService>of(new HttpExecutionContextService()));
+        WisdomVertxServer wisdom = start(vertx, executor, warmup);
+        try {
+            if (warmup) {
+                WarmupReport report = wisdom.getWarmupReport();
+                System.out.println("The " + report);
+            }
+            List<Long> latencies = new ArrayList<>();
+            long total = 0;
+            for (int i = 0; i < REQUESTS; i++) {
+                String uri = i % 2 == 0 ? "/api/items/" + i : "/api/search?q=item&page=" + i;
+                long begin = System.nanoTime();
+                get(wisdom.httpPort(), uri);
+                long latency = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - begin);
+                latencies.add(latency);
+                total += latency;
+            }
+            Collections.sort(latencies);
+            System.out.println(RESULT + total + " " + latencies.get(latencies.size() * 99 / 100));
+        } finally {
+            wisdom.stop();
+            executor.shutdownNow();
+            vertx.close();
+        }
+        System.exit(0);
+    }
+
+    private static WisdomVertxServer start(Vertx vertx, ManagedExecutorService executor, boolean warmup)
+            throws Exception {
+        ApplicationConfiguration configuration = mock(ApplicationConfiguration.class);
+        when(configuration.getIntegerWithDefault(eq("vertx.http.port"), anyInt())).thenReturn(0);
+        when(configuration.getIntegerWithDefault(eq("vertx.https.port"), anyInt())).thenReturn(-1);
+        when(configuration.getIntegerWithDefault("request.body.max.size", 100 * 1024)).thenReturn(100 * 1024);
+        when(configuration.getIntegerWithDefault("vertx.acceptBacklog", -1)).thenReturn(-1);
+        when(configuration.getIntegerWithDefault("vertx.receiveBufferSize", -1)).thenReturn(-1);
+        when(configuration.getIntegerWithDefault("vertx.sendBufferSize", -1)).thenReturn(-1);
+        when(configuration.getStringArray("wisdom.websocket.subprotocols")).thenReturn(new String[0]);
+        when(configuration.getStringArray("vertx.websocket-subprotocols")).thenReturn(new String[0]);
+        when(configuration.getBaseDir()).thenReturn(new File("target/junk/server/conf"));
+        if (warmup) {
+            when(configuration.getConfiguration("vertx.warmup")).thenReturn(new FakeConfiguration(
+                    ImmutableMap.<String, Object>of(
+                            "requests", ImmutableList.of("/api/items/42", "GET /api/search?q=warmup&page=1"),
+                            "iterations", 5000)));
+        }
+
+        JacksonSingleton json = new JacksonSingleton();
+        json.validate();
+        RequestRouter router = new RequestRouter();
+        router.setParameterConverterEngine(new ParamConverterEngine(
+                Collections.<ParameterConverter>emptyList(), Collections.<ParameterFactory>emptyList()));
+        router.bindController(new DefaultController() {
+            @Route(method = HttpMethod.GET, uri = "/api/items/{id}")
+            public Result item(@PathParameter("id") int id) {
+                return ok(json.newObject().put("id", id).put("name", "item-" + id).put("price", id * 1.5));
+            }
+
+            @Route(method = HttpMethod.GET, uri = "/api/search")
+            public Result search(@QueryParameter("q") String query, @QueryParameter("page") int page) {
+                return ok(json.toJson(ImmutableMap.of("query", query, "page", page, "items",
+                        ImmutableList.of(query + "-1", query + "-2"))));
+            }
+        });
+
+        WisdomVertxServer wisdom = new WisdomVertxServer();
+        wisdom.configuration = configuration;
+        wisdom.vertx = vertx;
+        wisdom.accessor = new ServiceAccessor(null, configuration, router, VertxBaseTest.getMockContentEngine(),
+                executor, null, Collections.<ExceptionMapper>emptyList());
+        wisdom.start();
+        // Wait until the server is bound, without sending requests.
+        long deadline = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(1);
+        while (wisdom.httpPort() <= 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(wisdom.httpPort()).isPositive();
+        return wisdom;
+    }
+
+    private static void get(int port, String uri) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + uri)
+                .openConnection();
+        assertThat(connection.getResponseCode()).isEqualTo(200);
+        IOUtils.toString(connection.getInputStream(), StandardCharsets.UTF_8);
+    }
+}
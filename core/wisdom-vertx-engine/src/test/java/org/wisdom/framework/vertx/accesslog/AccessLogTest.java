@@ -0,0 +1,183 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx.accesslog;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the access log format, rolling and concurrent recording.
+ */
+public class AccessLogTest {
+
+    private File root = new File("target/access-log");
+
+    @Before
+    public void setUp() throws IOException {
+        FileUtils.deleteQuietly(root);
+        FileUtils.forceMkdir(root);
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(root);
+    }
+
+    @Test
+    public void testCommonFormat() {
+        AccessLogFormat format = new AccessLogFormat("common");
+        StringBuilder builder = new StringBuilder();
+        format.format(entry(200, 1234), builder);
+        assertThat(builder.toString())
+                .startsWith("127.0.0.1 - - [")
+                .endsWith("] \"GET /foo?q=1 HTTP/1.1\" 200 1234");
+    }
+
+    @Test
+    public void testCombinedFormat() {
+        AccessLogFormat format = new AccessLogFormat("combined");
+        StringBuilder builder = new StringBuilder();
+        format.format(entry(404, 0), builder);
+        assertThat(builder.toString())
+                .endsWith("\"GET /foo?q=1 HTTP/1.1\" 404 - \"-\" \"curl/7.43.0\"");
+    }
+
+    @Test
+    public void testCustomFormat() {
+        AccessLogFormat format = new AccessLogFormat("%m %U %s %D %T 100%%");
+        StringBuilder builder = new StringBuilder();
+        format.format(entry(200, 10), builder);
+        assertThat(builder.toString()).isEqualTo("GET /foo?q=1 200 2500 2 100%");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownDirective() {
+        new AccessLogFormat("%z");
+    }
+
+    @Test
+    public void testWriteAndStop() throws IOException {
+        File file = new File(root, "access.log");
+        AccessLog log = new AccessLog(file, "%m %U %s", 0, 0, 16);
+        log.start();
+        for (int i = 0; i < 10; i++) {
+            assertThat(log.record(System.currentTimeMillis(), "127.0.0.1", "GET", "/" + i, "HTTP/1.1", 200, 10, 100,
+                    null, null)).isTrue();
+        }
+        log.stop();
+        List<String> lines = FileUtils.readLines(file, StandardCharsets.UTF_8);
+        assertThat(lines).hasSize(10);
+        assertThat(lines.get(0)).isEqualTo("GET /0 200");
+        assertThat(lines.get(9)).isEqualTo("GET /9 200");
+    }
+
+    @Test
+    public void testDropWhenFull() {
+        AccessLog log = new AccessLog(new File(root, "access.log"), "common", 0, 0, 4);
+        // Not started, so nothing is consumed.
+        for (int i = 0; i < log.capacity(); i++) {
+            assertThat(log.record(0, "h", "GET", "/", "HTTP/1.1", 200, 0, 0, null, null)).isTrue();
+        }
+        assertThat(log.record(0, "h", "GET", "/", "HTTP/1.1", 200, 0, 0, null, null)).isFalse();
+        assertThat(log.dropped()).isEqualTo(1);
+        // Once a batch is written, the slots are available again.
+        assertThat(log.writeBatch()).isEqualTo(log.capacity());
+        assertThat(log.record(0, "h", "GET", "/", "HTTP/1.1", 200, 0, 0, null, null)).isTrue();
+    }
+
+    @Test
+    public void testRolling() throws IOException {
+        File file = new File(root, "access.log");
+        RollingFileWriter writer = new RollingFileWriter(file, 100, 2);
+        byte[] line = "0123456789012345678901234567890123456789\n".getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < 10; i++) {
+            writer.write(line);
+        }
+        writer.close();
+        assertThat(file.length()).isLessThanOrEqualTo(100);
+        assertThat(new File(root, "access.log.1")).isFile();
+        assertThat(new File(root, "access.log.2")).isFile();
+        assertThat(new File(root, "access.log.3")).doesNotExist();
+    }
+
+    /**
+     * Records requests from 4 threads (simulating event loops), and checks that every request is either written or
+     * counted as dropped.
+     */
+    @Test
+    public void testConcurrentRecording() throws Exception {
+        File file = new File(root, "access.log");
+        AccessLog log = new AccessLog(file, "combined", 0, 0, 64);
+        log.start();
+
+        int threads = 4;
+        int perThread = 10000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch latch = new CountDownLatch(threads);
+        AtomicLong recorded = new AtomicLong();
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                long count = 0;
+                for (int i = 0; i < perThread; i++) {
+                    if (log.record(System.currentTimeMillis(), "127.0.0.1", "GET", "/foo", "HTTP/1.1", 200, 1024,
+                            250, null, "wrk")) {
+                        count++;
+                    }
+                }
+                recorded.addAndGet(count);
+                latch.countDown();
+            });
+        }
+        assertThat(latch.await(1, TimeUnit.MINUTES)).isTrue();
+        executor.shutdown();
+        log.stop();
+
+        assertThat(recorded.get() + log.dropped()).isEqualTo((long) threads * perThread);
+        assertThat(FileUtils.readLines(file, StandardCharsets.UTF_8)).hasSize((int) recorded.get());
+    }
+
+    private AccessLogEntry entry(int status, long bytes) {
+        AccessLogEntry entry = new AccessLogEntry();
+        entry.timestamp = System.currentTimeMillis();
+        entry.remote = "127.0.0.1";
+        entry.method = "GET";
+        entry.uri = "/foo?q=1";
+        entry.protocol = "HTTP/1.1";
+        entry.status = status;
+        entry.bytes = bytes;
+        entry.duration = 2500;
+        entry.userAgent = "curl/7.43.0";
+        return entry;
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2015 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx.compression;
+
+import com.google.common.collect.ImmutableList;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.*;
+import io.netty.util.ReferenceCountUtil;
+import io.vertx.core.http.impl.HttpChunkContentCompressor;
+import org.junit.Test;
+import org.wisdom.api.http.HeaderNames;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the throughput and the number of bytes written by the compressor used by the engine, for the different
+ * compression decisions taken by the {@link CompressionPolicy}. Each run keeps one thread busy compressing responses,
+ * as an event loop does when the CPU is the bottleneck.
+ */
+public class CompressionBenchmarkTest {
+
+    private static final long DURATION = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private static final byte[] JSON = json();
+
+    @Test
+    public void testPolicies() {
+        CompressionPolicy policy = new CompressionPolicy(CompressionPolicy.DEFAULT_LEVEL,
+                ImmutableList.of("text/*", "application/json"), 1, 0.7, 0.9);
+
+        // Warm up.
+        run("warmup", policy, 0.0, "application/json");
+        run("warmup", policy, 0.8, "application/json");
+
+        Stats normal = run("default level (idle)", policy, 0.0, "application/json");
+        Stats fast = run("fast level (busy)", policy, 0.8, "application/json");
+        Stats off = run("disabled (saturated)", policy, 0.95, "application/json");
+        Stats skipped = run("type not compressed", policy, 0.0, "application/octet-stream");
+
+        assertThat(normal.bytes).isLessThan(off.bytes);
+        assertThat(fast.bytes).isLessThan(off.bytes);
+        assertThat(normal.bytes).isLessThanOrEqualTo(fast.bytes);
+        assertThat(skipped.bytes).isEqualTo(off.bytes);
+        // Not compressing is much cheaper than compressing, whatever the level.
+        assertThat(off.throughput).isGreaterThan(normal.throughput);
+        assertThat(off.throughput).isGreaterThan(fast.throughput);
+    }
+
+    private Stats run(String name, CompressionPolicy policy, double utilization, String type) {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpChunkContentCompressor());
+        long responses = 0;
+        long bytes = 0;
+        long begin = System.nanoTime();
+        long elapsed;
+        do {
+            HttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/");
+            request.headers().set(HttpHeaders.Names.ACCEPT_ENCODING, "gzip, deflate");
+            channel.writeInbound(request);
+            ReferenceCountUtil.release(channel.readInbound());
+
+            FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+                    Unpooled.wrappedBuffer(JSON));
+            response.headers().set(HttpHeaders.Names.CONTENT_TYPE, type);
+            // Same decision as the HTTP handler.
+            int level = policy.level(utilization);
+            if (!policy.accept(type) || level == 0) {
+                response.headers().set(HeaderNames.X_WISDOM_DISABLED_ENCODING_HEADER, "true");
+            } else if (level != CompressionPolicy.DEFAULT_LEVEL) {
+                response.headers().set(CompressionPolicy.LEVEL_HEADER, Integer.toString(level));
+            }
+            channel.writeOutbound(response);
+
+            Object msg;
+            while ((msg = channel.readOutbound()) != null) {
+                if (msg instanceof HttpResponse) {
+                    assertThat(((HttpResponse) msg).headers().contains(CompressionPolicy.LEVEL_HEADER)).isFalse();
+                }
+                if (msg instanceof HttpContent) {
+                    bytes += ((HttpContent) msg).content().readableBytes();
+                } else if (msg instanceof ByteBuf) {
+                    bytes += ((ByteBuf) msg).readableBytes();
+                }
+                ReferenceCountUtil.release(msg);
+            }
+            responses++;
+            elapsed = System.nanoTime() - begin;
+        } while (elapsed < DURATION);
+        channel.finish();
+
+        Stats stats = new Stats(responses * TimeUnit.SECONDS.toNanos(1) / elapsed, bytes / responses);
+        System.out.println(name + " - " + stats.throughput + " responses/s, " + stats.bytes
+                + " bytes per response (" + JSON.length + " bytes uncompressed)");
+        return stats;
+    }
+
+    private static byte[] json() {
+        Random random = new Random(0);
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < 200; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append("{\"id\":").append(i)
+                    .append(",\"name\":\"user-").append(random.nextInt(10000))
+                    .append("\",\"score\":").append(random.nextDouble())
+                    .append(",\"active\":").append(random.nextBoolean()).append('}');
+        }
+        return builder.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static final class Stats {
+        private final long throughput;
+        private final long bytes;
+
+        private Stats(long throughput, long bytes) {
+            this.throughput = throughput;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2015 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx.compression;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+import org.wisdom.test.parents.FakeConfiguration;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the compression policy and the estimation of the event loop utilization.
+ */
+public class CompressionPolicyTest {
+
+    @Test
+    public void testDefaults() {
+        CompressionPolicy policy = CompressionPolicy.from(null);
+        assertThat(policy.getLevel()).isEqualTo(CompressionPolicy.DEFAULT_LEVEL);
+        assertThat(policy.getMimeTypes()).isEmpty();
+        assertThat(policy.accept("image/png")).isTrue();
+        assertThat(policy.accept(null)).isTrue();
+        assertThat(policy.level(0.0)).isEqualTo(CompressionPolicy.DEFAULT_LEVEL);
+        assertThat(policy.level(0.75)).isEqualTo(1);
+        assertThat(policy.level(0.95)).isEqualTo(0);
+    }
+
+    @Test
+    public void testConfiguration() {
+        CompressionPolicy policy = CompressionPolicy.from(new FakeConfiguration(ImmutableMap.<String, Object>of(
+                "level", 9,
+                "mime-types", ImmutableList.of("text/*", "application/json"),
+                "fast-level", 2,
+                "fast-threshold", 0.5,
+                "off-threshold", 0.8)));
+        assertThat(policy.getLevel()).isEqualTo(9);
+        assertThat(policy.getFastLevel()).isEqualTo(2);
+        assertThat(policy.getFastThreshold()).isEqualTo(0.5);
+        assertThat(policy.getOffThreshold()).isEqualTo(0.8);
+
+        assertThat(policy.level(0.1)).isEqualTo(9);
+        assertThat(policy.level(0.5)).isEqualTo(2);
+        assertThat(policy.level(0.79)).isEqualTo(2);
+        assertThat(policy.level(0.8)).isEqualTo(0);
+        assertThat(policy.level(1.0)).isEqualTo(0);
+    }
+
+    @Test
+    public void testMimeTypes() {
+        CompressionPolicy policy = new CompressionPolicy(6, ImmutableList.of("text/*", "application/json"), 1, 0.7,
+                0.9);
+        assertThat(policy.accept("text/html")).isTrue();
+        assertThat(policy.accept("text/plain; charset=utf-8")).isTrue();
+        assertThat(policy.accept("TEXT/CSS")).isTrue();
+        assertThat(policy.accept("application/json;charset=UTF-8")).isTrue();
+        assertThat(policy.accept("application/javascript")).isFalse();
+        assertThat(policy.accept("image/png")).isFalse();
+        assertThat(policy.accept("textual/plain")).isFalse();
+        assertThat(policy.accept(null)).isFalse();
+    }
+
+    @Test
+    public void testUtilization() {
+        long window = TimeUnit.MILLISECONDS.toNanos(100);
+        EventLoopLoad load = new EventLoopLoad(2, window);
+        assertThat(load.utilization()).isEqualTo(0.0);
+
+        long start = System.nanoTime();
+        // The two event loops are busy half of the window.
+        load.busy(window);
+        load.sample(start + window);
+        assertThat(load.utilization()).isBetween(0.45, 0.5);
+
+        // The window has not elapsed, the utilization is not computed again.
+        load.busy(window * 2);
+        load.sample(start + window + 1);
+        assertThat(load.utilization()).isBetween(0.45, 0.5);
+
+        // Saturated.
+        load.sample(start + 2 * window);
+        assertThat(load.utilization()).isEqualTo(1.0);
+
+        // Idle.
+        load.sample(start + 3 * window);
+        assertThat(load.utilization()).isEqualTo(0.0);
+    }
+
+    @Test
+    public void testRecord() {
+        EventLoopLoad load = new EventLoopLoad(1, 1);
+        long begin = System.nanoTime();
+        long end = begin;
+        while (end - begin < TimeUnit.MILLISECONDS.toNanos(5)) {
+            end = System.nanoTime();
+        }
+        load.record(begin);
+        assertThat(load.utilization()).isGreaterThan(0.0).isLessThanOrEqualTo(1.0);
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2015 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx.compression;
+
+import com.google.common.collect.ImmutableList;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.*;
+import io.netty.util.ReferenceCountUtil;
+import io.vertx.core.http.impl.HttpChunkContentCompressor;
+import org.junit.Test;
+import org.wisdom.api.http.HeaderNames;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the number of bytes written by the compressor used by the engine, for the different compression decisions
+ * taken by the {@link CompressionPolicy}. The throughput of these decisions is measured by the
+ * {@link CompressionBenchmarkTest}.
+ */
+public class CompressorTest {
+
+    private static final byte[] JSON = json();
+
+    private final CompressionPolicy policy = new CompressionPolicy(CompressionPolicy.DEFAULT_LEVEL,
+            ImmutableList.of("text/*", "application/json"), 1, 0.7, 0.9);
+
+    @Test
+    public void testPolicies() {
+        long normal = write(0.0, "application/json");
+        long fast = write(0.8, "application/json");
+        long off = write(0.95, "application/json");
+        long skipped = write(0.0, "application/octet-stream");
+
+        assertThat(off).isEqualTo(JSON.length);
+        assertThat(normal).isLessThan(off);
+        assertThat(fast).isLessThan(off);
+        assertThat(normal).isLessThanOrEqualTo(fast);
+        assertThat(skipped).isEqualTo(off);
+    }
+
+    /**
+     * Writes a response as the HTTP handler does, and checks that the internal header does not reach the client.
+     *
+     * @param utilization the utilization of the event loops
+     * @param type        the content type of the response
+     * @return the number of bytes written
+     */
+    private long write(double utilization, String type) {
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpChunkContentCompressor());
+        HttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/");
+        request.headers().set(HttpHeaders.Names.ACCEPT_ENCODING, "gzip, deflate");
+        channel.writeInbound(request);
+        ReferenceCountUtil.release(channel.readInbound());
+
+        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+                Unpooled.wrappedBuffer(JSON));
+        response.headers().set(HttpHeaders.Names.CONTENT_TYPE, type);
+        int level = policy.level(utilization);
+        if (!policy.accept(type) || level == 0) {
+            response.headers().set(HeaderNames.X_WISDOM_DISABLED_ENCODING_HEADER, "true");
+        } else if (level != CompressionPolicy.DEFAULT_LEVEL) {
+            response.headers().set(CompressionPolicy.LEVEL_HEADER, Integer.toString(level));
+        }
+        channel.writeOutbound(response);
+
+        long bytes = 0;
+        Object msg;
+        while ((msg = channel.readOutbound()) != null) {
+            if (msg instanceof HttpResponse) {
+                assertThat(((HttpResponse) msg).headers().contains(CompressionPolicy.LEVEL_HEADER)).isFalse();
+                assertThat(((HttpResponse) msg).headers().contains(HeaderNames.X_WISDOM_DISABLED_ENCODING_HEADER))
+                        .isFalse();
+            }
+            if (msg instanceof HttpContent) {
+                bytes += ((HttpContent) msg).content().readableBytes();
+            } else if (msg instanceof ByteBuf) {
+                bytes += ((ByteBuf) msg).readableBytes();
+            }
+            ReferenceCountUtil.release(msg);
+        }
+        channel.finish();
+        return bytes;
+    }
+
+    private static byte[] json() {
+        Random random = new Random(0);
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < 200; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append("{\"id\":").append(i)
+                    .append(",\"name\":\"user-").append(random.nextInt(10000))
+                    .append("\",\"score\":").append(random.nextDouble())
+                    .append(",\"active\":").append(random.nextBoolean()).append('}');
+        }
+        return builder.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
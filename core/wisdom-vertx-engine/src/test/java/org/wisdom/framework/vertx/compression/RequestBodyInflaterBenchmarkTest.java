@@ -0,0 +1,102 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2015 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.vertx.core.buffer.Buffer;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures the throughput of the inflation of compressed request bodies.
+ */
+public class RequestBodyInflaterBenchmarkTest {
+
+    private static final byte[] CSV = csv(200000);
+
+    /**
+     * Inflates a 200Mb compressible payload, received in 8Kb chunks, as an ingestion endpoint would do.
+     */
+    @Test
+    public void testThroughput() throws IOException {
+        long size = 200L * 1024 * 1024;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(out, 64 * 1024) {
+            {
+                def.setLevel(Deflater.BEST_SPEED);
+            }
+        }) {
+            for (long written = 0; written < size; written += CSV.length) {
+                gzip.write(CSV);
+            }
+        }
+        byte[] compressed = out.toByteArray();
+
+        // The chunks are direct buffers, as received from Netty.
+        int chunk = 8192;
+        ByteBuf direct = Unpooled.directBuffer(chunk);
+        AtomicLong inflated = new AtomicLong();
+        AtomicInteger blocks = new AtomicInteger();
+        RequestBodyInflater inflater = new RequestBodyInflater("gzip", Long.MAX_VALUE);
+        long begin = System.nanoTime();
+        for (int offset = 0; offset < compressed.length; offset += chunk) {
+            direct.clear().writeBytes(compressed, offset, Math.min(chunk, compressed.length - offset));
+            assertThat(inflater.inflate(Buffer.buffer(direct), buffer -> {
+                inflated.addAndGet(buffer.length());
+                blocks.incrementAndGet();
+            })).isTrue();
+        }
+        inflater.finish();
+        long elapsed = System.nanoTime() - begin;
+        inflater.release();
+        direct.release();
+
+        long mb = inflated.get() / (1024 * 1024);
+        System.out.println("Inflated " + mb + " Mb from " + compressed.length / 1024 + " Kb in "
+                + TimeUnit.NANOSECONDS.toMillis(elapsed) + " ms ("
+                + mb * TimeUnit.SECONDS.toNanos(1) / elapsed + " Mb/s, " + blocks.get() + " blocks)");
+        assertThat(inflated.get()).isGreaterThanOrEqualTo(size);
+        assertThat(inflater.inflated()).isEqualTo(inflated.get());
+    }
+
+    private static byte[] csv(int lines) {
+        Random random = new Random(0);
+        StringBuilder builder = new StringBuilder("id,name,country,amount\n");
+        for (int i = 0; i < lines / 10; i++) {
+            builder.append(i).append(",customer-").append(random.nextInt(1000)).append(',')
+                    .append(random.nextBoolean() ? "FR" : "US").append(',').append(random.nextInt(100000))
+                    .append('\n');
+        }
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2015 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx.compression;
+
+import io.netty.buffer.Unpooled;
+import io.vertx.core.buffer.Buffer;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the inflation of compressed request bodies.
+ */
+public class RequestBodyInflaterTest {
+
+    private static final byte[] CSV = csv(200000);
+
+    @Test
+    public void testEncodings() {
+        assertThat(RequestBodyInflater.isCompressed(null)).isFalse();
+        assertThat(RequestBodyInflater.isCompressed("identity")).isFalse();
+        assertThat(RequestBodyInflater.isCompressed("gzip")).isTrue();
+        assertThat(RequestBodyInflater.isCompressed("br")).isTrue();
+        assertThat(RequestBodyInflater.isSupported("gzip")).isTrue();
+        assertThat(RequestBodyInflater.isSupported("X-GZIP")).isTrue();
+        assertThat(RequestBodyInflater.isSupported(" deflate ")).isTrue();
+        assertThat(RequestBodyInflater.isSupported("br")).isFalse();
+    }
+
+    @Test
+    public void testGzip() throws IOException {
+        byte[] compressed = gzip(CSV);
+        // Whatever the chunk boundaries, the result is the same.
+        for (int size : new int[]{1, 7, 100, 8192, compressed.length}) {
+            assertThat(inflate("gzip", compressed, size, Long.MAX_VALUE)).isEqualTo(CSV);
+        }
+    }
+
+    @Test
+    public void testGzipWithOptionalHeaderFields() throws IOException {
+        byte[] compressed = gzip(CSV);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        // FEXTRA, FNAME and FCOMMENT flags.
+        out.write(new byte[]{0x1F, (byte) 0x8B, 8, 4 | 8 | 16, 0, 0, 0, 0, 0, (byte) 0xFF});
+        out.write(new byte[]{3, 0, 'a', 'b', 'c'});
+        out.write("data.csv\0".getBytes(StandardCharsets.ISO_8859_1));
+        out.write("a comment\0".getBytes(StandardCharsets.ISO_8859_1));
+        out.write(compressed, 10, compressed.length - 10);
+        for (int size : new int[]{1, 5, 8192}) {
+            assertThat(inflate("gzip", out.toByteArray(), size, Long.MAX_VALUE)).isEqualTo(CSV);
+        }
+    }
+
+    @Test
+    public void testConcatenatedGzipMembers() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(gzip("hello ".getBytes(StandardCharsets.UTF_8)));
+        out.write(gzip("wisdom".getBytes(StandardCharsets.UTF_8)));
+        assertThat(new String(inflate("gzip", out.toByteArray(), 3, Long.MAX_VALUE), StandardCharsets.UTF_8))
+                .isEqualTo("hello wisdom");
+    }
+
+    @Test
+    public void testDeflate() throws IOException {
+        // Zlib format, as specified by HTTP.
+        assertThat(inflate("deflate", deflate(CSV, false), 1000, Long.MAX_VALUE)).isEqualTo(CSV);
+        // Raw deflate, as sent by some clients.
+        assertThat(inflate("deflate", deflate(CSV, true), 1000, Long.MAX_VALUE)).isEqualTo(CSV);
+        assertThat(inflate("deflate", deflate(CSV, true), 1, Long.MAX_VALUE)).isEqualTo(CSV);
+    }
+
+    @Test
+    public void testZipBomb() throws IOException {
+        // 100Mb of zeros compress to about 100Kb.
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(out)) {
+            byte[] zeros = new byte[1024 * 1024];
+            for (int i = 0; i < 100; i++) {
+                gzip.write(zeros);
+            }
+        }
+        byte[] bomb = out.toByteArray();
+        assertThat(bomb.length).isLessThan(200 * 1024);
+
+        long limit = 1024 * 1024;
+        RequestBodyInflater inflater = new RequestBodyInflater("gzip", limit);
+        AtomicLong emitted = new AtomicLong();
+        boolean accepted = true;
+        int chunks = 0;
+        for (int offset = 0; offset < bomb.length && accepted; offset += 8192) {
+            chunks++;
+            accepted = inflater.inflate(chunk(bomb, offset, Math.min(8192, bomb.length - offset)),
+                    buffer -> emitted.addAndGet(buffer.length()));
+        }
+        inflater.release();
+        assertThat(accepted).isFalse();
+        // The inflation stops right after the limit, the bomb is not inflated.
+        assertThat(emitted.get()).isLessThanOrEqualTo(limit);
+        assertThat(inflater.inflated()).isLessThanOrEqualTo(limit + RequestBodyInflater.BLOCK_SIZE);
+        assertThat(chunks).isLessThan(bomb.length / 8192);
+    }
+
+    @Test
+    public void testMalformedBodies() throws IOException {
+        try {
+            inflate("gzip", CSV, 100, Long.MAX_VALUE);
+            throw new AssertionError("Not in gzip format");
+        } catch (ZipException e) {
+            // Expected.
+        }
+
+        byte[] compressed = gzip(CSV);
+        // Corrupt the CRC.
+        compressed[compressed.length - 8] ^= 0xFF;
+        try {
+            inflate("gzip", compressed, 8192, Long.MAX_VALUE);
+            throw new AssertionError("Invalid CRC");
+        } catch (ZipException e) {
+            assertThat(e.getMessage()).contains("CRC");
+        }
+
+        // Truncated body.
+        compressed = gzip(CSV);
+        RequestBodyInflater inflater = new RequestBodyInflater("gzip", Long.MAX_VALUE);
+        assertThat(inflater.inflate(chunk(compressed, 0, compressed.length / 2), buffer -> {
+        })).isTrue();
+        try {
+            inflater.finish();
+            throw new AssertionError("Truncated body");
+        } catch (ZipException e) {
+            // Expected.
+        } finally {
+            inflater.release();
+        }
+    }
+
+    @Test
+    public void testReleaseWhileReadingTheBody() throws IOException {
+        // The client closes the connection in the middle of the body, the inflater is released twice.
+        byte[] compressed = gzip(CSV);
+        RequestBodyInflater inflater = new RequestBodyInflater("gzip", Long.MAX_VALUE);
+        assertThat(inflater.inflate(chunk(compressed, 0, compressed.length / 2), buffer -> {
+        })).isTrue();
+        inflater.release();
+        inflater.release();
+        try {
+            inflater.inflate(chunk(compressed, compressed.length / 2, compressed.length / 2), buffer -> {
+            });
+            throw new AssertionError("The inflater is released");
+        } catch (IllegalStateException e) {
+            // Expected.
+        }
+
+        // Released before having received the header.
+        inflater = new RequestBodyInflater("deflate", Long.MAX_VALUE);
+        inflater.release();
+        inflater.release();
+    }
+
+    private static byte[] inflate(String encoding, byte[] data, int chunkSize, long limit) throws ZipException {
+        RequestBodyInflater inflater = new RequestBodyInflater(encoding, limit);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            for (int offset = 0; offset < data.length; offset += chunkSize) {
+                assertThat(inflater.inflate(chunk(data, offset, Math.min(chunkSize, data.length - offset)),
+                        buffer -> {
+                            assertThat(buffer.length()).isLessThanOrEqualTo(RequestBodyInflater.BLOCK_SIZE);
+                            out.write(buffer.getBytes(), 0, buffer.length());
+                        })).isTrue();
+            }
+            inflater.finish();
+        } finally {
+            inflater.release();
+        }
+        return out.toByteArray();
+    }
+
+    private static Buffer chunk(byte[] data, int offset, int length) {
+        return Buffer.buffer(Unpooled.wrappedBuffer(data, offset, length));
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] deflate(byte[] data, boolean raw) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream deflate = new DeflaterOutputStream(out, new Deflater(Deflater.DEFAULT_COMPRESSION, raw))) {
+            deflate.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] csv(int lines) {
+        Random random = new Random(0);
+        StringBuilder builder = new StringBuilder("id,name,country,amount\n");
+        for (int i = 0; i < lines / 10; i++) {
+            builder.append(i).append(",customer-").append(random.nextInt(1000)).append(',')
+                    .append(random.nextBoolean() ? "FR" : "US").append(',').append(random.nextInt(100000))
+                    .append('\n');
+        }
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx.warmup;
+
+import com.google.common.collect.ImmutableMap;
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+import org.wisdom.api.configuration.ApplicationConfiguration;
+import org.wisdom.api.http.HttpMethod;
+import org.wisdom.api.router.Route;
+import org.wisdom.api.router.Router;
+import org.wisdom.test.parents.FakeConfiguration;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks the parsing of the warmup requests.
+ */
+public class WarmupTest {
+
+    @Test
+    public void testParsing() {
+        assertThat(Warmup.parse("/")).isEqualTo(new WarmupRequest(HttpMethod.GET, "/", null));
+        assertThat(Warmup.parse("  get /api/items?page=1 ")).isEqualTo(
+                new WarmupRequest(HttpMethod.GET, "/api/items?page=1", null));
+        WarmupRequest post = Warmup.parse("POST /api/cart {\"item\": 1}");
+        assertThat(post.getMethod()).isEqualTo(HttpMethod.POST);
+        assertThat(post.getBody()).isEqualTo("{\"item\": 1}");
+        assertThat(Warmup.parse("GET /api/items?page=1").getPath()).isEqualTo("/api/items");
+
+        // Access log entries.
+        assertThat(Warmup.parse("127.0.0.1 - - [10/Oct/2015:13:55:36 +0200] \"DELETE /api/cart/1 HTTP/1.1\" 204 0"))
+                .isEqualTo(new WarmupRequest(HttpMethod.DELETE, "/api/cart/1", null));
+
+        assertThat(Warmup.parse("")).isNull();
+        assertThat(Warmup.parse("# comment")).isNull();
+        assertThat(Warmup.parse("FOO /")).isNull();
+        assertThat(Warmup.parse("GET")).isNull();
+    }
+
+    @Test
+    public void testRecordedRequests() throws Exception {
+        File file = new File("target/warmup/access.log");
+        FileUtils.writeLines(file, StandardCharsets.UTF_8.name(), Arrays.asList(
+                "127.0.0.1 - - [10/Oct/2015:13:55:36 +0200] \"GET / HTTP/1.1\" 200 2326",
+                "127.0.0.1 - - [10/Oct/2015:13:55:37 +0200] \"GET /api/items HTTP/1.1\" 200 512",
+                "127.0.0.1 - - [10/Oct/2015:13:55:37 +0200] \"POST /api/cart HTTP/1.1\" 201 12",
+                "127.0.0.1 - - [10/Oct/2015:13:55:37 +0200] \"DELETE /api/cart/1 HTTP/1.1\" 204 0",
+                "127.0.0.1 - - [10/Oct/2015:13:55:37 +0200] \"HEAD /api/items HTTP/1.1\" 200 0",
+                "127.0.0.1 - - [10/Oct/2015:13:55:38 +0200] \"GET / HTTP/1.1\" 200 2326"));
+        Set<WarmupRequest> requests = Warmup.load(file);
+        assertThat(requests).containsExactly(
+                new WarmupRequest(HttpMethod.GET, "/", null),
+                new WarmupRequest(HttpMethod.GET, "/api/items", null),
+                new WarmupRequest(HttpMethod.HEAD, "/api/items", null));
+
+        assertThat(Warmup.load(new File("target/warmup/missing.log"))).isEmpty();
+    }
+
+    @Test
+    public void testUnsafeRequestsRequireTheFlag() {
+        List<String> lines = Arrays.asList("/", "POST /api/cart {\"item\": 1}", "DELETE /api/cart/1");
+        ApplicationConfiguration configuration = mock(ApplicationConfiguration.class);
+        when(configuration.getConfiguration("vertx.warmup")).thenReturn(
+                new FakeConfiguration(ImmutableMap.<String, Object>of("requests", lines)));
+        assertThat(Warmup.create(configuration).getRequests()).containsExactly(
+                new WarmupRequest(HttpMethod.GET, "/", null));
+
+        when(configuration.getConfiguration("vertx.warmup")).thenReturn(
+                new FakeConfiguration(ImmutableMap.<String, Object>of("requests", lines, "unsafe", true)));
+        assertThat(Warmup.create(configuration).getRequests()).hasSize(3);
+    }
+
+    @Test
+    public void testReplayStopsAtTheTimeout() {
+        Route route = mock(Route.class);
+        Router router = mock(Router.class);
+        when(router.getRouteFor(any(HttpMethod.class), anyString(), any())).thenReturn(route);
+
+        // Nobody listens on the port, the requests fail.
+        Warmup warmup = new Warmup(Collections.singletonList(new WarmupRequest(HttpMethod.GET, "/", null)),
+                Integer.MAX_VALUE, 300);
+        WarmupReport report = warmup.replay(router, 1);
+        assertThat(report.getDuration()).isBetween(300L, 5000L);
+        assertThat(report.getRequests()).isPositive();
+        assertThat(report.getFailures()).isEqualTo(report.getRequests());
+    }
+}
@@ -36,6 +36,7 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Random;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 
 @Controller
 public class AsyncExample extends DefaultController {
@@ -53,6 +54,19 @@ public class AsyncExample extends DefaultController {
     }
     // end::async[]
 
+    // tag::async-stage[]
+    @Route(method = HttpMethod.GET, uri = "/quote")
+    public Result quote() {
+        // The stage is completed by the client, no thread waits for the quote.
+        return new AsyncResult(fetchQuote().thenApply(quote -> ok(quote)));
+    }
+    // end::async-stage[]
+
+    private CompletableFuture<String> fetchQuote() {
+        // A non-blocking client would complete the future once the response is received.
+        return CompletableFuture.completedFuture("Wisdom begins in wonder");
+    }
+
     // tag::async2[]
     @Route(method = HttpMethod.GET, uri = "/async")
     @Async
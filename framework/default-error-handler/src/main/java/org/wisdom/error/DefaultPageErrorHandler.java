@@ -21,14 +21,17 @@ package org.wisdom.error;
 
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.felix.ipojo.annotations.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wisdom.api.DefaultController;
 import org.wisdom.api.bodies.NoHttpBody;
+import org.wisdom.api.bodies.RenderableStream;
 import org.wisdom.api.configuration.ApplicationConfiguration;
 import org.wisdom.api.content.Json;
 import org.wisdom.api.exceptions.ExceptionMapper;
+import org.wisdom.api.exceptions.ExceptionMapperIndex;
 import org.wisdom.api.exceptions.HttpException;
 import org.wisdom.api.http.Context;
 import org.wisdom.api.http.*;
@@ -105,10 +108,10 @@ public class DefaultPageErrorHandler extends DefaultController implements Filter
     protected Json json;
 
     /**
-     * The exception mappers.
+     * Selects the mapper handling an exception, using its class hierarchy. The mappers are added and removed by the
+     * binding callbacks.
      */
-    @Requires(optional = true)
-    protected ExceptionMapper[] mappers;
+    private final ExceptionMapperIndex index = new ExceptionMapperIndex();
 
     /**
      * The directory where error report (created by watchers) are created.
@@ -116,6 +119,26 @@ public class DefaultPageErrorHandler extends DefaultController implements Filter
     private File pipelineErrorDirectory;
 
 
+    /**
+     * Binds an exception mapper.
+     *
+     * @param mapper the mapper
+     */
+    @Bind(aggregate = true, optional = true)
+    public void bindExceptionMapper(ExceptionMapper mapper) {
+        index.add(mapper);
+    }
+
+    /**
+     * Unbinds an exception mapper.
+     *
+     * @param mapper the mapper
+     */
+    @Unbind(aggregate = true)
+    public void unbindExceptionMapper(ExceptionMapper mapper) {
+        index.remove(mapper);
+    }
+
     /**
      * Methods called when this component is starting. It builds the pipeline error directory from the
      * configuration's base directory.
@@ -243,37 +266,37 @@ public class DefaultPageErrorHandler extends DefaultController implements Filter
             }
             return result;
         } catch (InvocationTargetException e) {
-                Throwable cause = e.getCause();
-                LOGGER.error("An exception occurred while processing request {} {}", route.getHttpMethod(),
-                        route.getUrl(), cause);
-                // if it is and the cause is a HTTP Exception, return that one
-                if (cause instanceof HttpException) {
-                    // If we catch a HTTP Exception, just return the built result.
-                    LOGGER.error("A HTTP exception occurred while processing request {} {}", route.getHttpMethod(),
-                            route.getUrl(), e);
-                    return ((HttpException) cause).toResult();
-                }
+            Throwable cause = e.getCause();
+            // if it is and the cause is a HTTP Exception, return that one
+            if (cause instanceof HttpException) {
+                // HTTP exceptions are thrown on purpose to stop the processing of the request, and so are not
+                // errors. As they can be numerous (scanners...), they are only logged in debug, without stack trace.
+                Result result = ((HttpException) cause).toResult();
+                LOGGER.debug("A HTTP exception ({}) occurred while processing request {} {}",
+                        result.getStatusCode(), route.getHttpMethod(), route.getUrl());
+                return result;
+            }
 
-                // if we have a mapper for that exception, use it.
-                for (ExceptionMapper mapper : mappers) {
-                    if (mapper.getExceptionClass().equals(cause.getClass())) {
-                        //We can safely cast here, as we have the previous class check;
-                        //noinspection unchecked
-                        return mapper.toResult((Exception) cause);
-                    }
-                }
-                return renderInternalError(context.context(), route, e);
+            LOGGER.error("An exception occurred while processing request {} {}", route.getHttpMethod(),
+                    route.getUrl(), cause);
+            // if we have a mapper for that exception, use it.
+            ExceptionMapper mapper = index.get(cause);
+            if (mapper != null) {
+                //The mapper handles the class of the exception or one of its parent classes.
+                //noinspection unchecked
+                return mapper.toResult((Exception) cause);
+            }
+            return renderInternalError(context.context(), route, e);
         } catch (Exception e) {
             LOGGER.error("An exception occurred while processing request {} {}", route.getHttpMethod(),
                     route.getUrl(), e);
             Throwable cause = e.getCause();
             // if we have a mapper for that exception, use it.
-            for (ExceptionMapper mapper : mappers) {
-                if (mapper.getExceptionClass().equals(cause.getClass())) {
-                    //We can safely cast here, as we have the previous class check;
-                    //noinspection unchecked
-                    return mapper.toResult((Exception) cause);
-                }
+            ExceptionMapper mapper = index.get(cause);
+            if (mapper != null) {
+                //The mapper handles the class of the exception or one of its parent classes.
+                //noinspection unchecked
+                return mapper.toResult((Exception) cause);
             }
 
             // Used when it's not an invocation target exception, or when it is one but we don't have custom action
@@ -354,7 +377,8 @@ public class DefaultPageErrorHandler extends DefaultController implements Filter
                 Result result = getRoute.invoke();
                 // Replace the content with EMPTY_CONTENT but we need to preserve the headers (CONTENT-TYPE and
                 // CONTENT-LENGTH). These headers may not have been set, so we searches values in the renderable
-                // objects too.
+                // objects too. The content is never rendered, so streams are closed without being read, and
+                // objects requiring a serializer are not serialized.
                 final Renderable renderable = result.getRenderable();
                 final String type = result.getHeaders().get(HeaderNames.CONTENT_TYPE);
                 final String length = result.getHeaders().get(HeaderNames.CONTENT_LENGTH);
@@ -363,16 +387,20 @@ public class DefaultPageErrorHandler extends DefaultController implements Filter
 
                 if (type != null) {
                     newResult.with(HeaderNames.CONTENT_TYPE, type);
-                } else if (renderable != null) {
+                } else if (renderable != null && renderable.mimetype() != null) {
                     newResult.with(HeaderNames.CONTENT_TYPE, renderable.mimetype());
                 }
 
                 if (length != null) {
                     newResult.with(HeaderNames.CONTENT_LENGTH, length);
-                } else if (renderable != null) {
-                    logger().info("Length from renderable : " + renderable.length());
+                } else if (renderable != null && !renderable.requireSerializer() && renderable.length() >= 0) {
                     newResult.with(HeaderNames.CONTENT_LENGTH, String.valueOf(renderable.length()));
                 }
+
+                if (renderable instanceof RenderableStream) {
+                    // The stream has been opened by the action, but is not going to be read.
+                    IOUtils.closeQuietly(renderable.render(context.context(), result));
+                }
                 return newResult;
             } catch (Exception exception) {
                 LOGGER.error("An exception occurred while processing request {} {}", route.getHttpMethod(),
@@ -40,7 +40,9 @@ import org.wisdom.api.router.Route;
 import org.wisdom.api.router.Router;
 import org.wisdom.api.templates.Template;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -107,6 +109,30 @@ public class DefaultPageErrorHandlerTest {
         assertThat(result.getContentType()).isEqualTo(MimeTypes.JSON);
     }
 
+    @Test
+    public void switchToHeadClosesStreamsWithoutReadingThem() throws Exception {
+        DefaultPageErrorHandler handler = new DefaultPageErrorHandler();
+        handler.router = mock(Router.class);
+        handler.configuration = mock(ApplicationConfiguration.class);
+        when(handler.configuration.isDev()).thenReturn(false);
+
+        MyController controller = new MyController();
+        Route route = new Route(HttpMethod.GET, "/", controller, controller.getClass().getMethod("stream"));
+        Route reqRoute = new Route(HttpMethod.HEAD, "/", null, null);
+        when(handler.router.getRouteFor(HttpMethod.GET, "/")).thenReturn(route);
+
+        RequestContext rc = new RequestContext(reqRoute, Collections.<Filter>emptyList(),
+                Collections.<Interceptor<?>, Object>emptyMap(), new Object[0], null);
+
+        Result result = handler.call(reqRoute, rc);
+        assertThat(result.getStatusCode()).isEqualTo(Status.OK);
+        assertThat(result.getRenderable().length()).isEqualTo(0);
+        // The length of a stream is unknown, so no Content-Length is sent.
+        assertThat(result.getHeaders()).doesNotContainKey(HeaderNames.CONTENT_LENGTH);
+        assertThat(controller.closed).isTrue();
+        assertThat(controller.read).isFalse();
+    }
+
     @Test
     public void switchToHeadWhenGetRouteDoesNotExist() throws Exception {
         DefaultPageErrorHandler handler = new DefaultPageErrorHandler();
@@ -203,7 +229,6 @@ public class DefaultPageErrorHandlerTest {
         handler.router = mock(Router.class);
         handler.pipeline = mock(Template.class);
         handler.json = mock(Json.class);
-        handler.mappers = new ExceptionMapper[0];
         when(handler.json.parse(anyString())).thenAnswer(new Answer<JsonNode>() {
             @Override
             public JsonNode answer(InvocationOnMock invocation) throws Throwable {
@@ -243,19 +268,17 @@ public class DefaultPageErrorHandlerTest {
         handler.router = mock(Router.class);
         handler.pipeline = mock(Template.class);
         handler.json = mock(Json.class);
-        handler.mappers = new ExceptionMapper[]{
-                new ExceptionMapper<NullPointerException>() {
-                    @Override
-                    public Class<NullPointerException> getExceptionClass() {
-                        return NullPointerException.class;
-                    }
-
-                    @Override
-                    public Result toResult(NullPointerException exception) {
-                        return new Result().status(419).render("bad");
-                    }
-                }
-        };
+        handler.bindExceptionMapper(new ExceptionMapper<NullPointerException>() {
+            @Override
+            public Class<NullPointerException> getExceptionClass() {
+                return NullPointerException.class;
+            }
+
+            @Override
+            public Result toResult(NullPointerException exception) {
+                return new Result().status(419).render("bad");
+            }
+        });
         when(handler.json.parse(anyString())).thenAnswer(new Answer<JsonNode>() {
             @Override
             public JsonNode answer(InvocationOnMock invocation) throws Throwable {
@@ -301,10 +324,29 @@ public class DefaultPageErrorHandlerTest {
 
     private class MyController extends DefaultController {
 
+        boolean closed;
+
+        boolean read;
+
         public Result action() {
             return ok("OK").json();
         }
 
+        public Result stream() {
+            return ok(new ByteArrayInputStream("OK".getBytes()) {
+                @Override
+                public synchronized int read(byte[] b, int off, int len) {
+                    read = true;
+                    return super.read(b, off, len);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    closed = true;
+                }
+            }).as(MimeTypes.TEXT);
+        }
+
         public Result error() {
             throw new HttpException(418, "bad");
         }
@@ -0,0 +1,166 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.error;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.wisdom.api.DefaultController;
+import org.wisdom.api.configuration.ApplicationConfiguration;
+import org.wisdom.api.exceptions.HttpException;
+import org.wisdom.api.exceptions.StacklessHttpException;
+import org.wisdom.api.http.*;
+import org.wisdom.api.interception.Filter;
+import org.wisdom.api.interception.Interceptor;
+import org.wisdom.api.interception.RequestContext;
+import org.wisdom.api.router.Route;
+import org.wisdom.api.router.Router;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compares the cost of error responses with the cost of regular responses: a flood of requests on unknown URLs, and
+ * actions rejecting the request with a {@literal 400 - Bad Request}, either by returning the result or by throwing
+ * a HTTP exception, with and without stack trace.
+ */
+public class ErrorResponseBenchmarkTest {
+
+    private static final int WARMUP = 20000;
+    private static final int ITERATIONS = 100000;
+
+    private DefaultPageErrorHandler handler;
+    private ValidatingController controller;
+
+    @Before
+    public void setUp() throws Exception {
+        handler = new DefaultPageErrorHandler();
+        handler.router = mock(Router.class);
+        handler.configuration = mock(ApplicationConfiguration.class);
+        controller = new ValidatingController();
+
+        Request request = mock(Request.class);
+        when(request.method()).thenReturn("GET");
+        Context context = mock(Context.class);
+        when(context.request()).thenReturn(request);
+        Context.CONTEXT.set(context);
+    }
+
+    @After
+    public void tearDown() {
+        Context.CONTEXT.remove();
+    }
+
+    @Test
+    public void testNotFoundFlood() throws Exception {
+        Route ok = route("found");
+        String[] unknown = new String[1024];
+        for (int i = 0; i < unknown.length; i++) {
+            unknown[i] = "/wp-admin/" + i + ".php";
+        }
+        assertThat(serve(new Route(HttpMethod.GET, unknown[0], null, null)).getStatusCode())
+                .isEqualTo(Status.NOT_FOUND);
+
+        for (int i = 0; i < WARMUP; i++) {
+            serve(ok);
+            serve(new Route(HttpMethod.GET, unknown[i % unknown.length], null, null));
+        }
+        long begin = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            serve(ok);
+        }
+        long found = System.nanoTime() - begin;
+        begin = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            serve(new Route(HttpMethod.GET, unknown[i % unknown.length], null, null));
+        }
+        long notFound = System.nanoTime() - begin;
+
+        System.out.println("Regular responses: " + found / ITERATIONS + " ns, 404 on unknown URLs: "
+                + notFound / ITERATIONS + " ns");
+        assertThat(notFound).isLessThan(found * 3);
+    }
+
+    @Test
+    public void testControllerThrownBadRequests() throws Exception {
+        Route returned = route("returned");
+        Route thrown = route("thrown");
+        Route stackless = route("stackless");
+        assertThat(serve(returned).getStatusCode()).isEqualTo(Status.BAD_REQUEST);
+        assertThat(serve(thrown).getStatusCode()).isEqualTo(Status.BAD_REQUEST);
+        assertThat(serve(stackless).getStatusCode()).isEqualTo(Status.BAD_REQUEST);
+
+        for (int i = 0; i < WARMUP; i++) {
+            serve(returned);
+            serve(thrown);
+            serve(stackless);
+        }
+        long returnedTime = measure(returned);
+        long thrownTime = measure(thrown);
+        long stacklessTime = measure(stackless);
+
+        System.out.println("400 - returned: " + returnedTime + " ns, thrown: " + thrownTime + " ns, thrown without "
+                + "stack trace: " + stacklessTime + " ns");
+        assertThat(stacklessTime).isLessThan(thrownTime);
+    }
+
+    private Route route(String method) throws NoSuchMethodException {
+        return new Route(HttpMethod.GET, "/" + method, controller, ValidatingController.class.getMethod(method));
+    }
+
+    /**
+     * @return the mean time of a request, in nanoseconds.
+     */
+    private long measure(Route route) throws Exception {
+        long begin = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            serve(route);
+        }
+        return (System.nanoTime() - begin) / ITERATIONS;
+    }
+
+    private Result serve(Route route) throws Exception {
+        RequestContext rc = new RequestContext(route, Collections.<Filter>emptyList(),
+                Collections.<Interceptor<?>, Object>emptyMap(), new Object[0], null);
+        return handler.call(route, rc);
+    }
+
+    public static class ValidatingController extends DefaultController {
+
+        public Result found() {
+            return ok("ok");
+        }
+
+        public Result returned() {
+            return badRequest("invalid");
+        }
+
+        public Result thrown() {
+            throw new HttpException(Status.BAD_REQUEST, "invalid");
+        }
+
+        public Result stackless() {
+            throw new StacklessHttpException(Status.BAD_REQUEST, "invalid");
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.error;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.wisdom.api.DefaultController;
+import org.wisdom.api.configuration.ApplicationConfiguration;
+import org.wisdom.api.http.*;
+import org.wisdom.api.interception.Filter;
+import org.wisdom.api.interception.Interceptor;
+import org.wisdom.api.interception.RequestContext;
+import org.wisdom.api.router.Route;
+import org.wisdom.api.router.Router;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compares the cost of a {@literal HEAD} request served by the GET action with the cost of the {@literal GET}
+ * request, on a large page and on a large file. The {@literal GET} request includes the rendering of the body, as
+ * done by the engine, but not the network.
+ */
+public class HeadRequestBenchmarkTest {
+
+    private static final int ROWS = 5000;
+    private static final int WARMUP = 50;
+    private static final int ITERATIONS = 200;
+
+    private File file;
+    private DefaultPageErrorHandler handler;
+    private Context context;
+    private Request request;
+    private LargeController controller;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("large", ".bin");
+        FileUtils.writeByteArrayToFile(file, new byte[8 * 1024 * 1024]);
+
+        handler = new DefaultPageErrorHandler();
+        handler.router = mock(Router.class);
+        handler.configuration = mock(ApplicationConfiguration.class);
+
+        controller = new LargeController();
+        request = mock(Request.class);
+        context = mock(Context.class);
+        when(context.request()).thenReturn(request);
+        Context.CONTEXT.set(context);
+    }
+
+    @After
+    public void tearDown() {
+        Context.CONTEXT.remove();
+        FileUtils.deleteQuietly(file);
+    }
+
+    @Test
+    public void testHeadOnLargePage() throws Exception {
+        route("/page", "page");
+        long get = measure("GET", "/page");
+        long head = measure("HEAD", "/page");
+        System.out.println("Large page - GET: " + get / 1000 + " us, HEAD: " + head / 1000 + " us");
+        assertThat(head).isLessThan(get);
+    }
+
+    @Test
+    public void testHeadOnLargeFile() throws Exception {
+        route("/file", "file");
+        Result result = head("/file");
+        assertThat(result.getHeaders().get(HeaderNames.CONTENT_LENGTH)).isEqualTo(String.valueOf(file.length()));
+
+        long get = measure("GET", "/file");
+        long head = measure("HEAD", "/file");
+        System.out.println("Large file - GET: " + get / 1000 + " us, HEAD: " + head / 1000 + " us");
+        assertThat(head).isLessThan(get);
+    }
+
+    private void route(String uri, String method) throws NoSuchMethodException {
+        when(handler.router.getRouteFor(HttpMethod.GET, uri))
+                .thenReturn(new Route(HttpMethod.GET, uri, controller, LargeController.class.getMethod(method)));
+    }
+
+    /**
+     * @return the mean time of a request, in nanoseconds.
+     */
+    private long measure(String method, String uri) throws Exception {
+        when(request.method()).thenReturn(method);
+        when(request.isHead()).thenReturn("HEAD".equals(method));
+        for (int i = 0; i < WARMUP; i++) {
+            serve(method, uri);
+        }
+        long begin = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            serve(method, uri);
+        }
+        return (System.nanoTime() - begin) / ITERATIONS;
+    }
+
+    private void serve(String method, String uri) throws Exception {
+        if ("HEAD".equals(method)) {
+            head(uri);
+        } else {
+            Result result = handler.router.getRouteFor(HttpMethod.GET, uri).invoke();
+            try (InputStream stream = result.getRenderable().render(context, result)) {
+                IOUtils.toByteArray(stream);
+            }
+        }
+    }
+
+    private Result head(String uri) throws Exception {
+        Route route = new Route(HttpMethod.HEAD, uri, null, null);
+        RequestContext rc = new RequestContext(route, Collections.<Filter>emptyList(),
+                Collections.<Interceptor<?>, Object>emptyMap(), new Object[0], null);
+        Result result = handler.call(route, rc);
+        assertThat(result.getStatusCode()).isEqualTo(Status.OK);
+        return result;
+    }
+
+    public class LargeController extends DefaultController {
+
+        public Result page() {
+            if (request().isHead()) {
+                // Only the headers are sent, so the page is not rendered.
+                return ok().html();
+            }
+            StringBuilder builder = new StringBuilder("<html><body><table>");
+            for (int i = 0; i < ROWS; i++) {
+                builder.append("<tr><td>").append(i).append("</td><td>Item number ").append(i)
+                        .append("</td><td>").append(String.format("%.2f", i * 1.5)).append("</td></tr>");
+            }
+            return ok(builder.append("</table></body></html>").toString()).html();
+        }
+
+        public Result file() {
+            return ok(file);
+        }
+    }
+}
@@ -32,8 +32,14 @@ public class WrappedValidator implements Validator {
 
     private final Validator delegate;
 
+    /**
+     * The executable validator, stateless so created once.
+     */
+    private final ExecutableValidator executables;
+
     WrappedValidator(Validator delegate) {
         this.delegate = delegate;
+        this.executables = new WrappedExecutableValidator(delegate.forExecutables());
     }
 
     @Override
@@ -59,7 +65,13 @@ public class WrappedValidator implements Validator {
 
     @Override
     public BeanDescriptor getConstraintsForClass(Class<?> aClass) {
-        return delegate.getConstraintsForClass(aClass);
+        final ClassLoader original = Thread.currentThread().getContextClassLoader();
+        try {
+            Thread.currentThread().setContextClassLoader(this.getClass().getClassLoader());
+            return delegate.getConstraintsForClass(aClass);
+        } finally {
+            Thread.currentThread().setContextClassLoader(original);
+        }
     }
 
     @Override
@@ -69,6 +81,6 @@ public class WrappedValidator implements Validator {
 
     @Override
     public ExecutableValidator forExecutables() {
-        return new WrappedExecutableValidator(delegate.forExecutables());
+        return executables;
     }
 }
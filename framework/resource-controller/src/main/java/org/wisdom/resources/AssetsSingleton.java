@@ -34,6 +34,7 @@ import org.wisdom.api.http.*;
 import org.wisdom.api.templates.Template;
 
 import java.util.*;
+import java.util.function.Supplier;
 
 /**
  * Implementation of the main asset control point.
@@ -71,9 +72,11 @@ public class AssetsSingleton extends DefaultController implements Assets {
             all();
         }
 
-        return Negotiation.accept(ImmutableMap.of(
-                MimeTypes.HTML, ok(render(template, "assets", cache)),
-                MimeTypes.JSON, ok(cache).json()
+        // Only the selected variant is built, so JSON requests do not render the template.
+        final Collection<Asset<?>> assets = cache;
+        return Negotiation.acceptLazily(ImmutableMap.<String, Supplier<Result>>of(
+                MimeTypes.HTML, () -> ok(render(template, "assets", assets)),
+                MimeTypes.JSON, () -> ok(assets).json()
         ));
     }
 
@@ -0,0 +1,158 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2015 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.resources;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.wisdom.api.Controller;
+import org.wisdom.api.asset.Asset;
+import org.wisdom.api.asset.AssetProvider;
+import org.wisdom.api.asset.DefaultAsset;
+import org.wisdom.api.bodies.RenderableString;
+import org.wisdom.api.configuration.ApplicationConfiguration;
+import org.wisdom.api.http.*;
+import org.wisdom.api.templates.Template;
+import org.wisdom.test.parents.FakeContext;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures the asset index endpoint ({@literal /assets}) requested in JSON, with 500 assets. The result is compared
+ * with the negotiation building all the variants, as done before, where the HTML page is rendered for nothing.
+ */
+public class AssetsIndexBenchmarkTest {
+
+    private static final int WARMUP = 2000;
+    private static final int ITERATIONS = 10000;
+
+    private AssetsSingleton assets;
+
+    @Before
+    public void setUp() {
+        final List<Asset<?>> list = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            list.add(new DefaultAsset<>("/assets/libs/library-" + i + ".js", null, "bundle " + i));
+        }
+        AssetProvider provider = mock(AssetProvider.class);
+        when(provider.assets()).thenReturn(list);
+
+        assets = new AssetsSingleton();
+        assets.providers = new AssetProvider[]{provider};
+        assets.configuration = mock(ApplicationConfiguration.class);
+        assets.template = new ListTemplate();
+
+        Context.CONTEXT.set(new FakeContext().setHeader(HeaderNames.ACCEPT, MimeTypes.JSON));
+    }
+
+    @After
+    public void tearDown() {
+        Context.CONTEXT.remove();
+    }
+
+    @Test
+    public void testJsonIndex() {
+        Result result = assets.index();
+        assertThat(result.getContentType()).isEqualTo(MimeTypes.JSON);
+        assertThat((Collection<?>) result.getRenderable().content()).hasSize(500);
+        assertThat(eagerIndex().getContentType()).isEqualTo(MimeTypes.JSON);
+
+        for (int i = 0; i < WARMUP; i++) {
+            assets.index();
+            eagerIndex();
+        }
+        long begin = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            assets.index();
+        }
+        long lazy = System.nanoTime() - begin;
+        begin = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            eagerIndex();
+        }
+        long eager = System.nanoTime() - begin;
+
+        System.out.println("Asset index in JSON - all variants built: " + eager / ITERATIONS + " ns, selected variant "
+                + "only: " + lazy / ITERATIONS + " ns");
+        assertThat(lazy).isLessThan(eager);
+    }
+
+    /**
+     * The asset index as implemented before, building the HTML and the JSON results.
+     */
+    private Result eagerIndex() {
+        Collection<Asset<?>> list = assets.assets(true);
+        return Negotiation.accept(ImmutableMap.of(
+                MimeTypes.HTML, Results.ok(assets.render(assets.template, "assets", list)),
+                MimeTypes.JSON, Results.ok(list).json()
+        ));
+    }
+
+    /**
+     * A template rendering the asset list as a HTML table, standing in for the real template.
+     */
+    private static class ListTemplate implements Template {
+
+        @Override
+        public String name() {
+            return "assets/list";
+        }
+
+        @Override
+        public String fullName() {
+            return "assets/list.thl.html";
+        }
+
+        @Override
+        public String engine() {
+            return "test";
+        }
+
+        @Override
+        public String mimetype() {
+            return MimeTypes.HTML;
+        }
+
+        @Override
+        public Renderable render(Controller controller, Map<String, Object> variables) {
+            StringBuilder builder = new StringBuilder("<html><body><table>");
+            for (Object object : (Collection<?>) variables.get("assets")) {
+                Asset<?> asset = (Asset<?>) object;
+                builder.append("<tr><td><a href=\"").append(asset.getPath()).append("\">")
+                        .append(asset.getPath()).append("</a></td><td>").append(asset.getSource())
+                        .append("</td></tr>");
+            }
+            return new RenderableString(builder.append("</table></body></html>").toString(), MimeTypes.HTML);
+        }
+
+        @Override
+        public Renderable render(Controller controller) {
+            return render(controller, ImmutableMap.<String, Object>of());
+        }
+    }
+}
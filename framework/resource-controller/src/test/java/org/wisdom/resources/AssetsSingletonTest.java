@@ -0,0 +1,95 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2015 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.resources;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.wisdom.api.Controller;
+import org.wisdom.api.asset.Asset;
+import org.wisdom.api.asset.AssetProvider;
+import org.wisdom.api.asset.DefaultAsset;
+import org.wisdom.api.bodies.RenderableString;
+import org.wisdom.api.configuration.ApplicationConfiguration;
+import org.wisdom.api.http.Context;
+import org.wisdom.api.http.HeaderNames;
+import org.wisdom.api.http.MimeTypes;
+import org.wisdom.api.http.Result;
+import org.wisdom.api.templates.Template;
+import org.wisdom.test.parents.FakeContext;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyMapOf;
+import static org.mockito.Mockito.*;
+
+/**
+ * Checks the asset index ({@literal /assets}).
+ */
+public class AssetsSingletonTest {
+
+    private AssetsSingleton assets;
+    private Template template;
+
+    @Before
+    public void setUp() {
+        final List<Asset<?>> list = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            list.add(new DefaultAsset<>("/assets/libs/library-" + i + ".js", null, "bundle " + i));
+        }
+        AssetProvider provider = mock(AssetProvider.class);
+        when(provider.assets()).thenReturn(list);
+
+        template = mock(Template.class);
+        when(template.render(any(Controller.class), anyMapOf(String.class, Object.class)))
+                .thenReturn(new RenderableString("<html></html>", MimeTypes.HTML));
+
+        assets = new AssetsSingleton();
+        assets.providers = new AssetProvider[]{provider};
+        assets.configuration = mock(ApplicationConfiguration.class);
+        assets.template = template;
+    }
+
+    @After
+    public void tearDown() {
+        Context.CONTEXT.remove();
+    }
+
+    @Test
+    public void testJsonIndexDoesNotRenderTheTemplate() {
+        Context.CONTEXT.set(new FakeContext().setHeader(HeaderNames.ACCEPT, MimeTypes.JSON));
+        Result result = assets.index();
+        assertThat(result.getContentType()).isEqualTo(MimeTypes.JSON);
+        assertThat((Collection<?>) result.getRenderable().content()).hasSize(3);
+        verify(template, never()).render(any(Controller.class), anyMapOf(String.class, Object.class));
+    }
+
+    @Test
+    public void testHtmlIndex() {
+        Context.CONTEXT.set(new FakeContext().setHeader(HeaderNames.ACCEPT, MimeTypes.HTML));
+        Result result = assets.index();
+        assertThat(result.getRenderable().content()).isEqualTo("<html></html>");
+        verify(template).render(any(Controller.class), anyMapOf(String.class, Object.class));
+    }
+}